@@ -0,0 +1,82 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.yahoo.document.ArrayDataType;
+import com.yahoo.document.DataType;
+import com.yahoo.document.DocumentOperation;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.document.Field;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.text.Utf8;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing of document puts in the JSON feed format.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonReaderBenchmark {
+
+    static final String documentId = "id:test:music::benchmark";
+
+    private final JsonFactory parserFactory = new JsonFactory();
+    private DocumentTypeManager types;
+    private byte[] put;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        types = createTypes();
+        StringBuilder json = new StringBuilder();
+        json.append("{\"fields\": {")
+            .append("\"title\": \"Like a Prayer\", ")
+            .append("\"artist\": \"Madonna\", ")
+            .append("\"year\": 1989, ")
+            .append("\"body\": \"").append("Some text which is typical of a longer field in a document. ".repeat(20)).append("\", ")
+            .append("\"tags\": [\"pop\", \"dance\", \"eighties\", \"classic\"], ")
+            .append("\"embedding\": { \"values\": [");
+        for (int i = 0; i < 384; i++)
+            json.append(i == 0 ? "" : ", ").append(i / 384.0);
+        json.append("] }")
+            .append("}}");
+        put = Utf8.toBytes(json.toString());
+    }
+
+    @Benchmark
+    public DocumentOperation parsePut() {
+        JsonReader reader = new JsonReader(types, new ByteArrayInputStream(put), parserFactory);
+        return reader.readSingleDocumentStreaming(DocumentOperationType.PUT, documentId).operation();
+    }
+
+    static DocumentTypeManager createTypes() {
+        DocumentTypeManager types = new DocumentTypeManager();
+        DocumentType music = new DocumentType("music");
+        music.addField(new Field("title", DataType.STRING));
+        music.addField(new Field("artist", DataType.STRING));
+        music.addField(new Field("year", DataType.INT));
+        music.addField(new Field("body", DataType.STRING));
+        music.addField(new Field("tags", new ArrayDataType(DataType.STRING)));
+        music.addField(new Field("embedding", DataType.getTensor(TensorType.fromSpec("tensor<float>(x[384])"))));
+        types.registerDocumentType(music);
+        return types;
+    }
+
+}
@@ -0,0 +1,89 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.serialization;
+
+import com.yahoo.document.ArrayDataType;
+import com.yahoo.document.DataType;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.document.Field;
+import com.yahoo.document.datatypes.Array;
+import com.yahoo.document.datatypes.IntegerFieldValue;
+import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.document.datatypes.TensorFieldValue;
+import com.yahoo.io.GrowableByteBuffer;
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.TensorType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures binary serialization and deserialization of documents, as done when documents are sent to content nodes.
+ * The head serializer is the current version 6 format, see {@link VespaDocumentSerializer6}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DocumentSerializationBenchmark {
+
+    private final DocumentTypeManager types = new DocumentTypeManager();
+    private Document document;
+    private byte[] serialized;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        TensorType embeddingType = TensorType.fromSpec("tensor<float>(x[384])");
+        DocumentType music = new DocumentType("music");
+        music.addField(new Field("title", DataType.STRING));
+        music.addField(new Field("year", DataType.INT));
+        music.addField(new Field("body", DataType.STRING));
+        music.addField(new Field("tags", new ArrayDataType(DataType.STRING)));
+        music.addField(new Field("embedding", DataType.getTensor(embeddingType)));
+        types.registerDocumentType(music);
+
+        document = new Document(music, "id:test:music::benchmark");
+        document.setFieldValue("title", new StringFieldValue("Like a Prayer"));
+        document.setFieldValue("year", new IntegerFieldValue(1989));
+        document.setFieldValue("body", new StringFieldValue("Some text which is typical of a longer field in a document. ".repeat(20)));
+        Array<StringFieldValue> tags = new Array<>(new ArrayDataType(DataType.STRING));
+        for (String tag : new String[] { "pop", "dance", "eighties", "classic" })
+            tags.add(new StringFieldValue(tag));
+        document.setFieldValue("tags", tags);
+        float[] embedding = new float[384];
+        for (int i = 0; i < embedding.length; i++)
+            embedding[i] = i / 384.0f;
+        document.setFieldValue("embedding", new TensorFieldValue(IndexedTensor.Builder.of(embeddingType, embedding).build()));
+
+        serialized = serialize();
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        GrowableByteBuffer buffer = new GrowableByteBuffer();
+        DocumentSerializerFactory.createHead(buffer).write(document);
+        buffer.flip();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    @Benchmark
+    public Document deserialize() {
+        return new Document(DocumentDeserializerFactory.createHead(types, GrowableByteBuffer.wrap(serialized)));
+    }
+
+}
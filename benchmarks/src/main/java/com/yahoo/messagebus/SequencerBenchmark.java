@@ -0,0 +1,86 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.messagebus;
+
+import com.yahoo.messagebus.test.SimpleMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures throughput of sequenced sends through a {@link Sequencer} shared by many threads,
+ * where each message is replied to immediately by the underlying sender.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class SequencerBenchmark {
+
+    /** Number of distinct sequencing ids; few ids means messages are frequently queued behind each other. */
+    @Param({"16", "1000000"})
+    public int ids;
+
+    private final AtomicLong counter = new AtomicLong();
+    private Sequencer sequencer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        sequencer = new Sequencer(message -> {
+            Reply reply = new EmptyReply();
+            reply.swapState(message);
+            reply.setMessage(message);
+            reply.popHandler().handleReply(reply);
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sequencer.destroy();
+    }
+
+    @Benchmark
+    public void sendAndReply() {
+        Message message = new SequencedMessage(counter.getAndIncrement() % ids);
+        message.pushHandler(reply -> { });
+        sequencer.handleMessage(message);
+    }
+
+    private static class SequencedMessage extends SimpleMessage {
+
+        private final long seqId;
+
+        SequencedMessage(long seqId) {
+            super("benchmark");
+            this.seqId = seqId;
+        }
+
+        @Override
+        public boolean hasSequenceId() {
+            return true;
+        }
+
+        @Override
+        public long getSequenceId() {
+            return seqId;
+        }
+
+    }
+
+}
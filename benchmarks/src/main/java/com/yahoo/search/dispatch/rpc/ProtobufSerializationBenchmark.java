@@ -0,0 +1,68 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch.rpc;
+
+import ai.vespa.searchlib.searchprotocol.protobuf.SearchProtocol;
+import com.google.protobuf.ByteString;
+import com.yahoo.container.QrSearchersConfig;
+import com.yahoo.search.Query;
+import com.yahoo.search.dispatch.InvokerResult;
+import com.yahoo.search.dispatch.searchcluster.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures encoding of search requests and decoding of search replies in the protocol used to talk to content nodes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtobufSerializationBenchmark {
+
+    @Param({"10", "400"})
+    public int hitCount;
+
+    private final QrSearchersConfig config = new QrSearchersConfig.Builder().build();
+    private final Node node = new Node("test", 1, "host", 0, false);
+    private Query query;
+    private byte[] reply;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        query = new Query("?query=title:madonna%20artist:%22like%20a%20prayer%22&ranking=hybrid" +
+                          "&ranking.features.query(w)=0.5&ranking.features.query(q)=[1,2,3,4,5,6,7,8]");
+        SearchProtocol.SearchReply.Builder builder = SearchProtocol.SearchReply.newBuilder();
+        builder.setTotalHitCount(hitCount * 10L);
+        builder.setCoverageDocs(1000).setActiveDocs(1000).setTargetActiveDocs(1000);
+        for (int i = 0; i < hitCount; i++) {
+            byte[] gid = { 'a', 'a', 'a', 'a', 'a', 'a', 'a', 'a', (byte)(i >> 24), (byte)(i >> 16), (byte)(i >> 8), (byte)i };
+            builder.addHits(SearchProtocol.Hit.newBuilder().setGlobalId(ByteString.copyFrom(gid)).setRelevance(hitCount - i));
+        }
+        reply = builder.build().toByteArray();
+    }
+
+    @Benchmark
+    public byte[] encodeSearchRequest() {
+        return ProtobufSerialization.serializeSearchRequest(query, hitCount, "node", 1.0, 0.5, config);
+    }
+
+    @Benchmark
+    public InvokerResult decodeSearchReply() throws Exception {
+        return ProtobufSerialization.convertToResult(query, SearchProtocol.SearchReply.parseFrom(reply), null, node);
+    }
+
+}
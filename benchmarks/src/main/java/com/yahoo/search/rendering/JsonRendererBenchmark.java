@@ -0,0 +1,85 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.rendering;
+
+import com.yahoo.concurrent.ThreadFactoryFactory;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.result.Hit;
+import com.yahoo.search.searchchain.Execution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rendering of a search result with the default JSON renderer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonRendererBenchmark {
+
+    @Param({"10", "100"})
+    public int hitCount;
+
+    private ExecutorService executor;
+    private JsonRenderer blueprint;
+    private Result result;
+    private ByteArrayOutputStream out;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        executor = Executors.newSingleThreadExecutor(ThreadFactoryFactory.getDaemonThreadFactory("benchmark-rendering"));
+        blueprint = new JsonRenderer(executor);
+        out = new ByteArrayOutputStream(hitCount * 512);
+    }
+
+    /** Rendering closes the result, so a new one is needed for each invocation. */
+    @Setup(Level.Invocation)
+    public void createResult() {
+        result = new Result(new Query("?query=benchmark"));
+        result.setTotalHitCount(hitCount * 10L);
+        for (int i = 0; i < hitCount; i++) {
+            Hit hit = new Hit("id:test:music::" + i, 1.0 / (i + 1));
+            hit.setField("title", "A title of hit number " + i);
+            hit.setField("year", 1970 + i);
+            hit.setField("price", 9.99 * i);
+            hit.setField("body", "Some longer text which is typical of the body field of a document, number " + i);
+            result.hits().add(hit);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        blueprint.deconstruct();
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public int render() throws Exception {
+        JsonRenderer renderer = (JsonRenderer) blueprint.clone();
+        renderer.init();
+        out.reset();
+        renderer.renderResponse(out, result, new Execution(Execution.Context.createContextStub()), null).get();
+        renderer.deconstruct();
+        return out.size();
+    }
+
+}
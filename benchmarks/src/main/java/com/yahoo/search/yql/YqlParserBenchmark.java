@@ -0,0 +1,56 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.yql;
+
+import com.yahoo.search.query.QueryTree;
+import com.yahoo.search.query.parser.Parsable;
+import com.yahoo.search.query.parser.ParserEnvironment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing of YQL queries of varying complexity.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class YqlParserBenchmark {
+
+    private static final Map<String, String> queries = Map.of(
+            "simple", "select * from sources * where title contains \"madonna\"",
+            "boolean", "select * from music where (title contains \"madonna\" or artist contains phrase(\"like\", \"a\", \"prayer\")) " +
+                       "and year > 1980 and !(genre contains \"country\") order by year desc limit 10 offset 20",
+            "operators", "select * from sources * where ({targetHits: 100}nearestNeighbor(embedding, q)) or " +
+                         "weightedSet(tags, {\"a\":1, \"b\":2, \"c\":3}) or rank(body contains \"x\", body contains \"y\")");
+
+    @Param({"simple", "boolean", "operators"})
+    public String query;
+
+    private String yql;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        yql = queries.get(query);
+    }
+
+    @Benchmark
+    public QueryTree parse() {
+        return new YqlParser(new ParserEnvironment()).parse(new Parsable().setQuery(yql));
+    }
+
+}
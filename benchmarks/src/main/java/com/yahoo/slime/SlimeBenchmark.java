@@ -0,0 +1,69 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.slime;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures encoding and decoding of Slime in the binary and JSON formats.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlimeBenchmark {
+
+    private Slime slime;
+    private byte[] binary;
+    private byte[] json;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        slime = new Slime();
+        Cursor root = slime.setObject();
+        root.setString("id", "id:test:music::benchmark");
+        root.setDouble("relevance", 0.123456789);
+        Cursor hits = root.setArray("children");
+        for (int i = 0; i < 100; i++) {
+            Cursor hit = hits.addObject();
+            hit.setString("title", "A title of hit number " + i);
+            hit.setLong("year", 1970 + i);
+            hit.setDouble("price", 9.99 * i);
+            hit.setBool("available", i % 2 == 0);
+            Cursor tags = hit.setArray("tags");
+            tags.addString("pop");
+            tags.addString("dance");
+        }
+        binary = BinaryFormat.encode(slime);
+        json = JsonFormat.toJsonBytes(slime);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return BinaryFormat.encode(slime);
+    }
+
+    @Benchmark
+    public Slime decodeBinary() {
+        return BinaryFormat.decode(binary);
+    }
+
+    @Benchmark
+    public Slime decodeJson() {
+        return new JsonDecoder().decode(new Slime(), json);
+    }
+
+}
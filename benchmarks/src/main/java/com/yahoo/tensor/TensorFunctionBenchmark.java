@@ -0,0 +1,86 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor;
+
+import com.yahoo.tensor.functions.Reduce;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the join and reduce tensor functions over dense and sparse tensors,
+ * as used when evaluating ranking expressions in the container.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TensorFunctionBenchmark {
+
+    @Param({"384"})
+    public int size;
+
+    private Tensor denseVector1, denseVector2;
+    private Tensor denseMatrix;
+    private Tensor sparse1, sparse2;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        denseVector1 = dense(random, "tensor<float>(x[" + size + "])", size);
+        denseVector2 = dense(random, "tensor<float>(x[" + size + "])", size);
+        denseMatrix = dense(random, "tensor<float>(d0[16],x[" + size + "])", 16 * size);
+        sparse1 = sparse(random, "tensor(key{})");
+        sparse2 = sparse(random, "tensor(key{})");
+    }
+
+    /** Dot product: join of vectors with equal dimensions followed by a full reduce. */
+    @Benchmark
+    public Tensor denseDotProduct() {
+        return denseVector1.join(denseVector2, (a, b) -> a * b).reduce(Reduce.Aggregator.sum);
+    }
+
+    /** Matrix-vector product: join of a matrix and a vector followed by a reduce over the shared dimension. */
+    @Benchmark
+    public Tensor denseMatrixProduct() {
+        return denseMatrix.join(denseVector1, (a, b) -> a * b).reduce(Reduce.Aggregator.sum, "x");
+    }
+
+    @Benchmark
+    public Tensor denseReduceMax() {
+        return denseMatrix.reduce(Reduce.Aggregator.max, "d0");
+    }
+
+    @Benchmark
+    public Tensor sparseDotProduct() {
+        return sparse1.join(sparse2, (a, b) -> a * b).reduce(Reduce.Aggregator.sum);
+    }
+
+    private Tensor dense(Random random, String typeSpec, int cellCount) {
+        float[] values = new float[cellCount];
+        for (int i = 0; i < cellCount; i++)
+            values[i] = random.nextFloat();
+        return IndexedTensor.Builder.of(TensorType.fromSpec(typeSpec), values).build();
+    }
+
+    private Tensor sparse(Random random, String typeSpec) {
+        Tensor.Builder builder = Tensor.Builder.of(TensorType.fromSpec(typeSpec));
+        for (int i = 0; i < size; i++)
+            builder.cell().label("key", String.valueOf(i)).value(random.nextDouble());
+        return builder.build();
+    }
+
+}
@@ -17,7 +17,8 @@ public class DispatchTuning {
         LATENCY_AMORTIZED_OVER_REQUESTS, // same as ADAPTIVE
         LATENCY_AMORTIZED_OVER_TIME, // not documented
         BEST_OF_RANDOM_2,
-        ADAPTIVE
+        ADAPTIVE,
+        QUEUE_AWARE
     }
 
     private final Integer maxHitsPerPartition;
@@ -101,6 +102,7 @@ public class DispatchTuning {
                 // TODO: Undocumented, probably not in use
                 case "latency-amortized-over-time" -> DispatchPolicy.LATENCY_AMORTIZED_OVER_TIME;
                 case "best-of-random-2" -> DispatchPolicy.BEST_OF_RANDOM_2;
+                case "queue-aware" -> DispatchPolicy.QUEUE_AWARE;
                 default -> throw new IllegalArgumentException("Unknown dispatch policy '" + policy + "'");
             };
         }
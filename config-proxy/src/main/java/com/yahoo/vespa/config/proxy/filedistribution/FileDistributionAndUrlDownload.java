@@ -19,9 +19,10 @@ public class FileDistributionAndUrlDownload {
     private final FileReferencesAndDownloadsMaintainer maintainer;
 
     public FileDistributionAndUrlDownload(Supervisor supervisor, ConfigSourceSet source) {
-        fileDistributionRpcServer = new FileDistributionRpcServer(supervisor, createDownloader(supervisor, source));
+        FileDownloader downloader = createDownloader(supervisor, source);
+        fileDistributionRpcServer = new FileDistributionRpcServer(supervisor, downloader);
         urlDownloadRpcServer = new UrlDownloadRpcServer(supervisor);
-        maintainer = new FileReferencesAndDownloadsMaintainer();
+        maintainer = new FileReferencesAndDownloadsMaintainer(downloader::deleted);
     }
 
     public void close() {
@@ -2,6 +2,7 @@
 package com.yahoo.vespa.config.proxy.filedistribution;
 
 import com.yahoo.concurrent.DaemonThreadFactory;
+import com.yahoo.config.FileReference;
 import com.yahoo.io.IOUtils;
 import com.yahoo.vespa.config.util.ConfigUtils;
 import com.yahoo.vespa.filedistribution.FileDownloader;
@@ -21,6 +22,7 @@ import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -48,10 +50,11 @@ class FileReferencesAndDownloadsMaintainer implements Runnable {
     private final File fileReferencesDownloadDir;
     private final Duration durationToKeepFiles;
     private final int outDatedFilesToKeep;
+    private final Consumer<FileReference> deletedFileReferences;
 
-    FileReferencesAndDownloadsMaintainer() {
+    FileReferencesAndDownloadsMaintainer(Consumer<FileReference> deletedFileReferences) {
         this(defaultFileReferencesDownloadDir, defaultUrlDownloadDir, keepFileReferencesDuration(),
-             outDatedFilesToKeep(), configServers());
+             outDatedFilesToKeep(), configServers(), deletedFileReferences);
     }
 
     FileReferencesAndDownloadsMaintainer(File fileReferencesDownloadDir,
@@ -59,6 +62,19 @@ class FileReferencesAndDownloadsMaintainer implements Runnable {
                                          Duration durationToKeepFiles,
                                          int outdatedFilesToKeep,
                                          List<String> configServers) {
+        this(fileReferencesDownloadDir, urlDownloadDir, durationToKeepFiles, outdatedFilesToKeep, configServers, __ -> { });
+    }
+
+    /**
+     * @param deletedFileReferences called with each file reference deleted from the file references download directory
+     */
+    FileReferencesAndDownloadsMaintainer(File fileReferencesDownloadDir,
+                                         File urlDownloadDir,
+                                         Duration durationToKeepFiles,
+                                         int outdatedFilesToKeep,
+                                         List<String> configServers,
+                                         Consumer<FileReference> deletedFileReferences) {
+        this.deletedFileReferences = deletedFileReferences;
         this.fileReferencesDownloadDir = fileReferencesDownloadDir;
         this.urlDownloadDir = urlDownloadDir;
         this.durationToKeepFiles = durationToKeepFiles;
@@ -78,8 +94,8 @@ class FileReferencesAndDownloadsMaintainer implements Runnable {
         if (executor.isEmpty()) return;
 
         try {
-            deleteUnusedFiles(fileReferencesDownloadDir);
-            deleteUnusedFiles(urlDownloadDir);
+            deleteUnusedFiles(fileReferencesDownloadDir, deletedFileReferences);
+            deleteUnusedFiles(urlDownloadDir, __ -> { });
         } catch (Throwable t) {
             log.log(Level.WARNING, "Deleting unused files failed. ", t);
         }
@@ -97,13 +113,15 @@ class FileReferencesAndDownloadsMaintainer implements Runnable {
         });
     }
 
-    private void deleteUnusedFiles(File directory) {
+    private void deleteUnusedFiles(File directory, Consumer<FileReference> deleted) {
 
         File[] files = directory.listFiles();
         if (files == null) return;
 
         List<File> filesToDelete = filesThatCanBeDeleted(files);
         filesToDelete.forEach(fileReference -> {
+            // Tell about the deletion also when it fails, as parts of the file reference may have been deleted
+            deleted.accept(new FileReference(fileReference.getName()));
             if (IOUtils.recursiveDeleteDir(fileReference))
                 log.log(Level.FINE, "Deleted " + fileReference.getAbsolutePath());
             else
@@ -3,14 +3,17 @@ package com.yahoo.vespa.config.protocol;
 
 import com.yahoo.config.ConfigInstance;
 import com.yahoo.config.subscription.impl.ConfigSubscription;
+import com.yahoo.config.subscription.impl.GenericJRTConfigSubscription;
 import com.yahoo.config.subscription.impl.JRTConfigSubscription;
 import com.yahoo.jrt.Request;
 import com.yahoo.jrt.StringValue;
+import com.yahoo.slime.Inspector;
 import com.yahoo.slime.JsonFormat;
 import com.yahoo.slime.Slime;
 import com.yahoo.text.Utf8;
 import com.yahoo.text.Utf8Array;
 import com.yahoo.vespa.config.ConfigKey;
+import com.yahoo.vespa.config.ErrorCode;
 import com.yahoo.vespa.config.JRTMethods;
 import com.yahoo.vespa.config.PayloadChecksum;
 import com.yahoo.vespa.config.PayloadChecksums;
@@ -40,6 +43,12 @@ public final class JRTClientConfigRequestV3 implements JRTClientConfigRequest {
     protected final SlimeRequestData requestData;
     protected final Request request;
     private final SlimeResponseData responseData;
+    /** Whether this, and the requests following it, accept patches instead of full payloads */
+    private final boolean acceptsPatches;
+    /** The payload matching the config checksums of this, which patches are applied to, or null if unknown */
+    private final Payload patchBase;
+    private Payload patchedPayload = null;
+    private boolean patchFailed = false;
 
     protected JRTClientConfigRequestV3(ConfigKey<?> key,
                                        String hostname,
@@ -50,6 +59,25 @@ public final class JRTClientConfigRequestV3 implements JRTClientConfigRequest {
                                        Trace trace,
                                        CompressionType compressionType,
                                        Optional<VespaVersion> vespaVersion) {
+        this(key, hostname, defSchema, payloadChecksums, generation, timeout, trace, compressionType, vespaVersion, false, null);
+    }
+
+    private JRTClientConfigRequestV3(ConfigKey<?> key,
+                                     String hostname,
+                                     DefContent defSchema,
+                                     PayloadChecksums payloadChecksums,
+                                     long generation,
+                                     long timeout,
+                                     Trace trace,
+                                     CompressionType compressionType,
+                                     Optional<VespaVersion> vespaVersion,
+                                     boolean acceptsPatches,
+                                     Payload patchBase) {
+        // Patches can only be accepted when we have the payload they apply to. With no payload, accepting them
+        // lets the server remember the payload it sends, so it can send a patch to it the next time
+        PayloadChecksum xxhash64 = payloadChecksums.getForType(XXHASH64);
+        boolean hasPayload = xxhash64 != null && ! xxhash64.isEmpty();
+        boolean acceptPatch = acceptsPatches && (patchBase != null || ! hasPayload);
         Slime data = SlimeRequestData.encodeRequest(key,
                                                     hostname,
                                                     defSchema,
@@ -59,13 +87,16 @@ public final class JRTClientConfigRequestV3 implements JRTClientConfigRequest {
                                                     trace,
                                                     getProtocolVersion(),
                                                     compressionType,
-                                                    vespaVersion);
+                                                    vespaVersion,
+                                                    acceptPatch);
         Request jrtReq = new Request(getJRTMethodName());
         jrtReq.parameters().add(new StringValue(encodeAsUtf8String(data)));
 
         this.requestData = new SlimeRequestData(jrtReq, data);
         this.responseData = new SlimeResponseData(jrtReq);
         this.request = jrtReq;
+        this.acceptsPatches = acceptsPatches;
+        this.patchBase = acceptPatch && hasPayload ? patchBase : null;
     }
 
     protected static String encodeAsUtf8String(Slime data) {
@@ -88,6 +119,8 @@ public final class JRTClientConfigRequestV3 implements JRTClientConfigRequest {
 
     @Override
     public Payload getNewPayload() {
+        if (patchedPayload != null) return patchedPayload;
+
         CompressionInfo compressionInfo = getResponseData().getCompressionInfo();
         Utf8Array payload = new Utf8Array(request.returnValues().get(1).asData());
         return Payload.from(payload, compressionInfo);
@@ -108,7 +141,16 @@ public final class JRTClientConfigRequestV3 implements JRTClientConfigRequest {
                 timeout,
                 Trace.createNew(),
                 requestData.getCompressionType(),
-                requestData.getVespaVersion());
+                requestData.getVespaVersion(),
+                acceptsPatches,
+                nextPatchBase());
+    }
+
+    /** Returns the payload matching the config checksums of the next request, if known */
+    private Payload nextPatchBase() {
+        if ( ! acceptsPatches || patchFailed) return null;
+        if (isError() || ! hasUpdatedConfig()) return patchBase;
+        return getNewPayload();
     }
 
     public static <T extends ConfigInstance> JRTClientConfigRequest createFromSub(JRTConfigSubscription<T> sub,
@@ -116,15 +158,20 @@ public final class JRTClientConfigRequestV3 implements JRTClientConfigRequest {
                                                                                   CompressionType compressionType,
                                                                                   Optional<VespaVersion> vespaVersion) {
         ConfigSubscription.ConfigState<T> configState = sub.getConfigState();
-        return createWithParams(sub.getKey(),
-                                sub.getDefContent(),
-                                ConfigUtils.getCanonicalHostName(),
-                                configState.getChecksums(),
-                                configState.getGeneration(),
-                                sub.timingValues().getSubscribeTimeout(),
-                                trace,
-                                compressionType,
-                                vespaVersion);
+        // The config proxy keeps the payloads it gets, so it may as well receive patches to these
+        boolean acceptsPatches = sub instanceof GenericJRTConfigSubscription;
+        Payload patchBase = configState.getConfig() instanceof RawConfig rawConfig ? rawConfig.getPayload() : null;
+        return new JRTClientConfigRequestV3(sub.getKey(),
+                                            ConfigUtils.getCanonicalHostName(),
+                                            sub.getDefContent(),
+                                            configState.getChecksums(),
+                                            configState.getGeneration(),
+                                            sub.timingValues().getSubscribeTimeout(),
+                                            trace,
+                                            compressionType,
+                                            vespaVersion,
+                                            acceptsPatches,
+                                            patchBase);
     }
 
     public static JRTClientConfigRequest createFromRaw(RawConfig config,
@@ -291,7 +338,35 @@ public final class JRTClientConfigRequestV3 implements JRTClientConfigRequest {
             log.warning("Invalid return types for config response: " + errorMessage());
             return false;
         }
-        return true;
+        Inspector patch = responseData.getPatch();
+        return ! patch.valid() || applyPatch(patch);
+    }
+
+    /** Applies the patch in the response to the payload of this, or sets an error on this if this fails */
+    private boolean applyPatch(Inspector patchField) {
+        try {
+            if (patchBase == null)
+                throw new IllegalArgumentException("no payload to apply it to");
+
+            byte[] replacement = PayloadPatch.toBytes(Payload.from(new Utf8Array(request.returnValues().get(1).asData()),
+                                                                   responseData.getCompressionInfo())
+                                                             .withCompression(CompressionType.UNCOMPRESSED)
+                                                             .getData());
+            byte[] base = PayloadPatch.toBytes(patchBase.withCompression(CompressionType.UNCOMPRESSED).getData());
+            Payload patched = Payload.from(new Utf8Array(PayloadPatch.fromSlime(patchField, replacement).applyTo(base)));
+            PayloadChecksum expected = getNewChecksums().getForType(XXHASH64);
+            if (expected == null || ! expected.equals(PayloadChecksum.fromPayload(patched, XXHASH64)))
+                throw new IllegalArgumentException("patched payload does not match checksum " + expected);
+
+            patchedPayload = patched.withCompression(requestData.getCompressionType());
+            return true;
+        }
+        catch (IllegalArgumentException e) {
+            patchFailed = true;
+            request.setError(ErrorCode.INCONSISTENT_CONFIG_MD5, "Failed applying config patch: " + e.getMessage());
+            log.log(Level.FINE, () -> "Failed applying config patch for " + getConfigKey() + ", will request full payload: " + e.getMessage());
+            return false;
+        }
     }
 
     @Override
@@ -39,6 +39,17 @@ public interface JRTServerConfigRequest extends JRTConfigRequest, GetConfigReque
      */
     void addOkResponse(Payload payload, long generation, boolean applyOnRestart, PayloadChecksums payloadChecksums);
 
+    /**
+     * Same as {@link #addOkResponse(Payload, long, boolean, PayloadChecksums)}, but responds with a patch to the
+     * payload the client has instead, if the client accepts this, and the given history holds that payload.
+     *
+     * @param history recently served payloads, to which the given payload is added if the client accepts patches
+     */
+    default void addOkResponse(Payload payload, long generation, boolean applyOnRestart, PayloadChecksums payloadChecksums,
+                               PayloadHistory history) {
+        addOkResponse(payload, generation, applyOnRestart, payloadChecksums);
+    }
+
     /**
      * Returns the md5 of the config definition in the request.
      *
@@ -10,6 +10,7 @@ import com.yahoo.jrt.Value;
 import com.yahoo.text.Utf8Array;
 import com.yahoo.vespa.config.ConfigKey;
 import com.yahoo.vespa.config.ErrorCode;
+import com.yahoo.vespa.config.PayloadChecksum;
 import com.yahoo.vespa.config.PayloadChecksums;
 
 import java.io.ByteArrayOutputStream;
@@ -27,6 +28,9 @@ import static com.yahoo.vespa.config.PayloadChecksum.Type.XXHASH64;
  * * A metadata field containing json data describing config generation, md5 and compression info
  * * A data field containing compressed or uncompressed json config payload
  *
+ * If the client sets "acceptPatch" in the request, the data field may instead hold the replacement part of a patch
+ * to the payload with the config xxhash64 in the request, with the rest of the patch in the "patch" metadata field.
+ *
  * The implementation of addOkResponse is optimized for doing as little copying of payload data as possible, ensuring
  * that we get a lower memory footprint.
  *
@@ -71,8 +75,27 @@ public class JRTServerConfigRequestV3 implements JRTServerConfigRequest {
 
     @Override
     public void addOkResponse(Payload payload, long generation, boolean applyOnRestart, PayloadChecksums checksums) {
+        addOkResponse(payload, generation, applyOnRestart, checksums, Optional.empty());
+    }
+
+    @Override
+    public void addOkResponse(Payload payload, long generation, boolean applyOnRestart, PayloadChecksums checksums,
+                              PayloadHistory history) {
+        PayloadChecksum current = getRequestConfigChecksums().getForType(XXHASH64);
+        PayloadChecksum next = checksums.getForType(XXHASH64);
+        Optional<PayloadPatch> patch = requestData.acceptsPatch() && current != null && next != null
+                                       ? history.patch(current, payload, next)
+                                       : Optional.empty();
+        addOkResponse(payload, generation, applyOnRestart, checksums, patch);
+    }
+
+    private void addOkResponse(Payload payload, long generation, boolean applyOnRestart, PayloadChecksums checksums,
+                               Optional<PayloadPatch> patch) {
         this.applyOnRestart = applyOnRestart;
-        Payload responsePayload = payload.withCompression(getCompressionType());
+        Payload responsePayload = patch.map(p -> Payload.from(new Utf8Array(p.replacement()),
+                                                              CompressionInfo.create(CompressionType.UNCOMPRESSED, p.replacement().length)))
+                                       .orElse(payload)
+                                       .withCompression(getCompressionType());
         if (responsePayload == null)
             throw new RuntimeException("Payload is null for ' " + this + ", not able to create response");
 
@@ -88,6 +111,11 @@ public class JRTServerConfigRequestV3 implements JRTServerConfigRequest {
             jsonGenerator.writeObjectFieldStart(SlimeResponseData.RESPONSE_COMPRESSION_INFO);
             responsePayload.getCompressionInfo().serialize(jsonGenerator);
             jsonGenerator.writeEndObject();
+            if (patch.isPresent()) {
+                jsonGenerator.writeObjectFieldStart(SlimeResponseData.RESPONSE_PATCH);
+                patch.get().serialize(jsonGenerator);
+                jsonGenerator.writeEndObject();
+            }
 
             jsonGenerator.writeEndObject();
             jsonGenerator.close();
@@ -0,0 +1,98 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.config.protocol;
+
+import com.yahoo.vespa.config.PayloadChecksum;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.yahoo.vespa.config.PayloadChecksum.Type.XXHASH64;
+
+/**
+ * Recently served config payloads, by their xxhash64 checksum, used to send a patch instead of the full payload
+ * to clients which declare that they have one of these. Only payloads of at least {@link #MIN_PAYLOAD_SIZE}
+ * uncompressed bytes are kept, and the least recently used payloads and patches are evicted when their total
+ * size exceeds the given limit. Patches are kept as well, since many clients typically ask for the same change.
+ *
+ * This is thread safe.
+ */
+public class PayloadHistory {
+
+    /** Smaller payloads are always sent in full. */
+    static final int MIN_PAYLOAD_SIZE = 1 << 16;
+
+    private final long maxBytes;
+    private final Map<PayloadChecksum, byte[]> payloads = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, PayloadPatch> patches = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes = 0;
+
+    public PayloadHistory(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns a patch from the payload with the given checksum, to the given payload with the given checksum,
+     * if the former is held by this, and the patch is less than half the size of the given payload.
+     * The given payload is added to this, if it is not already present.
+     */
+    Optional<PayloadPatch> patch(PayloadChecksum from, Payload payload, PayloadChecksum to) {
+        if (to.type() != XXHASH64 || to.isEmpty() || uncompressedSize(payload) < MIN_PAYLOAD_SIZE)
+            return Optional.empty();
+
+        boolean patchable = from.type() == XXHASH64 && ! from.isEmpty() && ! from.equals(to);
+        String patchKey = from.asString() + ":" + to.asString();
+        byte[] base;
+        byte[] target;
+        synchronized (this) {
+            PayloadPatch patch = patchable ? patches.get(patchKey) : null;
+            if (patch != null) return Optional.of(patch);
+
+            base = patchable ? payloads.get(from) : null;
+            target = payloads.get(to);
+        }
+        if (target == null) {
+            target = PayloadPatch.toBytes(payload.withCompression(CompressionType.UNCOMPRESSED).getData());
+            add(to, target);
+        }
+        if (base == null) return Optional.empty();
+
+        PayloadPatch patch = PayloadPatch.between(base, target);
+        if (2L * patch.replacement().length >= target.length) return Optional.empty();
+
+        synchronized (this) {
+            if (patches.put(patchKey, patch) == null) bytes += patch.replacement().length;
+            evict();
+        }
+        return Optional.of(patch);
+    }
+
+    private synchronized void add(PayloadChecksum checksum, byte[] payload) {
+        if (payloads.put(checksum, payload) == null) bytes += payload.length;
+        evict();
+    }
+
+    private void evict() {
+        for (Iterator<PayloadPatch> it = patches.values().iterator(); bytes > maxBytes && it.hasNext(); ) {
+            bytes -= it.next().replacement().length;
+            it.remove();
+        }
+        for (Iterator<byte[]> it = payloads.values().iterator(); bytes > maxBytes && it.hasNext(); ) {
+            bytes -= it.next().length;
+            it.remove();
+        }
+    }
+
+    /** Returns the total size of the payloads and patches held by this. */
+    synchronized long bytes() {
+        return bytes;
+    }
+
+    private static int uncompressedSize(Payload payload) {
+        return payload.getCompressionInfo().getCompressionType() == CompressionType.UNCOMPRESSED
+               ? payload.getData().getByteLength()
+               : payload.getCompressionInfo().getUncompressedSize();
+    }
+
+}
@@ -0,0 +1,80 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.config.protocol;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.yahoo.slime.Inspector;
+import com.yahoo.text.AbstractUtf8Array;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A patch which turns one uncompressed config payload into another, by keeping the given number of bytes
+ * at the start and end of the payload it is applied to, and replacing the bytes between these.
+ * Changes to large configs are typically local, e.g., to a single rank profile, so this is enough to
+ * avoid sending most of the payload again.
+ *
+ * The prefix and suffix lengths are sent in the response metadata, while the replacement is sent
+ * as the response payload, compressed as requested by the client.
+ */
+class PayloadPatch {
+
+    private static final String PREFIX = "prefix";
+    private static final String SUFFIX = "suffix";
+
+    private final int prefix;
+    private final int suffix;
+    private final byte[] replacement;
+
+    private PayloadPatch(int prefix, int suffix, byte[] replacement) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.replacement = replacement;
+    }
+
+    /** Returns a patch which turns the given base into the given target. */
+    static PayloadPatch between(byte[] base, byte[] target) {
+        int common = Math.min(base.length, target.length);
+        int prefix = Arrays.mismatch(base, target);
+        if (prefix < 0) prefix = common;
+
+        int suffix = 0;
+        while (suffix < common - prefix && base[base.length - 1 - suffix] == target[target.length - 1 - suffix])
+            suffix++;
+
+        return new PayloadPatch(prefix, suffix, Arrays.copyOfRange(target, prefix, target.length - suffix));
+    }
+
+    static PayloadPatch fromSlime(Inspector field, byte[] replacement) {
+        return new PayloadPatch((int) field.field(PREFIX).asLong(), (int) field.field(SUFFIX).asLong(), replacement);
+    }
+
+    void serialize(JsonGenerator jsonGenerator) throws IOException {
+        jsonGenerator.writeNumberField(PREFIX, prefix);
+        jsonGenerator.writeNumberField(SUFFIX, suffix);
+    }
+
+    /** Returns the result of applying this to the given base, or throws if this can not be applied to it. */
+    byte[] applyTo(byte[] base) {
+        if (prefix < 0 || suffix < 0 || (long) prefix + suffix > base.length)
+            throw new IllegalArgumentException("Patch keeping " + prefix + " leading and " + suffix +
+                                               " trailing bytes can not be applied to payload of " + base.length + " bytes");
+
+        byte[] result = new byte[prefix + replacement.length + suffix];
+        System.arraycopy(base, 0, result, 0, prefix);
+        System.arraycopy(replacement, 0, result, prefix, replacement.length);
+        System.arraycopy(base, base.length - suffix, result, prefix + replacement.length, suffix);
+        return result;
+    }
+
+    byte[] replacement() { return replacement; }
+
+    static byte[] toBytes(AbstractUtf8Array data) {
+        ByteBuffer buffer = data.wrap();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+}
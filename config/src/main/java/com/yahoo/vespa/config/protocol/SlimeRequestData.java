@@ -38,6 +38,7 @@ class SlimeRequestData {
     private static final String REQUEST_DEF_MD5 = "defMD5";
     private static final String REQUEST_COMPRESSION_TYPE = "compressionType";
     private static final String REQUEST_VESPA_VERSION = "vespaVersion";
+    private static final String REQUEST_ACCEPT_PATCH = "acceptPatch";
 
     private final Request request;
     private Slime data = null;
@@ -110,6 +111,21 @@ class SlimeRequestData {
                                long protocolVersion,
                                CompressionType compressionType,
                                Optional<VespaVersion> vespaVersion) {
+        return encodeRequest(key, hostname, defSchema, payloadChecksums, generation, timeout, trace,
+                             protocolVersion, compressionType, vespaVersion, false);
+    }
+
+    static Slime encodeRequest(ConfigKey<?> key,
+                               String hostname,
+                               DefContent defSchema,
+                               PayloadChecksums payloadChecksums,
+                               long generation,
+                               long timeout,
+                               Trace trace,
+                               long protocolVersion,
+                               CompressionType compressionType,
+                               Optional<VespaVersion> vespaVersion,
+                               boolean acceptPatch) {
         Slime data = new Slime();
         Cursor request = data.setObject();
         request.setLong(REQUEST_VERSION, protocolVersion);
@@ -127,6 +143,8 @@ class SlimeRequestData {
         request.setLong(REQUEST_TIMEOUT, timeout);
         request.setString(REQUEST_COMPRESSION_TYPE, compressionType.name());
         vespaVersion.ifPresent(version -> request.setString(REQUEST_VESPA_VERSION, version.toString()));
+        if (acceptPatch)
+            request.setBool(REQUEST_ACCEPT_PATCH, true);
         trace.serialize(request.setObject(REQUEST_TRACE));
         return data;
     }
@@ -145,4 +163,9 @@ class SlimeRequestData {
         return versionString.isEmpty() ? Optional.empty() : Optional.of(VespaVersion.fromString(versionString));
     }
 
+    /** Returns whether the client accepts a patch to the payload with the config checksums in this, instead of a full payload. */
+    boolean acceptsPatch() {
+        return getRequestField(REQUEST_ACCEPT_PATCH).asBool();
+    }
+
 }
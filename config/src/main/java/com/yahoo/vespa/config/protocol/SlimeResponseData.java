@@ -31,6 +31,7 @@ class SlimeResponseData {
     static final String RESPONSE_CONFIG_GENERATION = "generation";
     static final String RESPONSE_APPLY_ON_RESTART = "applyOnRestart";
     static final String RESPONSE_COMPRESSION_INFO = "compressionInfo";
+    static final String RESPONSE_PATCH = "patch";
 
     private final Request request;
     private Slime data = null;
@@ -86,6 +87,11 @@ class SlimeResponseData {
         return CompressionInfo.fromSlime(getResponseField(RESPONSE_COMPRESSION_INFO));
     }
 
+    /** Returns the patch metadata of this response, which is invalid if the response has a full payload. */
+    Inspector getPatch() {
+        return getResponseField(RESPONSE_PATCH);
+    }
+
     boolean getResponseApplyOnRestart() {
         Inspector inspector = getResponseField(RESPONSE_APPLY_ON_RESTART);
         return inspector.valid() && inspector.asBool();
@@ -2,6 +2,7 @@
 package com.yahoo.vespa.config.protocol;
 
 import com.yahoo.config.subscription.ConfigSourceSet;
+import com.yahoo.config.subscription.impl.GenericJRTConfigSubscription;
 import com.yahoo.config.subscription.impl.JRTConfigRequester;
 import com.yahoo.config.subscription.impl.JRTConfigSubscription;
 import com.yahoo.config.subscription.impl.MockConnection;
@@ -15,6 +16,7 @@ import com.yahoo.vespa.config.ConfigKey;
 import com.yahoo.vespa.config.ConfigPayload;
 import com.yahoo.vespa.config.ErrorCode;
 import com.yahoo.vespa.config.JRTConnectionPool;
+import com.yahoo.vespa.config.PayloadChecksum;
 import com.yahoo.vespa.config.PayloadChecksums;
 import com.yahoo.vespa.config.RawConfig;
 import com.yahoo.vespa.config.TimingValues;
@@ -127,6 +129,53 @@ public class JRTConfigRequestV3Test {
         assertTrue(clientReq.hasUpdatedGeneration());
     }
 
+    @Test
+    public void patch_is_sent_to_client_which_accepts_it() {
+        PayloadHistory history = new PayloadHistory(1 << 24);
+        Payload first = createPayload("a".repeat(1 << 17));
+        Payload second = createPayload("a".repeat(1 << 16) + "b" + "a".repeat(1 << 16));
+
+        // The first request has no payload to patch, but lets the server remember the one it sends
+        TimingValues timingValues = new TimingValues();
+        GenericJRTConfigSubscription sub =
+                new GenericJRTConfigSubscription(new ConfigKey<>(defName, configId, defNamespace),
+                                                 List.of(configDefinition),
+                                                 new JRTConfigRequester(new JRTConnectionPool(new ConfigSourceSet("tcp/localhost:985")), timingValues),
+                                                 timingValues);
+        JRTClientConfigRequest client = JRTClientConfigRequestV3.createFromSub(sub, Trace.createNew(), CompressionType.LZ4, vespaVersion);
+        createReq(client.getRequest()).addOkResponse(first, 4L, false, PayloadChecksums.fromPayload(first), history);
+        assertFalse(isPatch(client.getRequest()));
+        assertTrue(client.validateResponse());
+        assertEquals(first.toString(), client.getNewPayload().toString());
+
+        // The next request gets a patch, which is much smaller than the payload
+        client = client.nextRequest(timeout);
+        createReq(client.getRequest()).addOkResponse(second, 5L, false, PayloadChecksums.fromPayload(second), history);
+        assertTrue(isPatch(client.getRequest()));
+        assertTrue(client.getRequest().returnValues().get(1).asData().length < 1000);
+        assertTrue(client.errorMessage(), client.validateResponse());
+        assertTrue(client.hasUpdatedConfig());
+        assertEquals(second.toString(), client.getNewPayload().toString());
+
+        // A patch to a different payload than the client has fails, and the client then asks for the full payload
+        Payload wrong = createPayload("a".repeat(1 << 15) + "d" + "a".repeat((1 << 17) - (1 << 15) - 1));
+        PayloadChecksum secondXxhash64 = PayloadChecksums.fromPayload(second).getForType(XXHASH64);
+        PayloadHistory wrongHistory = new PayloadHistory(1 << 24);
+        wrongHistory.patch(PayloadChecksum.empty(XXHASH64), wrong, secondXxhash64);
+        client = client.nextRequest(timeout);
+        createReq(client.getRequest()).addOkResponse(first, 6L, false, PayloadChecksums.fromPayload(first), wrongHistory);
+        assertTrue(isPatch(client.getRequest()));
+        assertFalse(client.validateResponse());
+        assertEquals(ErrorCode.INCONSISTENT_CONFIG_MD5, client.errorCode());
+
+        client = client.nextRequest(timeout);
+        assertEquals(secondXxhash64, client.getRequestConfigChecksums().getForType(XXHASH64));
+        createReq(client.getRequest()).addOkResponse(first, 6L, false, PayloadChecksums.fromPayload(first), history);
+        assertFalse(isPatch(client.getRequest()));
+        assertTrue(client.validateResponse());
+        assertEquals(first.toString(), client.getNewPayload().toString());
+    }
+
     @Test
     public void error_response_adds_common_elements() {
         serverReq.addErrorResponse(ErrorCode.APPLICATION_NOT_LOADED, ErrorCode.getName(ErrorCode.APPLICATION_NOT_LOADED));
@@ -249,6 +298,10 @@ public class JRTConfigRequestV3Test {
         assertFalse(createReq(req.getRequest()).validateParameters());
     }
 
+    private static boolean isPatch(Request request) {
+        return SlimeUtils.jsonToSlime(request.returnValues().get(0).asString()).get().field(SlimeResponseData.RESPONSE_PATCH).valid();
+    }
+
     private static Payload createPayload() {
         return createPayload("bar");
     }
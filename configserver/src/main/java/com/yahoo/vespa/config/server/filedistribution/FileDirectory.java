@@ -10,6 +10,7 @@ import com.yahoo.config.FileReference;
 import com.yahoo.io.IOUtils;
 import com.yahoo.text.Utf8;
 import com.yahoo.vespa.defaults.Defaults;
+import com.yahoo.vespa.filedistribution.ChunkIndex;
 import net.jpountz.xxhash.XXHash64;
 import net.jpountz.xxhash.XXHashFactory;
 import java.io.File;
@@ -24,7 +25,9 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Clock;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.logging.Logger;
@@ -44,6 +47,7 @@ public class FileDirectory extends AbstractComponent {
     private static final Logger log = Logger.getLogger(FileDirectory.class.getName());
 
     private final Locks<FileReference> locks = new Locks<>(1, TimeUnit.MINUTES);
+    private final Map<FileReference, ChunkHashes> chunkHashes = new ConcurrentHashMap<>();
     private final File root;
 
     @Inject
@@ -103,6 +107,41 @@ public class FileDirectory extends AbstractComponent {
 
     public File getRoot() { return root; }
 
+    /**
+     * Returns the hashes of the chunks of the given size of the given file of the given reference. These are computed
+     * when first requested, and then kept until the reference is deleted, or the file changes, so that the file is
+     * not read for this each time it is sent.
+     */
+    public long[] chunkHashes(FileReference reference, File file, int chunkSize) throws IOException {
+        return chunkHashes.computeIfAbsent(reference, __ -> new ChunkHashes()).get(file, chunkSize);
+    }
+
+    /** The chunk hashes of a file, and the attributes of the file they were computed from. */
+    private static class ChunkHashes {
+
+        private File file;
+        private long size;
+        private long lastModified;
+        private int chunkSize;
+        private long[] hashes;
+
+        // Synchronized, so concurrent requests for a reference wait for a single computation
+        synchronized long[] get(File file, int chunkSize) throws IOException {
+            long size = file.length();
+            long lastModified = file.lastModified();
+            if (hashes == null || ! file.equals(this.file) || size != this.size ||
+                lastModified != this.lastModified || chunkSize != this.chunkSize) {
+                hashes = ChunkIndex.hashes(file, chunkSize);
+                this.file = file;
+                this.size = size;
+                this.lastModified = lastModified;
+                this.chunkSize = chunkSize;
+            }
+            return hashes;
+        }
+
+    }
+
     private Long computeHash(File file) throws IOException {
         XXHash64 hasher = XXHashFactory.fastestInstance().hash64();
         if (file.isDirectory()) {
@@ -141,6 +180,7 @@ public class FileDirectory extends AbstractComponent {
             else if ( ! isOld.apply(new File(getRoot(), fileReference.value())))
                 log.log(FINE, "Unable to delete file reference '" + fileReference.value() + "' since it is recently used");
             else {
+                chunkHashes.remove(fileReference);
                 deleteDirRecursively(destinationDir(fileReference));
                 log.log(FINE, "Deleted file reference '" + fileReference.value() + "'");
                 return true;
@@ -166,6 +206,7 @@ public class FileDirectory extends AbstractComponent {
             log.log(WARNING, "Directory for file reference '" + fileReference.value() +
                     "' has content that does not match its hash, deleting everything in " +
                     destinationDir.getAbsolutePath());
+            chunkHashes.remove(fileReference);
             deleteDirRecursively(destinationDir);
             return true;
         }
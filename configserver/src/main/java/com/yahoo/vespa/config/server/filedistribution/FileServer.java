@@ -151,7 +151,12 @@ public class FileServer {
                     () -> "compressed " + reference + " with " + compressionType + " in " + Duration.between(start, Instant.now()));
             return new LazyTemporaryStorageFileReferenceData(reference, file.getName(), compressed, compressedFile, compressionType);
         } else {
-            return new LazyFileReferenceData(reference, file.getName(), Type.file, file, compressionType);
+            return new LazyFileReferenceData(reference, file.getName(), Type.file, file, compressionType) {
+                @Override
+                public long[] chunkHashes(int chunkSize) throws IOException {
+                    return fileDirectory.chunkHashes(reference, file, chunkSize);
+                }
+            };
         }
     }
 
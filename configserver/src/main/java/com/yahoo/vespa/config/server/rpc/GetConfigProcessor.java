@@ -134,7 +134,8 @@ class GetConfigProcessor implements Runnable {
             }
 
             // debugLog(trace, "config response before encoding:" + config.toString());
-            request.addOkResponse(request.payloadFromResponse(config), config.getGeneration(), config.applyOnRestart(), config.getPayloadChecksums());
+            request.addOkResponse(request.payloadFromResponse(config), config.getGeneration(), config.applyOnRestart(),
+                                  config.getPayloadChecksums(), rpcServer.payloadHistory());
             debugLog(trace, "return response: " + request.getShortDescription());
             respond(request);
         } else {
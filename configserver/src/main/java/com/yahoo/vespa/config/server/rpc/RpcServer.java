@@ -11,6 +11,7 @@ import com.yahoo.config.provision.TenantName;
 import com.yahoo.jrt.Acceptor;
 import com.yahoo.jrt.DataValue;
 import com.yahoo.jrt.Int32Value;
+import com.yahoo.jrt.Int64Array;
 import com.yahoo.jrt.Int64Value;
 import com.yahoo.jrt.ListenFailedException;
 import com.yahoo.jrt.Method;
@@ -26,6 +27,7 @@ import com.yahoo.vespa.config.JRTMethods;
 import com.yahoo.vespa.config.protocol.ConfigResponse;
 import com.yahoo.vespa.config.protocol.JRTServerConfigRequest;
 import com.yahoo.vespa.config.protocol.JRTServerConfigRequestV3;
+import com.yahoo.vespa.config.protocol.PayloadHistory;
 import com.yahoo.vespa.config.protocol.Trace;
 import com.yahoo.vespa.config.server.ConfigActivationListener;
 import com.yahoo.vespa.config.server.GetConfigContext;
@@ -40,12 +42,15 @@ import com.yahoo.vespa.config.server.rpc.security.RpcAuthorizer;
 import com.yahoo.vespa.config.server.tenant.Tenant;
 import com.yahoo.vespa.config.server.tenant.TenantListener;
 import com.yahoo.vespa.config.server.tenant.TenantRepository;
+import com.yahoo.vespa.filedistribution.ChunkIndex;
 import com.yahoo.vespa.filedistribution.FileDownloader;
 import com.yahoo.vespa.filedistribution.FileReceiver;
 import com.yahoo.vespa.filedistribution.FileReferenceData;
 import com.yahoo.vespa.filedistribution.FileReferenceDownload;
 import com.yahoo.yolean.Exceptions;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.Arrays;
@@ -84,6 +89,7 @@ public class RpcServer implements Runnable, ConfigActivationListener, TenantList
     private static final String THREADPOOL_NAME = "rpcserver worker pool";
     private static final long SHUTDOWN_TIMEOUT = 60;
     private static final int JRT_RPC_TRANSPORT_THREADS = threadsToUse();
+    private static final long PAYLOAD_HISTORY_BYTES = 64 * 1024 * 1024;
 
     private final Supervisor supervisor = new Supervisor(new Transport("rpc", JRT_RPC_TRANSPORT_THREADS));
     private final Spec spec;
@@ -94,6 +100,8 @@ public class RpcServer implements Runnable, ConfigActivationListener, TenantList
     private static final Logger log = Logger.getLogger(RpcServer.class.getName());
 
     private final DelayedConfigResponses delayedConfigResponses;
+    // Recently served large payloads, used to send patches instead of full payloads to config proxies which accept this
+    private final PayloadHistory payloadHistory = new PayloadHistory(PAYLOAD_HISTORY_BYTES);
 
     private final HostRegistry hostRegistry;
     private final Map<TenantName, Tenant> tenants = new ConcurrentHashMap<>();
@@ -446,6 +454,10 @@ public class RpcServer implements Runnable, ConfigActivationListener, TenantList
         return useRequestVersion;
     }
 
+    PayloadHistory payloadHistory() {
+        return payloadHistory;
+    }
+
     static class ChunkedFileReceiver implements FileServer.Receiver {
         final Target target;
         ChunkedFileReceiver(Target target) {
@@ -460,24 +472,73 @@ public class RpcServer implements Runnable, ConfigActivationListener, TenantList
         @Override
         public void receive(FileReferenceData fileData, FileServer.ReplayStatus status) {
             int session = sendMeta(fileData);
-            sendParts(session, fileData);
+            boolean[] localChunks = sendChunks(session, fileData);
+            sendParts(session, fileData, localChunks);
             sendEof(session, fileData, status);
         }
 
-        private void sendParts(int session, FileReferenceData fileData) {
-            ByteBuffer bb = ByteBuffer.allocate(0x100000);
-            for (int partId = 0, read = fileData.nextContent(bb); read >= 0; partId++, read = fileData.nextContent(bb)) {
-                byte [] buf = bb.array();
-                if (buf.length != bb.position()) {
-                    buf = new byte [bb.position()];
-                    bb.flip();
-                    bb.get(buf);
+        /** Sends all parts of the given data which the target does not already have, all of the same size except the last. */
+        private void sendParts(int session, FileReferenceData fileData, boolean[] localChunks) {
+            ByteBuffer bb = ByteBuffer.allocate(ChunkIndex.CHUNK_SIZE);
+            for (int partId = 0; readPart(fileData, bb); partId++) {
+                if (partId >= localChunks.length || ! localChunks[partId]) {
+                    byte [] buf = bb.array();
+                    if (buf.length != bb.position()) {
+                        buf = new byte [bb.position()];
+                        bb.flip();
+                        bb.get(buf);
+                    }
+                    sendPart(session, fileData.fileReference(), partId, buf);
                 }
-                sendPart(session, fileData.fileReference(), partId, buf);
                 bb.clear();
             }
         }
 
+        /** Reads content into the given buffer until it is full, or all content is read, and returns whether any was read. */
+        private static boolean readPart(FileReferenceData fileData, ByteBuffer bb) {
+            while (bb.hasRemaining() && fileData.nextContent(bb) >= 0) { }
+            return bb.position() > 0;
+        }
+
+        /**
+         * Sends the hashes of the chunks of a large, uncompressed file to the target, and returns which of these
+         * the target has locally, from earlier downloads, and which should therefore not be sent.
+         */
+        private boolean[] sendChunks(int session, FileReferenceData fileData) {
+            if (fileData.type() != FileReferenceData.Type.file || fileData.size() <= ChunkIndex.CHUNK_SIZE) return new boolean[0];
+
+            long[] hashes;
+            try {
+                hashes = fileData.chunkHashes(ChunkIndex.CHUNK_SIZE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (hashes.length == 0) return new boolean[0];
+
+            Request request = new Request(FileReceiver.RECEIVE_CHUNKS_METHOD);
+            request.parameters().add(new StringValue(fileData.fileReference().value()));
+            request.parameters().add(new Int32Value(session));
+            request.parameters().add(new Int64Array(hashes));
+            invokeRpcIfValidConnection(request);
+            if (request.isError() || ! request.checkReturnTypes("iB") || request.returnValues().get(0).asInt32() != 0) {
+                // Older clients do not support this, and get all parts
+                log.log(FINE, () -> "Not using local chunks of reference '" + fileData.fileReference().value() + "' at " +
+                                    target + ": " + request.errorMessage());
+                return new boolean[0];
+            }
+            byte[] local = request.returnValues().get(1).asInt8Array();
+            boolean[] localChunks = new boolean[Math.min(local.length, hashes.length)];
+            int count = 0;
+            for (int i = 0; i < localChunks.length; i++) {
+                localChunks[i] = local[i] != 0;
+                if (localChunks[i]) count++;
+            }
+            int localCount = count;
+            log.log(FINE, () -> target + " has " + localCount + " of " + hashes.length + " chunks of reference '" +
+                                fileData.fileReference().value() + "' locally");
+            return localChunks;
+        }
+
         private int sendMeta(FileReferenceData fileData) {
             Request request = createMetaRequest(fileData);
             invokeRpcIfValidConnection(request);
@@ -4,6 +4,7 @@ package com.yahoo.vespa.config.server.filedistribution;
 
 import com.yahoo.config.FileReference;
 import com.yahoo.io.IOUtils;
+import com.yahoo.vespa.filedistribution.ChunkIndex;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -15,9 +16,12 @@ import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileTime;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class FileDirectoryTest {
@@ -131,6 +135,20 @@ public class FileDirectoryTest {
         assertEquals(barCreatedTimestamp, fooCreatedTimestamp);
     }
 
+    @Test
+    public void requireThatChunkHashesAreComputedOncePerFileReference() throws IOException {
+        FileReference foo = createFile("foo");
+        File file = fileDirectory.getFile(foo).get();
+        long[] hashes = fileDirectory.chunkHashes(foo, file, 2);
+        assertArrayEquals(ChunkIndex.hashes(file, 2), hashes);
+        assertSame(hashes, fileDirectory.chunkHashes(foo, file, 2));
+
+        assertTrue(fileDirectory.delete(foo, __ -> false, __ -> true));
+        assertEquals(foo, fileDirectory.addFile(new File(temporaryFolder.getRoot(), "foo")));
+        file = fileDirectory.getFile(foo).get();
+        assertNotSame(hashes, fileDirectory.chunkHashes(foo, file, 2));
+    }
+
     // Content in created file is equal to the filename string
     private FileReference createFile(String filename) throws IOException {
         File file = temporaryFolder.newFile(filename);
@@ -0,0 +1,29 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.container.handler.threadpool;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * An executor service backing a {@link ContainerThreadPool}, with the state which is reported as metrics.
+ */
+interface ContainerExecutor extends ExecutorService {
+
+    /** Returns the number of threads in the pool. */
+    int poolSize();
+
+    /** Returns the max number of threads which may run tasks concurrently. */
+    int maxPoolSize();
+
+    /** Returns the number of threads currently running tasks. */
+    int activeCount();
+
+    /** Returns the number of tasks waiting for a thread, or the number of active threads if tasks can not wait. */
+    int queueSize();
+
+    /** Returns the max number of tasks which may wait for a thread, or the max pool size if tasks can not wait. */
+    int queueCapacity();
+
+    /** Returns the last time, in epoch millis, a task was assigned a thread. */
+    long lastThreadAssignmentTimeMillis();
+
+}
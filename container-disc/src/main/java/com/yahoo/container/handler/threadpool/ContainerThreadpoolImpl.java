@@ -8,11 +8,13 @@ import com.yahoo.container.protect.ProcessTerminator;
 import com.yahoo.jdisc.Metric;
 import com.yahoo.text.Text;
 
+import java.util.Optional;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
@@ -77,19 +79,31 @@ public class ContainerThreadpoolImpl extends AbstractComponent implements AutoCl
         int minThreads = minThreads(config, cpus, hasRelThreads);
         int queueSize = queueSize(config, maxThreads, hasRelQueueSize);
 
-        log.config(Text.format("Threadpool '%s': min=%d, max=%d, queue=%s", name, minThreads, maxThreads, queueSizeToString(queueSize)));
-
         ThreadPoolMetric threadPoolMetric = new ThreadPoolMetric(metric, name);
-        WorkerCompletionTimingThreadPoolExecutor executor =
-                new WorkerCompletionTimingThreadPoolExecutor(minThreads, maxThreads,
-                        (long) config.keepAliveTime() * 1000, TimeUnit.MILLISECONDS,
-                        createQueue(queueSize),
-                        ThreadFactoryFactory.getThreadFactory(name),
-                        threadPoolMetric);
-        // Pre-start needed, if not all threads will be created by the fist N tasks and hence they might also
-        // get the dreaded thread locals initialized even if they will never run.
-        // That counters what we want to achieve with the Q that will prefer thread locality.
-        executor.prestartAllCoreThreads();
+        Optional<ThreadFactory> virtualThreadFactory = config.virtualThreads() ? VirtualThreadExecutor.virtualThreadFactory(name)
+                                                                               : Optional.empty();
+        if (config.virtualThreads() && virtualThreadFactory.isEmpty())
+            log.warning(Text.format("Threadpool '%s': virtual threads are not supported by this JVM, using platform threads", name));
+
+        ContainerExecutor executor;
+        if (virtualThreadFactory.isPresent()) {
+            log.config(Text.format("Threadpool '%s': virtual threads, max=%d, queue=%s", name, maxThreads, queueSizeToString(queueSize)));
+            executor = new VirtualThreadExecutor(name, virtualThreadFactory.get(), maxThreads, queueSize, threadPoolMetric);
+        }
+        else {
+            log.config(Text.format("Threadpool '%s': min=%d, max=%d, queue=%s", name, minThreads, maxThreads, queueSizeToString(queueSize)));
+            WorkerCompletionTimingThreadPoolExecutor platformExecutor =
+                    new WorkerCompletionTimingThreadPoolExecutor(minThreads, maxThreads,
+                            (long) config.keepAliveTime() * 1000, TimeUnit.MILLISECONDS,
+                            createQueue(queueSize),
+                            ThreadFactoryFactory.getThreadFactory(name),
+                            threadPoolMetric);
+            // Pre-start needed, if not all threads will be created by the fist N tasks and hence they might also
+            // get the dreaded thread locals initialized even if they will never run.
+            // That counters what we want to achieve with the Q that will prefer thread locality.
+            platformExecutor.prestartAllCoreThreads();
+            executor = platformExecutor;
+        }
         threadpool = new ExecutorServiceWrapper(
                 executor, threadPoolMetric, processTerminator, config.maxThreadExecutionTimeSeconds() * 1000L,
                 name);
@@ -20,16 +20,15 @@ import java.util.concurrent.atomic.AtomicBoolean;
  */
 class ExecutorServiceWrapper extends ForwardingExecutorService {
 
-    private final WorkerCompletionTimingThreadPoolExecutor wrapped;
+    private final ContainerExecutor wrapped;
     private final ThreadPoolMetric metric;
     private final ProcessTerminator processTerminator;
     private final long maxThreadExecutionTimeMillis;
     private final int queueCapacity;
     private final Thread metricReporter;
-    private final boolean threadPoolIsOnlyQ;
     private final AtomicBoolean closed = new AtomicBoolean(false);
 
-    ExecutorServiceWrapper(WorkerCompletionTimingThreadPoolExecutor wrapped,
+    ExecutorServiceWrapper(ContainerExecutor wrapped,
                            ThreadPoolMetric metric,
                            ProcessTerminator processTerminator,
                            long maxThreadExecutionTimeMillis,
@@ -38,11 +37,7 @@ class ExecutorServiceWrapper extends ForwardingExecutorService {
         this.metric = metric;
         this.processTerminator = processTerminator;
         this.maxThreadExecutionTimeMillis = maxThreadExecutionTimeMillis;
-        int maxQueueCapacity = wrapped.getQueue().remainingCapacity() + wrapped.getQueue().size();
-        this.threadPoolIsOnlyQ = (maxQueueCapacity == 0);
-        this.queueCapacity = threadPoolIsOnlyQ
-                ? wrapped.getMaximumPoolSize()
-                : maxQueueCapacity;
+        this.queueCapacity = wrapped.queueCapacity();
         reportMetrics();
         metricReporter = new Thread(this::reportMetricsRegularly);
         metricReporter.setName(name + "-threadpool-metric-reporter");
@@ -50,12 +45,10 @@ class ExecutorServiceWrapper extends ForwardingExecutorService {
     }
 
     private void reportMetrics() {
-        int activeThreads = wrapped.getActiveCount();
-        metric.reportThreadPoolSize(wrapped.getPoolSize());
-        metric.reportMaxAllowedThreadPoolSize(wrapped.getMaximumPoolSize());
-        metric.reportActiveThreads(activeThreads);
-        int queueSize = threadPoolIsOnlyQ ? activeThreads : wrapped.getQueue().size();
-        metric.reportWorkQueueSize(queueSize);
+        metric.reportThreadPoolSize(wrapped.poolSize());
+        metric.reportMaxAllowedThreadPoolSize(wrapped.maxPoolSize());
+        metric.reportActiveThreads(wrapped.activeCount());
+        metric.reportWorkQueueSize(wrapped.queueSize());
         metric.reportWorkQueueCapacity(queueCapacity);
     }
 
@@ -101,7 +94,7 @@ class ExecutorServiceWrapper extends ForwardingExecutorService {
             super.execute(command);
         } catch (RejectedExecutionException e) {
             metric.reportRejectRequest();
-            long timeSinceLastReturnedThreadMillis = System.currentTimeMillis() - wrapped.lastThreadAssignmentTimeMillis;
+            long timeSinceLastReturnedThreadMillis = System.currentTimeMillis() - wrapped.lastThreadAssignmentTimeMillis();
             if (timeSinceLastReturnedThreadMillis > maxThreadExecutionTimeMillis)
                 processTerminator.logAndDie("No worker threads have been available for " +
                         timeSinceLastReturnedThreadMillis + " ms. Shutting down.", true);
@@ -15,12 +15,14 @@ class ThreadPoolMetric {
 
     private final Metric metric;
     private final Metric.Context defaultContext;
+    private final Metric.Handle taskStartDelay;
     private final String threadPoolName;
 
     ThreadPoolMetric(Metric metric, String threadPoolName) {
         this.metric = metric;
         this.threadPoolName = threadPoolName;
         this.defaultContext = metric.createContext(Map.of(THREAD_POOL_NAME_DIMENSION, threadPoolName));
+        this.taskStartDelay = metric.handle(ContainerMetrics.JDISC_THREAD_POOL_TASK_START_DELAY.baseName(), defaultContext);
     }
 
     void reportRejectRequest() {
@@ -50,6 +52,10 @@ class ThreadPoolMetric {
         metric.set(ContainerMetrics.JDISC_THREAD_POOL_WORK_QUEUE_SIZE.baseName(), size, defaultContext);
     }
 
+    void reportTaskStartDelay(long millis) {
+        taskStartDelay.set(millis);
+    }
+
     void reportUnhandledException(Throwable t) {
         Metric.Context ctx = metric.createContext(Map.of(
                 THREAD_POOL_NAME_DIMENSION, threadPoolName,
@@ -0,0 +1,192 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.container.handler.threadpool;
+
+import com.yahoo.text.Text;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * An executor which runs each task on a new virtual thread, for pools whose tasks mostly block on I/O.
+ * At most the given max number of tasks run concurrently, at most the given queue capacity of tasks more wait to run,
+ * and further tasks are rejected, like for a thread pool executor with the same max pool size and queue capacity.
+ *
+ * Virtual threads which are pinned to their carrier threads, e.g., by blocking inside synchronized code, delay
+ * the start of other virtual threads. This delay is therefore reported as a metric, and logged when it is high.
+ *
+ * Virtual threads require Java 21, but this code is built for older versions as well, so they are created through
+ * reflection; see {@link #virtualThreadFactory(String)}.
+ */
+class VirtualThreadExecutor extends AbstractExecutorService implements ContainerExecutor {
+
+    private static final Logger log = Logger.getLogger(VirtualThreadExecutor.class.getName());
+
+    static final long PINNING_WARNING_THRESHOLD_MILLIS = 100;
+    private static final long PINNING_WARNING_INTERVAL_MILLIS = 60_000;
+
+    private final String name;
+    private final ThreadFactory threadFactory;
+    private final ThreadPoolMetric metric;
+    private final int maxConcurrency;
+    private final int queueCapacity;
+    private final Semaphore permits;
+    private final AtomicLong tasks = new AtomicLong(0); // Submitted tasks which have not yet completed
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    private final CountDownLatch terminated = new CountDownLatch(1);
+    private final AtomicLong lastPinningWarningMillis = new AtomicLong(0);
+    private volatile long lastThreadAssignmentTimeMillis = System.currentTimeMillis();
+    private volatile boolean shutdown = false;
+
+    VirtualThreadExecutor(String name, ThreadFactory threadFactory, int maxConcurrency, int queueCapacity, ThreadPoolMetric metric) {
+        if (maxConcurrency <= 0) throw new IllegalArgumentException("Max concurrency must be positive, but was " + maxConcurrency);
+        if (queueCapacity < 0) throw new IllegalArgumentException("Queue capacity must be non-negative, but was " + queueCapacity);
+        this.name = name;
+        this.threadFactory = threadFactory;
+        this.metric = metric;
+        this.maxConcurrency = maxConcurrency;
+        this.queueCapacity = queueCapacity;
+        this.permits = new Semaphore(maxConcurrency, true);
+    }
+
+    /** Returns a factory for virtual threads with names prefixed by the given name, or empty if the JVM does not support these. */
+    static Optional<ThreadFactory> virtualThreadFactory(String name) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Class<?> virtualBuilderClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = virtualBuilderClass.getMethod("name", String.class, long.class).invoke(builder, name + "-virtual-", 1L);
+            return Optional.of((ThreadFactory) builderClass.getMethod("factory").invoke(builder));
+        }
+        catch (ClassNotFoundException | NoSuchMethodException e) {
+            return Optional.empty();
+        }
+        catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Failed creating virtual thread factory", e);
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        Objects.requireNonNull(command);
+        // Count the task before checking for shutdown, so termination can not be signalled while it is being submitted
+        if (tasks.incrementAndGet() > (long) maxConcurrency + queueCapacity || shutdown) {
+            complete();
+            throw new RejectedExecutionException(shutdown ? "Thread pool '" + name + "' is shut down"
+                                                          : "Thread pool '" + name + "' is full");
+        }
+        long submittedNanos = System.nanoTime();
+        try {
+            threadFactory.newThread(() -> run(command, submittedNanos)).start();
+        }
+        catch (RuntimeException | Error e) {
+            complete();
+            throw e;
+        }
+    }
+
+    private void run(Runnable command, long submittedNanos) {
+        reportStartDelay(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - submittedNanos));
+        Thread thread = Thread.currentThread();
+        threads.add(thread);
+        try {
+            permits.acquire();
+            try {
+                lastThreadAssignmentTimeMillis = System.currentTimeMillis();
+                command.run();
+            }
+            catch (Throwable t) {
+                metric.reportUnhandledException(t);
+                throw t;
+            }
+            finally {
+                permits.release();
+            }
+        }
+        catch (InterruptedException e) {
+            // Interrupted by shutdownNow() while waiting for a permit, so the task is dropped
+        }
+        finally {
+            threads.remove(thread);
+            complete();
+        }
+    }
+
+    /** Reports the time the thread of a task waited for a carrier thread, and warns, occasionally, if this is high. */
+    private void reportStartDelay(long delayMillis) {
+        metric.reportTaskStartDelay(delayMillis);
+        if (delayMillis < PINNING_WARNING_THRESHOLD_MILLIS) return;
+
+        long now = System.currentTimeMillis();
+        long last = lastPinningWarningMillis.get();
+        if (now - last < PINNING_WARNING_INTERVAL_MILLIS || ! lastPinningWarningMillis.compareAndSet(last, now)) return;
+
+        log.warning(Text.format("A virtual thread of thread pool '%s' waited %d ms for a carrier thread. " +
+                                "Carrier threads may be pinned by virtual threads blocking in synchronized code " +
+                                "or native calls; record jdk.VirtualThreadPinned events with JFR to find where",
+                                name, delayMillis));
+    }
+
+    private void complete() {
+        if (tasks.decrementAndGet() == 0 && shutdown)
+            terminated.countDown();
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        if (tasks.get() == 0)
+            terminated.countDown();
+    }
+
+    /** Shuts down this, and interrupts all threads, including those of tasks waiting to run, which are then dropped. */
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown();
+        threads.forEach(Thread::interrupt);
+        return List.of();
+    }
+
+    @Override
+    public boolean isShutdown() { return shutdown; }
+
+    @Override
+    public boolean isTerminated() { return terminated.getCount() == 0; }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminated.await(timeout, unit);
+    }
+
+    @Override
+    public int poolSize() { return activeCount(); }
+
+    @Override
+    public int maxPoolSize() { return maxConcurrency; }
+
+    @Override
+    public int activeCount() { return maxConcurrency - permits.availablePermits(); }
+
+    @Override
+    public int queueSize() {
+        return queueCapacity == 0 ? activeCount() : (int) Math.max(0, Math.min(Integer.MAX_VALUE, tasks.get() - activeCount()));
+    }
+
+    @Override
+    public int queueCapacity() { return queueCapacity == 0 ? maxConcurrency : queueCapacity; }
+
+    @Override
+    public long lastThreadAssignmentTimeMillis() { return lastThreadAssignmentTimeMillis; }
+
+}
@@ -14,12 +14,13 @@ import java.util.concurrent.atomic.AtomicLong;
  * @author baldersheim
  * @author bratseth
  */
-class WorkerCompletionTimingThreadPoolExecutor extends ThreadPoolExecutor {
+class WorkerCompletionTimingThreadPoolExecutor extends ThreadPoolExecutor implements ContainerExecutor {
 
-    volatile long lastThreadAssignmentTimeMillis = System.currentTimeMillis();
+    private volatile long lastThreadAssignmentTimeMillis = System.currentTimeMillis();
     private final AtomicLong startedCount = new AtomicLong(0);
     private final AtomicLong completedCount = new AtomicLong(0);
     private final ThreadPoolMetric metric;
+    private final boolean threadPoolIsOnlyQ;
 
     WorkerCompletionTimingThreadPoolExecutor(int corePoolSize,
                                              int maximumPoolSize,
@@ -30,6 +31,7 @@ class WorkerCompletionTimingThreadPoolExecutor extends ThreadPoolExecutor {
                                              ThreadPoolMetric metric) {
         super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory);
         this.metric = metric;
+        this.threadPoolIsOnlyQ = workQueue.remainingCapacity() + workQueue.size() == 0;
     }
 
     @Override
@@ -53,5 +55,25 @@ class WorkerCompletionTimingThreadPoolExecutor extends ThreadPoolExecutor {
         return (int)(startedCount.get() - completedCount.get());
     }
 
+    @Override
+    public int poolSize() { return getPoolSize(); }
+
+    @Override
+    public int maxPoolSize() { return getMaximumPoolSize(); }
+
+    @Override
+    public int activeCount() { return getActiveCount(); }
+
+    @Override
+    public int queueSize() { return threadPoolIsOnlyQ ? getActiveCount() : getQueue().size(); }
+
+    @Override
+    public int queueCapacity() {
+        return threadPoolIsOnlyQ ? getMaximumPoolSize() : getQueue().remainingCapacity() + getQueue().size();
+    }
+
+    @Override
+    public long lastThreadAssignmentTimeMillis() { return lastThreadAssignmentTimeMillis; }
+
 }
 
@@ -47,6 +47,26 @@ public final class ForwardingMetricConsumer implements MetricConsumer {
         return new ForwardingContext(contexts);
     }
 
+    /**
+     * Returns a handle forwarding to the handles of the underlying consumers, and to set and add of those
+     * not supporting handles, or null if none of them support handles.
+     */
+    @Override
+    public Metric.Handle createHandle(String key, Metric.Context ctx) {
+        ForwardingContext fwd = (ForwardingContext)ctx;
+        Metric.Handle[] handles = new Metric.Handle[consumers.length];
+        boolean anyHandle = false;
+        for (int i = 0; i < consumers.length; ++i) {
+            Metric.Context context = fwd != null ? fwd.contexts[i] : null;
+            handles[i] = consumers[i].createHandle(key, context);
+            if (handles[i] != null)
+                anyHandle = true;
+            else
+                handles[i] = new ConsumerHandle(consumers[i], key, context);
+        }
+        return anyHandle ? new ForwardingHandle(handles) : null;
+    }
+
     private static class ForwardingContext implements Metric.Context {
 
         final Metric.Context[] contexts;
@@ -56,4 +76,38 @@ public final class ForwardingMetricConsumer implements MetricConsumer {
         }
     }
 
+    private static class ForwardingHandle implements Metric.Handle {
+
+        final Metric.Handle[] handles;
+
+        ForwardingHandle(Metric.Handle[] handles) {
+            this.handles = handles;
+        }
+
+        @Override
+        public void set(double val) {
+            for (Metric.Handle handle : handles) {
+                handle.set(val);
+            }
+        }
+
+        @Override
+        public void add(long val) {
+            for (Metric.Handle handle : handles) {
+                handle.add(val);
+            }
+        }
+    }
+
+    /** A handle to a consumer which does not support handles */
+    private record ConsumerHandle(MetricConsumer consumer, String key, Metric.Context ctx) implements Metric.Handle {
+
+        @Override
+        public void set(double val) { consumer.set(key, val, ctx); }
+
+        @Override
+        public void add(long val) { consumer.add(key, val, ctx); }
+
+    }
+
 }
@@ -19,8 +19,8 @@ import java.util.Map;
  */
 class JDiscServerConnector extends ServerConnector {
 
-    // Keep a cache of metric contexts to avoid creating new contexts for each request. Metric context creation is expensive.
-    private final Map<String, Metric.Context> requestMetricContexts;
+    // Keep a cache of metric handles to avoid creating new contexts and handles for each request. Metric context creation is expensive.
+    private final Map<String, RequestMetricReporter.Handles> requestMetricHandles;
 
     public static final String REQUEST_ATTRIBUTE = JDiscServerConnector.class.getName();
     private final Metric.Context connectorMetricCtx;
@@ -40,7 +40,7 @@ class JDiscServerConnector extends ServerConnector {
         this.connectorName = config.name();
         this.listenPort = config.listenPort();
         this.connectorMetricCtx = metric.createContext(createConnectorDimensions(listenPort, connectorName, 0));
-        this.requestMetricContexts = createRequestMetricContexts(metric, listenPort);
+        this.requestMetricHandles = createRequestMetricHandles(metric, listenPort);
 
         this.statistics = new ConnectionStatistics();
         setAcceptedTcpNoDelay(config.tcpNoDelay());
@@ -75,12 +75,12 @@ class JDiscServerConnector extends ServerConnector {
         return connectorMetricCtx;
     }
 
-    Metric.Context createRequestMetricContext(Request request) {
+    RequestMetricReporter.Handles requestMetricHandles(Request request) {
         var method = request.getMethod();
-        var requestMetricCtx = requestMetricContexts.get(method);
-        if (requestMetricCtx != null) return requestMetricCtx;
-        // Fallback if request metric context is not available
-        return createRequestMetricContext(metric, listenPort, method);
+        var requestMetricHandles = this.requestMetricHandles.get(method);
+        if (requestMetricHandles != null) return requestMetricHandles;
+        // Fallback if request metric handles are not available
+        return RequestMetricReporter.Handles.of(metric, createRequestMetricContext(metric, listenPort, method));
     }
 
     ConnectorConfig connectorConfig() {
@@ -105,11 +105,11 @@ class JDiscServerConnector extends ServerConnector {
         return metric.createContext(dimensions);
     }
 
-    private static Map<String, Metric.Context> createRequestMetricContexts(Metric metric, int listenPort) {
-        var requestMetricContexts = new HashMap<String, Metric.Context>();
+    private static Map<String, RequestMetricReporter.Handles> createRequestMetricHandles(Metric metric, int listenPort) {
+        var requestMetricHandles = new HashMap<String, RequestMetricReporter.Handles>();
         for (var method : RequestUtils.SUPPORTED_METHODS) {
-            requestMetricContexts.put(method, createRequestMetricContext(metric, listenPort, method));
+            requestMetricHandles.put(method, RequestMetricReporter.Handles.of(metric, createRequestMetricContext(metric, listenPort, method)));
         }
-        return requestMetricContexts;
+        return requestMetricHandles;
     }
 }
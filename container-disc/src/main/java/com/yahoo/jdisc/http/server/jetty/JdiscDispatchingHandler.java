@@ -75,9 +75,8 @@ class JdiscDispatchingHandler extends Handler.Abstract.NonBlocking {
         var connector = RequestUtils.getConnector(jettyRequest);
         jettyRequest.setAttribute(JDiscServerConnector.REQUEST_ATTRIBUTE, connector);
 
-        var metricContext = connector.createRequestMetricContext(jettyRequest);
-        context.metric().add(MetricDefinitions.NUM_REQUESTS, 1, metricContext);
-        context.metric().add(MetricDefinitions.JDISC_HTTP_REQUESTS, 1, metricContext);
+        var metricReporter = new RequestMetricReporter(connector.requestMetricHandles(jettyRequest), Request.getTimeStamp(jettyRequest));
+        metricReporter.received();
 
         var accessLogEntry = new AccessLogEntry();
         jettyRequest.setAttribute(ATTRIBUTE_NAME_ACCESS_LOG_ENTRY, accessLogEntry);
@@ -87,7 +86,6 @@ class JdiscDispatchingHandler extends Handler.Abstract.NonBlocking {
             return;
         }
         var requestHandler = newRequestHandler(context, accessLogEntry, jettyRequest);
-        var metricReporter = new RequestMetricReporter(context.metric(), metricContext, Request.getTimeStamp(jettyRequest));
         var responseWriter = new JettyResponseWriter(jettyRequest, jettyResponse, metricReporter);
         shutdownConnectionGracefullyIfThresholdReached(connector, jettyRequest);
         metricReporter.uriLength(jettyRequest.getHttpURI().getPath().length());
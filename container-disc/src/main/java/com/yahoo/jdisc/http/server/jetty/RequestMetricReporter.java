@@ -15,54 +15,57 @@ import java.util.concurrent.atomic.AtomicBoolean;
  */
 class RequestMetricReporter {
 
-    private final Metric metric;
-    private final Context context;
+    private final Handles handles;
     private final long requestStartTime;
 
     // TODO: rename
     private final AtomicBoolean firstSetOfTimeToFirstByte = new AtomicBoolean(true);
 
-    RequestMetricReporter(Metric metric, Context context, long requestStartTime) {
-        this.metric = metric;
-        this.context = context;
+    RequestMetricReporter(Handles handles, long requestStartTime) {
+        this.handles = handles;
         this.requestStartTime = requestStartTime;
     }
 
+    void received() {
+        handles.requests().add(1);
+        handles.httpRequests().add(1);
+    }
+
     void successfulWrite(int numBytes) {
         setTimeToFirstByteFirstTime();
 
-        metric.add(MetricDefinitions.NUM_SUCCESSFUL_WRITES, 1, context);
-        metric.set(MetricDefinitions.NUM_BYTES_SENT, numBytes, context);
+        handles.successfulWrites().add(1);
+        handles.bytesSent().set(numBytes);
     }
 
     private void setTimeToFirstByteFirstTime() {
         boolean isFirstWrite = firstSetOfTimeToFirstByte.getAndSet(false);
         if (isFirstWrite) {
             long timeToFirstByte = getRequestLatency();
-            metric.set(MetricDefinitions.TIME_TO_FIRST_BYTE, timeToFirstByte, context);
+            handles.timeToFirstByte().set(timeToFirstByte);
         }
     }
 
     void failedWrite() {
-        metric.add(MetricDefinitions.NUM_FAILED_WRITES, 1, context);
+        handles.failedWrites().add(1);
     }
 
     void successfulResponse() {
         setTimeToFirstByteFirstTime();
-        metric.add(MetricDefinitions.NUM_SUCCESSFUL_RESPONSES, 1, context);
+        handles.successfulResponses().add(1);
     }
 
     void failedResponse() {
         setTimeToFirstByteFirstTime();
-        metric.add(MetricDefinitions.NUM_FAILED_RESPONSES, 1, context);
+        handles.failedResponses().add(1);
     }
 
     void prematurelyClosed() {
-        metric.add(MetricDefinitions.NUM_PREMATURELY_CLOSED_CONNECTIONS, 1, context);
+        handles.prematurelyClosed().add(1);
     }
 
     void successfulRead(int bytes_received) {
-        metric.set(MetricDefinitions.NUM_BYTES_RECEIVED, bytes_received, context);
+        handles.bytesReceived().set(bytes_received);
     }
 
     private long getRequestLatency() {
@@ -70,11 +73,34 @@ class RequestMetricReporter {
     }
 
     void uriLength(int length) {
-        metric.set(MetricDefinitions.URI_LENGTH, length, context);
+        handles.uriLength().set(length);
     }
 
     void contentSize(long size) {
-        metric.set(MetricDefinitions.CONTENT_SIZE, size, context);
+        handles.contentSize().set(size);
+    }
+
+    /** Handles for the metrics reported for each request, with the dimensions of a given connector and request method. */
+    record Handles(Metric.Handle requests, Metric.Handle httpRequests, Metric.Handle successfulWrites,
+                   Metric.Handle bytesSent, Metric.Handle timeToFirstByte, Metric.Handle failedWrites,
+                   Metric.Handle successfulResponses, Metric.Handle failedResponses, Metric.Handle prematurelyClosed,
+                   Metric.Handle bytesReceived, Metric.Handle uriLength, Metric.Handle contentSize) {
+
+        static Handles of(Metric metric, Context context) {
+            return new Handles(metric.handle(MetricDefinitions.NUM_REQUESTS, context),
+                               metric.handle(MetricDefinitions.JDISC_HTTP_REQUESTS, context),
+                               metric.handle(MetricDefinitions.NUM_SUCCESSFUL_WRITES, context),
+                               metric.handle(MetricDefinitions.NUM_BYTES_SENT, context),
+                               metric.handle(MetricDefinitions.TIME_TO_FIRST_BYTE, context),
+                               metric.handle(MetricDefinitions.NUM_FAILED_WRITES, context),
+                               metric.handle(MetricDefinitions.NUM_SUCCESSFUL_RESPONSES, context),
+                               metric.handle(MetricDefinitions.NUM_FAILED_RESPONSES, context),
+                               metric.handle(MetricDefinitions.NUM_PREMATURELY_CLOSED_CONNECTIONS, context),
+                               metric.handle(MetricDefinitions.NUM_BYTES_RECEIVED, context),
+                               metric.handle(MetricDefinitions.URI_LENGTH, context),
+                               metric.handle(MetricDefinitions.CONTENT_SIZE, context));
+        }
+
     }
 
 }
@@ -86,6 +86,10 @@ public class Bucket {
         }
     }
 
+    void merge(Identifier id, UntypedMetric value) {
+        get(id, value).merge(value, true);
+    }
+
     void merge(Bucket other) {
         boolean otherIsNewer = resolveTimeStamps(other);
         merge(other, otherIsNewer);
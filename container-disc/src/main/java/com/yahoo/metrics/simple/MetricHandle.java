@@ -0,0 +1,116 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.metrics.simple;
+
+import com.yahoo.api.annotations.Beta;
+import com.yahoo.jdisc.Metric;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A metric with a fixed name and position, resolved once, which records values into a set of striped
+ * accumulators instead of creating a {@link Sample} per value, and therefore does not allocate. Declare
+ * handles with {@link MetricReceiver#declareHandle(String, Point)}. The values recorded are drained into
+ * the snapshots of the receiver along with those of all other metrics.
+ *
+ * This is thread-safe.
+ */
+@Beta
+public final class MetricHandle implements Metric.Handle {
+
+    private static final Logger log = Logger.getLogger(MetricHandle.class.getName());
+    private static final int STRIPES = stripes(Runtime.getRuntime().availableProcessors());
+
+    private final Identifier identifier;
+    private final MetricReceiver receiver;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    MetricHandle(Identifier identifier, MetricReceiver receiver) {
+        this.identifier = identifier;
+        this.receiver = receiver;
+        MetricSettings settings = receiver.getMetricDefinition(identifier.getName());
+        for (int i = 0; i < stripes.length; i++)
+            stripes[i] = new Stripe(new UntypedMetric(settings));
+    }
+
+    /** Sets the value of this gauge metric. */
+    @Override
+    public void set(double val) {
+        Stripe stripe = stripe();
+        synchronized (stripe) {
+            stripe.metric.put(val);
+            stripe.lastNanos = System.nanoTime();
+            stripe.updated = true;
+        }
+    }
+
+    /** Adds to the value of this counter metric. */
+    @Override
+    public void add(long val) {
+        Stripe stripe = stripe();
+        synchronized (stripe) {
+            stripe.metric.add(val);
+            stripe.updated = true;
+        }
+    }
+
+    public Identifier getIdentifier() {
+        return identifier;
+    }
+
+    /** Moves all values recorded since the last call to the given bucket, merging the stripes in the order they were last set. */
+    void drainTo(Bucket bucket) {
+        MetricSettings settings = receiver.getMetricDefinition(identifier.getName());
+        List<Stripe> drained = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                if ( ! stripe.updated) continue;
+                drained.add(new Stripe(stripe.metric, stripe.lastNanos));
+                stripe.metric = new UntypedMetric(settings);
+                stripe.updated = false;
+            }
+        }
+        drained.sort((a, b) -> Long.signum(a.lastNanos - b.lastNanos));
+        for (Stripe stripe : drained) {
+            try {
+                bucket.merge(identifier, stripe.metric);
+            } catch (IllegalArgumentException e) {
+                log.log(Level.WARNING, "Problems merging metric " + identifier.getName() + ", possibly ignoring data.");
+                return;
+            }
+        }
+    }
+
+    /** Picks a stripe by the identity of the current thread, so threads mostly write to stripes of their own. */
+    private Stripe stripe() {
+        int hash = System.identityHashCode(Thread.currentThread());
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    /** Returns the smallest power of two which is at least the given number of processors, but at most 64. */
+    static int stripes(int processors) {
+        int count = 1;
+        while (count < processors && count < 64) count <<= 1;
+        return count;
+    }
+
+    private static final class Stripe {
+
+        private UntypedMetric metric;
+        private long lastNanos;
+        private boolean updated = false;
+
+        Stripe(UntypedMetric metric) {
+            this(metric, 0);
+        }
+
+        Stripe(UntypedMetric metric, long lastNanos) {
+            this.metric = metric;
+            this.lastNanos = lastNanos;
+        }
+
+    }
+
+}
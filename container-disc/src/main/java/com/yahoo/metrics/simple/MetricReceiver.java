@@ -4,6 +4,7 @@ package com.yahoo.metrics.simple;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.yahoo.api.annotations.Beta;
@@ -30,6 +31,8 @@ public class MetricReceiver {
     private final Object histogramDefinitionsLock = new Object();
     private volatile Map<String, MetricSettings> metricSettings;
 
+    private final Map<Identifier, MetricHandle> handles = new ConcurrentHashMap<>();
+
     public MetricReceiver(ThreadLocalDirectory<Bucket, Sample> metricsCollection, AtomicReference<Bucket> currentSnapshot) {
         this.metricsCollection = metricsCollection;
         this.currentSnapshot = currentSnapshot;
@@ -117,6 +120,19 @@ public class MetricReceiver {
         return new Gauge(name, defaultDimensions, this);
     }
 
+    /**
+     * Declare a handle for a metric with the given name and dimension values, which records into this without
+     * allocation, and is intended for hot paths. Declaring the same name and dimension values again returns the
+     * same handle, and handles are kept for the life time of this, so only declare a bounded number of these.
+     *
+     * @param name the name of the metric
+     * @param boundDimensions the dimensions of the metric or null
+     * @return a thread-safe handle for the given metric
+     */
+    public MetricHandle declareHandle(String name, Point boundDimensions) {
+        return handles.computeIfAbsent(new Identifier(name, boundDimensions), id -> new MetricHandle(id, this));
+    }
+
     /**
      * Create a PointBuilder instance with no default settings. PointBuilder
      * instances are not thread-safe.
@@ -139,6 +155,12 @@ public class MetricReceiver {
         return currentSnapshot.get();
     }
 
+    /** Moves the values recorded through all handles of this, since the last call, to the given bucket. */
+    void drainHandlesTo(Bucket bucket) {
+        for (MetricHandle handle : handles.values())
+            handle.drainTo(bucket);
+    }
+
     /**
      * Add how to build a histogram for a given metric.
      *
@@ -233,6 +255,7 @@ public class MetricReceiver {
             for (Bucket b : collection.fetch()) {
                 merged.merge(b, true);
             }
+            drainHandlesTo(merged);
             return merged;
         }
 
@@ -278,6 +301,11 @@ public class MetricReceiver {
             return null;
         }
 
+        @Override
+        public MetricHandle declareHandle(String name, Point boundDimensions) {
+            return new MetricHandle(new Identifier(name, boundDimensions), this);
+        }
+
         @Override
         public PointBuilder pointBuilder() {
             return null;
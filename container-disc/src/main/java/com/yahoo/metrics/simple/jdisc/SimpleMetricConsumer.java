@@ -3,6 +3,7 @@ package com.yahoo.metrics.simple.jdisc;
 
 import java.util.Map;
 
+import com.yahoo.jdisc.Metric;
 import com.yahoo.jdisc.Metric.Context;
 import com.yahoo.jdisc.application.MetricConsumer;
 import com.yahoo.metrics.simple.Identifier;
@@ -50,6 +51,11 @@ public class SimpleMetricConsumer implements MetricConsumer {
         return new Point(properties);
     }
 
+    @Override
+    public Metric.Handle createHandle(String key, Context ctx) {
+        return receiver.declareHandle(key, getSimpleCoordinate(ctx));
+    }
+
     public MetricReceiver receiver() { return receiver; }
 
 }
@@ -10,14 +10,19 @@ import com.yahoo.jdisc.Metric;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 /**
@@ -119,6 +124,53 @@ public class ContainerThreadPoolImplTest {
         assertDoesNotThrow(() -> createPoolWithAbsoluteValues(metrics, 1, 1));
     }
 
+    @Test
+    void testVirtualThreadPool() throws Exception {
+        ContainerThreadpoolConfig config = new ContainerThreadpoolConfig(new ContainerThreadpoolConfig.Builder()
+                .maxThreads(2).minThreads(2).queueSize(0).virtualThreads(true));
+        ContainerThreadpoolImpl threadPool = new ContainerThreadpoolImpl(config, new MetricMock(), new MockProcessTerminator(), CPUS);
+        ExecutorServiceWrapper wrapper = (ExecutorServiceWrapper) threadPool.executor();
+        // Falls back to platform threads where virtual threads are not supported
+        assertEquals(VirtualThreadExecutor.virtualThreadFactory("test").isPresent(),
+                     wrapper.delegate() instanceof VirtualThreadExecutor);
+
+        CompletableFuture<Boolean> ran = new CompletableFuture<>();
+        threadPool.executor().execute(() -> ran.complete(true));
+        assertTrue(ran.get(60, TimeUnit.SECONDS));
+        threadPool.close();
+    }
+
+    @Test
+    void testVirtualThreadExecutorLimitsConcurrency() throws InterruptedException {
+        MetricMock metrics = new MetricMock();
+        // Limits do not depend on the kind of threads, so this uses platform threads to run on any JVM
+        VirtualThreadExecutor executor = new VirtualThreadExecutor("test", Thread::new, 2, 1, new ThreadPoolMetric(metrics, "test"));
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable blocking = () -> {
+            started.countDown();
+            try { release.await(); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+        };
+
+        executor.execute(blocking);
+        executor.execute(blocking);
+        assertTrue(started.await(60, TimeUnit.SECONDS));
+        assertEquals(2, executor.activeCount());
+        executor.execute(blocking); // Waits for one of the others to complete
+        assertEquals(1, executor.queueSize());
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(blocking));
+        assertEquals(2, executor.maxPoolSize());
+        assertEquals(1, executor.queueCapacity());
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+        assertTrue(executor.isTerminated());
+        assertEquals(0, executor.activeCount());
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(blocking));
+        assertNotNull(metrics.innvocations().get(ContainerMetrics.JDISC_THREAD_POOL_TASK_START_DELAY.baseName()));
+    }
+
     private static class FlipIt implements Runnable {
         public final Receiver<Boolean> didItRun = new Receiver<>();
 
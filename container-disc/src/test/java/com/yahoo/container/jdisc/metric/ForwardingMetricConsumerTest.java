@@ -10,6 +10,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 /**
  * @author Simon Thoresen Hult
@@ -42,4 +43,33 @@ public class ForwardingMetricConsumerTest {
         Mockito.verify(fooConsumer, Mockito.times(1)).set("b", 96, fooCtx);
         Mockito.verify(barConsumer, Mockito.times(1)).set("b", 96, barCtx);
     }
+
+    @Test
+    void requireThatHandlesAreForwarded() {
+        MetricConsumer fooConsumer = Mockito.mock(MetricConsumer.class);
+        Metric.Context fooCtx = Mockito.mock(Metric.Context.class);
+        Mockito.when(fooConsumer.createContext(Mockito.<Map<String, ?>>any())).thenReturn(fooCtx);
+        Metric.Handle fooHandle = Mockito.mock(Metric.Handle.class);
+        Mockito.when(fooConsumer.createHandle("a", fooCtx)).thenReturn(fooHandle);
+
+        MetricConsumer barConsumer = Mockito.mock(MetricConsumer.class); // does not support handles
+        Metric.Context barCtx = Mockito.mock(Metric.Context.class);
+        Mockito.when(barConsumer.createContext(Mockito.<Map<String, ?>>any())).thenReturn(barCtx);
+
+        MetricConsumer fwdConsumer = new ForwardingMetricConsumer(new MetricConsumer[]{fooConsumer, barConsumer});
+        Metric.Context ctx = fwdConsumer.createContext(new HashMap<>());
+
+        Metric.Handle handle = fwdConsumer.createHandle("a", ctx);
+        assertNotNull(handle);
+        handle.add(69);
+        Mockito.verify(fooHandle, Mockito.times(1)).add(69);
+        Mockito.verify(barConsumer, Mockito.times(1)).add("a", 69L, barCtx);
+        handle.set(96);
+        Mockito.verify(fooHandle, Mockito.times(1)).set(96);
+        Mockito.verify(barConsumer, Mockito.times(1)).set("a", 96.0, barCtx);
+        Mockito.verify(fooConsumer, Mockito.never()).add(Mockito.any(), Mockito.any(), Mockito.any());
+
+        assertNull(fwdConsumer.createHandle("b", ctx), "No consumer supports handles for this metric");
+    }
+
 }
@@ -0,0 +1,89 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.metrics.simple;
+
+import com.yahoo.jdisc.Metric;
+import com.yahoo.metrics.simple.jdisc.SimpleMetricConsumer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Functional tests for metric handles.
+ */
+public class MetricHandleTest {
+
+    private final MetricReceiver receiver = new MetricReceiver.MockReceiver();
+
+    @Test
+    void testHandlesAreDeclaredOnce() {
+        Point p = receiver.pointBuilder().set("x", "y").build();
+        MetricHandle handle = receiver.declareHandle("unitTestHandle", p);
+        assertSame(handle, receiver.declareHandle("unitTestHandle", receiver.pointBuilder().set("x", "y").build()));
+        assertEquals(new Identifier("unitTestHandle", p), handle.getIdentifier());
+
+        Metric.Handle consumerHandle = new SimpleMetricConsumer(receiver).createHandle("unitTestHandle", p);
+        assertSame(handle, consumerHandle);
+    }
+
+    @Test
+    void testCounterFromManyThreads() throws InterruptedException {
+        MetricHandle handle = receiver.declareHandle("unitTestCounter", null);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < 1000; j++) handle.add(1);
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) thread.join();
+
+        UntypedMetric value = singleValue(receiver.getSnapshot(), "unitTestCounter", Point.emptyPoint());
+        assertTrue(value.isCounter());
+        assertEquals(8000, value.getCount());
+
+        // Values are drained into the snapshot, and are not reported again
+        handle.add(3);
+        assertEquals(3, singleValue(receiver.getSnapshot(), "unitTestCounter", Point.emptyPoint()).getCount());
+        assertTrue(receiver.getSnapshot().getValuesByMetricName().isEmpty());
+    }
+
+    @Test
+    void testGauge() throws InterruptedException {
+        Point p = receiver.pointBuilder().set("x", 1L).build();
+        MetricHandle handle = receiver.declareHandle("unitTestGauge", p);
+        handle.set(2.0d);
+        Thread other = new Thread(() -> handle.set(5.0d));
+        other.start();
+        other.join();
+        handle.set(3.0d);
+
+        UntypedMetric value = singleValue(receiver.getSnapshot(), "unitTestGauge", p);
+        assertEquals(3, value.getCount());
+        assertEquals(2.0d, value.getMin(), 0.0d);
+        assertEquals(5.0d, value.getMax(), 0.0d);
+        assertEquals(10.0d, value.getSum(), 0.0d);
+        assertEquals(3.0d, value.getLast(), 0.0d);
+    }
+
+    @Test
+    void testHandlesAndSamplesAreMerged() {
+        Counter counter = receiver.declareCounter("unitTestCounter");
+        MetricHandle handle = receiver.declareHandle("unitTestCounter", null);
+        counter.add(2);
+        handle.add(5);
+        assertEquals(7, singleValue(receiver.getSnapshot(), "unitTestCounter", Point.emptyPoint()).getCount());
+    }
+
+    private static UntypedMetric singleValue(Bucket bucket, String metricName, Point point) {
+        Map<Point, UntypedMetric> values = bucket.getMapForMetric(metricName);
+        assertEquals(1, values.size());
+        return values.get(point);
+    }
+
+}
@@ -17,28 +17,35 @@ public class Pong {
     private final Long activeDocuments;
     private final Long targetActiveDocuments;
     private final boolean isBlockingWrites;
+    private final Integer activeQueries;
     private final ErrorMessage error;
 
     public Pong() {
-        this(null, null, false, null);
+        this(null, null, false, null, null);
     }
 
     public Pong(ErrorMessage error) {
-        this(null, null, false, error);
+        this(null, null, false, null, error);
     }
 
     public Pong(long activeDocuments, long targetActiveDocuments) {
-        this(activeDocuments, targetActiveDocuments, false, null);
+        this(activeDocuments, targetActiveDocuments, false, null, null);
     }
 
     public Pong(long activeDocuments, long targetActiveDocuments, boolean isBlockingWrites) {
-        this(activeDocuments, targetActiveDocuments, isBlockingWrites, null);
+        this(activeDocuments, targetActiveDocuments, isBlockingWrites, null, null);
     }
 
-    private Pong(Long activeDocuments, Long targetActiveDocuments, boolean isBlockingWrites, ErrorMessage error) {
+    public Pong(long activeDocuments, long targetActiveDocuments, boolean isBlockingWrites, int activeQueries) {
+        this(activeDocuments, targetActiveDocuments, isBlockingWrites, activeQueries, null);
+    }
+
+    private Pong(Long activeDocuments, Long targetActiveDocuments, boolean isBlockingWrites, Integer activeQueries,
+                 ErrorMessage error) {
         this.activeDocuments = activeDocuments;
         this.targetActiveDocuments = targetActiveDocuments;
         this.isBlockingWrites = isBlockingWrites;
+        this.activeQueries = activeQueries;
         this.error = error;
     }
 
@@ -53,6 +60,9 @@ public class Pong {
     /** Returns true if the pinged node is currently blocking write operations due to being full */
     public boolean isBlockingWrites() { return isBlockingWrites; }
 
+    /** Returns the number of queries queued or running in the backend responding in this Pong, if available */
+    public Optional<Integer> activeQueries() { return Optional.ofNullable(activeQueries); }
+
     /** Returns whether there is an error or not */
     public boolean badResponse() { return error != null; }
 
@@ -66,6 +76,7 @@ public class Pong {
         targetActiveDocuments().ifPresent(docCount -> m.append(" target active docs: ").append(docCount));
         if (isBlockingWrites)
             m.append(" blocking writes: true");
+        activeQueries().ifPresent(queries -> m.append(" active queries: ").append(queries));
         error().ifPresent(e -> m.append(" error: ").append(error));
         return m.toString();
     }
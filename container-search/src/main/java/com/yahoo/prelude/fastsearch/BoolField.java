@@ -3,6 +3,7 @@
 package com.yahoo.prelude.fastsearch;
 
 import com.yahoo.data.access.Inspector;
+import com.yahoo.search.result.Hit;
 
 /**
  * Class representing a byte field in the result set
@@ -18,4 +19,10 @@ public class BoolField extends DocsumField {
     @Override
     public Object convert(Inspector value) { return value.asBool(); }
 
+    @Override
+    boolean acceptRaw(String name, Inspector value, Hit.RawDataConsumer consumer) {
+        consumer.acceptBool(name, value.asBool());
+        return true;
+    }
+
 }
@@ -77,6 +77,12 @@ public class DocsumDefinition {
         return field.convert(value);
     }
 
+    /** Returns whether {@link #convert} returns a non-null value for the given field and value, without converting it. */
+    boolean hasValue(String fieldName, Inspector value) {
+        DocsumField field = fields.get(fieldName);
+        return field != null && field.hasValue(value);
+    }
+
     @Override
     public String toString() {
         return "docsum definition '" + name() + "'";
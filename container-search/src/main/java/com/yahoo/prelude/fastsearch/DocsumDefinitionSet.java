@@ -4,8 +4,8 @@ package com.yahoo.prelude.fastsearch;
 import com.yahoo.search.schema.DocumentSummary;
 import com.yahoo.search.schema.Schema;
 import com.yahoo.slime.BinaryFormat;
+import com.yahoo.slime.BinaryView;
 import com.yahoo.data.access.Inspector;
-import com.yahoo.slime.Slime;
 import com.yahoo.data.access.slime.SlimeAdapter;
 import com.yahoo.prelude.ConfigurationException;
 
@@ -84,8 +84,15 @@ public final class DocsumDefinitionSet {
             throw new IllegalArgumentException("Only expecting SchemaLess docsums - summary class:" + summaryClass + " hit:" + hit);
         }
         DocsumDefinition docsumDefinition = getDocsum(summaryClass);
-        Slime value = BinaryFormat.decode(buffer.array(), buffer.arrayOffset()+buffer.position(), buffer.remaining());
-        Inspector docsum = new SlimeAdapter(value.get());
+        int offset = buffer.position();
+        Inspector docsum;
+        try {
+            // Field values are read from the binary data when accessed, rather than decoded up front
+            docsum = new SlimeAdapter(BinaryView.inspect(data, offset, buffer.remaining()));
+        }
+        catch (IllegalArgumentException e) { // Decode what is possible, as before
+            docsum = new SlimeAdapter(BinaryFormat.decode(data, offset, buffer.remaining()).get());
+        }
         if (docsum.type() != OBJECT) {
             return "Hit " + hit + " failed: " + docsum.asString();
         }
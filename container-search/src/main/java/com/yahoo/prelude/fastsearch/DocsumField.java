@@ -2,6 +2,7 @@
 package com.yahoo.prelude.fastsearch;
 
 import com.yahoo.data.access.Inspector;
+import com.yahoo.search.result.Hit;
 import java.util.logging.Level;
 
 import java.lang.reflect.Constructor;
@@ -86,7 +87,18 @@ public abstract class DocsumField {
      */
     public abstract Object convert(Inspector value);
 
+    /** Returns whether {@link #convert} returns a non-null value for the given value, without converting it. */
+    boolean hasValue(Inspector value) { return value.valid(); }
+
     /** Returns whether this is the string field type. */
     boolean isString() { return false; }
 
+    /**
+     * Passes the given value of this field to the consumer without converting it to a Java object,
+     * if this is supported for this type and value.
+     *
+     * @return true if the value was passed to the consumer, false if it must be converted instead
+     */
+    boolean acceptRaw(String name, Inspector value, Hit.RawDataConsumer consumer) { return false; }
+
 }
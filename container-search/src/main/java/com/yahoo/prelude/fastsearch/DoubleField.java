@@ -3,6 +3,7 @@ package com.yahoo.prelude.fastsearch;
 
 import com.yahoo.search.result.NanNumber;
 import com.yahoo.data.access.Inspector;
+import com.yahoo.search.result.Hit;
 
 /**
  * @author Mathias Mølster Lidal
@@ -28,4 +29,12 @@ public class DoubleField extends DocsumField {
         return convert(value.asDouble(EMPTY_VALUE));
     }
 
+    @Override
+    boolean acceptRaw(String name, Inspector value, Hit.RawDataConsumer consumer) {
+        double rawValue = value.asDouble(EMPTY_VALUE);
+        if (Double.isNaN(rawValue)) return false;
+        consumer.acceptDouble(name, rawValue);
+        return true;
+    }
+
 }
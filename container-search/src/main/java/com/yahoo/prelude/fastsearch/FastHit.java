@@ -545,6 +545,7 @@ public class FastHit extends Hit {
         }
 
         void forEachFieldAsRaw(RawUtf8Consumer consumer) {
+            RawDataConsumer rawDataConsumer = consumer instanceof RawDataConsumer raw ? raw : null;
             data.traverse((ObjectTraverser)(name, value) -> {
                 if (!shadowed(name) && !removed(name)) {
                     DocsumField fieldType = type.fields().get(name);
@@ -552,7 +553,7 @@ public class FastHit extends Hit {
                         if (fieldType.isString()) {
                             byte[] utf8Value = value.asUtf8();
                             consumer.accept(name, utf8Value, 0, utf8Value.length);
-                        } else {
+                        } else if (rawDataConsumer == null || ! fieldType.acceptRaw(name, value, rawDataConsumer)) {
                             Object convertedValue = fieldType.convert(value);
                             if (convertedValue != null)
                                 consumer.accept(name, convertedValue);
@@ -651,26 +652,33 @@ public class FastHit extends Hit {
 
             @Override
             protected Map.Entry<String, Object> toValue(Map.Entry<String, Inspector> field) {
-                Object convertedValue = type.convert(field.getKey(), field.getValue());
-                if (convertedValue == null) return null;
-                return new SummaryFieldEntry(field.getKey(), convertedValue);
+                if ( ! type.hasValue(field.getKey(), field.getValue())) return null;
+                return new SummaryFieldEntry(field.getKey(), field.getValue(), type);
             }
 
+            /** A field entry which converts the value on first access, such that iterating over names is cheap. */
             private static final class SummaryFieldEntry implements Map.Entry<String, Object> {
 
                 private final String key;
-                private final Object value;
+                private final Inspector rawValue;
+                private final DocsumDefinition type;
+                private Object value = null;
 
-                SummaryFieldEntry(String key, Object value) {
+                SummaryFieldEntry(String key, Inspector rawValue, DocsumDefinition type) {
                     this.key = key;
-                    this.value = value;
+                    this.rawValue = rawValue;
+                    this.type = type;
                 }
 
                 @Override
                 public String getKey() { return key; }
 
                 @Override
-                public Object getValue() { return value; }
+                public Object getValue() {
+                    if (value == null)
+                        value = type.convert(key, rawValue);
+                    return value;
+                }
 
                 @Override
                 public Object setValue(Object value) { throw new UnsupportedOperationException(); }
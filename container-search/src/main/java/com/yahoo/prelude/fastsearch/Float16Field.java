@@ -2,6 +2,7 @@
 package com.yahoo.prelude.fastsearch;
 
 import com.yahoo.data.access.Inspector;
+import com.yahoo.search.result.Hit;
 import com.yahoo.search.result.NanNumber;
 
 /**
@@ -30,4 +31,12 @@ public class Float16Field extends DocsumField {
         return convert((float)value.asDouble(EMPTY_VALUE));
     }
 
+    @Override
+    boolean acceptRaw(String name, Inspector value, Hit.RawDataConsumer consumer) {
+        float rawValue = (float)value.asDouble(EMPTY_VALUE);
+        if (Float.isNaN(rawValue)) return false;
+        consumer.acceptFloat(name, rawValue);
+        return true;
+    }
+
 }
@@ -3,6 +3,7 @@ package com.yahoo.prelude.fastsearch;
 
 import com.yahoo.search.result.NanNumber;
 import com.yahoo.data.access.Inspector;
+import com.yahoo.search.result.Hit;
 
 /**
  * @author Mathias Mølster Lidal
@@ -28,4 +29,12 @@ public class FloatField extends DocsumField {
         return convert((float)value.asDouble(EMPTY_VALUE));
     }
 
+    @Override
+    boolean acceptRaw(String name, Inspector value, Hit.RawDataConsumer consumer) {
+        float rawValue = (float)value.asDouble(EMPTY_VALUE);
+        if (Float.isNaN(rawValue)) return false;
+        consumer.acceptFloat(name, rawValue);
+        return true;
+    }
+
 }
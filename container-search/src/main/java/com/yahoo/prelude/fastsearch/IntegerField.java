@@ -3,6 +3,7 @@ package com.yahoo.prelude.fastsearch;
 
 import com.yahoo.search.result.NanNumber;
 import com.yahoo.data.access.Inspector;
+import com.yahoo.search.result.Hit;
 
 /**
  * @author Bjørn Borud
@@ -33,4 +34,12 @@ public class IntegerField extends DocsumField {
         return convert((int)value.asLong(EMPTY_VALUE));
     }
 
+    @Override
+    boolean acceptRaw(String name, Inspector value, Hit.RawDataConsumer consumer) {
+        int rawValue = (int)value.asLong(EMPTY_VALUE);
+        if (rawValue == EMPTY_VALUE) return false;
+        consumer.acceptLong(name, rawValue);
+        return true;
+    }
+
 }
@@ -3,6 +3,7 @@ package com.yahoo.prelude.fastsearch;
 
 import com.yahoo.search.result.NanNumber;
 import com.yahoo.data.access.Inspector;
+import com.yahoo.search.result.Hit;
 
 /**
  * @author Bjørn Borud
@@ -28,4 +29,12 @@ public class ShortField extends DocsumField {
         return convert((short)value.asLong(EMPTY_VALUE));
     }
 
+    @Override
+    boolean acceptRaw(String name, Inspector value, Hit.RawDataConsumer consumer) {
+        short rawValue = (short)value.asLong(EMPTY_VALUE);
+        if (rawValue == EMPTY_VALUE) return false;
+        consumer.acceptLong(name, rawValue);
+        return true;
+    }
+
 }
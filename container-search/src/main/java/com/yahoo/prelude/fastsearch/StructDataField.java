@@ -1,6 +1,7 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.prelude.fastsearch;
 
+import com.yahoo.search.result.Hit;
 import com.yahoo.search.result.StructuredData;
 import com.yahoo.data.access.Inspector;
 import com.yahoo.data.access.Type;
@@ -35,4 +36,11 @@ public class StructDataField extends DocsumField {
         }
     }
 
+    @Override
+    boolean acceptRaw(String name, Inspector value, Hit.RawDataConsumer consumer) {
+        if (value.type() == Type.STRING) return false;
+        consumer.acceptStructured(name, value);
+        return true;
+    }
+
 }
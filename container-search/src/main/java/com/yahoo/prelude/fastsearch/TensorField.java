@@ -34,4 +34,9 @@ public class TensorField extends DocsumField {
         return TypedBinaryFormat.decode(Optional.empty(), GrowableByteBuffer.wrap(content));
     }
 
+    @Override
+    boolean hasValue(Inspector value) {
+        return value.asData(Value.empty().asData()).length > 0;
+    }
+
 }
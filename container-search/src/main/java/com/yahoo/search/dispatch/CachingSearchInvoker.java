@@ -0,0 +1,50 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.google.protobuf.ByteString;
+import com.yahoo.search.Query;
+
+import java.io.IOException;
+
+/**
+ * A search invoker which delegates to another invoker, and adds the result it produces to a {@link ResultCache}.
+ */
+class CachingSearchInvoker extends SearchInvoker {
+
+    private final ByteString key;
+    private final SearchInvoker delegate;
+    private final ResultCache cache;
+    private Query query;
+
+    CachingSearchInvoker(ByteString key, SearchInvoker delegate, ResultCache cache) {
+        super(delegate.node());
+        this.key = key;
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    protected Object sendSearchRequest(Query query, double contentShare, Object context) throws IOException {
+        this.query = query;
+        return delegate.sendSearchRequest(query, contentShare, context);
+    }
+
+    @Override
+    protected InvokerResult getSearchResult() throws IOException {
+        InvokerResult result = delegate.getSearchResult();
+        delegate.setFinalStatus(result.getResult().hits().getError() == null);
+        cache.put(key, query, result);
+        return result;
+    }
+
+    @Override
+    protected void setMonitor(ResponseMonitor<SearchInvoker> monitor) {
+        delegate.setMonitor(monitor);
+    }
+
+    @Override
+    protected void release() {
+        delegate.close();
+    }
+
+}
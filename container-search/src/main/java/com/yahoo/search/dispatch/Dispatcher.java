@@ -1,11 +1,14 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.dispatch;
 
+import com.google.protobuf.ByteString;
 import com.yahoo.component.AbstractComponent;
 import com.yahoo.component.ComponentId;
 import com.yahoo.component.annotation.Inject;
 import com.yahoo.compress.Compressor;
+import com.yahoo.concurrent.Timer;
 import com.yahoo.container.handler.VipStatus;
+import com.yahoo.jdisc.Metric;
 import com.yahoo.prelude.fastsearch.VespaBackend;
 import com.yahoo.processing.request.CompoundName;
 import com.yahoo.search.Query;
@@ -68,6 +71,8 @@ public class Dispatcher extends AbstractComponent {
     private final SearchCluster searchCluster;
     private final ClusterMonitor<Node> clusterMonitor;
     private final QrSearchersConfig qrSearchersConfig;
+    private final ResultCache resultCache;
+    private final HedgingPolicy hedgingPolicy;
     private volatile VolatileItems volatileItems;
 
     private static class VolatileItems {
@@ -120,38 +125,54 @@ public class Dispatcher extends AbstractComponent {
     }
 
     @Inject
-    public Dispatcher(ComponentId clusterId, DispatchConfig dispatchConfig, QrSearchersConfig qrSearchersConfig, DispatchNodesConfig nodesConfig, VipStatus vipStatus) {
-        this(clusterId, dispatchConfig, qrSearchersConfig, new RpcResourcePool(dispatchConfig, nodesConfig), nodesConfig, vipStatus, RpcInvokerFactory::new);
+    public Dispatcher(ComponentId clusterId, DispatchConfig dispatchConfig, QrSearchersConfig qrSearchersConfig,
+                      DispatchNodesConfig nodesConfig, VipStatus vipStatus, Metric metric) {
+        this(clusterId, dispatchConfig, qrSearchersConfig, new RpcResourcePool(dispatchConfig, nodesConfig), nodesConfig, vipStatus,
+             RpcInvokerFactory::new, metric);
         initialWarmup(dispatchConfig.warmuptime());
     }
 
+    public Dispatcher(ComponentId clusterId, DispatchConfig dispatchConfig, QrSearchersConfig qrSearchersConfig,
+                      DispatchNodesConfig nodesConfig, VipStatus vipStatus) {
+        this(clusterId, dispatchConfig, qrSearchersConfig, nodesConfig, vipStatus, null);
+    }
+
     Dispatcher(ComponentId clusterId, DispatchConfig dispatchConfig, QrSearchersConfig qrSearchersConfig, RpcConnectionPool rpcConnectionPool,
-               DispatchNodesConfig nodesConfig, VipStatus vipStatus, InvokerFactoryFactory invokerFactories) {
+               DispatchNodesConfig nodesConfig, VipStatus vipStatus, InvokerFactoryFactory invokerFactories, Metric metric) {
         this(dispatchConfig, qrSearchersConfig, rpcConnectionPool,
              new SearchCluster(clusterId.stringValue(), AvailabilityPolicy.from(dispatchConfig),
                                toNodes(clusterId.stringValue(), nodesConfig), vipStatus, new RpcPingFactory(rpcConnectionPool)),
-             invokerFactories);
+             invokerFactories, metric);
     }
 
     Dispatcher(ComponentId clusterId, DispatchConfig dispatchConfig, RpcConnectionPool rpcConnectionPool,
                DispatchNodesConfig nodesConfig, VipStatus vipStatus, InvokerFactoryFactory invokerFactories) {
-        this(clusterId, dispatchConfig, null, rpcConnectionPool, nodesConfig, vipStatus, invokerFactories);
+        this(clusterId, dispatchConfig, null, rpcConnectionPool, nodesConfig, vipStatus, invokerFactories, null);
     }
 
     Dispatcher(DispatchConfig dispatchConfig, QrSearchersConfig qrSearchersConfig, RpcConnectionPool rpcConnectionPool,
                SearchCluster searchCluster, InvokerFactoryFactory invokerFactories) {
-        this(dispatchConfig, qrSearchersConfig, rpcConnectionPool, searchCluster, new ClusterMonitor<>(searchCluster, false), invokerFactories);
+        this(dispatchConfig, qrSearchersConfig, rpcConnectionPool, searchCluster, invokerFactories, null);
+    }
+
+    Dispatcher(DispatchConfig dispatchConfig, QrSearchersConfig qrSearchersConfig, RpcConnectionPool rpcConnectionPool,
+               SearchCluster searchCluster, InvokerFactoryFactory invokerFactories, Metric metric) {
+        this(dispatchConfig, qrSearchersConfig, rpcConnectionPool, searchCluster, new ClusterMonitor<>(searchCluster, false),
+             invokerFactories, metric);
         this.clusterMonitor.start(); // Populate nodes to monitor before starting it.
     }
 
     Dispatcher(DispatchConfig dispatchConfig, QrSearchersConfig qrSearchersConfig, RpcConnectionPool rpcConnectionPool,
-               SearchCluster searchCluster, ClusterMonitor<Node> clusterMonitor, InvokerFactoryFactory invokerFactories) {
+               SearchCluster searchCluster, ClusterMonitor<Node> clusterMonitor, InvokerFactoryFactory invokerFactories,
+               Metric metric) {
         this.dispatchConfig = dispatchConfig;
         this.qrSearchersConfig = qrSearchersConfig;
         this.rpcResourcePool = rpcConnectionPool;
         this.searchCluster = searchCluster;
         this.clusterMonitor = clusterMonitor;
         this.invokerFactories = invokerFactories;
+        this.resultCache = ResultCache.from(searchCluster.name(), dispatchConfig, () -> searchCluster.groupList().getDocumentCount(), metric);
+        this.hedgingPolicy = HedgingPolicy.from(dispatchConfig);
         this.volatileItems = update();
         searchCluster.addMonitoring(clusterMonitor);
     }
@@ -159,7 +180,13 @@ public class Dispatcher extends AbstractComponent {
     /* For simple mocking in tests. Beware that searchCluster is shutdown in deconstruct() */
     Dispatcher(ClusterMonitor<Node> clusterMonitor, SearchCluster searchCluster,
                DispatchConfig dispatchConfig, QrSearchersConfig qrSearchersConfig, InvokerFactory invokerFactory) {
-        this(dispatchConfig, qrSearchersConfig, null, searchCluster, clusterMonitor, (__, ___, ____, _____) -> invokerFactory);
+        this(clusterMonitor, searchCluster, dispatchConfig, qrSearchersConfig, invokerFactory, null);
+    }
+
+    /* For simple mocking in tests. Beware that searchCluster is shutdown in deconstruct() */
+    Dispatcher(ClusterMonitor<Node> clusterMonitor, SearchCluster searchCluster,
+               DispatchConfig dispatchConfig, QrSearchersConfig qrSearchersConfig, InvokerFactory invokerFactory, Metric metric) {
+        this(dispatchConfig, qrSearchersConfig, null, searchCluster, clusterMonitor, (__, ___, ____, _____) -> invokerFactory, metric);
     }
 
     /** Returns the snapshot of volatile items that need to be kept together, incrementing its reference counter. */
@@ -211,6 +238,9 @@ public class Dispatcher extends AbstractComponent {
 
             // Update the snapshot to use the new nodes set in the search cluster; the RPC pool is ready for this.
             this.volatileItems = update();
+
+            // Cached results may refer to nodes which are now gone.
+            resultCache.invalidate();
         }   // Close the old snapshot, which may trigger the RPC cleanup now, or when the last invoker is closed, by a search thread.
     }
 
@@ -242,6 +272,7 @@ public class Dispatcher extends AbstractComponent {
             case BEST_OF_RANDOM_2 -> LoadBalancer.Policy.BEST_OF_RANDOM_2;
             case ADAPTIVE,LATENCY_AMORTIZED_OVER_REQUESTS -> LoadBalancer.Policy.ADAPTIVE;
             case LATENCY_AMORTIZED_OVER_TIME -> LoadBalancer.Policy.LATENCY_AMORTIZED_OVER_TIME;
+            case QUEUE_AWARE -> LoadBalancer.Policy.QUEUE_AWARE;
         };
     }
     private static List<Node> toNodes(String clusterName, DispatchNodesConfig nodesConfig) {
@@ -281,8 +312,12 @@ public class Dispatcher extends AbstractComponent {
     public SearchInvoker getSearchInvoker(Query query, VespaBackend searcher) {
         try (var items = volatileItems()) { // Take a snapshot, and release it when we're done.
             int maxHitsPerNode = dispatchConfig.maxHitsPerNode();
-            SearchInvoker invoker = getSearchPathInvoker(query, searcher, searchCluster.groupList(), items.get().invokerFactory, maxHitsPerNode)
-                    .orElseGet(() -> getInternalInvoker(query, searcher, searchCluster, items.get().loadBalancer, items.get().invokerFactory, maxHitsPerNode));
+            Optional<ByteString> cacheKey = resultCache.keyOf(query);
+            SearchInvoker invoker = cacheKey.flatMap(resultCache::get).orElseGet(() -> {
+                SearchInvoker backendInvoker = getSearchPathInvoker(query, searcher, searchCluster.groupList(), items.get().invokerFactory, maxHitsPerNode)
+                        .orElseGet(() -> getInternalInvoker(query, searcher, searchCluster, items.get().loadBalancer, items.get().invokerFactory, maxHitsPerNode, hedgingPolicy));
+                return cacheKey.map(key -> resultCache.caching(key, backendInvoker)).orElse(backendInvoker);
+            });
 
             if (query.properties().getBoolean(com.yahoo.search.query.Model.ESTIMATE)) {
                 query.setHits(0);
@@ -314,7 +349,8 @@ public class Dispatcher extends AbstractComponent {
     }
 
     private static SearchInvoker getInternalInvoker(Query query, VespaBackend searcher, SearchCluster cluster,
-                                                    LoadBalancer loadBalancer, InvokerFactory invokerFactory, int maxHitsPerNode) {
+                                                    LoadBalancer loadBalancer, InvokerFactory invokerFactory, int maxHitsPerNode,
+                                                    HedgingPolicy hedgingPolicy) {
         Optional<Node> directNode = cluster.localCorpusDispatchTarget();
         if (directNode.isPresent()) {
             Node node = directNode.get();
@@ -350,6 +386,10 @@ public class Dispatcher extends AbstractComponent {
                 query.trace(false, 2, "Dispatching to group ", group.id(), " after retries = ", i);
                 query.getModel().setSearchPath("/" + group.id());
                 invoker.get().teardown((success, time) -> loadBalancer.releaseGroup(group, success, time));
+                if (hedgingPolicy.isEnabled() && groups.size() > 1 && query.getModel().getSearchGroup() == null)
+                    return new HedgedSearchInvoker(Timer.monotonic, invoker.get(),
+                                                   () -> getHedgeInvoker(query, searcher, group, loadBalancer, invokerFactory, maxHitsPerNode),
+                                                   hedgingPolicy);
                 return invoker.get();
             } else {
                 loadBalancer.releaseGroup(group, false, RequestDuration.of(Duration.ZERO));
@@ -359,6 +399,23 @@ public class Dispatcher extends AbstractComponent {
         throw new IllegalStateException("No suitable groups to dispatch query. Rejected: " + rejected);
     }
 
+    /** Returns an invoker of a group with sufficient coverage other than the given one, or empty if none is available */
+    private static Optional<SearchInvoker> getHedgeInvoker(Query query, VespaBackend searcher, Group queried,
+                                                           LoadBalancer loadBalancer, InvokerFactory invokerFactory, int maxHitsPerNode) {
+        Optional<Group> groupInCluster = loadBalancer.takeAnyGroupNotIn(Set.of(queried.id()));
+        if (groupInCluster.isEmpty()) return Optional.empty();
+
+        Group group = groupInCluster.get();
+        Optional<SearchInvoker> invoker = group.hasSufficientCoverage()
+                                          ? invokerFactory.createSearchInvoker(searcher, query, group.nodes(), false, maxHitsPerNode)
+                                          : Optional.empty();
+        if (invoker.isPresent())
+            invoker.get().teardown((success, time) -> loadBalancer.releaseGroup(group, success, time));
+        else
+            loadBalancer.releaseGroup(group, false, RequestDuration.of(Duration.ZERO));
+        return invoker;
+    }
+
     private static Optional<Group> preferredGroup(Query query, SearchGroups groups, boolean acceptInsufficientCoverage,
                                                   Set<Integer> rejectedGroups) {
         Integer preference = query.getModel().getSearchGroup();
@@ -0,0 +1,119 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.concurrent.Timer;
+import com.yahoo.search.Query;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A search invoker which sends a query to a group, and also to another group if the first is slow to respond,
+ * as decided by a {@link HedgingPolicy}. The result of the group which responds first is used.
+ * <p>
+ * Content is distributed independently within each group, so a slow node can only be replaced by a whole group.
+ * The group invoker responding first owns the result, and decides the coverage as usual.
+ */
+class HedgedSearchInvoker extends SearchInvoker implements ResponseMonitor<SearchInvoker> {
+
+    private final Timer timer;
+    private final SearchInvoker primary;
+    private final Supplier<Optional<SearchInvoker>> hedgeFactory;
+    private final HedgingPolicy policy;
+    private final LinkedBlockingQueue<SearchInvoker> responded = new LinkedBlockingQueue<>();
+
+    private SearchInvoker hedge = null;
+    private Query query;
+    private double contentShare;
+    private long startTime;
+
+    /**
+     * Creates a hedged search invoker
+     *
+     * @param timer the timer used to measure latencies
+     * @param primary the invoker of the group to query first
+     * @param hedgeFactory creates an invoker of another group, or returns empty if none is available
+     * @param policy the policy deciding when to hedge
+     */
+    HedgedSearchInvoker(Timer timer, SearchInvoker primary, Supplier<Optional<SearchInvoker>> hedgeFactory, HedgingPolicy policy) {
+        super(primary.node());
+        this.timer = timer;
+        this.primary = primary;
+        this.hedgeFactory = hedgeFactory;
+        this.policy = policy;
+    }
+
+    @Override
+    protected Object sendSearchRequest(Query query, double contentShare, Object context) throws IOException {
+        this.query = query;
+        this.contentShare = contentShare;
+        this.startTime = timer.milliTime();
+        primary.setMonitor(this);
+        return primary.sendSearchRequest(query, contentShare, context);
+    }
+
+    @Override
+    protected InvokerResult getSearchResult() throws IOException {
+        SearchInvoker winner = primary;
+        try {
+            OptionalLong hedgeDelay = policy.hedgeDelay();
+            if (hedgeDelay.isPresent()) {
+                SearchInvoker first = responded.poll(Math.min(hedgeDelay.getAsLong(), query.getTimeLeft()), TimeUnit.MILLISECONDS);
+                if (first == null && query.getTimeLeft() > 0 && policy.tryHedge())
+                    first = sendHedge();
+                if (first != null)
+                    winner = first;
+            }
+        }
+        catch (InterruptedException e) {
+            throw new RuntimeException("Interrupted while waiting for search results", e);
+        }
+        InvokerResult result = winner.getSearchResult();
+        winner.setFinalStatus(result.getResult().hits().getError() == null);
+        if (hedge != null)
+            reportLoser(winner == primary ? hedge : primary);
+        policy.record(timer.milliTime() - startTime);
+        return result;
+    }
+
+    /**
+     * Lets the invoker which lost to the other report its time as a latency of its group if it responded.
+     * One which did not respond is reported as failed, as its latency is unknown: Reporting the time it was
+     * cut off at would make a group which does not respond look as fast as the one which answered.
+     */
+    private void reportLoser(SearchInvoker loser) {
+        loser.setFinalStatus(responded.contains(loser));
+    }
+
+    /** Sends the query to another group, and returns the first invoker to respond, or null if none does in time. */
+    private SearchInvoker sendHedge() throws IOException, InterruptedException {
+        hedge = hedgeFactory.get().orElse(null);
+        if (hedge == null) return null;
+
+        query.trace(false, 2, "Hedging query to another group after ", timer.milliTime() - startTime, " ms");
+        hedge.setMonitor(this);
+        hedge.sendSearchRequest(query, contentShare, null);
+        // Leave the primary time to collect the responses it has, if no group responds completely
+        return responded.poll(Math.max(0, query.getTimeLeft() - 1), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void responseAvailable(SearchInvoker from) {
+        responded.add(from);
+    }
+
+    @Override
+    protected void release() {
+        primary.close();
+        if (hedge != null)
+            hedge.close();
+    }
+
+    // For testing
+    SearchInvoker hedge() { return hedge; }
+
+}
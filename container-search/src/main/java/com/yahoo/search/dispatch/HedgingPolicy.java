@@ -0,0 +1,82 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.vespa.config.search.DispatchConfig;
+
+import java.util.Arrays;
+import java.util.OptionalLong;
+
+/**
+ * Decides when a query to a group should be hedged, by also sending it to another group.
+ * <p>
+ * A query is hedged when its group has not responded within the configured percentile of the latencies of
+ * recent queries, and hedging it is within the budget of the fraction of queries which may be hedged.
+ * <p>
+ * This class is multithread safe.
+ */
+class HedgingPolicy {
+
+    private static final int maxSamples = 1000;
+    private static final int minSamples = 100;
+    private static final int samplesBetweenUpdates = 100;
+    private static final double maxCredit = 10;
+
+    private final double budget;
+    private final double percentile;
+
+    private final long[] latencies = new long[maxSamples]; // Guarded by this
+    private long samples = 0; // Guarded by this
+    private long hedgeDelay = -1; // Guarded by this
+    private double credit = 0; // Guarded by this
+
+    /**
+     * Creates a hedging policy
+     *
+     * @param budget the fraction of queries which may be hedged, or 0 to never hedge
+     * @param percentile the percentile of recent latencies to wait for a group before hedging a query to it
+     */
+    HedgingPolicy(double budget, double percentile) {
+        if (budget < 0 || budget > 1)
+            throw new IllegalArgumentException("Hedging budget must be in [0, 1], but was " + budget);
+        if (percentile <= 0 || percentile > 100)
+            throw new IllegalArgumentException("Hedging percentile must be in (0, 100], but was " + percentile);
+        this.budget = budget;
+        this.percentile = percentile;
+    }
+
+    static HedgingPolicy from(DispatchConfig config) {
+        return new HedgingPolicy(config.hedgingBudget(), config.hedgingPercentile());
+    }
+
+    boolean isEnabled() { return budget > 0; }
+
+    /**
+     * Returns the number of milliseconds to wait for a new query before it may be hedged,
+     * or empty if it should not be hedged. This must be called once for each query.
+     */
+    synchronized OptionalLong hedgeDelay() {
+        credit = Math.min(credit + budget, maxCredit);
+        if (hedgeDelay < 0 || credit < 1) return OptionalLong.empty();
+        return OptionalLong.of(hedgeDelay);
+    }
+
+    /** Takes a hedged query from the budget, and returns whether this was within the budget. */
+    synchronized boolean tryHedge() {
+        if (credit < 1) return false;
+        credit--;
+        return true;
+    }
+
+    /** Records the latency of a query, in milliseconds. */
+    synchronized void record(long latency) {
+        latencies[(int)(samples % maxSamples)] = latency;
+        samples++;
+        if (samples >= minSamples && samples % samplesBetweenUpdates == 0) {
+            long[] sorted = Arrays.copyOf(latencies, (int)Math.min(samples, maxSamples));
+            Arrays.sort(sorted);
+            int index = (int)Math.ceil(sorted.length * percentile / 100) - 1;
+            hedgeDelay = sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+
+}
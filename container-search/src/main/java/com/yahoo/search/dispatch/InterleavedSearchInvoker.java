@@ -27,6 +27,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -34,6 +35,7 @@ import java.util.stream.Collectors;
  * InterleavedSearchInvoker uses multiple {@link SearchInvoker} objects to interface with content
  * nodes in parallel. Operationally it first sends requests to all contained invokers and then
  * collects the results. The user of this class is responsible for merging the results if needed.
+ * The monitor of this, if any, is notified when all the contained invokers have responded.
  *
  * @author ollivir
  */
@@ -47,6 +49,8 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
     private final Group group;
     private final DocumentCountSource documentCountSource;
     private final LinkedBlockingQueue<SearchInvoker> availableForProcessing;
+    private final int invokerCount;
+    private final AtomicInteger responses = new AtomicInteger(0);
     private final Set<Integer> alreadyFailedNodes;
     private final CoverageAggregator coverageAggregator;
     private final TopKEstimator hitEstimator;
@@ -66,6 +70,7 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
         this.group = group;
         this.documentCountSource = documentCountSource;
         this.availableForProcessing = newQueue();
+        this.invokerCount = this.invokers.size();
         this.alreadyFailedNodes = alreadyFailedNodes;
         this.coverageAggregator = new CoverageAggregator(invokers.size());
         this.hitEstimator = hitEstimator;
@@ -273,14 +278,11 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
     public void responseAvailable(SearchInvoker from) {
         if (availableForProcessing != null) {
             availableForProcessing.add(from);
+            if (responses.incrementAndGet() == invokerCount)
+                responseAvailable();
         }
     }
 
-    @Override
-    protected void setMonitor(ResponseMonitor<SearchInvoker> monitor) {
-        // never to be called
-    }
-
     // For overriding in tests
     protected LinkedBlockingQueue<SearchInvoker> newQueue() {
         return new LinkedBlockingQueue<>();
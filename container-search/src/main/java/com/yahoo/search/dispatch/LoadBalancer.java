@@ -34,7 +34,7 @@ public class LoadBalancer {
     private final Map<Integer, GroupStatus> scoreboard;
     private final GroupScheduler scheduler;
 
-    public enum Policy { ROUNDROBIN, ADAPTIVE, BEST_OF_RANDOM_2, LATENCY_AMORTIZED_OVER_TIME}
+    public enum Policy { ROUNDROBIN, ADAPTIVE, BEST_OF_RANDOM_2, LATENCY_AMORTIZED_OVER_TIME, QUEUE_AWARE}
 
     public LoadBalancer(Collection<Group> groups, Policy policy) {
         this.scoreboard = new HashMap<>();
@@ -49,6 +49,7 @@ public class LoadBalancer {
             case BEST_OF_RANDOM_2: yield new BestOfRandom2(new Random(), scoreboard);
             case ADAPTIVE: yield new AdaptiveScheduler(AdaptiveScheduler.Type.REQUESTS, new Random(), scoreboard);
             case LATENCY_AMORTIZED_OVER_TIME: yield new AdaptiveScheduler(AdaptiveScheduler.Type.TIME, new Random(), scoreboard);
+            case QUEUE_AWARE: yield new QueueAwareScheduler(new Random(), scoreboard);
         };
     }
 
@@ -350,9 +351,15 @@ public class LoadBalancer {
             GroupStatus candB = selectRandom(candidates);
             if (candA == null) return candB;
             if (candB == null) return candA;
-            if (candB.allocations < candA.allocations) return candB;
+            if (load(candB) < load(candA)) return candB;
             return candA;
         }
+
+        /** Returns the load of the given group, where the group with the lower load of two candidates is selected */
+        double load(GroupStatus gs) {
+            return gs.allocations;
+        }
+
         private GroupStatus selectRandom(List<Integer> candidates) {
             if ( ! candidates.isEmpty()) {
                 int index = random.nextInt(candidates.size());
@@ -363,4 +370,26 @@ public class LoadBalancer {
 
     }
 
+    /**
+     * Selects the best of two random groups like {@link BestOfRandom2}, but scores the groups in the style of C3:
+     * The average search time of each group is scaled by the cube of its estimated queue length, which is the queries
+     * we have in flight to the group plus the queries its busiest node last reported as queued or running,
+     * including those from other containers. The cubic penalty steers queries away from groups building up a queue
+     * before their latency increases, while the random choice keeps containers from herding onto the same group.
+     */
+    static class QueueAwareScheduler extends BestOfRandom2 {
+
+        public QueueAwareScheduler(Random random, Map<Integer, GroupStatus> scoreboard) {
+            super(random, scoreboard);
+            scoreboard.forEach((id, gs) -> gs.setDecayer(new AdaptiveScheduler.DecayByRequests()));
+        }
+
+        @Override
+        double load(GroupStatus gs) {
+            double queueLength = 1 + gs.allocations + gs.group.activeQueries();
+            return gs.decayer.averageCost() * queueLength * queueLength * queueLength;
+        }
+
+    }
+
 }
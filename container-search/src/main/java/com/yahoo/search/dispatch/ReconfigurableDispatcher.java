@@ -8,6 +8,7 @@ import com.yahoo.config.subscription.ConfigSubscriber;
 import com.yahoo.container.QrConfig;
 import com.yahoo.container.QrSearchersConfig;
 import com.yahoo.container.handler.VipStatus;
+import com.yahoo.jdisc.Metric;
 import com.yahoo.vespa.config.search.DispatchConfig;
 import com.yahoo.vespa.config.search.DispatchNodesConfig;
 import com.yahoo.yolean.UncheckedInterruptedException;
@@ -23,8 +24,9 @@ public class ReconfigurableDispatcher extends Dispatcher {
     private final ConfigSubscriber subscriber;
 
     @Inject
-    public ReconfigurableDispatcher(ComponentId clusterId, DispatchConfig dispatchConfig, QrSearchersConfig qrSearchersConfig, SystemInfo systemInfo, VipStatus vipStatus) {
-        super(clusterId, dispatchConfig, qrSearchersConfig, new DispatchNodesConfig.Builder().build(), vipStatus);
+    public ReconfigurableDispatcher(ComponentId clusterId, DispatchConfig dispatchConfig, QrSearchersConfig qrSearchersConfig,
+                                    SystemInfo systemInfo, VipStatus vipStatus, Metric metric) {
+        super(clusterId, dispatchConfig, qrSearchersConfig, new DispatchNodesConfig.Builder().build(), vipStatus, metric);
         this.subscriber = new ConfigSubscriber();
         CountDownLatch configured = new CountDownLatch(1);
         this.subscriber.subscribe(nodesConfig -> { updateWithNewConfig(nodesConfig); configured.countDown(); },
@@ -0,0 +1,207 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import ai.vespa.metrics.ContainerMetrics;
+import com.google.protobuf.ByteString;
+import com.yahoo.jdisc.Metric;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.dispatch.rpc.ProtobufSerialization;
+import com.yahoo.search.dispatch.searchcluster.DocumentCountSource;
+import com.yahoo.search.grouping.vespa.GroupingExecutor;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.vespa.config.search.DispatchConfig;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A size bounded cache of search results in a content cluster, which lets the dispatcher answer
+ * repeated queries without a scatter/gather to the content nodes.
+ * <p>
+ * Results are keyed on the search request the query would send to the content nodes, excluding values which
+ * differ between requests for the same result, such as the timeout. Only the lean hits of complete results without
+ * errors are cached, so hits served from the cache are filled just like any other. Entries expire after a time to
+ * live, and when the number of active documents in the cluster changes. The owner must call {@link #invalidate}
+ * when the nodes of the cluster change.
+ * <p>
+ * This class is multithread safe.
+ */
+public class ResultCache {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final DocumentCountSource documentCountSource;
+    private final Clock clock;
+    private final Metric metric;
+    private final Metric.Context metricContext;
+
+    private final Map<ByteString, Entry> entries; // Guarded by this
+    private long evictions = 0; // Guarded by this
+
+    /**
+     * Creates a result cache.
+     *
+     * @param clusterName the name of the cluster this is caching results from
+     * @param maxEntries the max number of results to keep, or 0 to disable caching
+     * @param ttl the max time a result is served from this
+     * @param documentCountSource the source of the current active document count of the cluster
+     * @param metric the metric to report cache statistics to, or null to not report statistics
+     * @param clock the clock used to expire entries
+     */
+    public ResultCache(String clusterName, int maxEntries, Duration ttl, DocumentCountSource documentCountSource,
+                       Metric metric, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.documentCountSource = documentCountSource;
+        this.clock = clock;
+        this.metric = metric;
+        this.metricContext = metric == null ? null : metric.createContext(Map.of("clustername", clusterName));
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ByteString, Entry> eldest) {
+                if (size() <= ResultCache.this.maxEntries) return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    static ResultCache from(String clusterName, DispatchConfig config, DocumentCountSource documentCountSource, Metric metric) {
+        return new ResultCache(clusterName, config.resultCacheMaxEntries(),
+                               Duration.ofMillis((long) (config.resultCacheTtl() * 1000)),
+                               documentCountSource, metric, Clock.systemUTC());
+    }
+
+    public boolean isEnabled() { return maxEntries > 0; }
+
+    /** Returns the key of the given query in this, or empty if the result of this query should not be cached. */
+    public Optional<ByteString> keyOf(Query query) {
+        if ( ! isEnabled()) return Optional.empty();
+        if (query.getNoCache()) return Optional.empty();
+        if (ProtobufSerialization.getTraceLevelForBackend(query) > 0) return Optional.empty();
+        if (query.getModel().getSearchPath() != null) return Optional.empty();
+        if (query.getRanking().getQueryCache()) return Optional.empty();
+        if (GroupingExecutor.hasGroupingList(query)) return Optional.empty();
+        return Optional.of(ProtobufSerialization.serializeSearchRequestKey(query));
+    }
+
+    /** Returns an invoker which produces the result cached for the given key, or empty if it is not cached. */
+    public Optional<SearchInvoker> get(ByteString key) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null && ! isValid(entry)) {
+                entries.remove(key);
+                evictions++;
+                entry = null;
+            }
+        }
+        report(entry != null);
+        return Optional.ofNullable(entry).map(CachedResultInvoker::new);
+    }
+
+    /** Returns an invoker which delegates to the given invoker and adds its result to this, under the given key. */
+    public SearchInvoker caching(ByteString key, SearchInvoker invoker) {
+        return new CachingSearchInvoker(key, invoker, this);
+    }
+
+    /** Adds the given result, which is produced for the given query, to this if it is complete. */
+    void put(ByteString key, Query query, InvokerResult result) {
+        Result searchResult = result.getResult();
+        if (searchResult.hits().size() > 0) return; // Errors, or auxiliary hits we can not recreate
+        Coverage coverage = searchResult.getCoverage(false);
+        if (coverage == null || ! coverage.getFull() || coverage.isDegraded()) return;
+
+        Entry entry = new Entry(List.copyOf(result.getLeanHits()), searchResult.getTotalHitCount(),
+                                searchResult.getDeepHitCount(), copy(coverage), query.getOffset(),
+                                documentCountSource.getDocumentCount().getActiveDocuments(),
+                                clock.millis() + ttlMillis);
+        synchronized (this) {
+            entries.put(key, entry);
+        }
+    }
+
+    /** Removes all results from this. */
+    public void invalidate() {
+        synchronized (this) {
+            evictions += entries.size();
+            entries.clear();
+        }
+    }
+
+    /** Returns the number of results currently in this. */
+    public synchronized int size() { return entries.size(); }
+
+    private boolean isValid(Entry entry) {
+        return entry.expiresAt > clock.millis()
+               && entry.activeDocuments == documentCountSource.getDocumentCount().getActiveDocuments();
+    }
+
+    private void report(boolean hit) {
+        if (metric == null) return;
+
+        long evicted;
+        int size;
+        synchronized (this) {
+            evicted = evictions;
+            evictions = 0;
+            size = entries.size();
+        }
+        metric.add(hit ? ContainerMetrics.QUERY_RESULT_CACHE_HITS.baseName() : ContainerMetrics.QUERY_RESULT_CACHE_MISSES.baseName(),
+                   1, metricContext);
+        if (evicted > 0)
+            metric.add(ContainerMetrics.QUERY_RESULT_CACHE_EVICTIONS.baseName(), evicted, metricContext);
+        metric.set(ContainerMetrics.QUERY_RESULT_CACHE_SIZE.baseName(), size, metricContext);
+    }
+
+    private static Coverage copy(Coverage coverage) {
+        Coverage copy = new Coverage(0, 0, 0, 0);
+        copy.merge(coverage);
+        return copy;
+    }
+
+    private record Entry(List<LeanHit> hits, long totalHitCount, long deepHitCount, Coverage coverage,
+                         int offsetAfterSearch, long activeDocuments, long expiresAt) { }
+
+    /** Produces a cached result, without communicating with any content nodes. */
+    private static class CachedResultInvoker extends SearchInvoker {
+
+        private final Entry entry;
+        private Query query;
+
+        CachedResultInvoker(Entry entry) {
+            super(Optional.empty());
+            this.entry = entry;
+        }
+
+        @Override
+        protected Object sendSearchRequest(Query query, double contentShare, Object context) {
+            this.query = query;
+            responseAvailable();
+            return context;
+        }
+
+        @Override
+        protected InvokerResult getSearchResult() {
+            InvokerResult result = new InvokerResult(query, entry.hits().size());
+            result.getResult().setTotalHitCount(entry.totalHitCount());
+            result.getResult().setDeepHitCount(entry.deepHitCount());
+            result.getResult().setCoverage(copy(entry.coverage()));
+            result.getLeanHits().addAll(entry.hits());
+            query.setOffset(entry.offsetAfterSearch());
+            return result;
+        }
+
+        @Override
+        protected void release() {
+            // nothing to release
+        }
+
+    }
+
+}
@@ -2,6 +2,7 @@
 package com.yahoo.search.dispatch.rpc;
 
 import com.yahoo.compress.CompressionType;
+import com.yahoo.compress.Compressor;
 
 import java.util.Optional;
 
@@ -64,6 +65,26 @@ public interface Client {
         void request(String rpcMethod, CompressionType compression, int uncompressedLength, byte[] compressedPayload,
                      ResponseReceiver responseReceiver, double timeoutSeconds);
 
+        /**
+         * Sends a request with a payload compressed with the given zstd dictionary, which the node must have
+         * accepted on this connection first. This default implementation sends the payload uncompressed instead.
+         */
+        default void request(String rpcMethod, CompressionDictionary dictionary, int uncompressedLength, byte[] compressedPayload,
+                             ResponseReceiver responseReceiver, double timeoutSeconds) {
+            request(rpcMethod, CompressionType.NONE, uncompressedLength, dictionary.decompress(compressedPayload, uncompressedLength),
+                    responseReceiver, timeoutSeconds);
+        }
+
+        /** Sends a request with the given payload, which is compressed by the given compressor */
+        default void request(String rpcMethod, Compressor.Compression payload, CompressPayload compressor,
+                             ResponseReceiver responseReceiver, double timeoutSeconds) {
+            Optional<CompressionDictionary> dictionary = compressor.dictionaryOf(payload);
+            if (dictionary.isPresent())
+                request(rpcMethod, dictionary.get(), payload.uncompressedSize(), payload.data(), responseReceiver, timeoutSeconds);
+            else
+                request(rpcMethod, payload.type(), payload.uncompressedSize(), payload.data(), responseReceiver, timeoutSeconds);
+        }
+
         /** Closes this connection */
         void close();
 
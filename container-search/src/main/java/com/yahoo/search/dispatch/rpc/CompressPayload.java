@@ -4,6 +4,8 @@ package com.yahoo.search.dispatch.rpc;
 import com.yahoo.compress.Compressor;
 import com.yahoo.search.Query;
 
+import java.util.Optional;
+
 /**
  * Interface for compressing and decompressing request/response
  *
@@ -13,6 +15,21 @@ public interface CompressPayload {
 
     Compressor.Compression compress(Query query, byte[] payload);
 
+    /**
+     * Compresses the first length bytes of the given payload.
+     * The returned compression never refers to the payload array, so the caller may reuse it.
+     */
+    Compressor.Compression compress(Query query, byte[] payload, int length);
+
+    /** Returns the dictionary the given payload, compressed by this, is compressed with, if any */
+    default Optional<CompressionDictionary> dictionaryOf(Compressor.Compression payload) { return Optional.empty(); }
+
     byte[] decompress(Client.ProtobufResponse response);
 
+    /**
+     * Decompresses the payload of the given response into the start of the given array,
+     * which must have room for the uncompressed size of the response.
+     */
+    void decompress(Client.ProtobufResponse response, byte[] destination);
+
 }
@@ -1,7 +1,10 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.dispatch.rpc;
+import java.util.Arrays;
 import java.util.Locale;
+import java.util.Optional;
 
+import com.github.luben.zstd.Zstd;
 import com.yahoo.compress.CompressionType;
 import com.yahoo.compress.Compressor;
 import com.yahoo.processing.request.CompoundName;
@@ -14,20 +17,96 @@ import com.yahoo.search.Query;
  */
 public class CompressService implements CompressPayload {
 
-    /** The compression method which will be used with rpc dispatch. "lz4" (default) and "none" is supported. */
+    /**
+     * The compression method which will be used with rpc dispatch: "lz4", "zstd" or "none".
+     * The default is the compression this is created with.
+     */
     public static final CompoundName dispatchCompression = CompoundName.from("dispatch.compression");
-    private final Compressor compressor = new Compressor(CompressionType.LZ4, 5, 0.95, 256);
+    private final Compressor compressor;
+    private final TrainedCompressionDictionary dictionary; // null if zstd payloads are compressed without a dictionary
+
+    public CompressService() {
+        this(CompressionType.LZ4);
+    }
+
+    public CompressService(CompressionType defaultCompression) {
+        this(defaultCompression, Optional.empty());
+    }
+
+    /** Creates a service which compresses zstd payloads with the given dictionary, once it is trained */
+    public CompressService(CompressionType defaultCompression, Optional<TrainedCompressionDictionary> dictionary) {
+        this.compressor = new Compressor(defaultCompression, 5, 0.95, 256);
+        this.dictionary = dictionary.orElse(null);
+    }
 
     @Override
     public Compressor.Compression compress(Query query, byte[] payload) {
-        CompressionType compression = CompressionType.valueOf(query.properties().getString(dispatchCompression, "LZ4").toUpperCase(Locale.ROOT));
-        return compressor.compress(compression, payload);
+        if (dictionary != null) return compress(query, payload, payload.length);
+        return compressor.compress(compressionOf(query), payload);
+    }
+
+    @Override
+    public Compressor.Compression compress(Query query, byte[] payload, int length) {
+        CompressionType type = compressionOf(query);
+        if (type == CompressionType.ZSTD && dictionary != null) {
+            Optional<CompressionDictionary> trained = dictionary.get();
+            if (trained.isPresent())
+                return compress(trained.get(), payload, length);
+            dictionary.sample(payload, 0, length);
+        }
+        Compressor.Compression compression = compressor.compress(type, payload, 0, length);
+        if (compression.data() == payload) // not compressed, and the payload is exactly filled
+            return new Compressor.Compression(compression.type(), length, Arrays.copyOf(payload, length));
+        return compression;
+    }
+
+    @Override
+    public Optional<CompressionDictionary> dictionaryOf(Compressor.Compression payload) {
+        if (payload.type() != CompressionType.ZSTD || dictionary == null) return Optional.empty();
+        return dictionary.get().filter(trained -> trained.compressed(payload.data()));
     }
 
     @Override
     public byte[] decompress(Client.ProtobufResponse response) {
         CompressionType compression = CompressionType.valueOf(response.compression());
-        return compressor.decompress(response.compressedPayload(), compression, response.uncompressedSize());
+        byte[] payload = response.compressedPayload();
+        if (dictionary == null)
+            return compressor.decompress(compression, payload, 0, response.uncompressedSize(), Optional.of(payload.length));
+
+        byte[] decompressed = new byte[response.uncompressedSize()];
+        decompress(response, decompressed);
+        return decompressed;
+    }
+
+    @Override
+    public void decompress(Client.ProtobufResponse response, byte[] destination) {
+        CompressionType compression = CompressionType.valueOf(response.compression());
+        byte[] payload = response.compressedPayload();
+        if (dictionary != null && compression == CompressionType.ZSTD) {
+            long dictionaryId = Zstd.getDictIdFromFrame(payload);
+            if (dictionaryId != 0) { // Compressed with the dictionary of the request
+                dictionary.get().filter(trained -> trained.compressed(payload))
+                          .orElseThrow(() -> new IllegalArgumentException("Response is compressed with unknown zstd dictionary " +
+                                                                          dictionaryId))
+                          .decompress(payload, destination, response.uncompressedSize());
+                return;
+            }
+        }
+        compressor.decompress(compression, payload, 0, payload.length, destination, response.uncompressedSize());
+        if (dictionary != null)
+            dictionary.sample(destination, 0, response.uncompressedSize());
+    }
+
+    private static Compressor.Compression compress(CompressionDictionary dictionary, byte[] payload, int length) {
+        byte[] compressed = dictionary.compress(payload, 0, length);
+        if (compressed.length > length * 0.95) // not worth it
+            return new Compressor.Compression(CompressionType.NONE, length, Arrays.copyOf(payload, length));
+        return new Compressor.Compression(CompressionType.ZSTD, length, compressed);
+    }
+
+    private CompressionType compressionOf(Query query) {
+        String compression = query.properties().getString(dispatchCompression);
+        return compression == null ? compressor.type() : CompressionType.valueOf(compression.toUpperCase(Locale.ROOT));
     }
 
     Compressor compressor() { return compressor; }
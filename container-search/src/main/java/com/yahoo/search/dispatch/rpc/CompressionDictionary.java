@@ -0,0 +1,72 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch.rpc;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+
+import java.util.Arrays;
+
+/**
+ * A zstd dictionary trained from sampled payloads exchanged with content nodes. The protobuf messages of a
+ * cluster repeat the same field and feature names, which a dictionary lets zstd compress away even in
+ * small messages. The id of the dictionary is written in the header of each frame compressed with it,
+ * which lets the receiver pick the dictionary to decompress with.
+ */
+public class CompressionDictionary {
+
+    private final int id;
+    private final byte[] bytes;
+    private final ZstdDictCompress compressDictionary;
+    private final ZstdDictDecompress decompressDictionary;
+
+    CompressionDictionary(byte[] bytes, int compressionLevel) {
+        this.id = (int) Zstd.getDictIdFromDict(bytes);
+        if (id == 0)
+            throw new IllegalArgumentException("Not a zstd dictionary: It has no dictionary id");
+        this.bytes = bytes;
+        this.compressDictionary = new ZstdDictCompress(bytes, compressionLevel);
+        this.decompressDictionary = new ZstdDictDecompress(bytes);
+    }
+
+    /** Returns the id of this dictionary, which is never 0 */
+    int id() { return id; }
+
+    /** Returns the serialized form of this dictionary, which must not be modified */
+    byte[] bytes() { return bytes; }
+
+    /** Returns whether the given zstd frame is compressed with this dictionary */
+    boolean compressed(byte[] frame) {
+        return Zstd.getDictIdFromFrame(frame) == Integer.toUnsignedLong(id);
+    }
+
+    /** Compresses the given range of the given payload with this dictionary */
+    byte[] compress(byte[] payload, int offset, int length) {
+        byte[] compressed = new byte[(int) Zstd.compressBound(length)];
+        long size = Zstd.compressFastDict(compressed, 0, payload, offset, length, compressDictionary);
+        if (Zstd.isError(size))
+            throw new IllegalStateException("Compression with dictionary " + id + " failed: " + Zstd.getErrorName(size));
+        return Arrays.copyOf(compressed, (int) size);
+    }
+
+    /** Decompresses the given frame, compressed with this dictionary, into the start of the given array */
+    void decompress(byte[] frame, byte[] destination, int uncompressedSize) {
+        long size = Zstd.decompressFastDict(destination, 0, frame, 0, frame.length, decompressDictionary);
+        if (Zstd.isError(size))
+            throw new IllegalArgumentException("Decompression with dictionary " + id + " failed: " + Zstd.getErrorName(size));
+        if (size != uncompressedSize)
+            throw new IllegalArgumentException("Expected " + uncompressedSize + " bytes when decompressing with dictionary " +
+                                               id + ", but got " + size);
+    }
+
+    /** Returns the given frame, compressed with this dictionary, decompressed */
+    byte[] decompress(byte[] frame, int uncompressedSize) {
+        byte[] decompressed = new byte[uncompressedSize];
+        decompress(frame, decompressed, uncompressedSize);
+        return decompressed;
+    }
+
+    @Override
+    public String toString() { return "zstd dictionary " + Integer.toUnsignedString(id); }
+
+}
@@ -0,0 +1,35 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch.rpc;
+
+/**
+ * A reusable array which protobuf messages are serialized into before they are compressed, and decompressed
+ * into before they are parsed, to avoid allocating a new array for each message sent to and received from content nodes.
+ * Arrays larger than a limit are not retained, to avoid keeping memory used by rare, large messages.
+ * <p>
+ * This is not multithread safe: Use {@link #get} to get the instance of the calling thread.
+ */
+final class PayloadBuffer {
+
+    private static final int initialSize = 4096;
+    private static final int maxRetainedSize = 1 << 20;
+
+    private static final ThreadLocal<PayloadBuffer> threadLocalBuffer = ThreadLocal.withInitial(PayloadBuffer::new);
+
+    private byte[] array = new byte[initialSize];
+
+    private PayloadBuffer() { }
+
+    /** Returns the buffer of the calling thread */
+    static PayloadBuffer get() { return threadLocalBuffer.get(); }
+
+    /** Returns an array of at least the given size, whose content is only valid until the next call to this */
+    byte[] array(int minSize) {
+        if (minSize <= array.length) return array;
+
+        byte[] larger = new byte[Math.max(minSize, array.length * 2)];
+        if (larger.length <= maxRetainedSize)
+            array = larger;
+        return larger;
+    }
+
+}
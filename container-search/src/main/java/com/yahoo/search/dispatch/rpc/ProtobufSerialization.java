@@ -5,7 +5,11 @@ import ai.vespa.searchlib.searchprotocol.protobuf.SearchProtocol;
 import ai.vespa.searchlib.searchprotocol.protobuf.SearchProtocol.StringProperty;
 import ai.vespa.searchlib.searchprotocol.protobuf.SearchProtocol.TensorProperty;
 import com.google.protobuf.ByteString;
-import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.MessageLite;
+import com.yahoo.compress.CompressionType;
+import com.yahoo.compress.Compressor;
 import com.yahoo.data.access.helpers.MatchFeatureData;
 import com.yahoo.data.access.simple.Value;
 import com.yahoo.data.access.slime.SlimeAdapter;
@@ -36,6 +40,8 @@ import com.yahoo.searchlib.aggregation.Grouping;
 import com.yahoo.slime.BinaryFormat;
 import com.yahoo.vespa.objects.BufferSerializer;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
@@ -80,8 +86,57 @@ public class ProtobufSerialization {
      */
     private static final ThreadLocal<Boolean> isProtobufAlsoSerialized = ThreadLocal.withInitial(() -> false);
 
-    static byte[] serializeSearchRequest(Query query, int hits, String nodeId, double contentShare, double requestTimeout, QrSearchersConfig qrSearchersConfig) {
-        return convertFromQuery(query, hits, nodeId, contentShare, requestTimeout, qrSearchersConfig).toByteArray();
+    /* Cache keys are independent of the configured query stack format, so always use the default. */
+    private static final QrSearchersConfig cacheKeyConfig = new QrSearchersConfig.Builder().build();
+
+    static Compressor.Compression serializeSearchRequest(Query query, int hits, String nodeId, double contentShare,
+                                                         double requestTimeout, QrSearchersConfig qrSearchersConfig,
+                                                         CompressPayload compressor) {
+        return serialize(convertFromQuery(query, hits, nodeId, contentShare, requestTimeout, qrSearchersConfig), query, compressor);
+    }
+
+    /**
+     * Serializes the given message into the payload buffer of this thread and compresses it from there,
+     * such that the only array allocated is the one holding the compressed payload.
+     */
+    private static Compressor.Compression serialize(MessageLite message, Query query, CompressPayload compressor) {
+        int size = message.getSerializedSize();
+        byte[] buffer = PayloadBuffer.get().array(size);
+        try {
+            CodedOutputStream output = CodedOutputStream.newInstance(buffer, 0, size);
+            message.writeTo(output);
+            output.checkNoSpaceLeft();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressor.compress(query, buffer, size);
+    }
+
+    /**
+     * Returns a stream of the uncompressed payload of the given response. Compressed payloads are decompressed
+     * into the payload buffer of this thread, so the returned stream must be consumed before that is used again.
+     */
+    static CodedInputStream payloadOf(Client.ProtobufResponse response, CompressPayload compressor) {
+        if ( ! CompressionType.valueOf(response.compression()).isCompressed())
+            return CodedInputStream.newInstance(response.compressedPayload());
+
+        byte[] buffer = PayloadBuffer.get().array(response.uncompressedSize());
+        compressor.decompress(response, buffer);
+        return CodedInputStream.newInstance(buffer, 0, response.uncompressedSize());
+    }
+
+    /**
+     * Returns the search request the given query would produce, with the values which may differ between
+     * requests producing the same result, such as the timeout and session key, left out.
+     * This is suitable for keying cached results.
+     */
+    public static ByteString serializeSearchRequestKey(Query query) {
+        return convertFromQuery(query, query.getHits(), "", 1.0, 0, cacheKeyConfig).toBuilder()
+                .clearTimeout()
+                .clearSessionKey()
+                .build()
+                .toByteString();
     }
 
     private static void convertSearchReplyErrors(Result target, List<SearchProtocol.Error> errors, boolean softTimeout, boolean annTimeout) {
@@ -242,12 +297,13 @@ public class ProtobufSerialization {
         return builder;
     }
 
-    static byte[] serializeDocsumRequest(SearchProtocol.DocsumRequest.Builder builder, List<FastHit> documents) {
+    static Compressor.Compression serializeDocsumRequest(SearchProtocol.DocsumRequest.Builder builder, List<FastHit> documents,
+                                                        Query query, CompressPayload compressor) {
         builder.clearGlobalIds();
         for (var hit : documents) {
             builder.addGlobalIds(ByteString.copyFrom(hit.getRawGlobalId()));
         }
-        return builder.build().toByteArray();
+        return serialize(builder.build(), query, compressor);
     }
 
     private static void mergeQueryDataToDocsumRequest(Query query,
@@ -275,9 +331,10 @@ public class ProtobufSerialization {
         return convertFromResult(searchResult).toByteArray();
     }
 
-    static InvokerResult deserializeToSearchResult(byte[] payload, Query query, VespaBackend searcher, Node node)
-            throws InvalidProtocolBufferException {
-        var protobuf = SearchProtocol.SearchReply.parseFrom(payload);
+    static InvokerResult deserializeToSearchResult(Client.ProtobufResponse response, CompressPayload compressor,
+                                                   Query query, VespaBackend searcher, Node node) throws IOException {
+        var protobuf = SearchProtocol.SearchReply.parseFrom(payloadOf(response, compressor));
+        node.setActiveQueries(protobuf.getActiveQueries());
         return convertToResult(query, protobuf, searcher.getDocumentDatabase(query), node);
     }
 
@@ -3,6 +3,7 @@ package com.yahoo.search.dispatch.rpc;
 
 import com.yahoo.compress.CompressionType;
 import com.yahoo.jrt.DataValue;
+import com.yahoo.jrt.ErrorCode;
 import com.yahoo.jrt.Int32Value;
 import com.yahoo.jrt.Int8Value;
 import com.yahoo.jrt.Request;
@@ -20,6 +21,14 @@ import com.yahoo.jrt.Values;
  */
 public class RpcClient implements Client {
 
+    /** The rpc method sending a compression dictionary to a content node, for use on the connection it is sent on */
+    static final String SET_COMPRESSION_DICTIONARY_METHOD = "vespa.searchprotocol.setCompressionDictionary";
+
+    /** The error code content nodes return for requests compressed with a dictionary they don't have for the connection */
+    static final int UNKNOWN_COMPRESSION_DICTIONARY = 0x10000;
+
+    private static final double setCompressionDictionaryTimeoutSeconds = 10;
+
     private final Supervisor supervisor;
 
     public RpcClient(String name, int transportThreads) {
@@ -48,6 +57,13 @@ public class RpcClient implements Client {
         // All access to this must be synchronized
         private Target target;
 
+        // The compression dictionary sent to the node on the current target, or 0 if none,
+        // whether the node has accepted it, and whether the node supports dictionaries at all.
+        // All access to these must be synchronized
+        private int dictionaryId = 0;
+        private boolean dictionaryAccepted = false;
+        private boolean dictionariesUnsupported = false;
+
         public RpcNodeConnection(String hostname, int port, Supervisor supervisor) {
             this.supervisor = supervisor;
             this.hostname = hostname;
@@ -74,14 +90,87 @@ public class RpcClient implements Client {
             invokeAsync(request, timeoutSeconds, new RpcProtobufResponseWaiter(this, responseReceiver));
         }
 
+        /**
+         * Sends the payload compressed with the given dictionary if the node has accepted it on the current connection.
+         * Otherwise, the dictionary is sent to the node, and the payload is sent uncompressed until it is accepted.
+         */
+        @Override
+        public void request(String rpcMethod, CompressionDictionary dictionary, int uncompressedLength, byte[] compressedPayload,
+                            ResponseReceiver responseReceiver, double timeoutSeconds) {
+            Target target = target();
+            if ( ! dictionaryAccepted(target, dictionary)) {
+                request(rpcMethod, CompressionType.NONE, uncompressedLength, dictionary.decompress(compressedPayload, uncompressedLength),
+                        responseReceiver, timeoutSeconds);
+                return;
+            }
+
+            Request request = new Request(rpcMethod);
+            request.parameters().add(new Int8Value(CompressionType.ZSTD.getCode()));
+            request.parameters().add(new Int32Value(uncompressedLength));
+            request.parameters().add(new DataValue(compressedPayload));
+            RequestWaiter responseWaiter = new RpcProtobufResponseWaiter(this, responseReceiver);
+            long sentAtNanos = System.nanoTime();
+            target.invokeAsync(request, timeoutSeconds, response -> {
+                if (response.isError() && response.errorCode() == UNKNOWN_COMPRESSION_DICTIONARY) {
+                    // The node has dropped the dictionary: Send it again with the next request, and this uncompressed
+                    dictionaryRejected(target, dictionary);
+                    double timeLeftSeconds = timeoutSeconds - (System.nanoTime() - sentAtNanos) * 1e-9;
+                    if (timeLeftSeconds > 0) {
+                        request(rpcMethod, CompressionType.NONE, uncompressedLength,
+                                dictionary.decompress(compressedPayload, uncompressedLength), responseReceiver, timeLeftSeconds);
+                        return;
+                    }
+                }
+                responseWaiter.handleRequestDone(response);
+            });
+        }
+
+        /** Returns whether the node has accepted the given dictionary on the given target, and sends it there if not done yet */
+        private boolean dictionaryAccepted(Target target, CompressionDictionary dictionary) {
+            synchronized (this) {
+                if (target != this.target || dictionariesUnsupported) return false;
+                if (dictionaryId == dictionary.id()) return dictionaryAccepted;
+                dictionaryId = dictionary.id();
+                dictionaryAccepted = false;
+            }
+            Request request = new Request(SET_COMPRESSION_DICTIONARY_METHOD);
+            request.parameters().add(new Int32Value(dictionary.id()));
+            request.parameters().add(new DataValue(dictionary.bytes()));
+            target.invokeAsync(request, setCompressionDictionaryTimeoutSeconds,
+                               response -> dictionarySent(target, dictionary, response));
+            return false;
+        }
+
+        private synchronized void dictionarySent(Target target, CompressionDictionary dictionary, Request response) {
+            if (target != this.target || dictionary.id() != dictionaryId) return; // Superseded
+            if ( ! response.isError())
+                dictionaryAccepted = true;
+            else if (response.errorCode() == ErrorCode.NO_SUCH_METHOD)
+                dictionariesUnsupported = true; // The node is on an older version; this is reset when reconnecting
+            else
+                dictionaryId = 0; // Try again with the next request
+        }
+
+        private synchronized void dictionaryRejected(Target target, CompressionDictionary dictionary) {
+            if (target != this.target || dictionary.id() != dictionaryId) return;
+            dictionaryId = 0;
+            dictionaryAccepted = false;
+        }
+
         private void invokeAsync(Request req, double timeout, RequestWaiter waiter) {
+            target().invokeAsync(req, timeout, waiter);
+        }
+
+        /** Returns the current target, which is replaced by a new connection if it has become invalid */
+        private synchronized Target target() {
             // TODO: Consider replacing this by a watcher on the target
-            synchronized(this) { // ensure we have exactly 1 valid connection across threads
-                if (! target.isValid()) {
-                    target = supervisor.connect(new Spec(hostname, port));
-                }
+            if (! target.isValid()) { // ensure we have exactly 1 valid connection across threads
+                target = supervisor.connect(new Spec(hostname, port));
+                dictionaryId = 0; // Dictionaries are negotiated per connection
+                dictionaryAccepted = false;
+                dictionariesUnsupported = false;
             }
-            target.invokeAsync(req, timeout, waiter);
+            return target;
         }
 
         @Override
@@ -5,6 +5,7 @@ import com.yahoo.vespa.config.search.DispatchNodesConfig;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Interface for getting a connection given a node id.
@@ -25,4 +26,7 @@ public interface RpcConnectionPool extends AutoCloseable {
 
     default Collection<Integer> knownNodeIds() { return List.of(); }
 
+    /** Returns the compression dictionary to use with the connections of this, if any */
+    default Optional<TrainedCompressionDictionary> compressionDictionary() { return Optional.empty(); }
+
 }
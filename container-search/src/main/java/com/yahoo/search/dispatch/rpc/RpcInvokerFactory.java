@@ -1,6 +1,7 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.dispatch.rpc;
 
+import com.yahoo.compress.CompressionType;
 import com.yahoo.container.QrSearchersConfig;
 import com.yahoo.prelude.fastsearch.VespaBackend;
 import com.yahoo.search.Query;
@@ -31,10 +32,18 @@ public class RpcInvokerFactory extends InvokerFactory {
         };
     }
 
+    private static CompressionType convert(DispatchConfig.Compression.Enum compression) {
+        return switch (compression) {
+            case NONE -> CompressionType.NONE;
+            case LZ4 -> CompressionType.LZ4;
+            case ZSTD -> CompressionType.ZSTD;
+        };
+    }
+
     public RpcInvokerFactory(RpcConnectionPool rpcResourcePool, SearchGroups cluster, DispatchConfig dispatchConfig, QrSearchersConfig qrSearchersConfig) {
         super(cluster, dispatchConfig);
         this.rpcResourcePool = rpcResourcePool;
-        this.compressor = new CompressService();
+        this.compressor = new CompressService(convert(dispatchConfig.compression()), rpcResourcePool.compressionDictionary());
         this.decodeType = convert(dispatchConfig.summaryDecodePolicy());
         this.qrSearchersConfig = qrSearchersConfig;
     }
@@ -2,7 +2,6 @@
 package com.yahoo.search.dispatch.rpc;
 
 import ai.vespa.searchlib.searchprotocol.protobuf.SearchProtocol;
-import com.google.protobuf.InvalidProtocolBufferException;
 import com.yahoo.collections.ListMap;
 import com.yahoo.compress.Compressor;
 import com.yahoo.container.QrSearchersConfig;
@@ -13,7 +12,6 @@ import com.yahoo.prelude.fastsearch.DocumentDatabase;
 import com.yahoo.prelude.fastsearch.FastHit;
 import com.yahoo.prelude.fastsearch.TimeoutException;
 import com.yahoo.prelude.fastsearch.PartialSummaryHandler;
-import com.yahoo.search.Query;
 import com.yahoo.search.Result;
 import com.yahoo.search.dispatch.Dispatcher;
 import com.yahoo.search.dispatch.FillInvoker;
@@ -24,6 +22,7 @@ import com.yahoo.slime.ArrayTraverser;
 import com.yahoo.slime.BinaryFormat;
 import com.yahoo.slime.BinaryView;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
@@ -118,7 +117,7 @@ public class RpcProtobufFillInvoker extends FillInvoker {
         var builder = ProtobufSerialization.createDocsumRequestBuilder(
                 result.getQuery(), serverId, askForSummary, onlyFields, summaryNeedsQuery, timeout.request(), qrSearchersConfig);
         hitsByNode.forEach((nodeId, hits) -> {
-            var payload = ProtobufSerialization.serializeDocsumRequest(builder, hits);
+            var payload = ProtobufSerialization.serializeDocsumRequest(builder, hits, result.getQuery(), compressor);
             sendDocsumsRequest(nodeId, hits, payload, result, timeout.client());
         });
     }
@@ -171,7 +170,7 @@ public class RpcProtobufFillInvoker extends FillInvoker {
     }
 
     /** Send a docsums request to a node. Responses will be added to the given receiver. */
-    private void sendDocsumsRequest(int nodeId, List<FastHit> hits, byte[] payload, Result result,
+    private void sendDocsumsRequest(int nodeId, List<FastHit> hits, Compressor.Compression payload, Result result,
                                     double clientTimeout) {
         Client.NodeConnection node = resourcePool.getConnection(nodeId);
         if (node == null) {
@@ -181,10 +180,7 @@ public class RpcProtobufFillInvoker extends FillInvoker {
             log.warning("Got hits with node id " + nodeId + ", which is not included in the current dispatch config");
             return;
         }
-        Query query = result.getQuery();
-        Compressor.Compression compressionResult = compressor.compress(query, payload);
-        node.request(RPC_METHOD, compressionResult.type(), payload.length, compressionResult.data(),
-                roe -> receive(roe, hits), clientTimeout);
+        node.request(RPC_METHOD, payload, compressor, roe -> receive(roe, hits), clientTimeout);
     }
 
     private ResponseAndHits getNextResponse(long timeLeftMs) throws InterruptedException {
@@ -237,8 +233,7 @@ public class RpcProtobufFillInvoker extends FillInvoker {
             hasReportedError = true;
         } else {
             Client.ProtobufResponse response = responseOrError.response().get();
-            byte[] responseBytes = compressor.decompress(response);
-            return fill(result, responseAndHits.hits(), responseBytes, isRetry);
+            return fill(result, responseAndHits.hits(), response, isRetry);
         }
         return List.of();
     }
@@ -256,9 +251,9 @@ public class RpcProtobufFillInvoker extends FillInvoker {
         }
     }
 
-    private List<FastHit> fill(Result result, List<FastHit> hits, byte[] payload, boolean isRetry) {
+    private List<FastHit> fill(Result result, List<FastHit> hits, Client.ProtobufResponse response, boolean isRetry) {
         try {
-            var protobuf = SearchProtocol.DocsumReply.parseFrom(payload);
+            var protobuf = SearchProtocol.DocsumReply.parseFrom(ProtobufSerialization.payloadOf(response, compressor));
             var root = (decodePolicy == DecodePolicy.ONDEMAND)
                     ? BinaryView.inspect(protobuf.getSlimeSummaries().toByteArray())
                     : BinaryFormat.decode(protobuf.getSlimeSummaries().toByteArray()).get();
@@ -289,7 +284,7 @@ public class RpcProtobufFillInvoker extends FillInvoker {
                 }
             }
             return skippedHits;
-        } catch (InvalidProtocolBufferException ex) {
+        } catch (IOException ex) {
             if (! isRetry) {
                 log.log(Level.WARNING, "Invalid response to docsum request", ex);
                 result.hits().addError(ErrorMessage.createInternalServerError("Invalid response to docsum request from backend"));
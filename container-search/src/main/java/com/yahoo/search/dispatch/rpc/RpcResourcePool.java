@@ -12,6 +12,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
@@ -25,6 +26,7 @@ public class RpcResourcePool implements RpcConnectionPool {
     private volatile Map<Integer, NodeConnectionPool> nodeConnectionPools = Map.of();
     private final int numConnections;
     private final RpcClient rpcClient;
+    private final TrainedCompressionDictionary compressionDictionary;
 
     RpcResourcePool(Map<Integer, NodeConnection> nodeConnections) {
         var builder = new HashMap<Integer, NodeConnectionPool>();
@@ -32,11 +34,15 @@ public class RpcResourcePool implements RpcConnectionPool {
         this.nodeConnectionPools = Map.copyOf(builder);
         this.rpcClient = null;
         this.numConnections = 1;
+        this.compressionDictionary = null;
     }
 
     public RpcResourcePool(DispatchConfig dispatchConfig, DispatchNodesConfig nodesConfig) {
         rpcClient = new RpcClient("dispatch-client", dispatchConfig.numJrtTransportThreads());
         numConnections = dispatchConfig.numJrtConnectionsPerNode();
+        compressionDictionary = dispatchConfig.compression() == DispatchConfig.Compression.ZSTD && dispatchConfig.compressionDictionarySize() > 0
+                                ? new TrainedCompressionDictionary(dispatchConfig.compressionDictionarySize())
+                                : null;
         updateNodes(nodesConfig).forEach(pool -> {
             try { pool.close(); } catch (Exception ignored) { } // Shouldn't throw.
         });
@@ -89,6 +95,11 @@ public class RpcResourcePool implements RpcConnectionPool {
         return nodeConnectionPools.keySet();
     }
 
+    @Override
+    public Optional<TrainedCompressionDictionary> compressionDictionary() {
+        return Optional.ofNullable(compressionDictionary);
+    }
+
     private static class NodeConnectionPool implements AutoCloseable {
         private final List<Client.NodeConnection> connections;
 
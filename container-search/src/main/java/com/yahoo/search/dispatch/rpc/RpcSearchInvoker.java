@@ -68,12 +68,7 @@ public class RpcSearchInvoker extends SearchInvoker implements Client.ResponseRe
             return incomingContext;
         }
         SerializedQuery serializedQuery = getSerializedQuery(incomingContext, contentShare, timeout.request());
-        nodeConnection.request(RPC_METHOD,
-                               serializedQuery.compressedPayload.type(),
-                               serializedQuery.compressedPayload.uncompressedSize(),
-                               serializedQuery.compressedPayload.data(),
-                               this,
-                               timeout.client());
+        nodeConnection.request(RPC_METHOD, serializedQuery.compressedPayload, compressor, this, timeout.client());
         return serializedQuery;
     }
 
@@ -103,8 +98,7 @@ public class RpcSearchInvoker extends SearchInvoker implements Client.ResponseRe
         }
 
         ProtobufResponse protobufResponse = response.response().get();
-        byte[] payload = compressor.decompress(protobufResponse);
-        return ProtobufSerialization.deserializeToSearchResult(payload, query, searcher, node);
+        return ProtobufSerialization.deserializeToSearchResult(protobufResponse, compressor, query, searcher, node);
     }
 
     @Override
@@ -125,11 +119,12 @@ public class RpcSearchInvoker extends SearchInvoker implements Client.ResponseRe
         if (incomingContext instanceof SerializedQuery serializedQuery
             && newSerializationWillBeSimilar(contentShare, serializedQuery))
             return serializedQuery;
-        return new SerializedQuery(compressor, query, contentShare,
+        return new SerializedQuery(contentShare,
                                    ProtobufSerialization.serializeSearchRequest(query,
                                                                                 Math.min(query.getHits(), maxHits),
                                                                                 searcher.getServerId(), contentShare,
-                                                                                requestTimeout, qrSearchersConfig));
+                                                                                requestTimeout, qrSearchersConfig,
+                                                                                compressor));
     }
 
     private boolean newSerializationWillBeSimilar(double newContentShare, SerializedQuery serializedQuery) {
@@ -143,9 +138,9 @@ public class RpcSearchInvoker extends SearchInvoker implements Client.ResponseRe
         final double contentShare;
         final Compressor.Compression compressedPayload;
 
-        SerializedQuery(CompressPayload compressor, Query query, double contentShare, byte[] payload) {
+        SerializedQuery(double contentShare, Compressor.Compression compressedPayload) {
             this.contentShare = contentShare;
-            compressedPayload = compressor.compress(query, payload);
+            this.compressedPayload = compressedPayload;
         }
 
     }
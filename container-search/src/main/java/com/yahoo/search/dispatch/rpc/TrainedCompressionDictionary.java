@@ -0,0 +1,75 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch.rpc;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictTrainer;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A zstd dictionary which is trained from payloads sampled from those sent to and received from content nodes.
+ * Payloads are sampled until enough are collected, and the dictionary is then trained in the background,
+ * after which it is available from {@link #get}. This lives as long as the connections to the content nodes,
+ * such that all payloads are compressed with the same dictionary, which each connection sends to its node once.
+ */
+public class TrainedCompressionDictionary {
+
+    private static final Logger log = Logger.getLogger(TrainedCompressionDictionary.class.getName());
+
+    /** Samples larger than this are mostly unique content, and are not used for training */
+    static final int maxSampleSize = 128 * 1024;
+
+    private final int dictionarySize;
+    private final int sampleInterval;
+    private final AtomicLong payloads = new AtomicLong();
+    private ZstdDictTrainer trainer; // Guarded by this; null when training has started
+    private volatile CompressionDictionary dictionary = null;
+
+    /** Creates a dictionary of the given size, which is trained from samples of about 100 times that size */
+    public TrainedCompressionDictionary(int dictionarySize) {
+        this(dictionarySize, 100 * dictionarySize, 16);
+    }
+
+    /** Creates a dictionary of the given size, trained from every sampleInterval'th payload until sampleBytes are collected */
+    TrainedCompressionDictionary(int dictionarySize, int sampleBytes, int sampleInterval) {
+        if (dictionarySize <= 0) throw new IllegalArgumentException("Dictionary size must be positive, but was " + dictionarySize);
+        this.dictionarySize = dictionarySize;
+        this.sampleInterval = sampleInterval;
+        this.trainer = new ZstdDictTrainer(sampleBytes, dictionarySize);
+    }
+
+    /** Returns the trained dictionary, or empty if it is not trained yet */
+    public Optional<CompressionDictionary> get() { return Optional.ofNullable(dictionary); }
+
+    /** Offers the given range of an uncompressed payload as a sample to train this from, if it is not yet trained */
+    void sample(byte[] payload, int offset, int length) {
+        if (dictionary != null || length > maxSampleSize) return;
+        if (payloads.getAndIncrement() % sampleInterval != 0) return;
+
+        ZstdDictTrainer samples;
+        synchronized (this) {
+            if (trainer == null) return; // Already training
+            if (trainer.addSample(Arrays.copyOfRange(payload, offset, offset + length))) return;
+            samples = trainer; // Full: Train from what we have
+            trainer = null;
+        }
+        Thread training = new Thread(() -> train(samples), "zstd-dictionary-trainer");
+        training.setDaemon(true);
+        training.start();
+    }
+
+    private void train(ZstdDictTrainer samples) {
+        try {
+            dictionary = new CompressionDictionary(samples.trainSamples(), Zstd.defaultCompressionLevel());
+            log.log(Level.FINE, () -> "Trained " + dictionary + " of " + dictionarySize + " bytes");
+        }
+        catch (RuntimeException e) { // The samples may be too few or too similar; compress without a dictionary
+            log.log(Level.WARNING, "Could not train a compression dictionary from sampled payloads", e);
+        }
+    }
+
+}
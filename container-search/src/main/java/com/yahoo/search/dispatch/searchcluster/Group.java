@@ -120,6 +120,17 @@ public class Group {
      */
     public long targetActiveDocuments() { return targetActiveDocuments; }
 
+    /**
+     * Returns the largest number of queries queued or running on a node in this group, as last reported by the nodes.
+     * A query to this group must wait for its busiest node.
+     */
+    public int activeQueries() {
+        int max = 0;
+        for (Node node : nodes)
+            max = Math.max(max, node.getActiveQueries());
+        return max;
+    }
+
     /** Returns whether the nodes in the group have about the same number of documents */
     public boolean isBalanced() { return isBalanced; }
 
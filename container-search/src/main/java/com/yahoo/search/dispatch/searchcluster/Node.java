@@ -24,6 +24,7 @@ public class Node {
     private final AtomicLong lastPong = new AtomicLong(0);
     private volatile long activeDocuments = 0;
     private volatile long targetActiveDocuments = 0;
+    private volatile int activeQueries = 0;
     private volatile boolean statusIsKnown = false;
     private volatile boolean working = true;
 
@@ -79,6 +80,7 @@ public class Node {
         if ( ! working ) {
             activeDocuments = 0;
             targetActiveDocuments = 0;
+            activeQueries = 0;
         }
     }
 
@@ -97,6 +99,12 @@ public class Node {
     /** Returns the target active documents on this node. If unknown, 0 is returned. */
     long getTargetActiveDocuments() { return targetActiveDocuments; }
 
+    /** Updates the number of queries queued or running on this node, as last reported by the node */
+    public void setActiveQueries(int queries) { this.activeQueries = queries; }
+
+    /** Returns the number of queries queued or running on this node, as last reported by the node. If unknown, 0 is returned. */
+    public int getActiveQueries() { return activeQueries; }
+
     @Override
     public int hashCode() { return Objects.hash(hostname, key, group); }
 
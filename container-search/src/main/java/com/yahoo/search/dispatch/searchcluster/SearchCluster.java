@@ -316,6 +316,7 @@ public class SearchCluster implements NodeManager<Node> {
                     node.setActiveDocuments(pong.activeDocuments().get());
                     node.setTargetActiveDocuments(pong.targetActiveDocuments().get());
                 }
+                pong.activeQueries().ifPresent(node::setActiveQueries);
                 clusterMonitor.responded(node);
             }
         }
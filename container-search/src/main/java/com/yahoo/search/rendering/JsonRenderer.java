@@ -84,6 +84,7 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
     private static final CompoundName WRAP_DEEP_MAPS = CompoundName.from("renderer.json.jsonMaps");
     private static final CompoundName WRAP_WSETS = CompoundName.from("renderer.json.jsonWsets");
     private static final CompoundName DEBUG_RENDERING_KEY = CompoundName.from("renderer.json.debug");
+    private static final CompoundName RAW_SUMMARY_DATA = CompoundName.from("renderer.json.rawSummaryData");
     private static final CompoundName JSON_CALLBACK = CompoundName.from("jsoncallback");
 
     // if this must be optimized, simply use com.fasterxml.jackson.core.SerializableString
@@ -154,6 +155,7 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
         volatile boolean jsonMapsAll = true;
         volatile boolean jsonWsetsAll = false;
         volatile boolean enableRawAsBase64 = false;
+        volatile boolean rawSummaryData = true;
         volatile JsonFormat.EncodeOptions tensorOptions;
         RenderTarget renderTarget;
         boolean convertDeep() { return (jsonDeepMaps || jsonWsets); }
@@ -163,6 +165,7 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
             this.jsonWsets = true;
             this.jsonMapsAll = true;
             this.jsonWsetsAll = true;
+            this.rawSummaryData = true;
             this.tensorOptions = new JsonFormat.EncodeOptions(true, false, false);
             this.renderTarget = RenderTarget.Json;
         }
@@ -176,6 +179,7 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
             this.jsonDeepMaps = props.getBoolean(WRAP_DEEP_MAPS, true);
             this.jsonWsets = props.getBoolean(WRAP_WSETS, true);
             this.enableRawAsBase64 = props.getBoolean(RAW_AS_BASE64, true);
+            this.rawSummaryData = props.getBoolean(RAW_SUMMARY_DATA, true);
 
             // we may need more finetuning, but for now use the same query parameters here:
             this.jsonMapsAll = props.getBoolean(WRAP_DEEP_MAPS, true);
@@ -600,7 +604,7 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
     }
 
     private FieldConsumer createFieldConsumer(JsonGenerator generator, FieldConsumerSettings settings) {
-        return new FieldConsumer(generator, settings);
+        return settings.rawSummaryData ? new RawDataFieldConsumer(generator, settings) : new FieldConsumer(generator, settings);
     }
 
     /**
@@ -620,7 +624,7 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
         private final JsonGenerator generator;
         private final JsonGeneratorDataSink dataSink;
         private final DataSink tensorDataSink;
-        private final FieldConsumerSettings settings;
+        final FieldConsumerSettings settings;
         private MutableBoolean hasFieldsField;
 
         /** Invoke this from your constructor when sub-classing {@link FieldConsumer} */
@@ -822,7 +826,7 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
         }
 
         /** Emit top-level data, applying conversions as configured */
-        private void emitTopLevel(Inspector data) {
+        void emitTopLevel(Inspector data) {
             if (data.type() == Type.ARRAY && data.entryCount() > 0) {
                 if (tryEmitAsMap(data)) {
                     return;
@@ -917,7 +921,7 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
             new TensorDataSource(t, settings.tensorOptions).emit(tensorDataSink());
         }
 
-        private JsonGenerator generator() {
+        JsonGenerator generator() {
             if (generator == null)
                 throw new UnsupportedOperationException("Generator required but not assigned. " +
                                                         "All accept() methods must be overridden when sub-classing FieldConsumer");
@@ -928,4 +932,79 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
 
     }
 
+    /**
+     * A field consumer which renders summary data values directly from the data received from the content nodes,
+     * without first converting them to Java objects. This produces the same output as {@link FieldConsumer}.
+     */
+    private static class RawDataFieldConsumer extends FieldConsumer implements Hit.RawDataConsumer {
+
+        RawDataFieldConsumer(JsonGenerator generator, FieldConsumerSettings settings) {
+            super(generator, settings);
+        }
+
+        @Override
+        public void acceptLong(String name, long value) {
+            try {
+                if (startField(name))
+                    generator().writeNumber(value);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void acceptFloat(String name, float value) {
+            try {
+                if (startField(name))
+                    generator().writeNumber(value);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void acceptDouble(String name, double value) {
+            try {
+                if (startField(name))
+                    generator().writeNumber(value);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void acceptBool(String name, boolean value) {
+            try {
+                if (startField(name))
+                    generator().writeBoolean(value);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void acceptStructured(String name, Inspector value) {
+            try {
+                if (startField(name))
+                    emitTopLevel(value);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /** Writes the name of the given field and returns true if it should be rendered, returns false otherwise */
+        private boolean startField(String name) throws IOException {
+            if ( ! settings.debugRendering && name.startsWith(VESPA_HIDDEN_FIELD_PREFIX)) return false;
+            ensureFieldsField();
+            generator().writeFieldName(name);
+            return true;
+        }
+
+    }
+
 }
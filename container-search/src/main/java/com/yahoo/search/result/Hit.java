@@ -3,6 +3,7 @@ package com.yahoo.search.result;
 
 import com.yahoo.collections.ArraySet;
 import com.yahoo.component.provider.ListenableFreezableClass;
+import com.yahoo.data.access.Inspector;
 import com.yahoo.net.URI;
 import com.yahoo.prelude.hitfield.HitField;
 import com.yahoo.processing.Request;
@@ -419,7 +420,8 @@ public class Hit extends ListenableFreezableClass implements Data, Comparable<Hi
      * where the callback will provide raw utf-8 byte data for strings whose data
      * is already available at this form.
      * This is the most resource efficient way of traversing all the fields of a hit
-     * in renderers which produces utf-8.
+     * in renderers which produces utf-8. If the consumer is a {@link RawDataConsumer}, values which are
+     * available as raw data are passed as such.
      */
     public void forEachFieldAsRaw(RawUtf8Consumer consumer) {
         if (fields == null) return;
@@ -705,4 +707,28 @@ public class Hit extends ListenableFreezableClass implements Data, Comparable<Hi
 
     }
 
+    /**
+     * A consumer which can also receive field values directly from the data they are decoded from,
+     * without creating Java objects for them. Hits holding such data, such as hits filled with document summaries,
+     * will call these methods instead of accept(String, Object) where possible.
+     */
+    public interface RawDataConsumer extends RawUtf8Consumer {
+
+        /** Called for integer fields instead of accept(String, Object). */
+        void acceptLong(String fieldName, long value);
+
+        /** Called for float fields instead of accept(String, Object). */
+        void acceptFloat(String fieldName, float value);
+
+        /** Called for double fields instead of accept(String, Object). */
+        void acceptDouble(String fieldName, double value);
+
+        /** Called for boolean fields instead of accept(String, Object). */
+        void acceptBool(String fieldName, boolean value);
+
+        /** Called for fields which would otherwise be passed to accept(String, Object) as {@link StructuredData}. */
+        void acceptStructured(String fieldName, Inspector value);
+
+    }
+
 }
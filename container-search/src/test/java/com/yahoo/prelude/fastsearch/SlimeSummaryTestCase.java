@@ -22,6 +22,7 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
@@ -31,6 +32,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -123,6 +125,30 @@ public class SlimeSummaryTestCase {
         assertEquals(tensor2, featureData.getTensor("tensor2_feature"));
     }
 
+    @Test
+    void testFieldIterationDoesNotConvertValues() {
+        DocsumDefinitionSet docsum = createDocsumDefinitionSet();
+        Slime slime = new Slime();
+        Cursor summary = slime.setObject();
+        summary.setLong("integer_field", 4);
+        summary.setData("tensor_field1", new byte[] { 127, 127, 127 }); // not a valid tensor
+        FastHit hit = new FastHit();
+        assertNull(docsum.lazyDecode("default", encode(slime), hit));
+
+        Set<String> names = new HashSet<>();
+        Map.Entry<String, Object> tensorEntry = null;
+        for (var i = hit.fieldIterator(); i.hasNext(); ) {
+            var entry = i.next();
+            names.add(entry.getKey());
+            if (entry.getKey().equals("tensor_field1"))
+                tensorEntry = entry;
+        }
+        assertEquals(Set.of("integer_field", "tensor_field1"), names);
+        assertNotNull(tensorEntry);
+        assertThrows(RuntimeException.class, tensorEntry::getValue);
+        assertEquals(4, hit.getField("integer_field"));
+    }
+
     @Test
     void testFieldAccessAPI() {
         DocsumDefinitionSet partialDocsum1 = createPartialDocsumDefinitionSet1();
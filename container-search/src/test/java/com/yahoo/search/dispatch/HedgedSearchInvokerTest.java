@@ -0,0 +1,175 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.concurrent.Timer;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.dispatch.searchcluster.Group;
+import com.yahoo.search.dispatch.searchcluster.Node;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HedgedSearchInvokerTest {
+
+    @Test
+    void testHedgeDelayIsPercentileOfRecentLatencies() {
+        HedgingPolicy policy = new HedgingPolicy(1.0, 90);
+        for (int i = 1; i < 100; i++)
+            policy.record(i);
+        assertEquals(OptionalLong.empty(), policy.hedgeDelay());
+        policy.record(100);
+        assertEquals(OptionalLong.of(90), policy.hedgeDelay());
+
+        for (int i = 0; i < 1000; i++)
+            policy.record(5);
+        assertEquals(OptionalLong.of(5), policy.hedgeDelay());
+    }
+
+    @Test
+    void testHedgingIsWithinBudget() {
+        HedgingPolicy policy = new HedgingPolicy(0.5, 50);
+        for (int i = 0; i < 100; i++)
+            policy.record(10);
+
+        assertEquals(OptionalLong.empty(), policy.hedgeDelay());
+        assertEquals(OptionalLong.of(10), policy.hedgeDelay());
+        assertTrue(policy.tryHedge());
+        assertFalse(policy.tryHedge());
+        assertEquals(OptionalLong.empty(), policy.hedgeDelay());
+        assertFalse(new HedgingPolicy(0, 50).isEnabled());
+    }
+
+    @Test
+    void testSlowGroupIsHedged() throws IOException {
+        TestInvoker primary = new TestInvoker(1, false);
+        TestInvoker hedge = new TestInvoker(2, true);
+        HedgedSearchInvoker invoker = new HedgedSearchInvoker(Timer.monotonic, primary, () -> Optional.of(hedge), readyPolicy());
+
+        Result result = invoker.search(new Query("?query=foo&timeout=20s"), 1.0);
+        assertEquals(2, result.getTotalHitCount());
+        assertTrue(hedge.sent);
+        invoker.close();
+        assertTrue(primary.closed);
+        assertTrue(hedge.closed);
+    }
+
+    @Test
+    void testLatencyIsReportedToLoadBalancerOnlyForGroupsWhichResponded() throws IOException {
+        LoadBalancer.GroupStatus primaryGroup = groupStatus(1);
+        LoadBalancer.GroupStatus hedgeGroup = groupStatus(2);
+        TestInvoker primary = new TestInvoker(1, false);
+        TestInvoker hedge = new TestInvoker(2, true, Duration.ofMillis(10));
+        primary.teardown(primaryGroup::release);
+        hedge.teardown(hedgeGroup::release);
+        HedgedSearchInvoker invoker = new HedgedSearchInvoker(Timer.monotonic, primary, () -> Optional.of(hedge), readyPolicy());
+
+        assertEquals(2, invoker.search(new Query("?query=foo&timeout=20s"), 1.0).getTotalHitCount());
+        invoker.close();
+        // The hedge responded, so its latency is recorded, while the primary did not, and is reported as failed
+        double initialWeight = groupStatus(3).weight();
+        assertNotEquals(initialWeight, hedgeGroup.weight());
+        assertEquals(initialWeight, primaryGroup.weight());
+    }
+
+    @Test
+    void testFastGroupIsNotHedged() throws IOException {
+        TestInvoker primary = new TestInvoker(1, true);
+        AtomicInteger hedgesCreated = new AtomicInteger();
+        HedgedSearchInvoker invoker = new HedgedSearchInvoker(Timer.monotonic, primary,
+                                                              () -> { hedgesCreated.incrementAndGet(); return Optional.empty(); },
+                                                              readyPolicy());
+
+        Result result = invoker.search(new Query("?query=foo&timeout=20s"), 1.0);
+        assertEquals(1, result.getTotalHitCount());
+        assertEquals(0, hedgesCreated.get());
+        assertNull(invoker.hedge());
+        invoker.close();
+        assertTrue(primary.closed);
+    }
+
+    @Test
+    void testPrimaryIsUsedWhenNoHedgeIsAvailable() throws IOException {
+        TestInvoker primary = new TestInvoker(1, false);
+        HedgedSearchInvoker invoker = new HedgedSearchInvoker(Timer.monotonic, primary, Optional::empty, readyPolicy());
+
+        Result result = invoker.search(new Query("?query=foo&timeout=20s"), 1.0);
+        assertEquals(1, result.getTotalHitCount());
+        assertNull(invoker.hedge());
+    }
+
+    private static HedgingPolicy readyPolicy() {
+        HedgingPolicy policy = new HedgingPolicy(1.0, 50);
+        for (int i = 0; i < 100; i++)
+            policy.record(1);
+        return policy;
+    }
+
+    private static LoadBalancer.GroupStatus groupStatus(int id) {
+        LoadBalancer.GroupStatus status = new LoadBalancer.GroupStatus(new Group(id, List.of()));
+        status.setDecayer(new LoadBalancer.AdaptiveScheduler.DecayByRequests());
+        status.allocate();
+        return status;
+    }
+
+    private static class TestInvoker extends SearchInvoker {
+
+        private final int key;
+        private final boolean respondAtOnce;
+        private final Duration resultDelay;
+        private Query query;
+        boolean sent = false;
+        boolean closed = false;
+
+        TestInvoker(int key, boolean respondAtOnce) {
+            this(key, respondAtOnce, Duration.ZERO);
+        }
+
+        TestInvoker(int key, boolean respondAtOnce, Duration resultDelay) {
+            super(Optional.of(new Node("test", key, "test-host", key, true)));
+            this.key = key;
+            this.respondAtOnce = respondAtOnce;
+            this.resultDelay = resultDelay;
+        }
+
+        @Override
+        protected Object sendSearchRequest(Query query, double contentShare, Object context) {
+            this.query = query;
+            sent = true;
+            if (respondAtOnce)
+                responseAvailable();
+            return context;
+        }
+
+        @Override
+        protected InvokerResult getSearchResult() {
+            try {
+                Thread.sleep(resultDelay.toMillis());
+            }
+            catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            InvokerResult result = new InvokerResult(query, 10);
+            result.getResult().setTotalHitCount(key);
+            return result;
+        }
+
+        @Override
+        protected void release() {
+            closed = true;
+        }
+
+    }
+
+}
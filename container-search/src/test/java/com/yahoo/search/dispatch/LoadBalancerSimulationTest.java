@@ -383,4 +383,9 @@ public class LoadBalancerSimulationTest {
     void testBestOfRandom2Policy() {
         runSimulation(LoadBalancer.Policy.BEST_OF_RANDOM_2);
     }
+
+    @Test
+    void testQueueAwarePolicy() {
+        runSimulation(LoadBalancer.Policy.QUEUE_AWARE);
+    }
 }
@@ -4,6 +4,7 @@ package com.yahoo.search.dispatch;
 import com.yahoo.search.dispatch.LoadBalancer.AdaptiveScheduler;
 import com.yahoo.search.dispatch.LoadBalancer.BestOfRandom2;
 import com.yahoo.search.dispatch.LoadBalancer.GroupStatus;
+import com.yahoo.search.dispatch.LoadBalancer.QueueAwareScheduler;
 import com.yahoo.search.dispatch.searchcluster.Group;
 import com.yahoo.search.dispatch.searchcluster.Node;
 import org.junit.jupiter.api.Test;
@@ -181,6 +182,41 @@ public class LoadBalancerTest {
         assertEquals(0, allocate(sched.takeNextGroup(null).get()).groupId());
     }
 
+    @Test
+    void requireQueueAwareSchedulerToAvoidBusyAndSlowGroups() {
+        Node n0 = new Node("test", 0, "test-node-host", 0, true);
+        Node n1 = new Node("test", 1, "test-node-host", 1, true);
+        Map<Integer, GroupStatus> scoreboard = new HashMap<>();
+        scoreboard.put(0, new GroupStatus(groupOf(0, n0)));
+        scoreboard.put(1, new GroupStatus(groupOf(1, n1)));
+        QueueAwareScheduler sched = new QueueAwareScheduler(sequence(0.1), scoreboard); // candidates are 0, then 1
+
+        assertEquals(0, sched.takeNextGroup(null).get().groupId());
+        n0.setActiveQueries(2);
+        assertEquals(1, sched.takeNextGroup(null).get().groupId());
+        allocate(scoreboard.get(1));
+        assertEquals(1, sched.takeNextGroup(null).get().groupId());
+        allocate(scoreboard.get(1));
+        allocate(scoreboard.get(1));
+        assertEquals(0, sched.takeNextGroup(null).get().groupId());
+
+        n0.setActiveQueries(0);
+        for (int i = 0; i < 3; i++)
+            scoreboard.get(1).release(true, RequestDuration.of(Duration.ofMillis(1)));
+        for (int i = 0; i < 100; i++)
+            updateSearchTime(scoreboard.get(0), RequestDuration.of(Duration.ofMillis(100)));
+        assertEquals(1, sched.takeNextGroup(null).get().groupId());
+    }
+
+    private static Group groupOf(int id, Node node) {
+        return new Group(id, List.of(node)) {
+            @Override
+            public boolean hasSufficientCoverage() {
+                return true;
+            }
+        };
+    }
+
     private static int countRequestsToReach90p(Duration timeBetweenSample, Duration searchTime) {
         double p90 = 0.9*searchTime.toMillis()/1000.0;
         GroupStatus.Decayer decayer = new AdaptiveScheduler.DecayByTime(Duration.ofMillis(1), RequestDuration.of(Instant.EPOCH, Duration.ZERO));
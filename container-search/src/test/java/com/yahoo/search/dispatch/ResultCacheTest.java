@@ -0,0 +1,133 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import ai.vespa.metrics.ContainerMetrics;
+import com.google.protobuf.ByteString;
+import com.yahoo.jdisc.test.MockMetric;
+import com.yahoo.prelude.fastsearch.FastHit;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.dispatch.searchcluster.DocumentCount;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.search.result.Hit;
+import com.yahoo.test.ManualClock;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResultCacheTest {
+
+    private final ManualClock clock = new ManualClock();
+    private final MockMetric metric = new MockMetric();
+    private long activeDocuments = 100;
+    private final ResultCache cache = new ResultCache("test", 2, Duration.ofSeconds(10),
+                                                      () -> new DocumentCount(activeDocuments, activeDocuments, true),
+                                                      metric, clock);
+
+    @Test
+    void testCachedResultIsReturnedForEqualQueries() throws IOException {
+        Result first = search("?query=foo", fullCoverage());
+        assertEquals(2, first.getHitCount());
+        assertEquals(1, cache.size());
+
+        Query query = new Query("?query=foo");
+        ByteString key = cache.keyOf(query).get();
+        SearchInvoker cached = cache.get(key).get();
+        Result second = cached.search(query, 1.0);
+        assertEquals(2, second.getHitCount());
+        assertNotSame(first.hits().get(0), second.hits().get(0));
+        assertEquals(first.hits().get(0).getId(), second.hits().get(0).getId());
+        assertTrue(second.getCoverage(false).getFull());
+        assertTrue(cache.get(cache.keyOf(new Query("?query=bar")).get()).isEmpty());
+
+        assertEquals(1.0, metric(ContainerMetrics.QUERY_RESULT_CACHE_HITS));
+        assertEquals(1.0, metric(ContainerMetrics.QUERY_RESULT_CACHE_MISSES));
+    }
+
+    @Test
+    void testQueriesWhichShouldNotBeCached() {
+        assertTrue(cache.keyOf(new Query("?query=foo")).isPresent());
+        assertFalse(cache.keyOf(new Query("?query=foo&noCache")).isPresent());
+        assertFalse(cache.keyOf(new Query("?query=foo&trace.level=1")).isPresent());
+        assertFalse(cache.keyOf(new Query("?query=foo&model.searchPath=0/0")).isPresent());
+        assertFalse(cache.keyOf(new Query("?query=foo&ranking.queryCache=true")).isPresent());
+        assertFalse(new ResultCache("test", 0, Duration.ofSeconds(10), DocumentCount::new, null, clock)
+                            .keyOf(new Query("?query=foo")).isPresent());
+    }
+
+    @Test
+    void testKeyDependsOnQueryAndRankingButNotTimeout() {
+        assertEquals(cache.keyOf(new Query("?query=foo")), cache.keyOf(new Query("?query=foo&timeout=3s")));
+        assertFalse(cache.keyOf(new Query("?query=foo")).equals(cache.keyOf(new Query("?query=foo&hits=20"))));
+        assertFalse(cache.keyOf(new Query("?query=foo")).equals(cache.keyOf(new Query("?query=foo&ranking=other"))));
+        assertFalse(cache.keyOf(new Query("?query=foo")).equals(cache.keyOf(new Query("?query=foo&ranking.features.query(x)=1"))));
+    }
+
+    @Test
+    void testIncompleteResultsAreNotCached() throws IOException {
+        Coverage partial = new Coverage(50, 100, 1);
+        search("?query=foo", partial);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testExpiryAndInvalidation() throws IOException {
+        search("?query=foo", fullCoverage());
+        clock.advance(Duration.ofSeconds(11));
+        assertTrue(cached("?query=foo").isEmpty());
+        assertEquals(0, cache.size());
+
+        search("?query=foo", fullCoverage());
+        activeDocuments = 101;
+        assertTrue(cached("?query=foo").isEmpty());
+
+        search("?query=foo", fullCoverage());
+        assertTrue(cached("?query=foo").isPresent());
+        cache.invalidate();
+        assertTrue(cached("?query=foo").isEmpty());
+    }
+
+    @Test
+    void testSizeIsBounded() throws IOException {
+        search("?query=a", fullCoverage());
+        search("?query=b", fullCoverage());
+        search("?query=c", fullCoverage());
+        assertEquals(2, cache.size());
+        assertTrue(cached("?query=a").isEmpty());
+        assertTrue(cached("?query=c").isPresent());
+        assertEquals(1.0, metric(ContainerMetrics.QUERY_RESULT_CACHE_EVICTIONS));
+    }
+
+    private Optional<SearchInvoker> cached(String request) {
+        return cache.get(cache.keyOf(new Query(request)).get());
+    }
+
+    private Result search(String request, Coverage coverage) throws IOException {
+        Query query = new Query(request);
+        List<Hit> hits = List.of(new FastHit(new byte[12], 2.0, OptionalInt.empty(), 0, 0),
+                                 new FastHit(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12 }, 1.0, OptionalInt.empty(), 0, 0));
+        SearchInvoker invoker = cache.caching(cache.keyOf(query).get(), new MockInvoker(0, coverage).setHits(hits));
+        try (invoker) {
+            return invoker.search(query, 1.0);
+        }
+    }
+
+    private static Coverage fullCoverage() {
+        return new Coverage(100, 100, 1);
+    }
+
+    private double metric(ContainerMetrics name) {
+        return metric.metrics().get(name.baseName()).get(Map.of("clustername", "test"));
+    }
+
+}
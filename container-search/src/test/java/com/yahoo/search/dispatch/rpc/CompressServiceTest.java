@@ -0,0 +1,96 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch.rpc;
+
+import com.github.luben.zstd.ZstdDictTrainer;
+import com.yahoo.compress.CompressionType;
+import com.yahoo.compress.Compressor;
+import com.yahoo.search.Query;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompressServiceTest {
+
+    private static final byte[] payload = "rankfeature;attribute(popularity);".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void testDefaultCompressionIsUsedUnlessOverriddenInQuery() {
+        CompressService zstd = new CompressService(CompressionType.ZSTD);
+        assertEquals(CompressionType.ZSTD, zstd.compress(new Query("?query=foo"), payload).type());
+        assertEquals(CompressionType.LZ4, zstd.compress(new Query("?query=foo&dispatch.compression=lz4"), payload).type());
+        assertEquals(CompressionType.NONE, zstd.compress(new Query("?query=foo&dispatch.compression=none"), payload).type());
+        assertEquals(CompressionType.LZ4, new CompressService().compress(new Query("?query=foo"), payload).type());
+    }
+
+    @Test
+    void testZstdCompressedPayloadIsDecompressed() {
+        CompressService service = new CompressService(CompressionType.ZSTD);
+        Compressor.Compression compression = service.compress(new Query("?query=foo"), payload);
+        var response = new Client.ProtobufResponse(compression.type().getCode(), compression.uncompressedSize(), compression.data());
+        assertArrayEquals(payload, service.decompress(response));
+    }
+
+    @Test
+    void testZstdPayloadsAreCompressedWithDictionaryOnceTrained() throws InterruptedException {
+        TrainedCompressionDictionary dictionary = new TrainedCompressionDictionary(4096, 100 * 4096, 1);
+        CompressService service = new CompressService(CompressionType.ZSTD, Optional.of(dictionary));
+        Query query = new Query("?query=foo");
+        Random random = new Random(1);
+        for (int i = 0; dictionary.get().isEmpty() && i < 100000; i++)
+            service.compress(query, message(random));
+        for (int i = 0; dictionary.get().isEmpty() && i < 1000; i++)
+            Thread.sleep(10);
+        assertTrue(dictionary.get().isPresent(), "Dictionary is trained from the sampled payloads");
+
+        byte[] message = message(random);
+        Compressor.Compression compression = service.compress(query, message);
+        assertEquals(CompressionType.ZSTD, compression.type());
+        assertEquals(dictionary.get(), service.dictionaryOf(compression));
+        Compressor.Compression plain = new CompressService(CompressionType.ZSTD).compress(query, message);
+        assertTrue(compression.data().length < plain.data().length,
+                   "Dictionary compression (" + compression.data().length + " bytes) beats plain zstd (" + plain.data().length + " bytes)");
+
+        var response = new Client.ProtobufResponse(compression.type().getCode(), compression.uncompressedSize(), compression.data());
+        assertArrayEquals(message, service.decompress(response));
+
+        Compressor.Compression lz4 = service.compress(new Query("?query=foo&dispatch.compression=lz4"), message);
+        assertEquals(CompressionType.LZ4, lz4.type());
+        assertTrue(service.dictionaryOf(lz4).isEmpty());
+    }
+
+    @Test
+    void testResponseCompressedWithUnknownDictionaryIsRejected() {
+        CompressService service = new CompressService(CompressionType.ZSTD, Optional.of(new TrainedCompressionDictionary(4096)));
+        CompressionDictionary other = trainedDictionary();
+        byte[] message = message(new Random(2));
+        var response = new Client.ProtobufResponse(CompressionType.ZSTD.getCode(), message.length,
+                                                   other.compress(message, 0, message.length));
+        assertThrows(IllegalArgumentException.class, () -> service.decompress(response));
+    }
+
+    static CompressionDictionary trainedDictionary() {
+        var trainer = new ZstdDictTrainer(100 * 4096, 4096);
+        Random random = new Random(3);
+        while (trainer.addSample(message(random))) { }
+        return new CompressionDictionary(trainer.trainSamples(), 3);
+    }
+
+    /** Returns a message resembling a serialized query: The same names with varying values */
+    static byte[] message(Random random) {
+        StringBuilder message = new StringBuilder("default;rank_profile=").append(random.nextInt(4));
+        for (int i = 0; i < 1 + random.nextInt(8); i++)
+            message.append(";query(user_embedding_").append(random.nextInt(3)).append(")=").append(random.nextDouble())
+                   .append(";attribute(popularity)>").append(random.nextInt(1000))
+                   .append(";fieldMatch(title).completeness");
+        message.append(";documentid=id:music:track::").append(Long.toHexString(random.nextLong()));
+        return message.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+}
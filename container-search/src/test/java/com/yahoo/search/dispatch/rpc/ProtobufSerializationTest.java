@@ -4,6 +4,8 @@ package com.yahoo.search.dispatch.rpc;
 
 import ai.vespa.searchlib.searchprotocol.protobuf.SearchProtocol;
 import com.google.protobuf.ByteString;
+import com.yahoo.compress.CompressionType;
+import com.yahoo.compress.Compressor;
 import com.yahoo.container.QrSearchersConfig;
 import com.yahoo.document.GlobalId;
 import com.yahoo.document.idstring.IdString;
@@ -16,6 +18,7 @@ import com.yahoo.search.query.profile.compiled.CompiledQueryProfileRegistry;
 import com.yahoo.search.query.profile.config.QueryProfileXMLReader;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.OptionalInt;
 import java.util.Set;
@@ -65,15 +68,41 @@ public class ProtobufSerializationTest {
     }
 
     @Test
-    void testDocsumSerialization() {
+    void testDocsumSerialization() throws IOException {
         Query q = new Query("search/?query=test&hits=10&offset=3");
         var builder = ProtobufSerialization.createDocsumRequestBuilder(q, "server", "summary", Set.of("f1", "f2"),true, 0.5,
                                                                        new QrSearchersConfig.Builder().sendProtobufQuerytree(true).build());
         builder.setTimeout(0);
         var hit = new FastHit(new GlobalId(IdString.createIdString("id:ns:type::id")).getRawId(), 0, OptionalInt.of(0), 0, 0);
-        var bytes = ProtobufSerialization.serializeDocsumRequest(builder, List.of(hit));
+        var compressor = new CompressService();
+        var payload = ProtobufSerialization.serializeDocsumRequest(builder, List.of(hit), q, compressor);
+
+        assertEquals(63, payload.uncompressedSize());
+        assertEquals(CompressionType.INCOMPRESSIBLE, payload.type());
+        assertEquals(63, payload.data().length);
+        var response = new Client.ProtobufResponse(payload.type().getCode(), payload.uncompressedSize(), payload.data());
+        assertEquals(builder.build(), SearchProtocol.DocsumRequest.parseFrom(ProtobufSerialization.payloadOf(response, compressor)));
+    }
+
+    @Test
+    void testCompressedRequestsAreSerializedAndParsedThroughReusedBuffer() throws IOException {
+        var compressor = new CompressService();
+        var config = new QrSearchersConfig.Builder().build();
+        Query large = new Query("?query=" + "foo+".repeat(1000) + "&timeout=20s");
+        Query small = new Query("?query=bar&timeout=20s");
+        var largePayload = ProtobufSerialization.serializeSearchRequest(large, 10, "server", 1.0, 0.5, config, compressor);
+        var smallPayload = ProtobufSerialization.serializeSearchRequest(small, 10, "server", 1.0, 0.5, config, compressor);
+        assertEquals(CompressionType.LZ4, largePayload.type());
+        assertEquals(CompressionType.INCOMPRESSIBLE, smallPayload.type());
+
+        assertEquals(ProtobufSerialization.convertFromQuery(large, 10, "server", 1.0, 0.5, config), parse(largePayload, compressor));
+        assertEquals(ProtobufSerialization.convertFromQuery(small, 10, "server", 1.0, 0.5, config), parse(smallPayload, compressor));
+        assertEquals(ProtobufSerialization.convertFromQuery(large, 10, "server", 1.0, 0.5, config), parse(largePayload, compressor));
+    }
 
-        assertEquals(63, bytes.length);
+    private SearchProtocol.SearchRequest parse(Compressor.Compression payload, CompressPayload compressor) throws IOException {
+        var response = new Client.ProtobufResponse(payload.type().getCode(), payload.uncompressedSize(), payload.data());
+        return SearchProtocol.SearchRequest.parseFrom(ProtobufSerialization.payloadOf(response, compressor));
     }
 
     private String contentsOf(ByteString property) {
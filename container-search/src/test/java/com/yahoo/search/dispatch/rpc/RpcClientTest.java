@@ -0,0 +1,149 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch.rpc;
+
+import com.github.luben.zstd.Zstd;
+import com.yahoo.compress.CompressionType;
+import com.yahoo.jrt.DataValue;
+import com.yahoo.jrt.Int32Value;
+import com.yahoo.jrt.Int8Value;
+import com.yahoo.jrt.ListenFailedException;
+import com.yahoo.jrt.Method;
+import com.yahoo.jrt.Request;
+import com.yahoo.jrt.Spec;
+import com.yahoo.jrt.Supervisor;
+import com.yahoo.jrt.Transport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests negotiating compression dictionaries with content nodes.
+ */
+public class RpcClientTest {
+
+    private static final String searchMethod = "vespa.searchprotocol.search";
+
+    private final CompressionDictionary dictionary = CompressServiceTest.trainedDictionary();
+    private final Random random = new Random(1);
+    private final RpcClient client = new RpcClient("test", 1);
+    private ContentNode node;
+
+    @AfterEach
+    void shutdown() {
+        client.close();
+        if (node != null) node.shutdown();
+    }
+
+    @Test
+    void testPayloadsAreCompressedWithDictionaryOnceTheNodeHasAcceptedIt() throws Exception {
+        node = new ContentNode(true);
+        Client.NodeConnection connection = client.createConnection("localhost", node.port());
+
+        assertRoundTrip(connection);
+        assertEquals(CompressionType.NONE, node.received.get(0), "Sent uncompressed until the dictionary is accepted");
+        sendUntilCompressedWithDictionary(connection);
+        assertEquals(List.of(dictionary.id()), node.dictionaries);
+    }
+
+    @Test
+    void testPayloadsAreSentUncompressedToNodesNotSupportingDictionaries() throws Exception {
+        node = new ContentNode(false);
+        Client.NodeConnection connection = client.createConnection("localhost", node.port());
+
+        for (int i = 0; i < 10; i++) {
+            assertRoundTrip(connection);
+            Thread.sleep(10);
+        }
+        assertEquals(10, node.received.size());
+        assertTrue(node.received.stream().allMatch(CompressionType.NONE::equals), node.received.toString());
+    }
+
+    @Test
+    void testPayloadIsResentUncompressedWhenTheNodeHasDroppedTheDictionary() throws Exception {
+        node = new ContentNode(true);
+        Client.NodeConnection connection = client.createConnection("localhost", node.port());
+        sendUntilCompressedWithDictionary(connection);
+
+        node.dictionary = null;
+        node.received.clear();
+        assertRoundTrip(connection);
+        assertEquals(List.of(CompressionType.ZSTD, CompressionType.NONE), node.received, "Rejected, then resent uncompressed");
+        sendUntilCompressedWithDictionary(connection);
+        assertEquals(List.of(dictionary.id(), dictionary.id()), node.dictionaries, "The dictionary is sent again");
+    }
+
+    private void sendUntilCompressedWithDictionary(Client.NodeConnection connection) throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            node.received.clear();
+            assertRoundTrip(connection);
+            if (node.received.equals(List.of(CompressionType.ZSTD))) return;
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Payloads were never compressed with the dictionary");
+    }
+
+    private void assertRoundTrip(Client.NodeConnection connection) throws Exception {
+        byte[] payload = CompressServiceTest.message(random);
+        byte[] compressed = dictionary.compress(payload, 0, payload.length);
+        CompletableFuture<Client.ResponseOrError<Client.ProtobufResponse>> response = new CompletableFuture<>();
+        connection.request(searchMethod, dictionary, payload.length, compressed, response::complete, 10);
+        Client.ProtobufResponse received = response.get().response().orElseThrow(() -> new AssertionError(response.join().error()));
+        assertArrayEquals(payload, received.compressedPayload(), "The node echoes the decompressed payload");
+    }
+
+    /** A content node which echoes search payloads, uncompressed, and which may support compression dictionaries */
+    private class ContentNode {
+
+        final Supervisor supervisor = new Supervisor(new Transport());
+        final int port;
+        final List<CompressionType> received = new CopyOnWriteArrayList<>();
+        final List<Integer> dictionaries = new CopyOnWriteArrayList<>();
+        volatile CompressionDictionary dictionary = null;
+
+        ContentNode(boolean supportsDictionaries) throws ListenFailedException {
+            supervisor.addMethod(new Method(searchMethod, "bix", "bix", this::search));
+            if (supportsDictionaries)
+                supervisor.addMethod(new Method(RpcClient.SET_COMPRESSION_DICTIONARY_METHOD, "ix", "", this::setDictionary));
+            port = supervisor.listen(new Spec(0)).port();
+        }
+
+        int port() { return port; }
+
+        void setDictionary(Request request) {
+            dictionaries.add(request.parameters().get(0).asInt32());
+            dictionary = new CompressionDictionary(request.parameters().get(1).asData(), Zstd.defaultCompressionLevel());
+        }
+
+        void search(Request request) {
+            CompressionType type = CompressionType.valueOf(request.parameters().get(0).asInt8());
+            int uncompressedSize = request.parameters().get(1).asInt32();
+            byte[] payload = request.parameters().get(2).asData();
+            received.add(type);
+            if (type == CompressionType.ZSTD) {
+                CompressionDictionary current = dictionary;
+                if (current == null || ! current.compressed(payload)) {
+                    request.setError(RpcClient.UNKNOWN_COMPRESSION_DICTIONARY, "Unknown compression dictionary");
+                    return;
+                }
+                payload = current.decompress(payload, uncompressedSize);
+            }
+            request.returnValues().add(new Int8Value(CompressionType.NONE.getCode()));
+            request.returnValues().add(new Int32Value(uncompressedSize));
+            request.returnValues().add(new DataValue(payload));
+        }
+
+        void shutdown() {
+            supervisor.transport().shutdown().join();
+        }
+
+    }
+
+}
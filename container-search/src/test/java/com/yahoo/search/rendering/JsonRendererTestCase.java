@@ -22,6 +22,7 @@ import com.yahoo.prelude.Index;
 import com.yahoo.prelude.IndexFacts;
 import com.yahoo.prelude.IndexModel;
 import com.yahoo.prelude.SearchDefinition;
+import com.yahoo.prelude.fastsearch.DocsumDefinition;
 import com.yahoo.prelude.fastsearch.FastHit;
 import com.yahoo.prelude.hitfield.JSONString;
 import com.yahoo.prelude.hitfield.RawData;
@@ -44,6 +45,7 @@ import com.yahoo.search.result.HitGroup;
 import com.yahoo.search.result.NanNumber;
 import com.yahoo.search.result.Relevance;
 import com.yahoo.search.result.StructuredData;
+import com.yahoo.search.schema.DocumentSummary;
 import com.yahoo.search.searchchain.Execution;
 import com.yahoo.search.searchchain.testutil.DocumentSourceSearcher;
 import com.yahoo.search.statistics.ElapsedTimeTestCase;
@@ -72,6 +74,7 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.OptionalInt;
@@ -1781,6 +1784,88 @@ public class JsonRendererTestCase {
         assertEqualJson(expected, result);
     }
 
+    @Test
+    void testRawSummaryDataRendersLikeConvertedSummaryData() throws Exception {
+        var summary = new DocumentSummary.Builder("default");
+        for (String type : List.of("byte", "short", "integer", "int64", "float", "double", "bool", "string"))
+            summary.add(new DocumentSummary.Field(type + "_field", type));
+        for (String name : List.of("empty_field", "$hidden_field"))
+            summary.add(new DocumentSummary.Field(name, "integer"));
+        for (String name : List.of("map_field", "wset_field", "struct_field", "json_string_field", "overridden_field", "removed_field"))
+            summary.add(new DocumentSummary.Field(name, "jsonstring"));
+        DocsumDefinition definition = new DocsumDefinition(summary.build());
+
+        Slime slime = new Slime();
+        Cursor docsum = slime.setObject();
+        docsum.setLong("byte_field", 7);
+        docsum.setLong("short_field", -300);
+        docsum.setLong("integer_field", 70000);
+        docsum.setLong("int64_field", 7000000000L);
+        docsum.setDouble("float_field", 0.1);
+        docsum.setDouble("double_field", 0.1);
+        docsum.setBool("bool_field", true);
+        docsum.setString("string_field", "a string");
+        docsum.setLong("empty_field", Integer.MIN_VALUE);
+        docsum.setLong("$hidden_field", 1);
+        Cursor map = docsum.setArray("map_field").addObject();
+        map.setString("key", "k");
+        map.setLong("value", 1);
+        Cursor wset = docsum.setArray("wset_field").addObject();
+        wset.setString("item", "i");
+        wset.setLong("weight", 2);
+        Cursor struct = docsum.setObject("struct_field");
+        struct.setString("name", "n");
+        struct.setArray("values").addDouble(1.5);
+        docsum.setString("json_string_field", "{\"a\":1}");
+        docsum.setObject("overridden_field").setLong("x", 1);
+        docsum.setObject("removed_field").setLong("x", 1);
+
+        String expected = """
+                {
+                  "root": {
+                    "children": [
+                      {
+                        "fields": {
+                          "overridden_field": "overridden",
+                          "byte_field": 7,
+                          "short_field": -300,
+                          "integer_field": 70000,
+                          "int64_field": 7000000000,
+                          "float_field": 0.1,
+                          "double_field": 0.1,
+                          "bool_field": true,
+                          "string_field": "a string",
+                          "map_field": { "k": 1 },
+                          "wset_field": { "i": 2 },
+                          "struct_field": { "name": "n", "values": [ 1.5 ] },
+                          "json_string_field": "{\\"a\\":1}"
+                        },
+                        "id": "summaryHit",
+                        "relevance": 1.0,
+                        "types": [ "summary" ]
+                      }
+                    ],
+                    "fields": { "totalCount": 1 },
+                    "id": "toplevel",
+                    "relevance": 1.0
+                  }
+                }
+                """;
+        List<String> rendered = new ArrayList<>();
+        for (String rawSummaryData : List.of("true", "false")) {
+            Result r = newEmptyResult(new String[] { "query=a", "renderer.json.rawSummaryData=" + rawSummaryData });
+            FastHit hit = new FastHit("summaryHit", 1.0);
+            hit.addSummary(definition, new SlimeAdapter(slime.get()));
+            hit.setField("overridden_field", "overridden");
+            hit.removeField("removed_field");
+            r.hits().add(hit);
+            r.setTotalHitCount(1L);
+            rendered.add(render(r));
+        }
+        assertEqualJsonContent(expected, rendered.get(0));
+        assertEquals(rendered.get(1), rendered.get(0));
+    }
+
     private Result newEmptyResult(String[] args) {
         return new Result(new Query("/?" + String.join("&", args)));
     }
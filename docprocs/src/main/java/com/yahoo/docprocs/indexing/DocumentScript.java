@@ -28,6 +28,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 /**
  * @author Simon Thoresen Hult
@@ -47,13 +48,14 @@ class DocumentScript {
 
     ScriptExpression getExpression() { return expression; }
 
-    Document execute(FieldValuesFactory fieldValuesFactory, Document document, boolean isReindexing, Instant deadline) {
+    Document execute(FieldValuesFactory fieldValuesFactory, Document document, boolean isReindexing, Instant deadline,
+                     Executor executor) {
         for (var i = document.iterator(); i.hasNext(); ) {
             Map.Entry<Field, FieldValue> entry = i.next();
             requireThatFieldIsDeclaredInDocument(entry.getKey());
             removeAnyLinguisticsSpanTree(entry.getValue());
         }
-        return expression.execute(fieldValuesFactory, document, isReindexing, deadline);
+        return expression.execute(fieldValuesFactory, document, isReindexing, deadline, executor);
     }
 
     DocumentUpdate execute(FieldValuesFactory fieldValuesFactory, DocumentUpdate update, Instant deadline) {
@@ -38,6 +38,9 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 /**
@@ -55,6 +58,7 @@ public class IndexingProcessor extends DocumentProcessor {
     private final DocumentTypeManager documentTypeManager;
     private final ScriptManager scriptManager;
     private final FieldValuesFactory fieldValuesFactory;
+    private final ForkJoinPool executor;
 
     private class ExpressionSelector extends FieldValuesFactory.SelectExpression {
         @Override
@@ -82,15 +86,28 @@ public class IndexingProcessor extends DocumentProcessor {
                                toMap(embedders, DefaultEmbedderProvider.class),
                                toMap(generators, DefaultGeneratorProvider.class),
                                metricReceiver
-                )
+                ),
+             ilscriptsConfig.parallelism()
         );
     }
 
     public IndexingProcessor(DocumentTypeManager documentTypeManager,
                              ScriptManager scriptManager) {
+        this(documentTypeManager, scriptManager, 0);
+    }
+
+    /**
+     * Creates an indexing processor which runs independent indexing statements of each document,
+     * and the operations of each processing, concurrently in a work-stealing pool with the given parallelism,
+     * or sequentially in the calling thread if this is 0.
+     */
+    public IndexingProcessor(DocumentTypeManager documentTypeManager,
+                             ScriptManager scriptManager,
+                             int parallelism) {
         this.documentTypeManager = documentTypeManager;
         this.scriptManager = scriptManager;
         fieldValuesFactory = new FieldValuesFactory(new ExpressionSelector());
+        executor = parallelism > 0 ? new ForkJoinPool(parallelism) : null;
     }
 
     @Override
@@ -104,37 +121,17 @@ public class IndexingProcessor extends DocumentProcessor {
         }
 
         List<DocumentOperation> out = new ArrayList<>(proc.getDocumentOperations().size());
-        for (var op : proc.getDocumentOperations()) {
-            try {
-                if (op instanceof DocumentPut dp) {
-                    processDocument(dp, out, deadline);
-                } else if (op instanceof DocumentUpdate du) {
-                    processUpdate(du, out, deadline);
-                } else if (op instanceof DocumentRemove dr) {
-                    processRemove(dr, out);
-                } else if (op != null) {
-                    throw new IllegalArgumentException("Document class " + op.getClass().getName() + " not supported.");
-                } else {
-                    throw new IllegalArgumentException("Expected document, got null.");
+        if (executor != null && proc.getDocumentOperations().size() > 1) {
+            Progress failure = processConcurrently(proc.getDocumentOperations(), out, deadline);
+            if (failure != null) return failure;
+        }
+        else {
+            for (var op : proc.getDocumentOperations()) {
+                try {
+                    processOperation(op, out, deadline);
+                } catch (InvalidInputException | OverloadException | TimeoutException e) {
+                    return toProgress(op, e);
                 }
-            } catch (InvalidInputException e) {
-                String message = Exceptions.toMessageString(e);
-                return Progress.INVALID_INPUT.withReason(
-                        op.getId() != null
-                        ? Text.format("Operation on '%s' contains invalid input: %s", op.getId().toString(), message)
-                        : Text.format("Operation contains invalid input: %s", message));
-            } catch (OverloadException e) {
-                String message = Exceptions.toMessageString(e);
-                return Progress.OVERLOAD.withReason(
-                        op.getId() != null
-                        ? Text.format("Operation on '%s' rejected due to overload: %s", op.getId().toString(), message)
-                        : Text.format("Operation rejected due to overload: %s", message));
-            } catch (TimeoutException e) {
-                String message = Exceptions.toMessageString(e);
-                return Progress.TIMEOUT.withReason(
-                        op.getId() != null
-                        ? Text.format("Operation on '%s' timed out: %s", op.getId().toString(), message)
-                        : Text.format("Operation timed out: %s", message));
             }
         }
         proc.getDocumentOperations().clear();
@@ -142,6 +139,79 @@ public class IndexingProcessor extends DocumentProcessor {
         return Progress.DONE;
     }
 
+    /**
+     * Processes the given operations concurrently, and adds the output of each, in order, to the given list.
+     * Returns the failure of the first failing operation, if any, once all operations are done.
+     */
+    private Progress processConcurrently(List<DocumentOperation> operations, List<DocumentOperation> out, Instant deadline) {
+        List<CompletableFuture<List<DocumentOperation>>> outputs = new ArrayList<>(operations.size());
+        for (var op : operations) {
+            outputs.add(CompletableFuture.supplyAsync(() -> {
+                List<DocumentOperation> output = new ArrayList<>(1);
+                processOperation(op, output, deadline);
+                return output;
+            }, executor));
+        }
+        Progress failure = null;
+        for (int i = 0; i < operations.size(); i++) {
+            try {
+                out.addAll(outputs.get(i).join());
+            } catch (CompletionException e) {
+                if (failure != null) continue;
+                if (e.getCause() instanceof InvalidInputException || e.getCause() instanceof OverloadException ||
+                    e.getCause() instanceof TimeoutException) {
+                    failure = toProgress(operations.get(i), (RuntimeException) e.getCause());
+                }
+                else if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                else {
+                    throw e;
+                }
+            }
+        }
+        return failure;
+    }
+
+    private void processOperation(DocumentOperation op, List<DocumentOperation> out, Instant deadline) {
+        if (op instanceof DocumentPut dp) {
+            processDocument(dp, out, deadline);
+        } else if (op instanceof DocumentUpdate du) {
+            processUpdate(du, out, deadline);
+        } else if (op instanceof DocumentRemove dr) {
+            processRemove(dr, out);
+        } else if (op != null) {
+            throw new IllegalArgumentException("Document class " + op.getClass().getName() + " not supported.");
+        } else {
+            throw new IllegalArgumentException("Expected document, got null.");
+        }
+    }
+
+    private static Progress toProgress(DocumentOperation op, RuntimeException e) {
+        String message = Exceptions.toMessageString(e);
+        if (e instanceof InvalidInputException) {
+            return Progress.INVALID_INPUT.withReason(
+                    op.getId() != null
+                    ? Text.format("Operation on '%s' contains invalid input: %s", op.getId().toString(), message)
+                    : Text.format("Operation contains invalid input: %s", message));
+        } else if (e instanceof OverloadException) {
+            return Progress.OVERLOAD.withReason(
+                    op.getId() != null
+                    ? Text.format("Operation on '%s' rejected due to overload: %s", op.getId().toString(), message)
+                    : Text.format("Operation rejected due to overload: %s", message));
+        } else {
+            return Progress.TIMEOUT.withReason(
+                    op.getId() != null
+                    ? Text.format("Operation on '%s' timed out: %s", op.getId().toString(), message)
+                    : Text.format("Operation timed out: %s", message));
+        }
+    }
+
+    @Override
+    public void deconstruct() {
+        if (executor != null) executor.shutdown();
+    }
+
     DocumentTypeManager getDocumentTypeManager() {
         return documentTypeManager;
     }
@@ -165,7 +235,7 @@ public class IndexingProcessor extends DocumentProcessor {
             buffer.flip();
             inputDocument = documentTypeManager.createDocument(buffer);
         }
-        Document output = script.execute(fieldValuesFactory, inputDocument, isReindexingOperation(input), deadline);
+        Document output = script.execute(fieldValuesFactory, inputDocument, isReindexingOperation(input), deadline, executor);
         if (output == null) return;
 
         out.add(new DocumentPut(input, output));
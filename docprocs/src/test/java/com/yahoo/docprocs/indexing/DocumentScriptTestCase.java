@@ -238,7 +238,7 @@ public class DocumentScriptTestCase {
         docType.addField("myField", fieldValue.getDataType());
         Document doc = new Document(docType, "id:ns:myDocumentType::");
         doc.setFieldValue("myField", fieldValue.clone());
-        doc = newScript(docType).execute(fieldValuesFactory, doc, false, null);
+        doc = newScript(docType).execute(fieldValuesFactory, doc, false, null, null);
         return doc.getFieldValue("myField");
     }
 
@@ -2,6 +2,7 @@
 package com.yahoo.docprocs.indexing;
 
 import com.yahoo.component.AbstractComponent;
+import com.yahoo.docproc.DocumentProcessor;
 import com.yahoo.docproc.Processing;
 import com.yahoo.document.DataType;
 import com.yahoo.document.Document;
@@ -13,6 +14,7 @@ import com.yahoo.document.DocumentUpdate;
 import com.yahoo.document.PositionDataType;
 import com.yahoo.document.TensorDataType;
 import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.document.datatypes.TensorFieldValue;
 import com.yahoo.document.update.AssignValueUpdate;
 import com.yahoo.document.update.FieldUpdate;
 import com.yahoo.language.process.Chunker;
@@ -33,6 +35,8 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
@@ -514,6 +518,74 @@ public class IndexingProcessorTestCase {
         assertTrue("Expected reason to contain '5000ms', got: " + reason, reason.contains("5000ms"));
     }
 
+    @Test
+    public void testConcurrentExecution() {
+        // Returns an embedding of the text length, but only once two embeddings are running concurrently
+        class ConcurrencyRequiringEmbedder implements Embedder {
+            final CountDownLatch concurrent = new CountDownLatch(2);
+            @Override public List<Integer> embed(String text, Context context) { return List.of(); }
+
+            @Override
+            public Tensor embed(String text, Context context, TensorType tensorType) {
+                concurrent.countDown();
+                try {
+                    if ( ! concurrent.await(1, TimeUnit.MINUTES))
+                        throw new IllegalStateException("Embeddings were not run concurrently");
+                }
+                catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return Tensor.from(tensorType, "[" + text.length() + ", 0]");
+            }
+        }
+        var documentTypes = new DocumentTypeManager();
+        var testType = new DocumentType("test");
+        testType.addField("title", DataType.STRING);
+        testType.addField("body", DataType.STRING);
+        testType.addField("title_embedding", new TensorDataType(TensorType.fromSpec("tensor<float>(x[2])")));
+        testType.addField("body_embedding", new TensorDataType(TensorType.fromSpec("tensor<float>(x[2])")));
+        documentTypes.register(testType);
+
+        var config = new IlscriptsConfig.Builder();
+        config.ilscript(new IlscriptsConfig.Ilscript.Builder()
+                .doctype("test")
+                .content("clear_state | guard { input title | embed | attribute title_embedding; }")
+                .content("clear_state | guard { input body | embed | attribute body_embedding; }")
+                .docfield("title")
+                .docfield("body"));
+
+        var scripts = new ScriptManager(documentTypes, new IlscriptsConfig(config), null,
+                                        Chunker.throwsOnUse.asMap(),
+                                        Map.of("test", new ConcurrencyRequiringEmbedder()),
+                                        FieldGenerator.throwsOnUse.asMap(),
+                                        MetricReceiver.nullImplementation);
+
+        var processor = new IndexingProcessor(documentTypes, scripts, 4);
+        try {
+            var proc = new Processing();
+            for (int i = 0; i < 3; i++) {
+                var input = new DocumentPut(testType, "id:ns:test::" + i);
+                input.getDocument().setFieldValue("title", new StringFieldValue("title " + i));
+                input.getDocument().setFieldValue("body", new StringFieldValue("body " + "x".repeat(i)));
+                proc.getDocumentOperations().add(input);
+            }
+            assertEquals(DocumentProcessor.Progress.DONE, processor.process(proc));
+
+            assertEquals(3, proc.getDocumentOperations().size());
+            for (int i = 0; i < 3; i++) {
+                Document output = ((DocumentPut) proc.getDocumentOperations().get(i)).getDocument();
+                assertEquals("id:ns:test::" + i, output.getId().toString());
+                assertEquals(Tensor.from("tensor<float>(x[2]):[7, 0]"),
+                             ((TensorFieldValue) output.getFieldValue("title_embedding")).getTensor().get());
+                assertEquals(Tensor.from("tensor<float>(x[2]):[" + (5 + i) + ", 0]"),
+                             ((TensorFieldValue) output.getFieldValue("body_embedding")).getTensor().get());
+            }
+        }
+        finally {
+            processor.deconstruct();
+        }
+    }
+
     static class PartialUpdateTester {
 
         IndexingProcessorTester nestedTester;
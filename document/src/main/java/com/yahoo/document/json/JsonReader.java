@@ -84,6 +84,28 @@ public class JsonReader {
         return operation;
     }
 
+    /**
+     * Reads a single operation in the feed format, where the document ID and operation type are given
+     * by a "put", "update" or "remove" field. The operation is not expected to be part of an array.
+     *
+     * @return the parsed document operation
+     */
+    public ParsedDocumentOperation readSingleOperation() {
+        DocumentParseInfo documentParseInfo;
+        try {
+            documentParseInfo = new DocumentParser(parser).parse(Optional.empty())
+                                                          .orElseThrow(() -> new IllegalArgumentException("No document operation"));
+        } catch (IOException e) {
+            state = END_OF_FEED;
+            throw new IllegalArgumentException(e);
+        }
+        VespaJsonDocumentReader vespaJsonDocumentReader = new VespaJsonDocumentReader(typeManager.getIgnoreUndefinedFields());
+        ParsedDocumentOperation operation = vespaJsonDocumentReader.createDocumentOperation(
+                getDocumentTypeFromString(documentParseInfo.documentId.getDocType(), typeManager), documentParseInfo);
+        operation.operation().setCondition(TestAndSetCondition.fromConditionString(documentParseInfo.condition));
+        return operation;
+    }
+
     /**
      * Reads a JSON which is expected to contain a single document operation,
      * and where other parameters, like the document ID and operation type, are supplied by other means.
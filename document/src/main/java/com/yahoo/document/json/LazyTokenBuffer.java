@@ -49,6 +49,46 @@ public class LazyTokenBuffer extends TokenBuffer {
         };
     }
 
+    /** Reads the numbers directly from the parser once buffered tokens are consumed, without creating tokens for them. */
+    @Override
+    public int readNumbers(NumberConsumer consumer) {
+        if (current() != JsonToken.START_ARRAY) return super.readNumbers(consumer);
+
+        int count = 0;
+        tokens.poll(); // The current token, which starts the array.
+        try {
+            for (int depth = 1; ; ) {
+                Token buffered = tokens.poll();
+                JsonToken token = buffered != null ? buffered.token : parser.nextValue();
+                if (token == null)
+                    throw new IllegalStateException("no more JSON tokens");
+
+                if (token == JsonToken.START_ARRAY) {
+                    depth++;
+                }
+                else if (token == JsonToken.END_ARRAY) {
+                    if (--depth == 0) {
+                        tokens.addFirst(buffered != null ? buffered : new Token(token, parser.currentName(), parser.getText()));
+                        updateNesting(token);
+                        return count;
+                    }
+                }
+                else if (buffered != null) {
+                    consumer.accept(count++, parseNumber(token, buffered.text));
+                }
+                else if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+                    consumer.accept(count++, parser.getDoubleValue());
+                }
+                else {
+                    consumer.accept(count++, parseNumber(token, parser.getText()));
+                }
+            }
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("failed reading document JSON", e);
+        }
+    }
+
     private Token nextToken() {
         try {
             JsonToken token = parser.nextValue();
@@ -11,6 +11,8 @@ import java.util.Deque;
 import java.util.Iterator;
 import java.util.function.Supplier;
 
+import static com.yahoo.tensor.serialization.JsonFormat.decodeNumberString;
+
 /**
  * Helper class to enable lookahead in the token stream.
  *
@@ -111,12 +113,48 @@ public class TokenBuffer {
         return nesting;
     }
 
+    /**
+     * Reads all numbers in the array starting at the current token, including those in nested arrays,
+     * and passes each to the given consumer along with its index. Numbers may also be given as strings.
+     * The current token is the end of the array after this.
+     *
+     * @return the number of numbers read
+     */
+    public int readNumbers(NumberConsumer consumer) {
+        int count = 0;
+        int initNesting = nesting();
+        for (next(); nesting() >= initNesting; next()) {
+            if (current() == JsonToken.START_ARRAY || current() == JsonToken.END_ARRAY) continue; // nested arrays: Skip
+            consumer.accept(count++, parseNumber(current(), currentText()));
+        }
+        return count;
+    }
+
+    /** Returns the number given by a token and its text, which may be a string holding a number. */
+    public static double parseNumber(JsonToken token, String text) {
+        try {
+            if (token == JsonToken.VALUE_STRING) {
+                return decodeNumberString(text);
+            }
+            return Double.parseDouble(text);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected a number but got '" + text + "'");
+        }
+    }
+
     public void skipToRelativeNesting(int relativeNesting) {
         int initialNesting = nesting();
         do next();
         while (nesting() > initialNesting + relativeNesting);
     }
 
+    /** Receives the numbers read by {@link #readNumbers}, without boxing. */
+    @FunctionalInterface
+    public interface NumberConsumer {
+        void accept(int index, double value);
+    }
+
     public static final class Token {
 
         public final JsonToken token;
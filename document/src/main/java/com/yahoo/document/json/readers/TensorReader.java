@@ -20,7 +20,6 @@ import static com.yahoo.document.json.readers.JsonParserHelpers.expectCompositeE
 import static com.yahoo.document.json.readers.JsonParserHelpers.expectObjectEnd;
 import static com.yahoo.document.json.readers.JsonParserHelpers.expectObjectStart;
 import static com.yahoo.document.json.readers.JsonParserHelpers.expectOneOf;
-import static com.yahoo.tensor.serialization.JsonFormat.decodeNumberString;
 
 /**
  * Reads the tensor format defined at
@@ -117,7 +116,8 @@ public class TensorReader {
         expectObjectStart(buffer.current());
 
         TensorAddress address = null;
-        Double value = null;
+        double value = 0;
+        boolean hasValue = false;
         int initNesting = buffer.nesting();
         for (buffer.next(); buffer.nesting() >= initNesting; buffer.next()) {
             String currentName = buffer.currentName();
@@ -125,12 +125,13 @@ public class TensorReader {
                 address = readAddress(buffer, builder.type());
             } else if (TensorReader.TENSOR_VALUE.equals(currentName)) {
                 value = readDouble(buffer);
+                hasValue = true;
             }
         }
         expectObjectEnd(buffer.current());
         if (address == null)
             throw new IllegalArgumentException("Expected an object in a tensor 'cells' array to contain an 'address' field");
-        if (value == null)
+        if ( ! hasValue)
             throw new IllegalArgumentException("Expected an object in a tensor 'cells' array to contain a 'value' field");
         builder.cell(address, value);
     }
@@ -149,12 +150,7 @@ public class TensorReader {
             }
             return;
         }
-        int index = 0;
-        int initNesting = buffer.nesting();
-        for (buffer.next(); buffer.nesting() >= initNesting; buffer.next()) {
-            if (buffer.current() == JsonToken.START_ARRAY || buffer.current() == JsonToken.END_ARRAY) continue; // nested arrays: Skip
-            indexedBuilder.cellByDirectIndex(index++, readDouble(buffer));
-        }
+        int index = buffer.readNumbers(indexedBuilder::cellByDirectIndex);
         if (index == 0)
             throw new IllegalArgumentException("The 'values' array does not contain any values");
         if (index != expectedSize)
@@ -252,18 +248,16 @@ public class TensorReader {
      * @return the values read
      */
     private static double[] readValues(TokenBuffer buffer, int size, TensorAddress address, TensorType type) {
-        int index = 0;
-        double[] values = new double[size];
+        int index;
+        double[] values;
         if (buffer.current() == JsonToken.VALUE_STRING) {
             values = HexEncoding.decodeHex(buffer.currentText(), type);
             index = values.length;
         } else {
             expectArrayStart(buffer.current());
-            int initNesting = buffer.nesting();
-            for (buffer.next(); buffer.nesting() >= initNesting; buffer.next()) {
-                if (buffer.current() == JsonToken.START_ARRAY || buffer.current() == JsonToken.END_ARRAY) continue; // nested arrays: Skip
-                values[index++] = readDouble(buffer);
-            }
+            double[] read = new double[size];
+            index = buffer.readNumbers((i, value) -> { if (i < size) read[i] = value; });
+            values = read;
             expectCompositeEnd(buffer.current());
         }
         if (index != size)
@@ -273,15 +267,7 @@ public class TensorReader {
     }
 
     private static double readDouble(TokenBuffer buffer) {
-        try {
-            if (buffer.current() == JsonToken.VALUE_STRING) {
-                return decodeNumberString(buffer.currentText());
-            }
-            return Double.parseDouble(buffer.currentText());
-        }
-        catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Expected a number but got '" + buffer.currentText() + "'");
-        }
+        return TokenBuffer.parseNumber(buffer.current(), buffer.currentText());
     }
 
     private static long expectedDenseSize(IndexedTensor.BoundBuilder builder) {
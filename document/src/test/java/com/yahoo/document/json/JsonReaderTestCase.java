@@ -256,6 +256,36 @@ public class JsonReaderTestCase {
         smokeTestDoc(put.getDocument());
     }
 
+    @Test
+    public void readSingleOperations() {
+        String put = """
+                     { "put": "id:unittest:smoke::doc1", "condition": "true", "create": true, "fields": { "something": "smoketest", "flag": true, "nalle": "bamse" } }
+                     """;
+        DocumentPut parsedPut = (DocumentPut) createReader(put).readSingleOperation().operation();
+        assertEquals("id:unittest:smoke::doc1", parsedPut.getId().toString());
+        assertTrue(parsedPut.getCreateIfNonExistent());
+        assertEquals("true", parsedPut.getCondition().getSelection());
+        smokeTestDoc(parsedPut.getDocument());
+
+        String update = """
+                        { "update": "id:unittest:smoke::doc1", "fields": { "something": { "assign": "new" } } }
+                        """;
+        DocumentUpdate parsedUpdate = (DocumentUpdate) createReader(update).readSingleOperation().operation();
+        assertEquals("id:unittest:smoke::doc1", parsedUpdate.getId().toString());
+        assertEquals(1, parsedUpdate.fieldUpdates().size());
+
+        String remove = """
+                        { "remove": "id:unittest:smoke::doc1", "condition": "false" }
+                        """;
+        DocumentRemove parsedRemove = (DocumentRemove) createReader(remove).readSingleOperation().operation();
+        assertEquals("id:unittest:smoke::doc1", parsedRemove.getId().toString());
+        assertEquals("false", parsedRemove.getCondition().getSelection());
+
+        assertEquals("Missing a document operation ('put', 'update' or 'remove')",
+                     assertThrows(IllegalArgumentException.class,
+                                  () -> createReader("{ \"fields\": { } }").readSingleOperation()).getMessage());
+    }
+
     @Test
     public void tensor_multiple_update() {
         String json = """
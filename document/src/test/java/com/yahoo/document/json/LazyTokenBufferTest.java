@@ -7,10 +7,13 @@ import com.yahoo.document.json.TokenBuffer.Token;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Supplier;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
 
 /**
  * @author jonmv
@@ -129,4 +132,42 @@ public class LazyTokenBufferTest {
         assertNull(buffer.next());
     }
 
+    @Test
+    public void testReadNumbers() throws IOException {
+        String json = """
+                      {
+                        "a": [1, [2.5, "3"], [], 4],
+                        "b": "c"
+                      }""";
+        JsonParser parser = new JsonFactory().createParser(json);
+        parser.nextValue();
+        LazyTokenBuffer buffer = new LazyTokenBuffer(parser);
+        assertEquals(JsonToken.START_ARRAY, buffer.next());
+        assertEquals(2, buffer.nesting());
+
+        // Peek at some tokens, which must then be read from the buffer before the parser.
+        Supplier<Token> lookahead = buffer.lookahead();
+        assertEquals("1", lookahead.get().text);
+        assertEquals(JsonToken.START_ARRAY, lookahead.get().token);
+
+        List<String> read = new ArrayList<>();
+        assertEquals(4, buffer.readNumbers((index, value) -> read.add(index + ":" + value)));
+        assertEquals(List.of("0:1.0", "1:2.5", "2:3.0", "3:4.0"), read);
+        assertEquals(JsonToken.END_ARRAY, buffer.current());
+        assertEquals(1, buffer.nesting());
+
+        assertEquals(JsonToken.VALUE_STRING, buffer.next());
+        assertEquals("b", buffer.currentName());
+        assertEquals(JsonToken.END_OBJECT, buffer.next());
+        assertEquals(0, buffer.nesting());
+        assertNull(buffer.next());
+
+        parser = new JsonFactory().createParser("{ \"a\": [1, null] }");
+        parser.nextValue();
+        LazyTokenBuffer invalid = new LazyTokenBuffer(parser);
+        invalid.next();
+        assertEquals("Expected a number but got 'null'",
+                     assertThrows(IllegalArgumentException.class, () -> invalid.readNumbers((index, value) -> { })).getMessage());
+    }
+
 }
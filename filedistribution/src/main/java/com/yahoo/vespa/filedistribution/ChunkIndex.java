@@ -0,0 +1,110 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.filedistribution;
+
+import net.jpountz.xxhash.XXHash64;
+import net.jpountz.xxhash.XXHashFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Content addressed index of the chunks of files which have already been downloaded, used to avoid
+ * transferring chunks which are unchanged between versions of a file, e.g., a large model.
+ * Chunks are identified by their xxhash64, and are always verified against this when read.
+ */
+public class ChunkIndex {
+
+    private static final Logger log = Logger.getLogger(ChunkIndex.class.getName());
+
+    /** The size of the parts a file is sent in, and thus of the chunks indexed here. */
+    public static final int CHUNK_SIZE = 0x100000;
+
+    private static final XXHash64 hasher = XXHashFactory.fastestInstance().hash64();
+
+    private record Location(File file, long offset, int length) { }
+
+    private final Map<Long, Location> chunks = new HashMap<>();
+
+    /** Returns the hash of the given chunk. */
+    public static long hash(byte[] chunk) {
+        return hasher.hash(chunk, 0, chunk.length, 0);
+    }
+
+    /** Returns the hashes of the consecutive chunks of the given size which the given file consists of. */
+    public static long[] hashes(File file, int chunkSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long[] hashes = new long[(int) ((size + chunkSize - 1) / chunkSize)];
+            ByteBuffer chunk = ByteBuffer.allocate(chunkSize);
+            for (int i = 0; i < hashes.length; i++) {
+                chunk.clear();
+                while (chunk.hasRemaining() && channel.read(chunk) > 0) { }
+                hashes[i] = hasher.hash(chunk.array(), 0, chunk.position(), 0);
+            }
+            return hashes;
+        }
+    }
+
+    /** Adds a chunk of the given file to this, with the given hash, offset and length. */
+    public synchronized void add(long hash, File file, long offset, int length) {
+        chunks.put(hash, new Location(file, offset, length));
+    }
+
+    /** Returns whether this holds a chunk with the given hash, in a file which still exists. */
+    public synchronized boolean contains(long hash) {
+        Location location = chunks.get(hash);
+        if (location == null) return false;
+        if (location.file().length() >= location.offset() + location.length()) return true;
+
+        chunks.remove(hash);
+        return false;
+    }
+
+    /**
+     * Returns the content of the chunk with the given hash, if this holds it, and its content is unchanged.
+     * Chunks which can no longer be read are removed from this.
+     */
+    public Optional<byte[]> read(long hash) {
+        Location location;
+        synchronized (this) {
+            location = chunks.get(hash);
+        }
+        if (location == null) return Optional.empty();
+
+        try (RandomAccessFile file = new RandomAccessFile(location.file(), "r")) {
+            byte[] chunk = new byte[location.length()];
+            file.seek(location.offset());
+            file.readFully(chunk);
+            if (hash(chunk) == hash) return Optional.of(chunk);
+        }
+        catch (IOException e) {
+            log.log(Level.FINE, () -> "Failed reading chunk from " + location.file() + ": " + e.getMessage());
+        }
+        synchronized (this) {
+            chunks.remove(hash, location);
+        }
+        return Optional.empty();
+    }
+
+    /** Removes all chunks of files in the given directory, e.g., when it is deleted. */
+    public synchronized void removeFilesIn(File directory) {
+        Path path = directory.toPath();
+        chunks.values().removeIf(location -> location.file().toPath().startsWith(path));
+    }
+
+    /** Returns the number of chunks in this. */
+    public synchronized int size() {
+        return chunks.size();
+    }
+
+}
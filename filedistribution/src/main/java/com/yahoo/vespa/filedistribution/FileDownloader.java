@@ -39,6 +39,7 @@ public class FileDownloader implements AutoCloseable {
     private final File downloadDirectory;
     private final Duration timeout;
     private final FileReferenceDownloader fileReferenceDownloader;
+    private final FileReceiver fileReceiver;
     private final Downloads downloads = new Downloads();
 
     static {
@@ -61,7 +62,7 @@ public class FileDownloader implements AutoCloseable {
         this.downloadDirectory = downloadDirectory;
         this.timeout = timeout;
         // Needed to receive RPC receiveFile* calls from server after starting download of file reference
-        new FileReceiver(supervisor, downloads, downloadDirectory);
+        this.fileReceiver = new FileReceiver(supervisor, downloads, downloadDirectory);
         this.fileReferenceDownloader = new FileReferenceDownloader(connectionPool, downloads, timeout,
                                                                     backoffInitialTime, downloadDirectory);
         if (forceDownload)
@@ -79,7 +80,7 @@ public class FileDownloader implements AutoCloseable {
         this.downloadDirectory = downloadDirectory;
         this.timeout = timeout;
         // Needed to receive RPC receiveFile* calls from server after starting download of file reference
-        new FileReceiver(supervisor, downloads, downloadDirectory);
+        this.fileReceiver = new FileReceiver(supervisor, downloads, downloadDirectory);
         this.fileReferenceDownloader = new FileReferenceDownloader(connectionPool, downloads, timeout,
                                                                     backoffInitialTime, downloadDirectory,
                                                                     maxTimeoutsBeforeClose);
@@ -122,6 +123,11 @@ public class FileDownloader implements AutoCloseable {
 
     public ConnectionPool connectionPool() { return connectionPool; }
 
+    /** Must be called when a file reference is deleted from the download directory, so its content is no longer reused. */
+    public void deleted(FileReference fileReference) {
+        fileReceiver.deleted(fileReference);
+    }
+
     public Downloads downloads() { return downloads; }
 
     File downloadDirectory() {
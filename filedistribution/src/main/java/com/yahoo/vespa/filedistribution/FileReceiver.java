@@ -4,6 +4,7 @@ package com.yahoo.vespa.filedistribution;
 import com.yahoo.config.FileReference;
 import com.yahoo.io.IOUtils;
 import com.yahoo.jrt.Int32Value;
+import com.yahoo.jrt.Int8Array;
 import com.yahoo.jrt.Method;
 import com.yahoo.jrt.Request;
 import com.yahoo.jrt.Supervisor;
@@ -42,12 +43,14 @@ public class FileReceiver {
     public final static String RECEIVE_META_METHOD = "filedistribution.receiveFileMeta";
     public final static String RECEIVE_PART_METHOD = "filedistribution.receiveFilePart";
     public final static String RECEIVE_EOF_METHOD = "filedistribution.receiveFileEof";
+    public final static String RECEIVE_CHUNKS_METHOD = "filedistribution.receiveFileChunks";
 
     private final Supervisor supervisor;
     private final Downloads downloads;
     private final File downloadDirectory;
     private final AtomicInteger nextSessionId = new AtomicInteger(1);
     private final Map<Integer, Session> sessions = new HashMap<>();
+    private final ChunkIndex chunkIndex = new ChunkIndex();
 
     final static class Session {
         private final StreamingXXHash64 hasher;
@@ -64,6 +67,12 @@ public class FileReceiver {
         private final File tmpDir;
         private final File inProgressDir;
         private final File file;
+        private final ChunkIndex chunkIndex;
+        private final List<Part> parts = new ArrayList<>();
+        private long[] chunkHashes = new long[0];
+        private boolean[] localChunks = new boolean[0];
+
+        private record Part(long hash, long offset, int length) { }
 
         Session(File downloadDirectory,
                 int sessionId,
@@ -72,6 +81,18 @@ public class FileReceiver {
                 FileReferenceData.CompressionType compressionType,
                 String fileName,
                 long fileSize) {
+            this(downloadDirectory, sessionId, reference, fileType, compressionType, fileName, fileSize, new ChunkIndex());
+        }
+
+        Session(File downloadDirectory,
+                int sessionId,
+                FileReference reference,
+                Type fileType,
+                FileReferenceData.CompressionType compressionType,
+                String fileName,
+                long fileSize,
+                ChunkIndex chunkIndex) {
+            this.chunkIndex = chunkIndex;
             this.hasher = XXHashFactory.fastestInstance().newStreamingHash64(0);
             this.sessionId = sessionId;
             this.reference = reference;
@@ -95,10 +116,43 @@ public class FileReceiver {
             }
         }
 
+        /**
+         * Sets the hashes of the chunks the file of this is sent in, and returns which of these are available
+         * locally, and will therefore not be sent. Must be called before any parts are added.
+         */
+        boolean[] setChunks(long[] hashes) {
+            if (currentPartId != 0) {
+                throw new IllegalStateException("Received chunk hashes after " + currentPartId + " parts");
+            }
+            boolean[] local = new boolean[hashes.length];
+            if (fileType == Type.file) { // Compressed files are deleted after decompression, so these are not indexed
+                for (int i = 0; i < hashes.length; i++)
+                    local[i] = chunkIndex.contains(hashes[i]);
+            }
+            chunkHashes = hashes;
+            localChunks = local;
+            return local;
+        }
+
         void addPart(int partId, byte [] part) {
+            addLocalParts(partId);
             if (partId != currentPartId) {
                 throw new IllegalStateException("Received partid " + partId + " while expecting " + currentPartId);
             }
+            append(part);
+        }
+
+        /** Adds the locally available parts from the current part, and until the given part. */
+        private void addLocalParts(int untilPartId) {
+            while (currentPartId < untilPartId && currentPartId < localChunks.length && localChunks[(int) currentPartId]) {
+                long partId = currentPartId;
+                append(chunkIndex.read(chunkHashes[(int) partId])
+                                 .orElseThrow(() -> new IllegalStateException("Part " + partId + " of " + reference.value() +
+                                                                              " is no longer available locally")));
+            }
+        }
+
+        private void append(byte [] part) {
             if (fileSize < currentFileSize + part.length) {
                 throw new IllegalStateException("Received part would extend the file from " + currentFileSize + " to " +
                                                 (currentFileSize + part.length) + ", but " + fileSize + " is max.");
@@ -113,12 +167,14 @@ public class FileReceiver {
                     log.log(Level.INFO, "Unable to delete " + inProgressDir.toPath());
                 throw new RuntimeException(message, e);
             }
+            parts.add(new Part(ChunkIndex.hash(part), currentFileSize, part.length));
             currentFileSize += part.length;
             currentPartId++;
             hasher.update(part, 0, part.length);
         }
 
         File close(long hash) {
+            addLocalParts(localChunks.length);
             verifyHash(hash);
 
             File decompressedDir = null;
@@ -126,6 +182,9 @@ public class FileReceiver {
                 if (fileType == Type.file) {
                     log.log(Level.FINE, () -> "Uncompressed file, moving to " + file.getAbsolutePath());
                     moveFileToDestination(inProgressDir, fileReferenceDir);
+                    File destination = new File(fileReferenceDir, fileName);
+                    for (Part part : parts)
+                        chunkIndex.add(part.hash(), destination, part.offset(), part.length());
                 } else {
                     decompressedDir = Files.createTempDirectory(tmpDir.toPath(), "archive").toFile();
                     log.log(Level.FINEST, () -> "compression type to use=" + compressionType);
@@ -161,6 +220,11 @@ public class FileReceiver {
         registerMethods();
     }
 
+    /** Forgets the chunks of the given file reference, which is deleted from the download directory. */
+    void deleted(FileReference reference) {
+        chunkIndex.removeFilesIn(new File(downloadDirectory, reference.value()));
+    }
+
     private void registerMethods() {
         receiveFileMethod().forEach(supervisor::addMethod);
     }
@@ -193,6 +257,13 @@ public class FileReceiver {
                 .paramDesc(3, "error-code", "Error code. 0 if none")
                 .paramDesc(4, "error-description", "Error description.")
                 .returnDesc(0, "ret", "0 if success, 1 if crc mismatch, 2 otherwise"));
+        methods.add(new Method(RECEIVE_CHUNKS_METHOD, "siL", "iB", this::receiveFileChunks)
+                .requireCapabilities(Capability.CLIENT__FILERECEIVER_API)
+                .paramDesc(0, "filereference", "file reference to download")
+                .paramDesc(1, "session-id", "Session id to be used for this transfer")
+                .paramDesc(2, "chunk-hashes", "xxhash64 of each part the file will be sent in, in order")
+                .returnDesc(0, "ret", "0 if success, 1 otherwise")
+                .returnDesc(1, "local-chunks", "1 for each part which is available locally, and should not be sent, 0 otherwise"));
         return methods;
     }
 
@@ -245,7 +316,7 @@ public class FileReceiver {
             } else {
                 try {
                     sessions.put(sessionId, new Session(downloadDirectory, sessionId, reference,
-                                                        type, compressionType, fileName, fileSize));
+                                                        type, compressionType, fileName, fileSize, chunkIndex));
                 } catch (Exception e) {
                     retval = 1;
                 }
@@ -278,6 +349,28 @@ public class FileReceiver {
         req.returnValues().add(new Int32Value(retval));
     }
 
+    private void receiveFileChunks(Request req) {
+        log.log(Level.FINEST, () -> "Received method call '" + req.methodName() + "' with parameters : " + req.parameters());
+        FileReference reference = new FileReference(req.parameters().get(0).asString());
+        int sessionId = req.parameters().get(1).asInt32();
+        long[] hashes = req.parameters().get(2).asInt64Array();
+        Session session = getSession(sessionId);
+        int retval = verifySession(session, sessionId, reference);
+        byte[] localChunks = new byte[hashes.length];
+        if (retval == 0) {
+            try {
+                boolean[] local = session.setChunks(hashes);
+                for (int i = 0; i < local.length; i++)
+                    localChunks[i] = (byte) (local[i] ? 1 : 0);
+            } catch (Exception e) {
+                log.severe("Got exception " + e);
+                retval = 1;
+            }
+        }
+        req.returnValues().add(new Int32Value(retval));
+        req.returnValues().add(new Int8Array(localChunks));
+    }
+
     private void receiveFileEof(Request req) {
         log.log(Level.FINEST, () -> "Received method call '" + req.methodName() + "' with parameters : " + req.parameters());
         FileReference reference = new FileReference(req.parameters().get(0).asString());
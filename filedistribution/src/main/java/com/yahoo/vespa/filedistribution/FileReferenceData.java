@@ -3,6 +3,7 @@ package com.yahoo.vespa.filedistribution;
 
 import com.yahoo.config.FileReference;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 
 /**
@@ -56,6 +57,14 @@ public abstract class FileReferenceData implements AutoCloseable {
      */
     public abstract long xxhash();
 
+    /**
+     * Returns the xxhash64 of each consecutive chunk of the given size of the content,
+     * or an empty array if these are not available.
+     */
+    public long[] chunkHashes(int chunkSize) throws IOException {
+        return new long[0];
+    }
+
     /**
      * The size of the content in bytes
      *
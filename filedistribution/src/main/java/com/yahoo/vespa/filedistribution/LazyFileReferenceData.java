@@ -44,6 +44,11 @@ public class LazyFileReferenceData extends FileReferenceData {
         return hasher.getValue();
     }
 
+    @Override
+    public long[] chunkHashes(int chunkSize) throws IOException {
+        return ChunkIndex.hashes(file, chunkSize);
+    }
+
     @Override
     public long size() {
         try {
@@ -23,6 +23,7 @@ import static com.yahoo.vespa.filedistribution.FileReferenceData.CompressionType
 import static com.yahoo.vespa.filedistribution.FileReferenceData.CompressionType.zstd;
 import static com.yahoo.vespa.filedistribution.FileReferenceData.Type.compressed;
 import static com.yahoo.vespa.filedistribution.FileReferenceData.Type.file;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 public class FileReceiverTest {
@@ -68,6 +69,48 @@ public class FileReceiverTest {
         testWithCompression(dirWithFiles, none);
     }
 
+    @Test
+    public void receiveWithLocalChunks() throws IOException {
+        ChunkIndex chunkIndex = new ChunkIndex();
+        byte[][] parts = { Utf8.toBytes("first part\n"), Utf8.toBytes("second part\n"), Utf8.toBytes("third part\n") };
+        FileReceiver.Session first = new FileReceiver.Session(root, 1, new FileReference("ref-a"), file, none, "myfile", 34, chunkIndex);
+        for (int i = 0; i < parts.length; i++)
+            first.addPart(i, parts[i]);
+        File firstFile = first.close(hasher.hash(ByteBuffer.wrap(Utf8.toBytes("first part\nsecond part\nthird part\n")), 0));
+        assertEquals(3, chunkIndex.size());
+
+        // Only the changed first part is sent, while the others are read from the first file
+        parts[0] = Utf8.toBytes("FIRST PART\n");
+        FileReceiver.Session second = new FileReceiver.Session(root, 2, new FileReference("ref-b"), file, none, "myfile", 34, chunkIndex);
+        long[] hashes = { ChunkIndex.hash(parts[0]), ChunkIndex.hash(parts[1]), ChunkIndex.hash(parts[2]) };
+        assertArrayEquals(new boolean[] { false, true, true }, second.setChunks(hashes));
+        second.addPart(0, parts[0]);
+        File secondFile = second.close(hasher.hash(ByteBuffer.wrap(Utf8.toBytes("FIRST PART\nsecond part\nthird part\n")), 0));
+        assertEquals("FIRST PART\nsecond part\nthird part\n", IOUtils.readFile(secondFile));
+
+        // Chunks of compressed files, and of files which are deleted, are not used
+        FileReceiver.Session third = new FileReceiver.Session(root, 3, new FileReference("ref-c"), compressed, zstd, "myfile", 34, chunkIndex);
+        assertArrayEquals(new boolean[] { false, false, false }, third.setChunks(hashes));
+        Files.delete(firstFile.toPath());
+        Files.delete(secondFile.toPath());
+        FileReceiver.Session fourth = new FileReceiver.Session(root, 4, new FileReference("ref-d"), file, none, "myfile", 34, chunkIndex);
+        assertArrayEquals(new boolean[] { false, false, false }, fourth.setChunks(hashes));
+    }
+
+    @Test
+    public void chunksOfDeletedFileReferencesAreRemoved() throws IOException {
+        ChunkIndex chunkIndex = new ChunkIndex();
+        FileReceiver.Session session = new FileReceiver.Session(root, 1, new FileReference("ref-a"), file, none, "myfile", 11, chunkIndex);
+        session.addPart(0, Utf8.toBytes("first part\n"));
+        session.close(hasher.hash(ByteBuffer.wrap(Utf8.toBytes("first part\n")), 0));
+        assertEquals(1, chunkIndex.size());
+
+        chunkIndex.removeFilesIn(new File(root, "ref-b"));
+        assertEquals(1, chunkIndex.size());
+        chunkIndex.removeFilesIn(new File(root, "ref-a"));
+        assertEquals(0, chunkIndex.size());
+    }
+
     private void testWithCompression(File dirWithFiles, CompressionType compressionType) throws IOException {
         File tempFile = temporaryFolder.newFile();
         File file = new FileReferenceCompressor(compressed, compressionType).compress(dirWithFiles, tempFile);
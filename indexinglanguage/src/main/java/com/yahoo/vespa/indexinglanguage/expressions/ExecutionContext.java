@@ -14,6 +14,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 
 /**
  * @author Simon Thoresen Hult
@@ -30,6 +31,7 @@ public class ExecutionContext {
     private DocumentId documentId;
     private boolean isReindexingOperation = false;
     private Instant deadline;
+    private Executor executor;
 
     public ExecutionContext() {
         this(null);
@@ -140,6 +142,36 @@ public class ExecutionContext {
     public Optional<Instant> getDeadline() { return Optional.ofNullable(deadline); }
     public ExecutionContext setDeadline(Instant deadline) { this.deadline = deadline; return this; }
 
+    /**
+     * Returns the executor used to run independent statements of a script concurrently,
+     * or null if all statements should run sequentially in the calling thread.
+     */
+    public Executor getExecutor() { return executor; }
+    public ExecutionContext setExecutor(Executor executor) { this.executor = executor; return this; }
+
+    /**
+     * Returns a new context for executing a statement concurrently with others in the context of this,
+     * using the given field values, and with copies of the per-document state and the cache of this.
+     * Variables are not copied, as statements accessing these are never run concurrently.
+     */
+    ExecutionContext fork(FieldValues fieldValues) {
+        ExecutionContext fork = new ExecutionContext(fieldValues);
+        fork.currentValue = currentValue;
+        fork.assignedLanguage = assignedLanguage;
+        fork.detectedLanguage = detectedLanguage;
+        fork.cache.putAll(cache);
+        fork.documentId = documentId;
+        fork.isReindexingOperation = isReindexingOperation;
+        fork.deadline = deadline;
+        return fork;
+    }
+
+    /** Adds the values cached, and the language detected, by the given fork of this to this. */
+    void join(ExecutionContext fork) {
+        fork.cache.forEach(cache::putIfAbsent);
+        detectedLanguage = fork.detectedLanguage;
+    }
+
     /**
      * Clears all state in this pertaining to the current indexing statement
      * Does not clear the cache.
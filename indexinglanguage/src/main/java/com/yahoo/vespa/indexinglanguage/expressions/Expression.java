@@ -27,6 +27,7 @@ import com.yahoo.vespa.indexinglanguage.parser.ParseException;
 import com.yahoo.vespa.objects.Selectable;
 
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * Superclass of expressions.
@@ -201,9 +202,18 @@ public abstract class Expression extends Selectable {
     }
 
     public Document execute(FieldValuesFactory factory, Document doc, boolean isReindexing, Instant deadline) {
+        return execute(factory, doc, isReindexing, deadline, null);
+    }
+
+    /**
+     * Executes this on the given document, running independent statements concurrently
+     * using the given executor, or sequentially in the calling thread if it is null.
+     */
+    public Document execute(FieldValuesFactory factory, Document doc, boolean isReindexing, Instant deadline, Executor executor) {
         var adapter = factory.asFieldValues(doc);
         var ctx = new ExecutionContext(adapter)
-                .setDocumentId(doc.getId());
+                .setDocumentId(doc.getId())
+                .setExecutor(executor);
         if (isReindexing) ctx.setReindexingOperation();
         if (deadline != null) ctx.setDeadline(deadline);
         execute(ctx);
@@ -2,6 +2,7 @@
 package com.yahoo.vespa.indexinglanguage.expressions;
 
 import com.yahoo.document.DataType;
+import com.yahoo.document.FieldPath;
 import com.yahoo.document.datatypes.FieldValue;
 import com.yahoo.language.Linguistics;
 import com.yahoo.language.process.Chunker;
@@ -9,22 +10,31 @@ import com.yahoo.language.process.Embedder;
 import com.yahoo.language.process.FieldGenerator;
 import com.yahoo.language.simple.SimpleLinguistics;
 import com.yahoo.vespa.indexinglanguage.ExpressionConverter;
+import com.yahoo.vespa.indexinglanguage.ExpressionSearcher;
 import com.yahoo.vespa.indexinglanguage.ScriptParser;
 import com.yahoo.vespa.indexinglanguage.ScriptParserContext;
 import com.yahoo.vespa.indexinglanguage.parser.IndexingInput;
 import com.yahoo.vespa.indexinglanguage.parser.ParseException;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * @author Simon Thoresen Hult
  */
 public final class ScriptExpression extends ExpressionList<StatementExpression> {
 
+    /** The statements of this grouped by dependencies, computed on first concurrent execution. */
+    private volatile List<Stage> stages = null;
+
     public ScriptExpression() {
         this(List.of());
     }
@@ -85,16 +95,26 @@ public final class ScriptExpression extends ExpressionList<StatementExpression>
     @Override
     protected void doExecute(ExecutionContext context) {
         FieldValue input = context.getCurrentValue();
-        for (StatementExpression statement : this) {
-            if (context.isComplete() ||
-                (statement.getInputFields().isEmpty() || containsAtLeastOneInputFrom(statement.getInputFields(), context))) {
-                context.setCurrentValue(input);
-                context.execute(statement);
+        if (context.getExecutor() != null && context.isComplete()) {
+            executeConcurrently(input, context);
+        }
+        else {
+            for (StatementExpression statement : this) {
+                if (shouldExecute(statement, context)) {
+                    context.setCurrentValue(input);
+                    context.execute(statement);
+                }
             }
         }
         context.setCurrentValue(input);
     }
 
+    private boolean shouldExecute(StatementExpression statement, ExecutionContext context) {
+        return context.isComplete() ||
+               statement.getInputFields().isEmpty() ||
+               containsAtLeastOneInputFrom(statement.getInputFields(), context);
+    }
+
     private boolean containsAtLeastOneInputFrom(List<String> inputFields, ExecutionContext context) {
         for (String inputField : inputFields)
             if (context.getFieldValue(inputField) != null)
@@ -102,6 +122,180 @@ public final class ScriptExpression extends ExpressionList<StatementExpression>
         return false;
     }
 
+    /**
+     * Executes the statements of this stage by stage, running the statements of each stage concurrently
+     * using the executor of the given context, each with its own fork of the context.
+     * The last statement of each stage is run in the calling thread.
+     */
+    private void executeConcurrently(FieldValue input, ExecutionContext context) {
+        FieldValues fieldValues = new SynchronizedFieldValues(context.getFieldValues());
+        for (Stage stage : stages()) {
+            List<StatementExpression> statements = stage.statements(); // All are executed, as the field values are complete
+            if (statements.size() == 1) {
+                context.setCurrentValue(input);
+                context.execute(statements.get(0));
+                continue;
+            }
+
+            context.setCurrentValue(input);
+            List<ExecutionContext> forks = new ArrayList<>(statements.size());
+            List<CompletableFuture<Void>> executions = new ArrayList<>(statements.size());
+            for (StatementExpression statement : statements) {
+                ExecutionContext fork = context.fork(fieldValues);
+                forks.add(fork);
+                if (forks.size() < statements.size())
+                    executions.add(CompletableFuture.runAsync(() -> fork.execute(statement), context.getExecutor()));
+                else
+                    executions.add(executeInThisThread(statement, fork));
+            }
+            RuntimeException failure = null;
+            for (CompletableFuture<Void> execution : executions) { // Wait for all, and fail with the first failing statement.
+                try {
+                    execution.join();
+                }
+                catch (CompletionException e) {
+                    if (failure == null) failure = unwrap(e);
+                }
+            }
+            if (failure != null) throw failure;
+
+            for (ExecutionContext fork : forks)
+                context.join(fork);
+            if (stage.clearsState())
+                context.clear();
+        }
+    }
+
+    private static CompletableFuture<Void> executeInThisThread(StatementExpression statement, ExecutionContext fork) {
+        try {
+            fork.execute(statement);
+            return CompletableFuture.completedFuture(null);
+        }
+        catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static RuntimeException unwrap(CompletionException e) {
+        if (e.getCause() instanceof RuntimeException cause) return cause;
+        if (e.getCause() instanceof Error cause) throw cause;
+        return e;
+    }
+
+    private List<Stage> stages() {
+        if (stages == null)
+            stages = Stage.of(asList());
+        return stages;
+    }
+
+    /**
+     * A group of statements which may run concurrently, since none of them accesses a field accessed by another,
+     * and which depend only on statements in earlier stages. Statements accessing variables, the language, or fields
+     * which are not known until execution, must see the full effect of all earlier statements, and vice versa,
+     * so these are put in a stage of their own.
+     */
+    record Stage(List<StatementExpression> statements, boolean clearsState) {
+
+        private static final List<ExpressionSearcher<?>> mustRunAloneSearchers =
+                List.of(new ExpressionSearcher<>(SetVarExpression.class),
+                        new ExpressionSearcher<>(GetVarExpression.class),
+                        new ExpressionSearcher<>(SetLanguageExpression.class),
+                        new ExpressionSearcher<>(SelectInputExpression.class));
+        private static final ExpressionSearcher<ClearStateExpression> clearStateSearcher =
+                new ExpressionSearcher<>(ClearStateExpression.class);
+
+        static List<Stage> of(List<StatementExpression> statements) {
+            List<List<StatementExpression>> stages = new ArrayList<>();
+            List<Set<String>> fields = new ArrayList<>(statements.size());
+            int[] levels = new int[statements.size()];
+            int firstLevel = 0; // The level of the last statement which must run alone, plus one.
+            for (int i = 0; i < statements.size(); i++) {
+                StatementExpression statement = statements.get(i);
+                fields.add(fieldsAccessedBy(statement));
+                boolean alone = mustRunAlone(statement);
+                int level = alone ? stages.size() : firstLevel;
+                for (int j = 0; j < i; j++)
+                    if (levels[j] >= level && ! disjoint(fields.get(i), fields.get(j)))
+                        level = levels[j] + 1;
+                if (alone) firstLevel = level + 1;
+                levels[i] = level;
+                if (level == stages.size()) stages.add(new ArrayList<>());
+                stages.get(level).add(statement);
+            }
+            return stages.stream()
+                         .map(stage -> new Stage(List.copyOf(stage),
+                                                 stage.stream().anyMatch(clearStateSearcher::containedIn)))
+                         .toList();
+        }
+
+        private static Set<String> fieldsAccessedBy(StatementExpression statement) {
+            Set<String> fields = new HashSet<>();
+            for (String input : statement.getInputFields())
+                fields.add(topLevelFieldName(input));
+            OutputExpression.OutputFieldNameExtractor outputs = new OutputExpression.OutputFieldNameExtractor();
+            statement.select(outputs, outputs);
+            for (String output : outputs.getOutputFieldNames())
+                fields.add(topLevelFieldName(output));
+            return fields;
+        }
+
+        private static String topLevelFieldName(String fieldName) {
+            for (int i = 0; i < fieldName.length(); i++) {
+                char c = fieldName.charAt(i);
+                if (c == '.' || c == '{' || c == '[') return fieldName.substring(0, i);
+            }
+            return fieldName;
+        }
+
+        private static boolean mustRunAlone(StatementExpression statement) {
+            return mustRunAloneSearchers.stream().anyMatch(searcher -> searcher.containedIn(statement));
+        }
+
+        private static boolean disjoint(Set<String> a, Set<String> b) {
+            for (String field : a)
+                if (b.contains(field)) return false;
+            return true;
+        }
+
+    }
+
+    /** Field values which may be accessed by statements running concurrently. */
+    private static class SynchronizedFieldValues implements FieldValues {
+
+        private final FieldValues delegate;
+
+        SynchronizedFieldValues(FieldValues delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public synchronized FieldValue getInputValue(String fieldName) {
+            return delegate.getInputValue(fieldName);
+        }
+
+        @Override
+        public synchronized FieldValue getInputValue(FieldPath fieldPath) {
+            return delegate.getInputValue(fieldPath);
+        }
+
+        @Override
+        public synchronized FieldValues setOutputValue(String fieldName, FieldValue fieldValue, Expression expression) {
+            delegate.setOutputValue(fieldName, fieldValue, expression);
+            return this;
+        }
+
+        @Override
+        public synchronized DataType getFieldType(String fieldName, Expression expression) {
+            return delegate.getFieldType(fieldName, expression);
+        }
+
+        @Override
+        public boolean isComplete() {
+            return delegate.isComplete();
+        }
+
+    }
+
     @Override
     public String toString() {
         StringBuilder ret = new StringBuilder();
@@ -15,6 +15,9 @@ import com.yahoo.vespa.indexinglanguage.SimpleTestAdapter;
 import org.junit.Test;
 
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -84,6 +87,55 @@ public class ScriptTestCase {
         assertEquals("myCacheValue", context.getCachedValue("myCacheKey"));
     }
 
+    @Test
+    public void testStages() {
+        var a = newStatement(new InputExpression("a"), new AttributeExpression("x"));
+        var b = newStatement(new InputExpression("b"), new AttributeExpression("y"));
+        var c = newStatement(new InputExpression("x"), new AttributeExpression("z")); // Reads the output of a
+        var d = newStatement(new ConstantExpression(new IntegerFieldValue(1)), new SetVarExpression("tmp"));
+        var e = newStatement(new InputExpression("c"), new IndexExpression("w")); // Must run after d
+        var f = newStatement(new InputExpression("b"), new ClearStateExpression(), new SummaryExpression("v"));
+        var stages = ScriptExpression.Stage.of(List.of(a, b, c, d, e, f));
+        assertEquals(List.of(List.of(a, b), List.of(c), List.of(d), List.of(e, f)),
+                     stages.stream().map(ScriptExpression.Stage::statements).toList());
+        assertEquals(List.of(false, false, false, true),
+                     stages.stream().map(ScriptExpression.Stage::clearsState).toList());
+    }
+
+    @Test
+    public void testConcurrentExecution() {
+        SimpleTestAdapter adapter = new SimpleTestAdapter(new Field("a", DataType.STRING),
+                                                          new Field("b", DataType.STRING),
+                                                          new Field("x", DataType.STRING),
+                                                          new Field("y", DataType.STRING),
+                                                          new Field("z", DataType.STRING)) {
+            @Override public boolean isComplete() { return true; }
+        };
+        adapter.setValue("a", new StringFieldValue("a1"));
+        adapter.setValue("b", new StringFieldValue("b1"));
+        CountDownLatch concurrent = new CountDownLatch(2);
+        var script = newScript(newStatement(new InputExpression("a"), new AwaitExpression(concurrent),
+                                            new PutCacheExpression("myCacheKey", "myCacheValue"),
+                                            new AttributeExpression("x")),
+                               newStatement(new InputExpression("b"), new AwaitExpression(concurrent),
+                                            new AttributeExpression("y")),
+                               newStatement(new InputExpression("x"),
+                                            new AssertCacheExpression("myCacheKey", "myCacheValue"),
+                                            new AttributeExpression("z")));
+        ForkJoinPool executor = new ForkJoinPool(2);
+        try {
+            ExecutionContext context = new ExecutionContext(adapter).setExecutor(executor);
+            script.execute(context);
+            assertEquals("myCacheValue", context.getCachedValue("myCacheKey"));
+            assertEquals("a1", adapter.getInputValue("x").getWrappedValue());
+            assertEquals("b1", adapter.getInputValue("y").getWrappedValue());
+            assertEquals("a1", adapter.getInputValue("z").getWrappedValue());
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
     @Test
     public void requireThatStatementsProcessingMissingInputsAreSkipped() {
         SimpleTestAdapter adapter = new SimpleTestAdapter(new Field("foo", DataType.STRING),
@@ -254,6 +306,28 @@ public class ScriptTestCase {
 
     }
 
+    /** Waits until the given latch is counted down by all statements which must run concurrently. */
+    private static class AwaitExpression extends Expression {
+
+        private final CountDownLatch latch;
+
+        AwaitExpression(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        protected void doExecute(ExecutionContext context) {
+            latch.countDown();
+            try {
+                assertTrue("Statements were run concurrently", latch.await(1, TimeUnit.MINUTES));
+            }
+            catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+    }
+
     private static class PutCacheExpression extends Expression {
 
         private final String keyToSet;
@@ -49,6 +49,23 @@ public interface Metric {
      */
     Context createContext(Map<String, ?> properties);
 
+    /**
+     * Returns a {@link Handle} for the metric with the given name and context, which can be used instead of
+     * {@link #set(String, Number, Context)} and {@link #add(String, Number, Context)} on hot paths. Resolve handles
+     * once, e.g., when constructing a component, and keep them. The default implementation simply forwards to the
+     * methods of this, and {@link MetricConsumer}s may return handles which record values without allocation.
+     *
+     * @param key the name of the metric to modify through the handle
+     * @param ctx the context to further describe the entries of the handle
+     * @return a handle for the given metric and context
+     */
+    default Handle handle(String key, Context ctx) {
+        return new Handle() {
+            @Override public void set(double val) { Metric.this.set(key, val, ctx); }
+            @Override public void add(long val) { Metric.this.add(key, val, ctx); }
+        };
+    }
+
     /**
      * Declares the interface for the arbitrary context object to pass to both the {@link
      * #set(String, Number, Context)} and {@link #add(String, Number, Context)} methods. This is intentionally empty so
@@ -58,4 +75,18 @@ public interface Metric {
 
     }
 
+    /**
+     * A metric name and context, bound together, to which values can be assigned or added with primitive arguments.
+     * Handles are thread-safe.
+     */
+    interface Handle {
+
+        /** Set the value of the metric of this, as {@link Metric#set(String, Number, Context)} does. */
+        void set(double val);
+
+        /** Add to the value of the metric of this, as {@link Metric#add(String, Number, Context)} does. */
+        void add(long val);
+
+    }
+
 }
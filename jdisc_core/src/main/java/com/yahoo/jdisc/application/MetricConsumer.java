@@ -66,4 +66,17 @@ public interface MetricConsumer {
      */
     Metric.Context createContext(Map<String, ?> properties);
 
+    /**
+     * Creates a <code>Metric.Handle</code> which records directly into this consumer, from any thread, for the given
+     * metric name and context. Returns null if this is not supported, which is the default, in which case
+     * <code>Metric.handle(String, Metric.Context)</code> calls <code>set</code> and <code>add</code> of this instead.
+     *
+     * @param key the name of the metric to modify through the handle
+     * @param ctx the context to further describe the entries of the handle
+     * @return the created handle, or null if not supported
+     */
+    default Metric.Handle createHandle(String key, Metric.Context ctx) {
+        return null;
+    }
+
 }
@@ -44,10 +44,61 @@ class MetricImpl implements Metric {
         return consumer.createContext(keys);
     }
 
+    @Override
+    public Handle handle(String key, Context ctx) {
+        return new ConsumerHandle(key, ctx);
+    }
+
     private MetricConsumer currentConsumer() {
         return Thread.currentThread() instanceof ContainerThread thread ? thread.consumer() : consumer.get();
     }
 
+    /**
+     * Records into the handle created by the consumer of the current thread, which is kept for as long as that
+     * consumer is the current one, or calls the consumer directly if it does not support handles.
+     */
+    private class ConsumerHandle implements Handle {
+
+        private final String key;
+        private final Context ctx;
+        private Binding binding = null; // Racy, but bindings are immutable, and equivalent for the same consumer
+
+        ConsumerHandle(String key, Context ctx) {
+            this.key = key;
+            this.ctx = ctx;
+        }
+
+        @Override
+        public void set(double val) {
+            MetricConsumer consumer = currentConsumer();
+            if (consumer == null) return;
+            Handle handle = handleOf(consumer);
+            if (handle != null) handle.set(val);
+            else consumer.set(key, val, ctx);
+        }
+
+        @Override
+        public void add(long val) {
+            MetricConsumer consumer = currentConsumer();
+            if (consumer == null) return;
+            Handle handle = handleOf(consumer);
+            if (handle != null) handle.add(val);
+            else consumer.add(key, val, ctx);
+        }
+
+        private Handle handleOf(MetricConsumer consumer) {
+            Binding binding = this.binding;
+            if (binding != null && binding.consumer == consumer) return binding.handle;
+
+            Handle handle = consumer.createHandle(key, ctx);
+            if (handle != null) this.binding = new Binding(consumer, handle);
+            return handle;
+        }
+
+    }
+
+    private record Binding(MetricConsumer consumer, Handle handle) { }
+
     private static class LocalConsumer extends ThreadLocal<MetricConsumer> {
 
         final Provider<MetricConsumer> factory;
@@ -12,9 +12,11 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
@@ -82,6 +84,34 @@ public class MetricImplTestCase {
         assertTrue(globalConsumer.map.isEmpty());
     }
 
+    @Test
+    void requireThatHandleUsesConsumerHandleWhenSupported() {
+        MyConsumer consumer = new MyConsumer();
+        Metric metric = Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(MetricConsumer.class).toInstance(consumer);
+            }
+        }).getInstance(Metric.class);
+
+        Metric.Handle handle = metric.handle("foo", null);
+        handle.set(6);
+        assertEquals(6, consumer.map.get("foo").intValue());
+        handle.add(9);
+        assertEquals(15, consumer.map.get("foo").intValue());
+
+        MyHandle consumerHandle = new MyHandle();
+        consumer.handles.put("bar", consumerHandle);
+        Metric.Handle barHandle = metric.handle("bar", null);
+        barHandle.set(3);
+        barHandle.add(4);
+        barHandle.add(5);
+        assertEquals(3, consumerHandle.value);
+        assertEquals(9, consumerHandle.count);
+        assertEquals(1, consumer.handlesCreated.get());
+        assertNull(consumer.map.get("bar"));
+    }
+
     private static class SetTask implements Runnable {
 
         final Metric metric;
@@ -123,6 +153,8 @@ public class MetricImplTestCase {
         final ConcurrentMap<String, Integer> map = new ConcurrentHashMap<>();
         final AtomicReference<CountDownLatch> latchRef = new AtomicReference<>();
         final Metric.Context ctx = new Metric.Context() { };
+        final Map<String, Metric.Handle> handles = new ConcurrentHashMap<>();
+        final AtomicInteger handlesCreated = new AtomicInteger();
 
         @Override
         public void set(String key, Number val, Metric.Context ctx) {
@@ -146,5 +178,28 @@ public class MetricImplTestCase {
         public Metric.Context createContext(Map<String, ?> properties) {
             return ctx;
         }
+
+        @Override
+        public Metric.Handle createHandle(String key, Metric.Context ctx) {
+            Metric.Handle handle = handles.get(key);
+            if (handle != null) handlesCreated.incrementAndGet();
+            return handle;
+        }
+    }
+
+    private static class MyHandle implements Metric.Handle {
+
+        double value;
+        long count;
+
+        @Override
+        public void set(double val) {
+            value = val;
+        }
+
+        @Override
+        public void add(long val) {
+            count += val;
+        }
     }
 }
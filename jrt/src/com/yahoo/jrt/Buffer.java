@@ -6,6 +6,7 @@ import java.nio.ByteBuffer;
 
 
 class Buffer {
+    private final BufferPool pool;
     private ByteBuffer buf;
     private int        readPos;
     private int        writePos;
@@ -55,18 +56,40 @@ class Buffer {
             if (buf.capacity() + free < minFree) {
                 size = buf.capacity() + minFree;
             }
-            ByteBuffer tmp = ByteBuffer.allocate(size);
+            ByteBuffer tmp = allocate(size);
             tmp.order(buf.order());
             buf.position(readPos);
             buf.limit(writePos);
             tmp.put(buf);
+            release(buf);
             buf = tmp;
             readPos = 0;
         }
     }
 
+    private ByteBuffer allocate(int size) {
+        return (pool != null) ? pool.allocate(size) : ByteBuffer.allocate(size);
+    }
+
+    private void release(ByteBuffer old) {
+        if (pool != null) {
+            pool.release(old);
+        }
+    }
+
     public Buffer(int size) {
-        buf = ByteBuffer.allocate(size);
+        this(size, null);
+    }
+
+    /**
+     * Creates a buffer which allocates its backing storage from the
+     * given pool, or from the heap if the pool is null. A pooled
+     * buffer must only be used by the thread owning the pool, and
+     * should be {@link #release() released} when no longer needed.
+     **/
+    public Buffer(int size, BufferPool pool) {
+        this.pool = pool;
+        buf = allocate(size);
         readPos = 0;
         writePos = 0;
         readMode = false;
@@ -79,11 +102,15 @@ class Buffer {
         if (used > size || buf.capacity() <= size) {
             return false;
         }
-        ByteBuffer tmp = ByteBuffer.allocate(size);
+        if (pool != null && BufferPool.capacityFor(size) >= buf.capacity()) {
+            return false;
+        }
+        ByteBuffer tmp = allocate(size);
         tmp.order(buf.order());
         buf.position(rpos);
         buf.limit(wpos);
         tmp.put(buf);
+        release(buf);
         buf = tmp;
         readPos = 0;
         writePos = used;
@@ -92,6 +119,19 @@ class Buffer {
         return true;
     }
 
+    /**
+     * Returns the backing storage of this buffer to its pool, and
+     * drops any buffered data. The buffer is empty, but still usable,
+     * after this.
+     **/
+    public void release() {
+        release(buf);
+        buf = ByteBuffer.allocate(0);
+        readPos = 0;
+        writePos = 0;
+        readMode = false;
+    }
+
     public int bytes() {
         return (readMode)
             ? (writePos - buf.position())
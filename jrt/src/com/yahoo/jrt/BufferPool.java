@@ -0,0 +1,91 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.jrt;
+
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+
+/**
+ * A pool of direct byte buffers used for connection input and output
+ * buffers. Socket channels must copy heap buffers into temporary
+ * direct buffers before each read or write, which is avoided by using
+ * direct buffers directly. Since direct buffers are expensive to
+ * allocate and are only freed by the garbage collector, they are
+ * recycled here instead.
+ *
+ * Buffer capacities are rounded up to a power of two, and buffers
+ * larger than {@link #MAX_POOLED_SIZE} are plain heap buffers, as
+ * before. A pool is owned by a single {@link TransportThread} and is
+ * not thread-safe.
+ **/
+class BufferPool {
+
+    static final int MIN_POOLED_SIZE = 4 * 1024;
+    static final int MAX_POOLED_SIZE = 1024 * 1024;
+
+    private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_POOLED_SIZE);
+    private static final int MAX_SHIFT = Integer.numberOfTrailingZeros(MAX_POOLED_SIZE);
+
+    private final ArrayDeque<ByteBuffer>[] free;
+    private final long maxFreeBytes;
+    private long freeBytes = 0;
+
+    @SuppressWarnings("unchecked")
+    BufferPool(long maxFreeBytes) {
+        this.free = new ArrayDeque[MAX_SHIFT - MIN_SHIFT + 1];
+        for (int i = 0; i < free.length; i++) {
+            free[i] = new ArrayDeque<>();
+        }
+        this.maxFreeBytes = maxFreeBytes;
+    }
+
+    /** Returns the capacity of a buffer allocated with the given minimum size. */
+    static int capacityFor(int size) {
+        if (size <= 0) {
+            return 0;
+        }
+        if (size > MAX_POOLED_SIZE) {
+            return size;
+        }
+        return Math.max(MIN_POOLED_SIZE, Integer.highestOneBit(size - 1) << 1);
+    }
+
+    private static int slot(int capacity) {
+        return Integer.numberOfTrailingZeros(capacity) - MIN_SHIFT;
+    }
+
+    /** Returns a cleared buffer with at least the given capacity, and a position of 0. */
+    ByteBuffer allocate(int size) {
+        int capacity = capacityFor(size);
+        if (capacity == 0 || capacity > MAX_POOLED_SIZE) {
+            return ByteBuffer.allocate(capacity);
+        }
+        ByteBuffer buf = free[slot(capacity)].pollLast();
+        if (buf == null) {
+            return ByteBuffer.allocateDirect(capacity);
+        }
+        freeBytes -= capacity;
+        buf.clear();
+        return buf;
+    }
+
+    /** Returns the given buffer to this pool; it must not be used by the caller after this. */
+    void release(ByteBuffer buf) {
+        if ( ! buf.isDirect() || freeBytes + buf.capacity() > maxFreeBytes) {
+            return;
+        }
+        int capacity = buf.capacity();
+        if (capacity != capacityFor(capacity) || capacity > MAX_POOLED_SIZE) {
+            return;
+        }
+        free[slot(capacity)].addLast(buf);
+        freeBytes += capacity;
+    }
+
+    /** Returns the total capacity of the buffers currently held by this pool. */
+    long freeBytes() {
+        return freeBytes;
+    }
+
+}
@@ -34,8 +34,8 @@ class Connection extends Target {
     private int state = INITIAL;
     private final Queue  queue   = new Queue();
     private final Queue  myQueue = new Queue();
-    private final Buffer input   = new Buffer(0); // Start off with empty buffer.
-    private final Buffer output  = new Buffer(0); // Start off with empty buffer.
+    private final Buffer input;
+    private final Buffer output;
     private final int maxInputSize;
     private final int maxOutputSize;
     private final boolean dropEmptyBuffers;
@@ -89,6 +89,8 @@ class Connection extends Target {
 
         this.parent = parent;
         this.owner = owner;
+        this.input = new Buffer(0, parent.bufferPool()); // Start off with empty buffer.
+        this.output = new Buffer(0, parent.bufferPool()); // Start off with empty buffer.
         this.socket = parent.transport().createServerCryptoSocket(channel);
         this.spec = null;
         this.tcpNoDelay = tcpNoDelay;
@@ -102,6 +104,8 @@ class Connection extends Target {
         super(context);
         this.parent = parent;
         this.owner = owner;
+        this.input = new Buffer(0, parent.bufferPool()); // Start off with empty buffer.
+        this.output = new Buffer(0, parent.bufferPool()); // Start off with empty buffer.
         this.spec = spec;
         this.tcpNoDelay = tcpNoDelay;
         maxInputSize = owner.getMaxInputBufferSize();
@@ -383,6 +387,8 @@ class Connection extends Target {
         if (selectionKey != null) {
             selectionKey.cancel();
         }
+        input.release();
+        output.release();
     }
 
     public boolean isClosed() {
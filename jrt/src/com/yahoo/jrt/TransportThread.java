@@ -67,6 +67,8 @@ public class TransportThread {
 
     private static final Logger log = Logger.getLogger(TransportThread.class.getName());
 
+    private static final long BUFFER_POOL_SIZE = 16 * 1024 * 1024;
+
     private final Transport parent;
     private final Thread    thread;
     private final Queue     queue;
@@ -74,6 +76,7 @@ public class TransportThread {
     private final Scheduler scheduler;
     private int             state;
     private final Selector  selector;
+    private final BufferPool bufferPool = new BufferPool(BUFFER_POOL_SIZE);
 
     private void handleAddConnection(Connection conn) {
         if (conn.isClosed()) {
@@ -184,6 +187,11 @@ public class TransportThread {
         return parent;
     }
 
+    /** Returns the pool of direct buffers for connections handled by this thread; only to be used by this thread. */
+    BufferPool bufferPool() {
+        return bufferPool;
+    }
+
     /**
      * Proxy method used to dispatch fatal errors to the enclosing
      * Transport.
@@ -222,4 +222,60 @@ public class BufferTest {
         }
     }
 
+    @org.junit.Test
+    public void testPooledBuffer() {
+        BufferPool pool = new BufferPool(1024 * 1024);
+        Buffer buf = new Buffer(0, pool);
+        assertEquals(0, buf.getReadable().capacity());
+
+        ByteBuffer b = buf.getWritable(100);
+        assertTrue(b.isDirect());
+        assertEquals(BufferPool.MIN_POOLED_SIZE, b.capacity());
+        b.put((byte)42);
+
+        b = buf.getWritable(10000);
+        assertEquals(16384, b.capacity());
+        assertEquals(BufferPool.MIN_POOLED_SIZE, pool.freeBytes());
+        assertEquals(1, buf.bytes());
+        assertEquals(42, buf.getReadable().get());
+
+        assertFalse(buf.shrink(10000));
+        assertTrue(buf.shrink(100));
+        assertEquals(BufferPool.MIN_POOLED_SIZE, buf.getReadable().capacity());
+        assertEquals(16384, pool.freeBytes());
+
+        buf.release();
+        assertEquals(0, buf.bytes());
+        assertEquals(16384 + BufferPool.MIN_POOLED_SIZE, pool.freeBytes());
+        assertEquals(16384, buf.getWritable(16384).capacity());
+        assertEquals(BufferPool.MIN_POOLED_SIZE, pool.freeBytes());
+    }
+
+    @org.junit.Test
+    public void testBufferPool() {
+        BufferPool pool = new BufferPool(BufferPool.MIN_POOLED_SIZE);
+        assertEquals(0, BufferPool.capacityFor(0));
+        assertEquals(BufferPool.MIN_POOLED_SIZE, BufferPool.capacityFor(1));
+        assertEquals(8192, BufferPool.capacityFor(4097));
+        assertEquals(BufferPool.MAX_POOLED_SIZE + 1, BufferPool.capacityFor(BufferPool.MAX_POOLED_SIZE + 1));
+
+        ByteBuffer small = pool.allocate(10);
+        ByteBuffer large = pool.allocate(BufferPool.MAX_POOLED_SIZE + 1);
+        assertTrue(small.isDirect());
+        assertFalse(large.isDirect());
+
+        small.put((byte)1);
+        pool.release(small);
+        pool.release(large);
+        pool.release(pool.allocate(10)); // the same buffer again
+        pool.release(ByteBuffer.allocateDirect(BufferPool.MIN_POOLED_SIZE)); // pool is full
+        assertEquals(BufferPool.MIN_POOLED_SIZE, pool.freeBytes());
+
+        ByteBuffer reused = pool.allocate(BufferPool.MIN_POOLED_SIZE);
+        assertTrue(reused == small);
+        assertEquals(0, reused.position());
+        assertEquals(reused.capacity(), reused.limit());
+        assertEquals(0, pool.freeBytes());
+    }
+
 }
@@ -9,6 +9,7 @@ import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * An embedder converts a text string to a tensor
@@ -138,6 +139,17 @@ public interface Embedder {
         /** Add a sample request failure to this */
         void sampleRequestFailure(Context ctx, int statusCode);
 
+        /**
+         * Returns the embedding of the given text to the given type from a cache shared between requests,
+         * or computes and caches it if it is not present. Embeddings are cached per embedder instance,
+         * which must pass itself, and by the language and destination type of the given context.
+         * This default implementation does not cache.
+         */
+        default Tensor computeCachedEmbeddingIfAbsent(Embedder embedder, String text, Context ctx, TensorType type,
+                                                      Supplier<Tensor> embedding) {
+            return embedding.get();
+        }
+
         static Runtime testInstance() {
             return new Runtime() {
                 @Override public void sampleEmbeddingLatency(double millis, Context ctx) { }
@@ -6,24 +6,39 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
-import com.yahoo.compress.ZstdOutputStream;
 import com.yahoo.io.NativeIO;
+import io.airlift.compress.zstd.ZstdInputStream;
 
 import java.io.FileDescriptor;
+import java.io.BufferedReader;
 import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 
 /**
  * This class holds information about all (log) files contained
@@ -210,16 +225,23 @@ public final class FilesArchived {
     private static void runCompressionZstd(NativeIO nativeIO, File oldFile) {
         try {
             Path compressedFile = Paths.get(oldFile.toString() + ".zst");
+            Path indexFile = FrameIndex.indexOf(compressedFile);
             int bufferSize = 2*1024*1024;
             long mtime = oldFile.lastModified();
+            FrameIndex index;
             try (FileOutputStream fileOut = AtomicFileOutputStream.create(compressedFile);
-                 ZstdOutputStream out = new ZstdOutputStream(fileOut, bufferSize);
+                 FramedZstdOutputStream out = new FramedZstdOutputStream(fileOut, bufferSize);
                  FileInputStream in = new FileInputStream(oldFile))
             {
                 pageFriendlyTransfer(nativeIO, out, fileOut.getFD(), in, bufferSize);
                 out.flush();
+                index = out.index();
+            }
+            try (FileOutputStream indexOut = AtomicFileOutputStream.create(indexFile)) {
+                index.writeTo(indexOut);
             }
             compressedFile.toFile().setLastModified(mtime);
+            indexFile.toFile().setLastModified(mtime);
             oldFile.delete();
             nativeIO.dropFileFromCache(compressedFile.toFile());
         } catch (IOException e) {
@@ -241,6 +263,66 @@ public final class FilesArchived {
         return sum;
     }
 
+    /**
+     * Passes the archived log lines which match the given query to the given consumer, file by file, in name order.
+     * Only files for the hours overlapping the query are read, and of files compressed with zstd, only the
+     * frames which their index says may hold matching lines. Zstd files without a readable index are read in full.
+     */
+    public void search(LogQuery query, Consumer<String> lines) throws IOException {
+        List<LogFile> files;
+        synchronized (this) {
+            rescan();
+            files = new ArrayList<>(knownFiles);
+        }
+        files.sort(Comparator.comparing(lf -> lf.path));
+        for (LogFile lf : files) {
+            if (lf.index) continue;
+            Instant hour = lf.hour();
+            if (hour != null && ! query.overlaps(hour, hour.plusSeconds(3600).minusNanos(1))) continue;
+
+            try {
+                search(lf, query, lines);
+            }
+            catch (FileNotFoundException | NoSuchFileException e) {
+                log.log(Level.FINE, () -> "Skipping " + lf.path + ", which was compressed or removed during search");
+            }
+        }
+    }
+
+    private static void search(LogFile lf, LogQuery query, Consumer<String> lines) throws IOException {
+        String name = lf.path.getName();
+        if (name.endsWith(".zst")) {
+            Optional<FrameIndex> index = readIndex(lf.path.toPath());
+            if (index.isPresent()) {
+                index.get().search(lf.path.toPath(), query, lines);
+                return;
+            }
+        }
+        try (InputStream in = name.endsWith(".gz") ? new GZIPInputStream(new FileInputStream(lf.path), 0x100000)
+                            : name.endsWith(".zst") ? new ZstdInputStream(new FileInputStream(lf.path))
+                            : new FileInputStream(lf.path);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, UTF_8), 0x100000)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine())
+                if (query.matches(line)) lines.accept(line);
+        }
+    }
+
+    /** Returns the frame index of the given zstd file, or empty if it has none, or it can not be read, and the whole file must be searched. */
+    private static Optional<FrameIndex> readIndex(Path archive) {
+        Path indexFile = FrameIndex.indexOf(archive);
+        if ( ! Files.exists(indexFile)) {
+            log.log(Level.FINE, () -> "No frame index for " + archive + ", searching the whole file");
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(FrameIndex.readFrom(indexFile));
+        }
+        catch (IOException | RuntimeException e) { // A corrupt index may also fail when its values are parsed
+            log.log(Level.WARNING, "Failed reading frame index " + indexFile + ", searching the whole file: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
     private static final Pattern dateFormatRegexp = Pattern.compile(".*/" +
             "[0-9][0-9][0-9][0-9]/" + // year
             "[0-9][0-9]/" + // month
@@ -270,13 +352,17 @@ public final class FilesArchived {
     }
 
     static class LogFile {
+        private static final Pattern hourRegexp = Pattern.compile(".*/([0-9]{4})/([0-9]{2})/([0-9]{2})/([0-9]{2})");
+
         public final File path;
         public final String prefix;
         public final int generation;
         public final boolean zsuff;
+        public final boolean index;
 
         public boolean canCompress(long now) {
             if (zsuff) return false; // already compressed
+            if (index) return false; // index of a compressed file
             if (! path.isFile()) return false; // not a file
             long diff = now - path.lastModified();
             if (diff < compressAfterMillis) return false; // too new
@@ -315,6 +401,21 @@ public final class FilesArchived {
             this.prefix = prefixOf(name);
             this.generation = generationOf(name);
             this.zsuff = zSuffix(name);
+            this.index = name.endsWith(FrameIndex.SUFFIX);
+        }
+
+        /** Returns the start of the hour this file holds log messages for, or null if unknown. */
+        Instant hour() {
+            Matcher matcher = hourRegexp.matcher(prefix);
+            if ( ! matcher.matches()) return null;
+            try {
+                return LocalDateTime.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)),
+                                        Integer.parseInt(matcher.group(3)), Integer.parseInt(matcher.group(4)), 0)
+                                    .toInstant(ZoneOffset.UTC);
+            }
+            catch (DateTimeException e) {
+                return null;
+            }
         }
         public String toString() {
             return "FilesArchived.LogFile{name="+path+" prefix="+prefix+" gen="+generation+" z="+zsuff+"}";
@@ -0,0 +1,153 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.logserver.handlers.archive;
+
+import com.yahoo.compress.ZstdCompressor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Index of the frames of a log file compressed by {@link FramedZstdOutputStream}, which is stored next to it.
+ * For each frame, this holds its location in the compressed file, and the time range, levels and components of
+ * its log lines, so that a search only needs to read and decompress the frames which may hold matching lines.
+ */
+final class FrameIndex {
+
+    static final String SUFFIX = ".idx";
+
+    private static final int MAGIC = 0x7a696478; // "zidx"
+    private static final int VERSION = 1;
+
+    /**
+     * A frame of whole log lines, with its location in the compressed file, and the time range, levels and
+     * components of the lines it holds. The levels and components are empty if no lines could be parsed.
+     */
+    record Frame(long offset, int compressedSize, int uncompressedSize,
+                 Instant from, Instant to, Set<String> levels, Set<String> components) {
+
+        Frame {
+            levels = Set.copyOf(levels);
+            components = Set.copyOf(components);
+        }
+
+        /** Returns whether this frame may hold lines matching the given query. */
+        boolean mayMatch(LogQuery query) {
+            return    ! levels.isEmpty()
+                   && query.overlaps(from, to)
+                   && levels.stream().anyMatch(query::matchesLevel)
+                   && components.stream().anyMatch(query::matchesComponent);
+        }
+
+    }
+
+    private final List<Frame> frames;
+
+    FrameIndex(List<Frame> frames) {
+        this.frames = List.copyOf(frames);
+    }
+
+    List<Frame> frames() { return frames; }
+
+    /** Returns the index file of the given compressed log file. */
+    static Path indexOf(Path archive) {
+        return archive.resolveSibling(archive.getFileName() + SUFFIX);
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(frames.size());
+        for (Frame frame : frames) {
+            data.writeLong(frame.offset());
+            data.writeInt(frame.compressedSize());
+            data.writeInt(frame.uncompressedSize());
+            data.writeLong(frame.from().getEpochSecond());
+            data.writeInt(frame.from().getNano());
+            data.writeLong(frame.to().getEpochSecond());
+            data.writeInt(frame.to().getNano());
+            writeStrings(data, frame.levels());
+            writeStrings(data, frame.components());
+        }
+        data.flush();
+    }
+
+    static FrameIndex readFrom(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+            if (data.readInt() != MAGIC) throw new IOException("Not a log frame index: " + path);
+            int version = data.readInt();
+            if (version != VERSION) throw new IOException("Unsupported log frame index version " + version + ": " + path);
+
+            int count = data.readInt();
+            if (count < 0) throw new IOException("Invalid frame count " + count + " in log frame index: " + path);
+            List<Frame> frames = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                frames.add(new Frame(data.readLong(),
+                                     data.readInt(),
+                                     data.readInt(),
+                                     Instant.ofEpochSecond(data.readLong(), data.readInt()),
+                                     Instant.ofEpochSecond(data.readLong(), data.readInt()),
+                                     readStrings(data),
+                                     readStrings(data)));
+            }
+            return new FrameIndex(frames);
+        }
+    }
+
+    /** Passes the lines of the given compressed log file which match the given query to the given consumer, in order. */
+    void search(Path archive, LogQuery query, Consumer<String> lines) throws IOException {
+        ZstdCompressor decompressor = new ZstdCompressor();
+        try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ)) {
+            for (Frame frame : frames) {
+                if ( ! frame.mayMatch(query)) continue;
+
+                ByteBuffer compressed = ByteBuffer.allocate(frame.compressedSize());
+                while (compressed.hasRemaining())
+                    if (channel.read(compressed, frame.offset() + compressed.position()) < 0)
+                        throw new IOException("Unexpected end of " + archive + " when reading frame at offset " + frame.offset());
+
+                byte[] uncompressed = new byte[frame.uncompressedSize()];
+                decompressor.decompress(compressed.array(), 0, compressed.capacity(), uncompressed, 0, uncompressed.length);
+                for (int start = 0, end; start < uncompressed.length; start = end + 1) {
+                    end = start;
+                    while (end < uncompressed.length && uncompressed[end] != '\n') end++;
+
+                    String line = new String(uncompressed, start, end - start, UTF_8);
+                    if (query.matches(line)) lines.accept(line);
+                }
+            }
+        }
+    }
+
+    private static void writeStrings(DataOutputStream data, Set<String> strings) throws IOException {
+        data.writeInt(strings.size());
+        for (String string : strings) data.writeUTF(string);
+    }
+
+    private static Set<String> readStrings(DataInputStream data) throws IOException {
+        int count = data.readInt();
+        Set<String> strings = new HashSet<>(count);
+        for (int i = 0; i < count; i++) strings.add(data.readUTF());
+        return strings;
+    }
+
+}
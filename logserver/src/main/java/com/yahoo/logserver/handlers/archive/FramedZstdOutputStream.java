@@ -0,0 +1,130 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.logserver.handlers.archive;
+
+import com.yahoo.compress.ZstdCompressor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Compresses log lines into a sequence of independent zstd frames, each ending at a line break, and holding
+ * about the given number of uncompressed bytes, or more if a single line is longer. Together, the frames are a
+ * regular zstd file, and the {@link FrameIndex} built while writing lets readers decompress only the frames they need.
+ */
+class FramedZstdOutputStream extends OutputStream {
+
+    private final ZstdCompressor compressor = new ZstdCompressor();
+    private final List<FrameIndex.Frame> frames = new ArrayList<>();
+    private final OutputStream out;
+    private byte[] buffer;
+    private byte[] compressed;
+    private int position = 0;
+    private long offset = 0;
+    private boolean closed = false;
+
+    FramedZstdOutputStream(OutputStream out, int frameSize) {
+        this.out = out;
+        this.buffer = new byte[frameSize];
+        this.compressed = new byte[ZstdCompressor.getMaxCompressedLength(frameSize)];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        throwIfClosed();
+        while (len > 0) {
+            if (position == buffer.length) writeFullFrame();
+            int copyLength = Math.min(len, buffer.length - position);
+            System.arraycopy(b, off, buffer, position, copyLength);
+            position += copyLength;
+            off += copyLength;
+            len -= copyLength;
+        }
+    }
+
+    /** Writes all buffered lines as a frame, or grows the buffer if it holds only part of a single line. */
+    private void writeFullFrame() throws IOException {
+        int end = position;
+        while (end > 0 && buffer[end - 1] != '\n') end--;
+        if (end == 0) {
+            buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+            compressed = new byte[ZstdCompressor.getMaxCompressedLength(buffer.length)];
+        }
+        else {
+            writeFrame(end);
+        }
+    }
+
+    private void writeFrame(int end) throws IOException {
+        int compressedLength = compressor.compress(buffer, 0, end, compressed, 0, compressed.length);
+        out.write(compressed, 0, compressedLength);
+        frames.add(frameOf(offset, compressedLength, end));
+        offset += compressedLength;
+        System.arraycopy(buffer, end, buffer, 0, position - end);
+        position -= end;
+    }
+
+    private FrameIndex.Frame frameOf(long offset, int compressedSize, int uncompressedSize) {
+        Instant from = Instant.MAX;
+        Instant to = Instant.MIN;
+        Set<String> levels = new HashSet<>();
+        Set<String> components = new HashSet<>();
+        for (int start = 0, end; start < uncompressedSize; start = end + 1) {
+            // Only the leading fields, up to and including the level, are needed for the index
+            int tabs = 0;
+            int headerEnd = start;
+            for (end = start; end < uncompressedSize && buffer[end] != '\n'; end++)
+                if (buffer[end] == '\t' && ++tabs == 6) headerEnd = end;
+
+            if (tabs < 6) continue;
+            Optional<LogQuery.Line> line = LogQuery.Line.parse(new String(buffer, start, headerEnd - start, UTF_8));
+            if (line.isEmpty()) continue;
+
+            if (line.get().time().isBefore(from)) from = line.get().time();
+            if (line.get().time().isAfter(to)) to = line.get().time();
+            levels.add(line.get().level());
+            components.add(line.get().component());
+        }
+        if (levels.isEmpty()) from = to = Instant.EPOCH;
+        return new FrameIndex.Frame(offset, compressedSize, uncompressedSize, from, to, levels, components);
+    }
+
+    /** Writes all buffered data as a frame, even if it does not end with a line break. */
+    @Override
+    public void flush() throws IOException {
+        throwIfClosed();
+        if (position > 0) writeFrame(position);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        flush();
+        out.close();
+        closed = true;
+    }
+
+    /** Returns the index of the frames written so far. */
+    FrameIndex index() {
+        return new FrameIndex(frames);
+    }
+
+    private void throwIfClosed() {
+        if (closed) throw new IllegalStateException("Output stream is already closed");
+    }
+
+}
@@ -0,0 +1,92 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.logserver.handlers.archive;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A query for archived log messages: those with a timestamp in [from, to), with one of the given levels,
+ * and with one of the given components, or a sub-component of one of these. An empty set of levels or
+ * components matches all levels or components.
+ */
+public record LogQuery(Instant from, Instant to, Set<String> levels, Set<String> components) {
+
+    public LogQuery {
+        requireNonNull(from);
+        requireNonNull(to);
+        if (to.isBefore(from)) throw new IllegalArgumentException("'to' must not be before 'from', but got " + from + " and " + to);
+        levels = levels.stream().map(level -> level.toLowerCase(Locale.ROOT)).collect(Collectors.toUnmodifiableSet());
+        components = Set.copyOf(components);
+    }
+
+    public LogQuery(Instant from, Instant to) {
+        this(from, to, Set.of(), Set.of());
+    }
+
+    /** Returns whether this matches the given line, in the vespa log format. */
+    boolean matches(String line) {
+        return Line.parse(line).map(this::matches).orElse(false);
+    }
+
+    boolean matches(Line line) {
+        return overlaps(line.time(), line.time()) && matchesLevel(line.level()) && matchesComponent(line.component());
+    }
+
+    /** Returns whether the closed interval [start, end] overlaps the time range of this. */
+    boolean overlaps(Instant start, Instant end) {
+        return ! end.isBefore(from) && start.isBefore(to);
+    }
+
+    boolean matchesLevel(String level) {
+        return levels.isEmpty() || levels.contains(level);
+    }
+
+    boolean matchesComponent(String component) {
+        if (components.isEmpty() || components.contains(component)) return true;
+        for (int dot = component.lastIndexOf('.'); dot > 0; dot = component.lastIndexOf('.', dot - 1))
+            if (components.contains(component.substring(0, dot))) return true;
+
+        return false;
+    }
+
+    /** The fields of a log line which are indexed and queried. */
+    record Line(Instant time, String component, String level) {
+
+        /**
+         * Parses the given log line, in the vespa log format, or only its leading fields, up to and including the level.
+         * Returns empty if the line is not in this format.
+         */
+        static Optional<Line> parse(String line) {
+            String[] fields = line.split("\t", 7);
+            if (fields.length < 6) return Optional.empty();
+
+            Instant time = parseTime(fields[0]);
+            if (time == null) return Optional.empty();
+
+            return Optional.of(new Line(time, fields[4], fields[5].toLowerCase(Locale.ROOT)));
+        }
+
+        /** Parses a timestamp with seconds and a fraction of up to nanosecond precision, or returns null if this fails. */
+        private static Instant parseTime(String time) {
+            int dot = time.indexOf('.');
+            String seconds = dot < 0 ? time : time.substring(0, dot);
+            String fraction = dot < 0 ? "" : time.substring(dot + 1);
+            if (seconds.isEmpty() || fraction.length() > 9) return null;
+
+            try {
+                long nanos = fraction.isEmpty() ? 0 : Long.parseLong(fraction) * (long) Math.pow(10, 9 - fraction.length());
+                return Instant.ofEpochSecond(Long.parseLong(seconds), nanos);
+            }
+            catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+    }
+
+}
@@ -6,13 +6,23 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import com.yahoo.compress.ZstdCompressor;
+import com.yahoo.compress.ZstdOutputStream;
+
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertFalse;
 
@@ -119,6 +129,127 @@ public class FilesArchivedTestCase {
         checkExist("foo/bar");
     }
 
+    @Test
+    public void testSearch() throws IOException {
+        tmpDir = temporaryFolder.newFolder();
+        Instant hour = Instant.parse("2018-12-31T14:00:00Z");
+        writeLogfile("2018/12/31/14-0", 3,
+                     logLine(hour.plusSeconds(10), "container.search", "info", "first"),
+                     logLine(hour.plusSeconds(20), "container.search.Searcher", "warning", "second"),
+                     logLine(hour.plusSeconds(30), "proton", "error", "third"));
+        writeLogfile("2018/12/31/15-0", 0,
+                     logLine(hour.plusSeconds(3610), "container.search", "info", "fourth"),
+                     "not a log line");
+
+        FilesArchived a = new FilesArchived(tmpDir, "zstd");
+        a.maintenance();
+        checkExist("2018/12/31/14-0.zst");
+        checkExist("2018/12/31/14-0.zst.idx");
+        checkExist("2018/12/31/15-0");
+        checkNoExist("2018/12/31/14-0.zst.idx.zst");
+
+        assertEquals(List.of("first", "second", "third", "fourth"),
+                     search(a, new LogQuery(hour, hour.plusSeconds(7200))));
+        assertEquals(List.of("first", "second", "fourth"),
+                     search(a, new LogQuery(hour, hour.plusSeconds(7200), Set.of(), Set.of("container.search"))));
+        assertEquals(List.of("second"),
+                     search(a, new LogQuery(hour, hour.plusSeconds(7200), Set.of("WARNING"), Set.of())));
+        assertEquals(List.of("third"),
+                     search(a, new LogQuery(hour.plusSeconds(25), hour.plusSeconds(3610))));
+        assertEquals(List.of(),
+                     search(a, new LogQuery(hour.minusSeconds(3600), hour)));
+    }
+
+    @Test
+    public void testSearchWithoutReadableIndex() throws IOException {
+        tmpDir = temporaryFolder.newFolder();
+        Instant hour = Instant.parse("2018-12-31T13:00:00Z");
+        // Written before frame indices, with the plain zstd output stream
+        File old = new File(tmpDir, "2018/12/31/13-0.zst");
+        old.getParentFile().mkdirs();
+        try (ZstdOutputStream out = new ZstdOutputStream(Files.newOutputStream(old.toPath()), 64)) {
+            for (int i = 0; i < 10; i++)
+                out.write((logLine(hour.plusSeconds(i), "proton", "info", "old " + i) + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        writeLogfile("2018/12/31/14-0", 3,
+                     logLine(hour.plusSeconds(3610), "container", "info", "new"));
+
+        FilesArchived a = new FilesArchived(tmpDir, "zstd");
+        a.maintenance();
+        checkExist("2018/12/31/14-0.zst");
+        checkExist("2018/12/31/14-0.zst.idx");
+        checkNoExist("2018/12/31/13-0.zst.idx");
+        assertEquals(List.of("old 8", "old 9", "new"),
+                     search(a, new LogQuery(hour.plusSeconds(8), hour.plusSeconds(7200))));
+
+        // A truncated index is ignored as well
+        Path index = tmpDir.toPath().resolve("2018/12/31/14-0.zst.idx");
+        byte[] indexBytes = Files.readAllBytes(index);
+        Files.write(index, Arrays.copyOf(indexBytes, indexBytes.length / 2));
+        assertEquals(List.of("old 8", "old 9", "new"),
+                     search(a, new LogQuery(hour.plusSeconds(8), hour.plusSeconds(7200))));
+    }
+
+    @Test
+    public void testFramedCompression() throws IOException {
+        tmpDir = temporaryFolder.newFolder();
+        Instant start = Instant.parse("2018-12-31T14:00:00Z");
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < 100; i++)
+            log.append(logLine(start.plusSeconds(i), i < 50 ? "config" : "proton", "info", "message " + i)).append('\n');
+
+        Path archive = tmpDir.toPath().resolve("archive.zst");
+        FrameIndex index;
+        try (FramedZstdOutputStream out = new FramedZstdOutputStream(Files.newOutputStream(archive), 1000)) {
+            out.write(log.toString().getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            index = out.index();
+        }
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        index.writeTo(serialized);
+        Files.write(FrameIndex.indexOf(archive), serialized.toByteArray());
+        assertEquals(index.frames(), FrameIndex.readFrom(FrameIndex.indexOf(archive)).frames());
+
+        // Frames hold whole lines, and together form a regular zstd file
+        assertTrue(index.frames().size() > 5);
+        int uncompressed = 0;
+        for (FrameIndex.Frame frame : index.frames()) {
+            assertTrue(frame.uncompressedSize() <= 1000);
+            uncompressed += frame.uncompressedSize();
+        }
+        assertEquals(log.length(), uncompressed);
+        byte[] compressed = Files.readAllBytes(archive);
+        byte[] decompressed = new byte[log.length()];
+        new ZstdCompressor().decompress(compressed, 0, compressed.length, decompressed, 0, decompressed.length);
+        assertEquals(log.toString(), new String(decompressed, StandardCharsets.UTF_8));
+
+        // Only frames with matching lines are read
+        LogQuery query = new LogQuery(start.plusSeconds(60), start.plusSeconds(70), Set.of(), Set.of("proton"));
+        long matching = index.frames().stream().filter(frame -> frame.mayMatch(query)).count();
+        assertTrue(matching > 0 && matching < 3);
+        List<String> lines = new ArrayList<>();
+        index.search(archive, query, lines::add);
+        assertEquals(10, lines.size());
+        assertTrue(lines.get(0).endsWith("message 60"));
+    }
+
+    private static String logLine(Instant time, String component, String level, String message) {
+        return time.getEpochSecond() + "." + String.format("%06d", time.getNano() / 1000) + "\thost\t1/2\tservice\t" + component + "\t" + level + "\t" + message;
+    }
+
+    private void writeLogfile(String name, long hours, String... lines) throws IOException {
+        File f = new File(tmpDir, name);
+        f.getParentFile().mkdirs();
+        Files.writeString(f.toPath(), String.join("\n", lines) + "\n");
+        f.setLastModified(System.currentTimeMillis() - (hours * 3600 * 1000));
+    }
+
+    private static List<String> search(FilesArchived archive, LogQuery query) throws IOException {
+        List<String> messages = new ArrayList<>();
+        archive.search(query, line -> messages.add(line.substring(line.lastIndexOf('\t') + 1)));
+        return messages;
+    }
+
     private void dumpFiles(String header) {
         System.out.println(">>> " + header + " >>> :");
         List<String> seen = scanDir(tmpDir);
@@ -13,13 +13,18 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * id, and messages are only sent when they are at the front of their list. When a reply arrives, the current front of
  * the list is removed and the next message, if any, is sent.
  *
+ * The lists are kept in a fixed number of stripes, each guarded by its own lock, so that threads sending messages
+ * with different sequencing ids rarely contend with each other.
+ *
  * @author Simon Thoresen Hult
  */
 public class Sequencer implements MessageHandler, ReplyHandler {
 
+    private static final int STRIPE_BITS = 6;
+
     private final AtomicBoolean destroyed = new AtomicBoolean(false);
     private final MessageHandler sender;
-    private final Map<Long, Queue<Message>> seqMap = new HashMap<>();
+    private final Stripe[] stripes = new Stripe[1 << STRIPE_BITS];
     private final Messenger msn;
     private final static ThreadLocal<Boolean> isSending = ThreadLocal.withInitial(() -> Boolean.FALSE);
 
@@ -31,6 +36,9 @@ public class Sequencer implements MessageHandler, ReplyHandler {
     public Sequencer(MessageHandler sender, Messenger msn) {
         this.sender = sender;
         this.msn = msn;
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
     }
     public Sequencer(MessageHandler sender) {
         this(sender, null);
@@ -44,21 +52,28 @@ public class Sequencer implements MessageHandler, ReplyHandler {
      */
     public boolean destroy() {
         if (!destroyed.getAndSet(true)) {
-            synchronized (this) {
-                for (Queue<Message> queue : seqMap.values()) {
-                    if (queue != null) {
-                        for (Message msg : queue) {
-                            msg.discard();
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    for (Queue<Message> queue : stripe.seqMap.values()) {
+                        if (queue != null) {
+                            for (Message msg : queue) {
+                                msg.discard();
+                            }
                         }
                     }
+                    stripe.seqMap.clear();
                 }
-                seqMap.clear();
             }
             return true;
         }
         return false;
     }
 
+    /** Returns the stripe holding the state of the given sequencing id, spreading consecutive ids over all stripes. */
+    private Stripe stripeOf(long seqId) {
+        return stripes[(int) ((seqId * 0x9E3779B97F4A7C15L) >>> (Long.SIZE - STRIPE_BITS))];
+    }
+
     /**
      * Filter a message against the current sequencing state. If this method returns true, the message has been cleared
      * for sending and its sequencing information has been added to the state. If this method returns false, it has been
@@ -71,7 +86,9 @@ public class Sequencer implements MessageHandler, ReplyHandler {
     private boolean filter(Message msg) {
         long seqId = msg.getSequenceId();
         msg.setContext(seqId);
-        synchronized (this) {
+        Stripe stripe = stripeOf(seqId);
+        synchronized (stripe) {
+            Map<Long, Queue<Message>> seqMap = stripe.seqMap;
             if (seqMap.containsKey(seqId)) {
                 Queue<Message> queue = seqMap.computeIfAbsent(seqId, k -> new LinkedList<>());
                 if (msg.getTrace().shouldTrace(TraceLevel.COMPONENT)) {
@@ -153,7 +170,9 @@ public class Sequencer implements MessageHandler, ReplyHandler {
 
     private void sendNextInSequence(long seqId) {
         Message msg = null;
-        synchronized (this) {
+        Stripe stripe = stripeOf(seqId);
+        synchronized (stripe) {
+            Map<Long, Queue<Message>> seqMap = stripe.seqMap;
             Queue<Message> queue = seqMap.get(seqId);
             if (queue == null || queue.isEmpty()) {
                 seqMap.remove(seqId);
@@ -174,4 +193,9 @@ public class Sequencer implements MessageHandler, ReplyHandler {
         }
     }
 
+    /** Messages queued behind the one currently sent, for the sequencing ids mapping to a stripe. */
+    private static class Stripe {
+        final Map<Long, Queue<Message>> seqMap = new HashMap<>();
+    }
+
 }
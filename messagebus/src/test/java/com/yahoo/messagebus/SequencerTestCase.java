@@ -5,13 +5,17 @@ import com.yahoo.messagebus.test.SimpleMessage;
 import org.junit.jupiter.api.Test;
 
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -156,6 +160,44 @@ public class SequencerTestCase {
         messenger.destroy();
     }
 
+    @Test
+    void testConcurrentSending() throws InterruptedException {
+        int threads = 8, messagesPerThread = 10000, ids = 100;
+        CountDownLatch latch = new CountDownLatch(threads * messagesPerThread);
+        Map<Long, Message> inFlight = new ConcurrentHashMap<>();
+        AtomicInteger violations = new AtomicInteger();
+        ExecutorService replier = Executors.newFixedThreadPool(4);
+        MessageHandler sender = message -> {
+            if (inFlight.putIfAbsent(message.getSequenceId(), message) != null) violations.incrementAndGet();
+            replier.execute(() -> {
+                inFlight.remove(message.getSequenceId());
+                Reply reply = new EmptyReply();
+                reply.swapState(message);
+                reply.setMessage(message);
+                reply.popHandler().handleReply(reply);
+            });
+        };
+        Messenger messenger = new Messenger();
+        messenger.start();
+        Sequencer sequencer = new Sequencer(sender, messenger);
+
+        ExecutorService feeders = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            feeders.execute(() -> {
+                for (int i = 0; i < messagesPerThread; i++) {
+                    Message message = new MyMessage(true, i % ids);
+                    message.pushHandler(reply -> latch.countDown());
+                    sequencer.handleMessage(message);
+                }
+            });
+        }
+        assertTrue(latch.await(60, TimeUnit.SECONDS), "All messages should obtain a reply within 60s");
+        assertEquals(0, violations.get(), "At most one message per sequence id should be in flight");
+        feeders.shutdown();
+        replier.shutdown();
+        messenger.destroy();
+    }
+
     private static class TestQueue extends LinkedList<Routable> implements ReplyHandler {
 
         void checkReply(boolean hasSeqId, long seqId) {
@@ -31,6 +31,7 @@ public enum ContainerMetrics implements VespaMetrics {
     JDISC_THREAD_POOL_SIZE("jdisc.thread_pool.size", Unit.THREAD, "Size of the thread pool"),
     JDISC_THREAD_POOL_MAX_ALLOWED_SIZE("jdisc.thread_pool.max_allowed_size", Unit.THREAD, "The maximum allowed number of threads in the pool"),
     JDISC_THREAD_POOL_ACTIVE_THREADS("jdisc.thread_pool.active_threads", Unit.THREAD, "Number of threads that are active"),
+    JDISC_THREAD_POOL_TASK_START_DELAY("jdisc.thread_pool.task_start_delay", Unit.MILLISECOND, "Time from submitting a task to a virtual thread pool until its thread starts, which grows when carrier threads are pinned"),
     
     JDISC_DEACTIVATED_CONTAINERS_TOTAL("jdisc.deactivated_containers.total", Unit.ITEM, "JDISC Deactivated container instances"),
     JDISC_DEACTIVATED_CONTAINERS_WITH_RETAINED_REFS("jdisc.deactivated_containers.with_retained_refs.last", Unit.ITEM, "JDISC Deactivated container nodes with retained refs"),
@@ -146,6 +147,10 @@ public enum ContainerMetrics implements VespaMetrics {
     DOCUMENTS_TARGET_TOTAL("documents_target_total", Unit.DOCUMENT, "The target number of total documents to be evaluated when all data is in sync"),
     JDISC_RENDER_LATENCY("jdisc.render.latency", Unit.NANOSECOND, "The time used by the container to render responses"),
     QUERY_ITEM_COUNT("query_item_count", Unit.ITEM, "The number of query items (terms, phrases, etc.)"),
+    QUERY_RESULT_CACHE_HITS("query_result_cache.hits", Unit.OPERATION, "Number of queries answered from the container query result cache"),
+    QUERY_RESULT_CACHE_MISSES("query_result_cache.misses", Unit.OPERATION, "Number of cacheable queries which were not found in the container query result cache"),
+    QUERY_RESULT_CACHE_EVICTIONS("query_result_cache.evictions", Unit.OPERATION, "Number of results removed from the container query result cache due to size, age or content changes"),
+    QUERY_RESULT_CACHE_SIZE("query_result_cache.size", Unit.ITEM, "Number of results in the container query result cache"),
     DOCPROC_PROC_TIME("docproc.proctime", Unit.MILLISECOND, "Time spent processing document"),
     DOCPROC_DOCUMENTS("docproc.documents", Unit.DOCUMENT, "Number of processed documents"),
     
@@ -215,6 +220,8 @@ public enum ContainerMetrics implements VespaMetrics {
     EMBEDDER_SEQUENCE_LENGTH("embedder.sequence_length", Unit.ITEM, "Number of tokens in the input sequence"),
     EMBEDDER_REQUEST_COUNT("embedder.request.count", Unit.REQUEST, "Number of embedder API requests"),
     EMBEDDER_REQUEST_FAILURE_COUNT("embedder.request.failure.count", Unit.REQUEST, "Number of failed embedder API requests"),
+    EMBEDDER_CACHE_HIT_COUNT("embedder.cache.hit.count", Unit.OPERATION, "Number of embeddings served from the embedding cache shared between requests"),
+    EMBEDDER_CACHE_MISS_COUNT("embedder.cache.miss.count", Unit.OPERATION, "Number of embeddings not found in the embedding cache shared between requests"),
 
     EMBEDDER_BATCH_SIZE("embedder.batch.size", Unit.ITEM, "Number of items in each dispatched batch"),
     EMBEDDER_BATCH_QUEUE_TIME("embedder.batch.queue_time", Unit.MILLISECOND, "Time spent waiting in queue before batch dispatch"),
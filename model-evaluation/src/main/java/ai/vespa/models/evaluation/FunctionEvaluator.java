@@ -2,8 +2,10 @@
 package ai.vespa.models.evaluation;
 
 import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
+import com.yahoo.searchlib.rankingexpression.evaluation.CompiledExpression;
 import com.yahoo.searchlib.rankingexpression.evaluation.StringValue;
 import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.Value;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 
@@ -21,11 +23,16 @@ public class FunctionEvaluator {
 
     private final ExpressionFunction function;
     private final LazyArrayContext context;
+
+    /** The compiled version of the function, or null if it cannot be compiled */
+    private final CompiledExpression compiled;
+
     private boolean evaluated = false;
 
-    FunctionEvaluator(ExpressionFunction function, LazyArrayContext context) {
+    FunctionEvaluator(ExpressionFunction function, LazyArrayContext context, CompiledExpression compiled) {
         this.function = function;
         this.context = context;
+        this.compiled = compiled;
     }
 
     /**
@@ -105,10 +112,31 @@ public class FunctionEvaluator {
         function.argumentTypes().entrySet().stream().sorted(Map.Entry.comparingByKey())
                 .forEach(argument -> checkArgument(argument.getKey(), argument.getValue()));
         evaluated = true;
+        if (canEvaluateCompiled())
+            return Tensor.Builder.of(TensorType.empty).cell(compiled.evaluate(context)).build();
         evaluateOnnxModels();
         return function.getBody().evaluate(context).asTensor();
     }
 
+    /** Returns whether the compiled function is present, and all the values it references are bound to doubles */
+    private boolean canEvaluateCompiled() {
+        if (compiled == null) return false;
+        for (int index : compiled.referencedIndexes()) {
+            if ( ! isDouble(context.get(index))) return false;
+        }
+        return true;
+    }
+
+    private static boolean isDouble(Value value) {
+        if (value instanceof StringValue) return false;
+        try {
+            return value.type().equals(TensorType.empty) && value.hasDouble();
+        }
+        catch (RuntimeException e) { // the type of a referenced function cannot be resolved
+            return false;
+        }
+    }
+
     private void checkArgument(String name, TensorType type) {
         if (context.isMissing(name))
             throw new IllegalStateException("Missing argument '" + name + "': Must be bound to a value of type " + type);
@@ -3,6 +3,7 @@ package ai.vespa.models.evaluation;
 
 import com.yahoo.api.annotations.Beta;
 import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
+import com.yahoo.searchlib.rankingexpression.evaluation.CompiledExpression;
 import com.yahoo.searchlib.rankingexpression.evaluation.ContextIndex;
 import com.yahoo.searchlib.rankingexpression.evaluation.ExpressionOptimizer;
 import com.yahoo.stream.CustomCollectors;
@@ -17,6 +18,7 @@ import com.yahoo.searchlib.rankingexpression.transform.ExpressionTransformer;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -50,6 +52,9 @@ public class Model implements AutoCloseable {
     /** Context prototypes, indexed by function name (as all invocations of the same function share the same context prototype) */
     private final Map<String, LazyArrayContext> contextPrototypes;
 
+    /** Compiled versions of the free functions which can be compiled, indexed by function name */
+    private final Map<String, CompiledExpression> compiledFunctions;
+
     private final ExpressionOptimizer expressionOptimizer = new ExpressionOptimizer();
 
     private final List<Runnable> closeActions;
@@ -175,6 +180,7 @@ public class Model implements AutoCloseable {
                                      .map(f -> optimize(f.getValue(),
                                                         contextPrototypes.get(f.getKey().functionName())))
                                      .collect(Collectors.toList()));
+        this.compiledFunctions = compile(this.functions, contextPrototypes);
 
         this.publicFunctions = functions.values().stream()
                 .filter(f -> !f.getName().startsWith(INTERMEDIATE_OPERATION_FUNCTION_PREFIX)).toList();
@@ -190,6 +196,20 @@ public class Model implements AutoCloseable {
         return function;
     }
 
+    /** Returns compiled versions of those of the given functions which are scalar and do not use ONNX models */
+    private static Map<String, CompiledExpression> compile(List<ExpressionFunction> functions,
+                                                           Map<String, LazyArrayContext> contexts) {
+        Map<String, CompiledExpression> compiled = new HashMap<>();
+        for (ExpressionFunction function : functions) {
+            LazyArrayContext context = contexts.get(function.getName());
+            if ( ! context.onnxModels().isEmpty()) continue;
+            if ( ! function.argumentTypes().values().stream().allMatch(TensorType.empty::equals)) continue;
+            CompiledExpression.compile(function.getBody().getRoot(), context)
+                              .ifPresent(compiledFunction -> compiled.put(function.getName(), compiledFunction));
+        }
+        return Map.copyOf(compiled);
+    }
+
     public String name() { return name; }
 
     /**
@@ -292,7 +312,9 @@ public class Model implements AutoCloseable {
 
     /** Returns a single-use evaluator of a function */
     private FunctionEvaluator evaluatorOf(ExpressionFunction function) {
-        return new FunctionEvaluator(function, requireContextPrototype(function.getName()).copy());
+        return new FunctionEvaluator(function,
+                                     requireContextPrototype(function.getName()).copy(),
+                                     compiledFunctions.get(function.getName()));
     }
 
     private void throwUndeterminedFunction(String message) {
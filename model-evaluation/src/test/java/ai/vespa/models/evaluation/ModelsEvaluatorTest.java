@@ -61,6 +61,18 @@ public class ModelsEvaluatorTest {
         }
     }
 
+    @Test
+    public void testScalarFunctionEvaluation() {
+        ExpressionFunction function = new ExpressionFunction("test", RankingExpression.from("if (a > b, a * 2, b) + max(a, 1) - c"));
+        function = function.withArgument("a", TensorType.empty).withArgument("b", TensorType.empty);
+        Model model = new Model("test-model", List.of(function));
+
+        assertEquals(13.0, model.evaluatorOf("test").bind("a", 4).bind("b", 3).bind("c", -1).evaluate().asDouble(), delta);
+        assertEquals(9.0, model.evaluatorOf("test").bind("a", 3).bind("b", 7).bind("c", 1).evaluate().asDouble(), delta);
+        assertTrue(Double.isNaN(model.evaluatorOf("test").bind("a", 3).bind("b", 7).bind("c", Double.NaN).evaluate().asDouble()));
+        assertEquals(Tensor.from(10.0), model.evaluatorOf("test").bind("a", 3).bind("b", 7).bind("c", 0).evaluate());
+    }
+
     @Test
     public void testBindingValidation() {
         List<ExpressionFunction> functions = new ArrayList<>();
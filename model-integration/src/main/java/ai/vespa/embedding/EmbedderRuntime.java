@@ -4,15 +4,22 @@ package ai.vespa.embedding;
 
 import ai.vespa.metrics.ContainerMetrics;
 import com.yahoo.component.annotation.Inject;
+import com.yahoo.embedding.EmbeddingCacheConfig;
 import com.yahoo.language.Language;
 import com.yahoo.language.process.Embedder;
 import com.yahoo.metrics.simple.Counter;
 import com.yahoo.metrics.simple.Gauge;
 import com.yahoo.metrics.simple.MetricReceiver;
 import com.yahoo.metrics.simple.Point;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
 
+import java.util.Collections;
 import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * @author bjorncs
@@ -23,14 +30,29 @@ public class EmbedderRuntime implements Embedder.Runtime {
     private final Gauge sequenceLength;
     private final Counter requestCount;
     private final Counter requestFailureCount;
+    private final Counter cacheHitCount;
+    private final Counter cacheMissCount;
+    private final EmbeddingCache cache;
+    private final boolean cacheDocumentEmbeddings;
     private final Map<MetricDimensions, Point> metricPointCache = new ConcurrentHashMap<>();
+    /** Numbers identifying the embedders using the cache, which is shared by all embedders, also across reconfigs */
+    private final Map<Embedder, Long> embedderNumbers = Collections.synchronizedMap(new WeakHashMap<>());
+    private final AtomicLong nextEmbedderNumber = new AtomicLong();
 
-    @Inject
     public EmbedderRuntime(MetricReceiver metrics) {
+        this(metrics, new EmbeddingCacheConfig.Builder().maxBytes(0).build());
+    }
+
+    @Inject
+    public EmbedderRuntime(MetricReceiver metrics, EmbeddingCacheConfig cacheConfig) {
         embedLatency = metrics.declareGauge(ContainerMetrics.EMBEDDER_LATENCY.baseName());
         sequenceLength = metrics.declareGauge(ContainerMetrics.EMBEDDER_SEQUENCE_LENGTH.baseName());
         requestCount = metrics.declareCounter(ContainerMetrics.EMBEDDER_REQUEST_COUNT.baseName());
         requestFailureCount = metrics.declareCounter(ContainerMetrics.EMBEDDER_REQUEST_FAILURE_COUNT.baseName());
+        cacheHitCount = metrics.declareCounter(ContainerMetrics.EMBEDDER_CACHE_HIT_COUNT.baseName());
+        cacheMissCount = metrics.declareCounter(ContainerMetrics.EMBEDDER_CACHE_MISS_COUNT.baseName());
+        cache = new EmbeddingCache(cacheConfig.maxBytes());
+        cacheDocumentEmbeddings = cacheConfig.cacheDocumentEmbeddings();
     }
 
     @Override
@@ -53,6 +75,26 @@ public class EmbedderRuntime implements Embedder.Runtime {
         requestFailureCount.add(1, failureMetricPoint(ctx, statusCode));
     }
 
+    @Override
+    public Tensor computeCachedEmbeddingIfAbsent(Embedder embedder, String text, Embedder.Context ctx, TensorType type,
+                                                 Supplier<Tensor> embedding) {
+        if ( ! cache.isEnabled()) return embedding.get();
+        if ( ! cacheDocumentEmbeddings && ctx.getDestinationType() != Embedder.Context.DestinationType.QUERY)
+            return embedding.get(); // Embeddings of documents rarely repeat, and would only evict those of queries
+
+        long embedderNumber = embedderNumbers.computeIfAbsent(embedder, __ -> nextEmbedderNumber.getAndIncrement());
+        var key = EmbeddingCache.Key.of(embedderNumber, text, ctx, type);
+        Tensor cached = cache.get(key);
+        if (cached != null) {
+            cacheHitCount.add(1, metricPoint(ctx));
+            return cached;
+        }
+        cacheMissCount.add(1, metricPoint(ctx));
+        Tensor computed = embedding.get();
+        cache.put(key, computed);
+        return computed;
+    }
+
     private Point metricPoint(Embedder.Context ctx) {
         var dimensions = new MetricDimensions(ctx.getEmbedderId(), ctx.getLanguage(), ctx.getDestination());
         return metricPointCache.computeIfAbsent(
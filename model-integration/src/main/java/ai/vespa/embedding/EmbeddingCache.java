@@ -0,0 +1,200 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.embedding;
+
+import com.yahoo.language.Language;
+import com.yahoo.language.process.Embedder;
+import com.yahoo.language.process.InvocationContext.DestinationType;
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A size bounded cache of embeddings shared between requests.
+ * <p>
+ * Entries are admitted with a W-TinyLFU policy: New entries enter a small LRU window, and entries evicted from the
+ * window only replace the least recently used entry of the main LRU region if they have been requested
+ * more frequently, as estimated by a count-min sketch with periodic aging. This keeps the cache filled by the
+ * frequent queries of a skewed query distribution rather than by whatever was requested most recently.
+ * <p>
+ * This is multithread safe.
+ */
+final class EmbeddingCache {
+
+    /** The fraction of the memory budget used for the admission window */
+    private static final double windowFraction = 0.01;
+
+    /** Estimated memory usage of an entry in addition to the text and tensor cells */
+    private static final long entryOverheadBytes = 200;
+
+    private final long maxBytes;
+    private final long maxWindowBytes;
+    private final long maxMainBytes;
+
+    private final LinkedHashMap<Key, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<Key, Entry> main = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch;
+    private long windowBytes = 0;
+    private long mainBytes = 0;
+
+    EmbeddingCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+        this.maxWindowBytes = (long)(maxBytes * windowFraction);
+        this.maxMainBytes = maxBytes - maxWindowBytes;
+        this.sketch = new FrequencySketch((int)Math.min(1 << 22, Math.max(1024, maxBytes / 1024)));
+    }
+
+    /** Returns whether this caches anything */
+    boolean isEnabled() { return maxBytes > 0; }
+
+    /** Returns the cached embedding for the given key, or null if it is not present */
+    synchronized Tensor get(Key key) {
+        sketch.increment(key.hashCode());
+        Entry entry = window.get(key);
+        if (entry == null)
+            entry = main.get(key);
+        return entry == null ? null : entry.embedding;
+    }
+
+    /** Adds an embedding to this, if it is small enough and frequently enough requested to be retained */
+    synchronized void put(Key key, Tensor embedding) {
+        Entry entry = new Entry(key, embedding, sizeOf(key, embedding));
+        if (entry.bytes > maxMainBytes) return;
+        remove(key);
+        window.put(key, entry);
+        windowBytes += entry.bytes;
+        while (windowBytes > maxWindowBytes)
+            admitToMain(removeEldest(window));
+    }
+
+    /** Returns the number of bytes used by the entries of this */
+    synchronized long bytes() { return windowBytes + mainBytes; }
+
+    /** Returns the number of entries in this */
+    synchronized int size() { return window.size() + main.size(); }
+
+    private void admitToMain(Entry candidate) {
+        windowBytes -= candidate.bytes;
+        if (mainBytes + candidate.bytes > maxMainBytes) {
+            Entry victim = main.values().iterator().next();
+            if (sketch.frequency(candidate.key.hashCode()) <= sketch.frequency(victim.key.hashCode()))
+                return; // rejected
+            while (mainBytes + candidate.bytes > maxMainBytes)
+                mainBytes -= removeEldest(main).bytes;
+        }
+        main.put(candidate.key, candidate);
+        mainBytes += candidate.bytes;
+    }
+
+    private void remove(Key key) {
+        Entry entry = window.remove(key);
+        if (entry != null)
+            windowBytes -= entry.bytes;
+        entry = main.remove(key);
+        if (entry != null)
+            mainBytes -= entry.bytes;
+    }
+
+    private static Entry removeEldest(Map<Key, Entry> entries) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        Entry eldest = iterator.next();
+        iterator.remove();
+        return eldest;
+    }
+
+    /** Returns the estimated memory usage of the given entry */
+    static long sizeOf(Key key, Tensor embedding) {
+        long cellBytes = embedding.type().valueType() == TensorType.Value.DOUBLE ? 8 : 4;
+        if ( ! (embedding instanceof IndexedTensor))
+            cellBytes += 32; // the cell address
+        return entryOverheadBytes + 2L * key.text().length() + embedding.size() * cellBytes;
+    }
+
+    /** The key of an embedding, where embedder is a number identifying the embedder instance computing it */
+    record Key(long embedder, String text, Language language, DestinationType destinationType, TensorType type) {
+
+        static Key of(long embedder, String text, Embedder.Context context, TensorType type) {
+            return new Key(embedder, text, context.getLanguage(), context.getDestinationType(), type);
+        }
+
+    }
+
+    private record Entry(Key key, Tensor embedding, long bytes) { }
+
+    /**
+     * A count-min sketch of 4-bit counters estimating how often keys have been requested.
+     * All counters are halved when the number of increments reaches a sample size proportional to the
+     * size of the sketch, such that the estimates favor recent popularity.
+     */
+    static final class FrequencySketch {
+
+        private static final long[] seeds = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L,
+                                              0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+        private static final long resetMask = 0x7777777777777777L;
+
+        private final long[] table; // 16 counters per long
+        private final int tableMask;
+        private final int sampleSize;
+        private int increments = 0;
+
+        /** Creates a sketch sized for estimating frequencies of about the given number of distinct keys */
+        FrequencySketch(int expectedKeys) {
+            int size = Integer.highestOneBit(Math.max(16, expectedKeys) - 1) << 1;
+            table = new long[size / 4];
+            tableMask = table.length - 1;
+            sampleSize = 10 * size;
+        }
+
+        /** Returns the estimated number of times the given hash has been incremented, at most 15 */
+        int frequency(int hash) {
+            hash = spread(hash);
+            int frequency = Integer.MAX_VALUE;
+            for (int depth = 0; depth < 4; depth++)
+                frequency = Math.min(frequency, (int)((table[indexOf(hash, depth)] >>> offsetOf(hash, depth)) & 0xfL));
+            return frequency;
+        }
+
+        /** Increments the frequency of the given hash */
+        void increment(int hash) {
+            hash = spread(hash);
+            boolean incremented = false;
+            for (int depth = 0; depth < 4; depth++) {
+                int index = indexOf(hash, depth);
+                int offset = offsetOf(hash, depth);
+                if (((table[index] >>> offset) & 0xfL) < 15) {
+                    table[index] += 1L << offset;
+                    incremented = true;
+                }
+            }
+            if (incremented && ++increments == sampleSize)
+                reset();
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++)
+                table[i] = (table[i] >>> 1) & resetMask;
+            increments /= 2;
+        }
+
+        private static int spread(int hash) {
+            hash *= 0x9e3779b9;
+            return hash ^ (hash >>> 16);
+        }
+
+        private int indexOf(int hash, int depth) {
+            long h = (hash + seeds[depth]) * seeds[depth];
+            h += h >>> 32;
+            return (int)h & tableMask;
+        }
+
+        /** Returns the bit offset of the counter for the given hash and depth, which is in a separate quarter per depth */
+        private static int offsetOf(int hash, int depth) {
+            return ((depth << 2) + ((hash >>> (depth << 3)) & 3)) << 2;
+        }
+
+    }
+
+}
@@ -0,0 +1,236 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.modelintegration.evaluator;
+
+import com.yahoo.concurrent.DynamicBatcher;
+import com.yahoo.tensor.DimensionSizes;
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Combines concurrent evaluations of a model into single evaluations over a batch of inputs,
+ * such that the runtime can use wider matrix operations than a single sequence allows.
+ * <p>
+ * Evaluations are batched when all inputs are indexed tensors of size 1 in the batch dimension "d0",
+ * and the model accepts any size in that dimension. If the model takes an attention mask, inputs of different
+ * sizes are padded with zeros to the largest size in the batch, and output dimensions which the model leaves unbound,
+ * like the padded input dimensions, are truncated back to the size of each evaluation. Otherwise only inputs of the
+ * same shape are batched together.
+ * All other evaluations are delegated directly to the wrapped evaluator.
+ *
+ * @see DynamicBatcher
+ */
+class BatchingOnnxEvaluator implements OnnxEvaluator {
+
+    private static final String batchDimension = "d0";
+
+    private final OnnxEvaluator evaluator;
+    private final boolean padInputs;
+    private final Map<String, Set<String>> paddedOutputDimensions;
+    private final DynamicBatcher<BatchKey, Evaluation, Map<String, Tensor>> batcher;
+
+    BatchingOnnxEvaluator(OnnxEvaluator evaluator, int maxBatchSize, Duration maxDelay) {
+        this.evaluator = Objects.requireNonNull(evaluator);
+        this.padInputs = evaluator.getInputInfo().keySet().stream().anyMatch(name -> name.contains("attention_mask"));
+        this.paddedOutputDimensions = paddedOutputDimensions(evaluator);
+        this.batcher = new DynamicBatcher<>(maxBatchSize, maxDelay, this::evaluateBatch);
+    }
+
+    @Override
+    public Tensor evaluate(Map<String, Tensor> inputs, String output, Duration timeout) {
+        if ( ! isBatchable(inputs)) return evaluator.evaluate(inputs, output, timeout);
+        return batcher.execute(keyOf(inputs, output), new Evaluation(inputs, timeout)).get(output);
+    }
+
+    @Override
+    public Map<String, Tensor> evaluate(Map<String, Tensor> inputs, Duration timeout) {
+        if ( ! isBatchable(inputs)) return evaluator.evaluate(inputs, timeout);
+        return batcher.execute(keyOf(inputs, null), new Evaluation(inputs, timeout));
+    }
+
+    @Override
+    public Map<String, IdAndType> getInputs() { return evaluator.getInputs(); }
+
+    @Override
+    public Map<String, IdAndType> getOutputs() { return evaluator.getOutputs(); }
+
+    @Override
+    public Map<String, TensorType> getInputInfo() { return evaluator.getInputInfo(); }
+
+    @Override
+    public Map<String, TensorType> getOutputInfo() { return evaluator.getOutputInfo(); }
+
+    @Override
+    public void close() { evaluator.close(); }
+
+    private boolean isBatchable(Map<String, Tensor> inputs) {
+        if (inputs.isEmpty()) return false;
+        for (var input : inputs.entrySet()) {
+            TensorType modelType = evaluator.getInputInfo().get(input.getKey());
+            if (modelType == null || modelType.dimension(batchDimension).flatMap(d -> d.size()).isPresent()) return false;
+            if ( ! (input.getValue() instanceof IndexedTensor tensor)) return false;
+            if (tensor.type().dimensions().isEmpty() || ! tensor.type().dimensions().get(0).name().equals(batchDimension)) return false;
+            if (tensor.dimensionSizes().size(0) != 1) return false;
+        }
+        return true;
+    }
+
+    private BatchKey keyOf(Map<String, Tensor> inputs, String output) {
+        Map<String, TensorType> types = new HashMap<>();
+        for (var input : inputs.entrySet())
+            types.put(input.getKey(), padInputs ? unbound(input.getValue().type()) : input.getValue().type());
+        return new BatchKey(output, types);
+    }
+
+    private List<Map<String, Tensor>> evaluateBatch(BatchKey key, List<Evaluation> evaluations) {
+        if (evaluations.size() == 1)
+            return List.of(evaluate(key, evaluations.get(0).inputs(), evaluations.get(0).timeout()));
+
+        Map<String, long[]> batchSizes = new HashMap<>(); // the padded size of each input dimension
+        for (var evaluation : evaluations) {
+            for (var input : evaluation.inputs().values())
+                maxSizes(((IndexedTensor)input).dimensionSizes(), input.type(), batchSizes);
+        }
+
+        Map<String, Tensor> batchInputs = new HashMap<>();
+        for (var name : key.inputTypes().keySet()) {
+            TensorType inputType = evaluations.get(0).inputs().get(name).type();
+            long[] shape = inputType.dimensions().stream().mapToLong(d -> batchSizes.get(d.name())[0]).toArray();
+            shape[0] = evaluations.size();
+            var builder = IndexedTensor.Builder.of(typeOf(inputType, shape));
+            for (int i = 0; i < evaluations.size(); i++) {
+                var input = (IndexedTensor)evaluations.get(i).inputs().get(name);
+                copy(input.shape(), input, 0, builder, i);
+            }
+            batchInputs.put(name, builder.build());
+        }
+
+        Map<String, Tensor> batchOutputs = evaluate(key, batchInputs, minimumTimeout(evaluations));
+
+        List<Map<String, Tensor>> results = new ArrayList<>(evaluations.size());
+        for (int i = 0; i < evaluations.size(); i++) {
+            Map<String, long[]> sizes = new HashMap<>();
+            for (var input : evaluations.get(i).inputs().values())
+                maxSizes(((IndexedTensor)input).dimensionSizes(), input.type(), sizes);
+            Map<String, Tensor> outputs = new HashMap<>();
+            for (var output : batchOutputs.entrySet())
+                outputs.put(output.getKey(), slice((IndexedTensor)output.getValue(), i, sizes,
+                                                   paddedOutputDimensions.getOrDefault(output.getKey(), Set.of())));
+            results.add(outputs);
+        }
+        return results;
+    }
+
+    private Map<String, Tensor> evaluate(BatchKey key, Map<String, Tensor> inputs, Duration timeout) {
+        if (key.output() == null) return evaluator.evaluate(inputs, timeout);
+        return Map.of(key.output(), evaluator.evaluate(inputs, key.output(), timeout));
+    }
+
+    /**
+     * Returns the cells of the given batch index of an output, with the given padded dimensions
+     * truncated to the size of the inputs of this evaluation.
+     */
+    private static IndexedTensor slice(IndexedTensor output, int batchIndex,
+                                       Map<String, long[]> sizes, Set<String> paddedDimensions) {
+        var dimensions = output.type().dimensions();
+        long[] shape = output.shape();
+        shape[0] = 1;
+        for (int i = 1; i < shape.length; i++) {
+            long[] size = sizes.get(dimensions.get(i).name());
+            if (size != null && paddedDimensions.contains(dimensions.get(i).name()))
+                shape[i] = Math.min(shape[i], size[0]);
+        }
+        var builder = IndexedTensor.Builder.of(typeOf(output.type(), shape));
+        copy(shape, output, batchIndex, builder, 0);
+        return builder.build();
+    }
+
+    /** Copies a block of the given shape from the source to the target, at the given indexes in the batch dimension */
+    private static void copy(long[] shape, IndexedTensor source, long sourceBatchIndex,
+                             IndexedTensor.Builder target, long targetBatchIndex) {
+        long[] indexes = new long[shape.length];
+        long[] sourceIndexes = new long[shape.length];
+        long[] targetIndexes = new long[shape.length];
+        long size = 1;
+        for (long dimensionSize : shape)
+            size *= dimensionSize;
+        for (long cell = 0; cell < size; cell++) {
+            System.arraycopy(indexes, 0, sourceIndexes, 0, indexes.length);
+            System.arraycopy(indexes, 0, targetIndexes, 0, indexes.length);
+            sourceIndexes[0] += sourceBatchIndex;
+            targetIndexes[0] += targetBatchIndex;
+            target.cell(source.get(sourceIndexes), targetIndexes);
+            for (int d = indexes.length - 1; d >= 0 && ++indexes[d] == shape[d]; d--)
+                indexes[d] = 0;
+        }
+    }
+
+    /**
+     * Returns the dimensions of each output, by both its ONNX name and its identifier, which may be padded:
+     * Those the model declares as unbound, and which have the name of an unbound input dimension.
+     * Dimensions of a fixed size, such as the hidden size of a pooled embedding, are never truncated,
+     * even if their size happens to equal the padded size of the inputs.
+     */
+    private static Map<String, Set<String>> paddedOutputDimensions(OnnxEvaluator evaluator) {
+        Set<String> unboundInputDimensions = new HashSet<>();
+        for (var inputType : evaluator.getInputInfo().values())
+            for (var dimension : inputType.dimensions())
+                if (dimension.size().isEmpty()) unboundInputDimensions.add(dimension.name());
+
+        Map<String, Set<String>> padded = new HashMap<>();
+        for (var output : evaluator.getOutputs().entrySet()) {
+            Set<String> dimensions = new HashSet<>();
+            for (var dimension : output.getValue().type().dimensions())
+                if (dimension.size().isEmpty() && unboundInputDimensions.contains(dimension.name()))
+                    dimensions.add(dimension.name());
+            padded.put(output.getKey(), Set.copyOf(dimensions));
+            padded.put(output.getValue().id(), Set.copyOf(dimensions));
+        }
+        return Map.copyOf(padded);
+    }
+
+    private static void maxSizes(DimensionSizes sizes, TensorType type, Map<String, long[]> maxSizes) {
+        for (int i = 0; i < sizes.dimensions(); i++) {
+            long[] max = maxSizes.computeIfAbsent(type.dimensions().get(i).name(), __ -> new long[1]);
+            max[0] = Math.max(max[0], sizes.size(i));
+        }
+    }
+
+    private static TensorType typeOf(TensorType type, long[] shape) {
+        var builder = new TensorType.Builder(type.valueType());
+        for (int i = 0; i < shape.length; i++)
+            builder.indexed(type.dimensions().get(i).name(), shape[i]);
+        return builder.build();
+    }
+
+    private static TensorType unbound(TensorType type) {
+        var builder = new TensorType.Builder(type.valueType());
+        for (var dimension : type.dimensions())
+            builder.indexed(dimension.name());
+        return builder.build();
+    }
+
+    private static Duration minimumTimeout(List<Evaluation> evaluations) {
+        Duration minimum = null;
+        for (var evaluation : evaluations) {
+            if (evaluation.timeout() != null && (minimum == null || evaluation.timeout().compareTo(minimum) < 0))
+                minimum = evaluation.timeout();
+        }
+        return minimum;
+    }
+
+    /** Evaluations are batched together if they have the same key */
+    private record BatchKey(String output, Map<String, TensorType> inputTypes) { }
+
+    private record Evaluation(Map<String, Tensor> inputs, Duration timeout) { }
+
+}
@@ -51,7 +51,7 @@ public class EmbeddedOnnxRuntime extends AbstractComponent implements OnnxRuntim
     }
 
     public OnnxEvaluator evaluatorOf(byte[] model, OnnxEvaluatorOptions options) {
-        return new EmbeddedOnnxEvaluator(obtainSession(ModelPathOrData.of(model), overrideOptions(options)), ortEnvironment());
+        return withBatching(new EmbeddedOnnxEvaluator(obtainSession(ModelPathOrData.of(model), overrideOptions(options)), ortEnvironment()), options);
     }
 
     @Override
@@ -61,7 +61,7 @@ public class EmbeddedOnnxRuntime extends AbstractComponent implements OnnxRuntim
 
     @Override
     public OnnxEvaluator evaluatorOf(String modelPath, OnnxEvaluatorOptions options) {
-        return new EmbeddedOnnxEvaluator(obtainSession(ModelPathOrData.of(modelPath), overrideOptions(options)), ortEnvironment());
+        return withBatching(new EmbeddedOnnxEvaluator(obtainSession(ModelPathOrData.of(modelPath), overrideOptions(options)), ortEnvironment()), options);
     }
 
     @Override
@@ -167,6 +167,14 @@ public class EmbeddedOnnxRuntime extends AbstractComponent implements OnnxRuntim
         }
     }
 
+    /** Returns the given evaluator, wrapped to batch concurrent evaluations if requested by the options */
+    private static OnnxEvaluator withBatching(OnnxEvaluator evaluator, OnnxEvaluatorOptions options) {
+        if (options.batchingMaxSize() <= 1) return evaluator;
+        var maxDelay = options.batchingMaxDelay().filter(delay -> delay.isPositive());
+        if (maxDelay.isEmpty()) return evaluator;
+        return new BatchingOnnxEvaluator(evaluator, options.batchingMaxSize(), maxDelay.get());
+    }
+
     private OnnxEvaluatorOptions overrideOptions(OnnxEvaluatorOptions vespaOpts) {
         // Set GPU device required if GPU requested and GPUs are available on system
         if (gpusAvailable > 0 && vespaOpts.requestingGpu() && !vespaOpts.gpuDeviceRequired()) {
@@ -0,0 +1,159 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.embedding;
+
+import com.yahoo.embedding.EmbeddingCacheConfig;
+import com.yahoo.language.Language;
+import com.yahoo.language.process.Embedder;
+import com.yahoo.metrics.simple.MetricReceiver;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EmbeddingCacheTest {
+
+    private static final TensorType type = TensorType.fromSpec("tensor<float>(x[4])");
+    private static final Tensor embedding = Tensor.from(type, "[1, 2, 3, 4]");
+
+    @Test
+    void testCacheIsBoundedByMemory() {
+        long entryBytes = EmbeddingCache.sizeOf(key("text 00"), embedding);
+        EmbeddingCache cache = new EmbeddingCache(entryBytes * 100);
+        for (int i = 0; i < 1000; i++) {
+            EmbeddingCache.Key key = key("text " + i);
+            cache.get(key);
+            cache.put(key, embedding);
+            assertTrue(cache.bytes() <= entryBytes * 101);
+        }
+        assertTrue(cache.size() > 50);
+    }
+
+    @Test
+    void testFrequentEmbeddingsAreRetainedWhenFloodedByRareOnes() {
+        EmbeddingCache cache = new EmbeddingCache(EmbeddingCache.sizeOf(key("frequent 0"), embedding) * 20);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 10; i++) {
+                EmbeddingCache.Key key = key("frequent " + i);
+                if (cache.get(key) == null)
+                    cache.put(key, embedding);
+            }
+        }
+        for (int i = 0; i < 1000; i++) {
+            EmbeddingCache.Key key = key("rare " + i);
+            cache.get(key);
+            cache.put(key, embedding);
+        }
+        for (int i = 0; i < 10; i++)
+            assertNotNull(cache.get(key("frequent " + i)), "frequent " + i + " is retained");
+        assertNull(cache.get(key("rare 999")));
+    }
+
+    @Test
+    void testTooLargeEmbeddingsAreNotCached() {
+        EmbeddingCache cache = new EmbeddingCache(100);
+        cache.put(key("text"), embedding);
+        assertNull(cache.get(key("text")));
+        assertEquals(0, cache.bytes());
+    }
+
+    @Test
+    void testFrequencySketch() {
+        var sketch = new EmbeddingCache.FrequencySketch(64);
+        for (int i = 0; i < 5; i++)
+            sketch.increment(42);
+        assertEquals(5, sketch.frequency(42));
+        for (int i = 0; i < 20; i++)
+            sketch.increment(7);
+        assertEquals(15, sketch.frequency(7));
+        for (int i = 0; i < 10 * 64 + 300; i++)
+            sketch.increment(1000 + i);
+        assertTrue(sketch.frequency(7) < 15, "Counters are halved after the sample size is reached");
+    }
+
+    @Test
+    void testRuntimeCachesEmbeddingsAcrossRequests() {
+        var runtime = new EmbedderRuntime(MetricReceiver.nullImplementation,
+                                          new EmbeddingCacheConfig.Builder().maxBytes(1 << 20).build());
+        var embedder = new CountingEmbedder(runtime, embedding);
+        for (int i = 0; i < 3; i++) {
+            var context = new Embedder.Context("query(q)").setEmbedderId("hf");
+            assertEquals(embedding, embedder.embed("hello", context, type));
+        }
+        assertEquals(1, embedder.evaluations);
+    }
+
+    @Test
+    void testEmbedderInstanceIsPartOfTheKey() {
+        var runtime = new EmbedderRuntime(MetricReceiver.nullImplementation,
+                                          new EmbeddingCacheConfig.Builder().maxBytes(1 << 20).build());
+        var embedder = new CountingEmbedder(runtime, embedding);
+        var otherEmbedding = Tensor.from(type, "[5, 6, 7, 8]");
+        var otherEmbedder = new CountingEmbedder(runtime, otherEmbedding);
+        var context = new Embedder.Context("query(q)"); // No embedder id, which is then "unknown" for both
+        assertEquals(embedding, embedder.embed("hello", context, type));
+        assertEquals(otherEmbedding, otherEmbedder.embed("hello", context, type));
+        assertEquals(embedding, embedder.embed("hello", context, type));
+        assertEquals(otherEmbedding, otherEmbedder.embed("hello", context, type));
+        assertEquals(1, embedder.evaluations);
+        assertEquals(1, otherEmbedder.evaluations);
+    }
+
+    @Test
+    void testRuntimeCachesDocumentEmbeddingsOnlyWhenConfigured() {
+        var documentContext = new Embedder.Context("doc.field").setEmbedderId("hf");
+        var embedder = new CountingEmbedder(new EmbedderRuntime(MetricReceiver.nullImplementation,
+                                                                new EmbeddingCacheConfig.Builder().maxBytes(1 << 20).build()),
+                                            embedding);
+        embedder.embed("hello", documentContext, type);
+        embedder.embed("hello", documentContext, type);
+        assertEquals(2, embedder.evaluations);
+
+        var cachingEmbedder = new CountingEmbedder(new EmbedderRuntime(MetricReceiver.nullImplementation,
+                                                                       new EmbeddingCacheConfig.Builder().maxBytes(1 << 20)
+                                                                                                         .cacheDocumentEmbeddings(true).build()),
+                                                   embedding);
+        cachingEmbedder.embed("hello", documentContext, type);
+        cachingEmbedder.embed("hello", documentContext, type);
+        assertEquals(1, cachingEmbedder.evaluations);
+        cachingEmbedder.embed("hello", new Embedder.Context("query(q)").setEmbedderId("hf"), type);
+        assertEquals(2, cachingEmbedder.evaluations, "Destination type is part of the key");
+    }
+
+    private static EmbeddingCache.Key key(String text) {
+        return new EmbeddingCache.Key(0, text, Language.ENGLISH, Embedder.Context.DestinationType.QUERY, type);
+    }
+
+    /** An embedder which returns a fixed embedding through the cache of the given runtime */
+    private static class CountingEmbedder implements Embedder {
+
+        private final Embedder.Runtime runtime;
+        private final Tensor embedding;
+        int evaluations = 0;
+
+        CountingEmbedder(Embedder.Runtime runtime, Tensor embedding) {
+            this.runtime = runtime;
+            this.embedding = embedding;
+        }
+
+        @Override
+        public List<Integer> embed(String text, Context context) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Tensor embed(String text, Context context, TensorType tensorType) {
+            return runtime.computeCachedEmbeddingIfAbsent(this, text, context, tensorType, () -> {
+                evaluations++;
+                return embedding;
+            });
+        }
+
+    }
+
+}
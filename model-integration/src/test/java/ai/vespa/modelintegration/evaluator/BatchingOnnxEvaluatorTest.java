@@ -0,0 +1,168 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.modelintegration.evaluator;
+
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+public class BatchingOnnxEvaluatorTest {
+
+    private static final TensorType sequenceType = TensorType.fromSpec("tensor<float>(d0[],d1[])");
+
+    @Test
+    public void testConcurrentSequencesOfDifferentLengthsArePaddedIntoOneBatch() throws Exception {
+        var model = new TokenModel(Map.of("input_ids", sequenceType, "attention_mask", sequenceType));
+        var evaluator = new BatchingOnnxEvaluator(model, 4, Duration.ofSeconds(60));
+        List<Map<String, Tensor>> inputs = List.of(inputs(1, 2, 3), inputs(4), inputs(5, 6, 7, 8, 9), inputs(10, 11));
+        ExecutorService executor = Executors.newFixedThreadPool(inputs.size());
+        try {
+            List<Future<Map<String, Tensor>>> futures = new ArrayList<>();
+            for (var input : inputs)
+                futures.add(executor.submit(() -> evaluator.evaluate(input)));
+            List<Map<String, Tensor>> results = new ArrayList<>();
+            for (var future : futures)
+                results.add(future.get());
+            assertEquals(List.of(4L), model.batchSizes);
+            for (int i = 0; i < inputs.size(); i++)
+                assertEquals(model.evaluate(inputs.get(i)), results.get(i));
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testSequencesAreOnlyBatchedWithEqualShapesWithoutAttentionMask() throws Exception {
+        var model = new TokenModel(Map.of("input_ids", sequenceType));
+        var evaluator = new BatchingOnnxEvaluator(model, 2, Duration.ofSeconds(60));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            var shortSequences = List.of(executor.submit(() -> evaluator.evaluate(Map.of("input_ids", sequence(1, 2)), "tokens", null)),
+                                         executor.submit(() -> evaluator.evaluate(Map.of("input_ids", sequence(3, 4)), "tokens", null)));
+            var longSequences = List.of(executor.submit(() -> evaluator.evaluate(Map.of("input_ids", sequence(1, 2, 3)), "tokens", null)),
+                                        executor.submit(() -> evaluator.evaluate(Map.of("input_ids", sequence(4, 5, 6)), "tokens", null)));
+            assertEquals(Tensor.from("tensor<float>(d0[1],d1[2]):[[2, 4]]"), shortSequences.get(0).get());
+            assertEquals(Tensor.from("tensor<float>(d0[1],d1[2]):[[6, 8]]"), shortSequences.get(1).get());
+            assertEquals(Tensor.from("tensor<float>(d0[1],d1[3]):[[2, 4, 6]]"), longSequences.get(0).get());
+            assertEquals(Tensor.from("tensor<float>(d0[1],d1[3]):[[8, 10, 12]]"), longSequences.get(1).get());
+        }
+        finally {
+            executor.shutdown();
+        }
+        assertEquals(List.of(2L, 2L), model.batchSizes);
+    }
+
+    @Test
+    public void testFixedOutputDimensionsAreNotTruncatedWhenTheyEqualThePaddedSize() throws Exception {
+        var model = new TokenModel(Map.of("input_ids", sequenceType, "attention_mask", sequenceType), 3);
+        var evaluator = new BatchingOnnxEvaluator(model, 2, Duration.ofSeconds(60));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // The longest sequence pads to 3, which is also the hidden size of the pooled output
+            var shortSequence = executor.submit(() -> evaluator.evaluate(inputs(1, 2)));
+            var longSequence = executor.submit(() -> evaluator.evaluate(inputs(3, 4, 5)));
+            assertEquals(Tensor.from("tensor<float>(d0[1],d1[2]):[[2, 4]]"), shortSequence.get().get("tokens"));
+            assertEquals(Tensor.from("tensor<float>(d0[1],d1[3]):[[6, 7, 8]]"), shortSequence.get().get("pooled"));
+            assertEquals(Tensor.from("tensor<float>(d0[1],d1[3]):[[24, 25, 26]]"), longSequence.get().get("pooled"));
+        }
+        finally {
+            executor.shutdown();
+        }
+        assertEquals(List.of(2L), model.batchSizes);
+    }
+
+    @Test
+    public void testUnbatchableInputsAreEvaluatedDirectly() {
+        var model = new TokenModel(Map.of("input_ids", TensorType.fromSpec("tensor<float>(d0[1],d1[])")));
+        var evaluator = new BatchingOnnxEvaluator(model, 4, Duration.ofSeconds(60));
+        var input = Map.<String, Tensor>of("input_ids", sequence(1, 2));
+        assertEquals(model.evaluate(input), evaluator.evaluate(input));
+        assertEquals(List.of(1L, 1L), model.batchSizes);
+    }
+
+    private static Map<String, Tensor> inputs(float ... ids) {
+        float[] mask = new float[ids.length];
+        Arrays.fill(mask, 1);
+        return Map.of("input_ids", sequence(ids), "attention_mask", sequence(mask));
+    }
+
+    private static Tensor sequence(float ... values) {
+        var builder = IndexedTensor.Builder.of(TensorType.fromSpec("tensor<float>(d0[1],d1[" + values.length + "])"));
+        for (int i = 0; i < values.length; i++)
+            builder.cell(values[i], 0, i);
+        return builder.build();
+    }
+
+    /**
+     * A model outputting the input ids times two, masked by the attention mask if present,
+     * the sum of these per sequence, and a pooled vector of the given hidden size holding the sum plus its index.
+     */
+    private static class TokenModel implements OnnxEvaluator {
+
+        final List<Long> batchSizes = new CopyOnWriteArrayList<>();
+        private final Map<String, TensorType> inputTypes;
+        private final int hiddenSize;
+
+        TokenModel(Map<String, TensorType> inputTypes) {
+            this(inputTypes, 4);
+        }
+
+        TokenModel(Map<String, TensorType> inputTypes, int hiddenSize) {
+            this.inputTypes = inputTypes;
+            this.hiddenSize = hiddenSize;
+        }
+
+        @Override
+        public Tensor evaluate(Map<String, Tensor> inputs, String output, Duration timeout) {
+            return evaluate(inputs, timeout).get(output);
+        }
+
+        @Override
+        public Map<String, Tensor> evaluate(Map<String, Tensor> inputs, Duration timeout) {
+            var ids = (IndexedTensor)inputs.get("input_ids");
+            var mask = (IndexedTensor)inputs.get("attention_mask");
+            long[] shape = ids.shape();
+            batchSizes.add(shape[0]);
+            var tokens = IndexedTensor.Builder.of(ids.type());
+            var sums = IndexedTensor.Builder.of(TensorType.fromSpec("tensor<float>(d0[" + shape[0] + "],d2[1])"));
+            var pooled = IndexedTensor.Builder.of(TensorType.fromSpec("tensor<float>(d0[" + shape[0] + "],d1[" + hiddenSize + "])"));
+            for (long i = 0; i < shape[0]; i++) {
+                double sum = 0;
+                for (long j = 0; j < shape[1]; j++) {
+                    double value = 2 * ids.get(i, j) * (mask == null ? 1 : mask.get(i, j));
+                    tokens.cell(value, i, j);
+                    sum += value;
+                }
+                sums.cell(sum, i, 0);
+                for (long k = 0; k < hiddenSize; k++)
+                    pooled.cell(sum + k, i, k);
+            }
+            return Map.of("tokens", tokens.build(), "sum", sums.build(), "pooled", pooled.build());
+        }
+
+        @Override public Map<String, IdAndType> getInputs() { return Map.of(); }
+        @Override public Map<String, IdAndType> getOutputs() {
+            return Map.of("tokens", new IdAndType("tokens", sequenceType),
+                          "sum", new IdAndType("sum", TensorType.fromSpec("tensor<float>(d0[],d2[1])")),
+                          "pooled", new IdAndType("pooled", TensorType.fromSpec("tensor<float>(d0[],d1[" + hiddenSize + "])")));
+        }
+        @Override public Map<String, TensorType> getInputInfo() { return inputTypes; }
+        @Override public Map<String, TensorType> getOutputInfo() { return Map.of(); }
+        @Override public void close() { }
+
+    }
+
+}
@@ -7,6 +7,7 @@
 #include <chrono>
 #include <condition_variable>
 #include <mutex>
+#include <stdexcept>
 
 using namespace proton;
 using namespace search::engine;
@@ -76,7 +77,25 @@ TEST(MatchEngineTest, requireThatSearchesExecute) {
     EXPECT_FALSE(reply);
 
     reply = client.getReply(10000);
-    EXPECT_TRUE(reply);
+    ASSERT_TRUE(reply);
+    EXPECT_EQ(0u, reply->active_queries);
+    EXPECT_EQ(0u, engine.active_queries());
+}
+
+struct ThrowingSearchHandler : MySearchHandler {
+    SearchReply::UP match(const SearchRequest&, vespalib::ThreadBundle&) const override {
+        throw std::runtime_error("match failed");
+    }
+};
+
+TEST(MatchEngineTest, failed_search_is_no_longer_counted_as_active) {
+    MatchEngine engine(1, 1, 7, false);
+    engine.setNodeUp(true);
+    engine.putSearchHandler(DocTypeName("foo"), std::make_shared<ThrowingSearchHandler>());
+
+    LocalSearchClient client;
+    EXPECT_THROW(engine.search(SearchRequest::Source(new SearchRequest()), client), std::runtime_error);
+    EXPECT_EQ(0u, engine.active_queries());
 }
 
 void assertSearchReply(MatchEngine& engine, const std::string& searchDocType, size_t expHits) {
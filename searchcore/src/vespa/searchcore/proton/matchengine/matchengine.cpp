@@ -35,6 +35,31 @@ public:
     void run() override { _client.searchDone(_engine.performSearch(std::move(_request))); }
 };
 
+/**
+ * Decrements the count of active queries when the query leaves the engine, also when it fails.
+ */
+class ActiveQueryGuard {
+private:
+    std::atomic<uint32_t>& _active_queries;
+    bool                   _released;
+
+public:
+    explicit ActiveQueryGuard(std::atomic<uint32_t>& active_queries) noexcept
+        : _active_queries(active_queries), _released(false) {}
+    ActiveQueryGuard(const ActiveQueryGuard&) = delete;
+    ActiveQueryGuard& operator=(const ActiveQueryGuard&) = delete;
+    ~ActiveQueryGuard() {
+        if (!_released) {
+            release();
+        }
+    }
+    /** Decrements the count now, and returns the number of queries still active. */
+    uint32_t release() noexcept {
+        _released = true;
+        return _active_queries.fetch_sub(1, std::memory_order_relaxed) - 1;
+    }
+};
+
 VESPA_THREAD_STACK_TAG(match_engine_executor)
 VESPA_THREAD_STACK_TAG(match_engine_thread_bundle)
 
@@ -57,7 +82,8 @@ MatchEngine::MatchEngine(size_t numThreads, size_t threadsPerSearch, uint32_t di
       _threadBundlePool(std::max(size_t(1), threadsPerSearch),
                         CpuUsage::wrap(match_engine_thread_bundle, CpuUsage::Category::READ)),
       _nodeUp(false),
-      _nodeMaintenance(false) {
+      _nodeMaintenance(false),
+      _active_queries(0) {
 }
 
 MatchEngine::~MatchEngine() {
@@ -101,8 +127,12 @@ SearchReply::UP MatchEngine::search(SearchRequest::Source request, SearchClient&
 
         return ret;
     }
+    _active_queries.fetch_add(1, std::memory_order_relaxed);
     if (_async) {
-        _executor.execute(std::make_unique<SearchTask>(*this, std::move(request), client));
+        auto rejected = _executor.execute(std::make_unique<SearchTask>(*this, std::move(request), client));
+        if (rejected) {
+            _active_queries.fetch_sub(1, std::memory_order_relaxed); // the task will never run to do it
+        }
         return {};
     }
     return performSearch(std::move(request));
@@ -153,6 +183,7 @@ std::unique_ptr<SearchReply> MatchEngine::doSearch(const SearchRequest& searchRe
 }
 
 std::unique_ptr<SearchReply> MatchEngine::performSearch(SearchRequest::Source req) {
+    ActiveQueryGuard active(_active_queries); // counted in search()
     auto my_issues = std::make_unique<search::UniqueIssues>();
     auto capture_issues = vespalib::Issue::listen(*my_issues);
 
@@ -165,6 +196,8 @@ std::unique_ptr<SearchReply> MatchEngine::performSearch(SearchRequest::Source re
         my_issues->for_each_message([](const auto& msg) { LOG(warning, "unhandled issue: %s", msg.c_str()); });
     }
     ret->setDistributionKey(_distributionKey);
+    // Report the load left behind by this request, to let dispatchers steer away from busy nodes
+    ret->active_queries = active.release();
     if ((ret->request->trace().getLevel() > 0) && ret->request->trace().hasTrace()) {
         ret->request->trace().getRoot().setLong("distribution-key", _distributionKey);
         DocTypeName doc_type(*ret->request);
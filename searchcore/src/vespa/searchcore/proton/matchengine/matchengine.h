@@ -27,6 +27,7 @@ private:
     vespalib::SimpleThreadBundle::Pool _threadBundlePool;
     std::atomic<bool>                  _nodeUp;
     std::atomic<bool>                  _nodeMaintenance;
+    std::atomic<uint32_t>              _active_queries;
 
     std::unique_ptr<search::engine::SearchReply> doSearch(const search::engine::SearchRequest& searchRequest);
 
@@ -120,6 +121,11 @@ public:
      */
     std::unique_ptr<search::engine::SearchReply> performSearch(search::engine::SearchRequest::Source req);
 
+    /**
+     * Returns the number of search requests which are currently queued or running.
+     */
+    uint32_t active_queries() const noexcept { return _active_queries.load(std::memory_order_relaxed); }
+
     /** obtain current online status */
     bool isOnline() const;
 
@@ -109,6 +109,8 @@ CompressionConfig::Type convert(InternalProtonType::Packetcompresstype type) {
         return CompressionConfig::LZ4;
     case InternalProtonType::Packetcompresstype::NONE:
         return CompressionConfig::NONE;
+    case InternalProtonType::Packetcompresstype::ZSTD:
+        return CompressionConfig::ZSTD;
     default:
         return CompressionConfig::LZ4;
     }
@@ -819,6 +821,7 @@ std::unique_ptr<MonitorReply> Proton::ping(std::unique_ptr<MonitorRequest>, Moni
         ret.targetActiveDocs = 0; // TODO vekterli hmm... or target anyway ...
     }
     ret.is_blocking_writes = !_write_filter->acceptWriteOperation();
+    ret.active_queries = _matchEngine->active_queries();
     return reply;
 }
 
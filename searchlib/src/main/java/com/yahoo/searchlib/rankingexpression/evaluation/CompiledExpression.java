@@ -0,0 +1,326 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation;
+
+import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTForestNode;
+import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTNode;
+import com.yahoo.searchlib.rankingexpression.rule.ConstantNode;
+import com.yahoo.searchlib.rankingexpression.rule.EmbracedNode;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.searchlib.rankingexpression.rule.Function;
+import com.yahoo.searchlib.rankingexpression.rule.FunctionNode;
+import com.yahoo.searchlib.rankingexpression.rule.IfNode;
+import com.yahoo.searchlib.rankingexpression.rule.NegativeNode;
+import com.yahoo.searchlib.rankingexpression.rule.NotNode;
+import com.yahoo.searchlib.rankingexpression.rule.OperationNode;
+import com.yahoo.searchlib.rankingexpression.rule.Operator;
+import com.yahoo.searchlib.rankingexpression.rule.ReferenceNode;
+import com.yahoo.searchlib.rankingexpression.rule.SetMembershipNode;
+import com.yahoo.tensor.TensorType;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTNode.MAX_LEAF_VALUE;
+import static com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTNode.MAX_VARIABLES;
+
+/**
+ * A scalar ranking expression compiled to a tree of primitive double evaluators.
+ * Feature references are resolved to context indexes when compiling and operators are resolved to
+ * direct double operations, such that evaluation does no name lookups and allocates no values.
+ * Optimized GBDT nodes are compiled to nested branches rather than being interpreted.
+ * <p>
+ * Evaluating a compiled expression produces the same result as evaluating the expression it is compiled from,
+ * provided all the values it references (see {@link #referencedIndexes}) are scalar doubles.
+ * Clients must verify this, and fall back to evaluating the expression otherwise.
+ * <p>
+ * Compiled expressions are immutable and multithread safe, and can be evaluated with any context which
+ * has the same indexes as the context used to compile it.
+ */
+public final class CompiledExpression {
+
+    private final Node root;
+    private final int[] referencedIndexes;
+
+    private CompiledExpression(Node root, int[] referencedIndexes) {
+        this.root = root;
+        this.referencedIndexes = referencedIndexes;
+    }
+
+    /** Evaluates this in the given context */
+    public double evaluate(Context context) {
+        return root.evaluate(context);
+    }
+
+    /** Returns the context indexes of the values referenced by this. The returned array must not be modified. */
+    public int[] referencedIndexes() { return referencedIndexes; }
+
+    /**
+     * Compiles the given expression.
+     *
+     * @param expression the expression to compile
+     * @param context the context used to resolve the indexes of the values the expression references
+     * @return the compiled expression, or empty if the expression contains nodes which cannot be compiled,
+     *         such as tensor functions, or references which are not present in the given context
+     */
+    public static Optional<CompiledExpression> compile(ExpressionNode expression, ContextIndex context) {
+        Compiler compiler = new Compiler(context);
+        try {
+            Node root = compiler.compile(expression);
+            if (root == null) return Optional.empty();
+            return Optional.of(new CompiledExpression(root, compiler.referencedIndexes()));
+        }
+        catch (RuntimeException e) { // Unknown references
+            return Optional.empty();
+        }
+    }
+
+    /** A compiled expression node */
+    @FunctionalInterface
+    private interface Node {
+
+        double evaluate(Context context);
+
+    }
+
+    /** Compiles expression nodes. Methods returning a node returns null if the expression cannot be compiled. */
+    private static class Compiler {
+
+        private final ContextIndex context;
+        private final Set<Integer> referencedIndexes = new TreeSet<>();
+
+        Compiler(ContextIndex context) {
+            this.context = context;
+        }
+
+        int[] referencedIndexes() {
+            return referencedIndexes.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        Node compile(ExpressionNode node) {
+            if (node instanceof ConstantNode constant)
+                return compileConstant(constant);
+            if (node instanceof ReferenceNode reference)
+                return compileReference(reference);
+            if (node instanceof OperationNode operation)
+                return compileOperation(operation);
+            if (node instanceof IfNode ifNode)
+                return compileIf(ifNode);
+            if (node instanceof FunctionNode function)
+                return compileFunction(function);
+            if (node instanceof EmbracedNode embraced)
+                return compile(embraced.children().get(0));
+            if (node instanceof NegativeNode negative)
+                return compileNegative(negative);
+            if (node instanceof NotNode not)
+                return compileNot(not);
+            if (node instanceof SetMembershipNode setMembership)
+                return compileSetMembership(setMembership);
+            if (node instanceof GBDTNode tree)
+                return compileTree(tree.values(), 0);
+            if (node instanceof GBDTForestNode forest)
+                return compileForest(forest.values());
+            return null;
+        }
+
+        private Node compileConstant(ConstantNode constant) {
+            Value value = constant.getValue();
+            if (value instanceof StringValue || ! value.hasDouble() || ! value.type().equals(TensorType.empty))
+                return null;
+            double doubleValue = value.asDouble();
+            return c -> doubleValue;
+        }
+
+        private Node compileReference(ReferenceNode reference) {
+            String name = reference.reference().isIdentifier() ? reference.reference().name() : key(reference);
+            int index = context.getIndex(name);
+            referencedIndexes.add(index);
+            return c -> c.getDouble(index);
+        }
+
+        /** Returns the name used by {@link Context#get(String, com.yahoo.searchlib.rankingexpression.rule.Arguments, String)} */
+        private String key(ReferenceNode reference) {
+            String name = reference.getName();
+            if (reference.getArguments() != null && reference.getArguments().expressions().size() > 0)
+                name = name + "(" + reference.getArguments().expressions().stream()
+                                                             .map(ExpressionNode::toString)
+                                                             .collect(Collectors.joining(",")) + ")";
+            if (reference.getOutput() != null)
+                name = name + "." + reference.getOutput();
+            return name;
+        }
+
+        /** Resolves operator precedence the same way as {@link OperationNode#evaluate} */
+        private Node compileOperation(OperationNode operation) {
+            Iterator<ExpressionNode> child = operation.children().iterator();
+            Deque<Item> stack = new ArrayDeque<>();
+            Node first = compile(child.next());
+            if (first == null) return null;
+            stack.push(new Item(null, first));
+            for (Iterator<Operator> it = operation.operators().iterator(); it.hasNext() && child.hasNext();) {
+                Operator op = it.next();
+                while (stack.size() > 1 && ! op.hasPrecedenceOver(stack.peek().op))
+                    popStack(stack);
+                Node next = compile(child.next());
+                if (next == null) return null;
+                stack.push(new Item(op, next));
+            }
+            while (stack.size() > 1)
+                popStack(stack);
+            return stack.getFirst().node;
+        }
+
+        private void popStack(Deque<Item> stack) {
+            Item rhs = stack.pop();
+            Item lhs = stack.peek();
+            lhs.node = compileOperator(rhs.op, lhs.node, rhs.node);
+        }
+
+        private Node compileOperator(Operator op, Node x, Node y) {
+            return switch (op) {
+                case or -> c -> (x.evaluate(c) != 0 | y.evaluate(c) != 0) ? 1 : 0;
+                case and -> c -> (x.evaluate(c) != 0 & y.evaluate(c) != 0) ? 1 : 0;
+                case largerOrEqual -> c -> x.evaluate(c) >= y.evaluate(c) ? 1 : 0;
+                case larger -> c -> x.evaluate(c) > y.evaluate(c) ? 1 : 0;
+                case smallerOrEqual -> c -> x.evaluate(c) <= y.evaluate(c) ? 1 : 0;
+                case smaller -> c -> x.evaluate(c) < y.evaluate(c) ? 1 : 0;
+                case approxEqual -> c -> DoubleCompatibleValue.approxEqual(x.evaluate(c), y.evaluate(c)) ? 1 : 0;
+                case notEqual -> c -> x.evaluate(c) != y.evaluate(c) ? 1 : 0;
+                case equal -> c -> x.evaluate(c) == y.evaluate(c) ? 1 : 0;
+                case plus -> c -> x.evaluate(c) + y.evaluate(c);
+                case minus -> c -> x.evaluate(c) - y.evaluate(c);
+                case multiply -> c -> x.evaluate(c) * y.evaluate(c);
+                case divide -> c -> x.evaluate(c) / y.evaluate(c);
+                case modulo -> c -> x.evaluate(c) % y.evaluate(c);
+                case power -> c -> Math.pow(x.evaluate(c), y.evaluate(c));
+            };
+        }
+
+        private Node compileIf(IfNode ifNode) {
+            Node condition = compile(ifNode.getCondition());
+            Node trueExpression = compile(ifNode.getTrueExpression());
+            Node falseExpression = compile(ifNode.getFalseExpression());
+            if (condition == null || trueExpression == null || falseExpression == null) return null;
+            return c -> condition.evaluate(c) != 0 ? trueExpression.evaluate(c) : falseExpression.evaluate(c);
+        }
+
+        private Node compileFunction(FunctionNode functionNode) {
+            Function function = functionNode.getFunction();
+            List<ExpressionNode> arguments = functionNode.children();
+            if (arguments.isEmpty()) {
+                double value = function.evaluate(0, 0);
+                return c -> value;
+            }
+            Node x = compile(arguments.get(0));
+            if (x == null) return null;
+            if (arguments.size() == 1)
+                return c -> function.evaluate(x.evaluate(c), 0);
+            Node y = compile(arguments.get(1));
+            if (y == null) return null;
+            return c -> function.evaluate(x.evaluate(c), y.evaluate(c));
+        }
+
+        private Node compileNegative(NegativeNode negative) {
+            Node value = compile(negative.getValue());
+            if (value == null) return null;
+            return c -> - value.evaluate(c);
+        }
+
+        private Node compileNot(NotNode not) {
+            Node value = compile(not.getValue());
+            if (value == null) return null;
+            return c -> value.evaluate(c) == 0 ? 1 : 0;
+        }
+
+        private Node compileSetMembership(SetMembershipNode setMembership) {
+            Node testValue = compile(setMembership.getTestValue());
+            if (testValue == null) return null;
+            Node[] setValues = new Node[setMembership.getSetValues().size()];
+            for (int i = 0; i < setValues.length; i++) {
+                setValues[i] = compile(setMembership.getSetValues().get(i));
+                if (setValues[i] == null) return null;
+            }
+            return c -> {
+                double value = testValue.evaluate(c);
+                for (Node setValue : setValues)
+                    if (setValue.evaluate(c) == value) return 1;
+                return 0;
+            };
+        }
+
+        /** Compiles the GBDT tree encoded at the given offset, see {@link GBDTNode} for the encoding */
+        private Node compileTree(double[] values, int pc) {
+            double nextValue = values[pc++];
+            if (nextValue < MAX_LEAF_VALUE) // a leaf
+                return c -> nextValue;
+
+            int offset = (int)nextValue - MAX_LEAF_VALUE;
+            int opcode = Math.min(offset / MAX_VARIABLES, 3);
+            int index = offset - opcode * MAX_VARIABLES;
+            referencedIndexes.add(index);
+            if (opcode == 2) { // set membership
+                int setSize = (int)values[pc++];
+                double[] set = Arrays.copyOfRange(values, pc, pc + setSize);
+                pc += setSize;
+                Node t = compileTree(values, pc + 1);
+                Node f = compileTree(values, pc + (int)values[pc]);
+                return c -> contains(set, c.getDouble(index)) ? t.evaluate(c) : f.evaluate(c);
+            }
+
+            double constant = values[pc++];
+            Node t = compileTree(values, pc + 1);
+            Node f = compileTree(values, pc + (int)values[pc]);
+            return switch (opcode) {
+                case 0 -> c -> c.getDouble(index) < constant ? t.evaluate(c) : f.evaluate(c);
+                case 1 -> c -> c.getDouble(index) == constant ? t.evaluate(c) : f.evaluate(c);
+                case 3 -> c -> ! (c.getDouble(index) >= constant) ? t.evaluate(c) : f.evaluate(c);
+                default -> throw new IllegalArgumentException("Unknown GBDT opcode " + opcode);
+            };
+        }
+
+        private static boolean contains(double[] set, double value) {
+            for (double setValue : set)
+                if (setValue == value) return true;
+            return false;
+        }
+
+        /** Compiles a GBDT forest, see {@link GBDTForestNode} for the encoding */
+        private Node compileForest(double[] values) {
+            List<Node> trees = new ArrayList<>();
+            int pc = 0;
+            while (pc < values.length) {
+                int nextTree = (int)values[pc++];
+                trees.add(compileTree(values, pc));
+                pc += nextTree;
+            }
+            Node[] forest = trees.toArray(new Node[0]);
+            return c -> {
+                double treeSum = 0;
+                for (Node tree : forest)
+                    treeSum += tree.evaluate(c);
+                return treeSum;
+            };
+        }
+
+    }
+
+    private static class Item {
+
+        final Operator op;
+        Node node;
+
+        Item(Operator op, Node node) {
+            this.op = op;
+            this.node = node;
+        }
+
+    }
+
+}
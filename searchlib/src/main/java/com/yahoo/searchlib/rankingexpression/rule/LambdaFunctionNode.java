@@ -8,6 +8,7 @@ import com.yahoo.searchlib.rankingexpression.evaluation.Value;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.evaluation.TypeContext;
 import com.yahoo.tensor.functions.Generate;
+import com.yahoo.tensor.functions.ScalarFunctions;
 
 import java.util.Deque;
 import java.util.HashSet;
@@ -128,9 +129,16 @@ public class LambdaFunctionNode extends CompositeNode {
         return switch (operator) {
             case or -> asFunctionExpression((left, right) -> ((left != 0.0) || (right != 0.0)) ? 1.0 : 0.0);
             case and -> asFunctionExpression((left, right) -> ((left != 0.0) && (right != 0.0)) ? 1.0 : 0.0);
-            case plus -> asFunctionExpression((left, right) -> left + right);
-            case minus -> asFunctionExpression((left, right) -> left - right);
-            case multiply -> asFunctionExpression((left, right) -> left * right);
+            // Known scalar functions, which lets dense tensor joins be evaluated without calling the function per cell
+            case plus -> Optional.of(new ScalarFunctions.Add() {
+                @Override public String toString() { return LambdaFunctionNode.this.toString(); }
+            });
+            case minus -> Optional.of(new ScalarFunctions.Subtract() {
+                @Override public String toString() { return LambdaFunctionNode.this.toString(); }
+            });
+            case multiply -> Optional.of(new ScalarFunctions.Multiply() {
+                @Override public String toString() { return LambdaFunctionNode.this.toString(); }
+            });
             case divide -> asFunctionExpression((left, right) -> left / right);
             case modulo -> asFunctionExpression((left, right) -> left % right);
             case power -> asFunctionExpression(Math::pow);
@@ -0,0 +1,96 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation;
+
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTOptimizer;
+import com.yahoo.searchlib.rankingexpression.parser.ParseException;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that compiled expressions produce the same results as the interpreted expressions.
+ */
+public class CompiledExpressionTestCase {
+
+    private static final Map<String, Double> values = Map.of("a", 3.0, "b", -0.5, "c", 0.0, "d", 1e6);
+
+    @Test
+    public void testCompiledEqualsInterpreted() throws ParseException {
+        assertCompiled("1 + 2 * 3 - 4 / 5");
+        assertCompiled("a - b - c * d + a % 2");
+        assertCompiled("2 ^ 3 ^ 2");
+        assertCompiled("a ^ 2 * b + -a");
+        assertCompiled("a + b * c ^ 2 == a && b < c || !(d >= a)");
+        assertCompiled("a > b && c <= a || d != a");
+        assertCompiled("if (a > b, if (c == 0, d, a), b) * 2");
+        assertCompiled("if (a ~= 3.0000000000000004, 1, 0) + if (d ~= 1000000.0000000001, 1, 0)");
+        assertCompiled("sigmoid(a * b) + max(a, d) + min(a, b) + fmod(d, a) + log10(d) + pow(a, b) + atan2(a, b)");
+        assertCompiled("if (a in [1, 2, 3], b, c) + if (b in [c], 1, 2)");
+        assertCompiled("(a + b) * (c - d) / (a + 1)");
+        assertCompiled("a / c + b / c");
+        assertCompiled("unknown_value + a");
+    }
+
+    @Test
+    public void testCompiledOptimizedTreesEqualsInterpreted() throws ParseException {
+        String trees =
+                "if (a < 1.5, if (b < -1, 0.1, 0.2), if (c == 0, if (d in [1e6, 2], 0.3, 0.4), 0.5)) + " +
+                "if (d < 1e5, 0.6, if (a < 4, if (b < 0, 0.7, 0.8), 0.9)) + " +
+                "if (!(c >= 1), if (unknown_value < 1, 1.0, 1.1), 1.2)";
+        RankingExpression expression = new RankingExpression(trees);
+        ArrayContext context = context(expression);
+        double interpreted = expression.evaluate(context).asDouble();
+        OptimizationReport report = new ExpressionOptimizer().optimize(expression, context);
+        assertEquals(1, report.getMetric("Number of forests"));
+        assertEquals(interpreted, expression.evaluate(context).asDouble(), 1e-12);
+        assertCompiled(expression, context);
+
+        RankingExpression tree = new RankingExpression("if (a < 1.5, 0.1, if (b in [-0.5], 0.2, 0.3))");
+        ArrayContext treeContext = context(tree);
+        new ExpressionOptimizer().getOptimizer(GBDTOptimizer.class).optimize(tree, treeContext, new OptimizationReport());
+        assertCompiled(tree, treeContext);
+        assertEquals(0.2, CompiledExpression.compile(tree.getRoot(), treeContext).get().evaluate(treeContext), 0);
+    }
+
+    @Test
+    public void testUncompilableExpressions() throws ParseException {
+        assertNotCompiled("reduce(tensor(x[2]):[1, 2], sum) + a");
+        assertNotCompiled("if (a in [\"foo\"], 1, 2)");
+        RankingExpression expression = new RankingExpression("a + b");
+        assertFalse(CompiledExpression.compile(expression.getRoot(), new ArrayContext(new RankingExpression("a"))).isPresent());
+    }
+
+    private void assertCompiled(String expressionString) throws ParseException {
+        RankingExpression expression = new RankingExpression(expressionString);
+        assertCompiled(expression, context(expression));
+    }
+
+    private void assertCompiled(RankingExpression expression, ArrayContext context) {
+        var compiled = CompiledExpression.compile(expression.getRoot(), context);
+        assertTrue("Compiled " + expression, compiled.isPresent());
+        double expected = expression.evaluate(context).asDouble();
+        assertEquals(expression.toString(), expected, compiled.get().evaluate(context), 0);
+    }
+
+    private void assertNotCompiled(String expressionString) throws ParseException {
+        RankingExpression expression = new RankingExpression(expressionString);
+        assertFalse(CompiledExpression.compile(expression.getRoot(), new ArrayContext(expression)).isPresent());
+    }
+
+    private ArrayContext context(RankingExpression expression) {
+        ArrayContext context = new ArrayContext(expression, DoubleValue.NaN);
+        for (String name : context.names()) {
+            if (values.containsKey(name))
+                context.put(name, values.get(name));
+            else if ( ! name.equals("unknown_value"))
+                context.put(name, name.length());
+        }
+        return context;
+    }
+
+}
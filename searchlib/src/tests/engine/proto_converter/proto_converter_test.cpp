@@ -270,6 +270,12 @@ TEST_F(SearchReplyTest, require_that_target_active_docs_is_converted) {
     EXPECT_EQ(proto.target_active_docs(), 250000);
 }
 
+TEST_F(SearchReplyTest, require_that_active_queries_is_converted) {
+    reply.active_queries = 5;
+    convert();
+    EXPECT_EQ(proto.active_queries(), 5);
+}
+
 TEST_F(SearchReplyTest, require_that_degraded_by_match_phase_is_converted) {
     reply.coverage.degradeMatchPhase();
     convert();
@@ -628,6 +634,12 @@ TEST_F(MonitorReplyTest, require_that_target_active_docs_is_converted) {
     EXPECT_EQ(proto.target_active_docs(), 12345);
 }
 
+TEST_F(MonitorReplyTest, require_that_active_queries_is_converted) {
+    reply.active_queries = 3;
+    convert();
+    EXPECT_EQ(proto.active_queries(), 3);
+}
+
 TEST_F(MonitorReplyTest, require_that_distribution_key_is_converted) {
     reply.distribution_key = 7;
     convert();
@@ -11,6 +11,9 @@
 #include <vespa/vespalib/data/slime/binary_format.h>
 #include <vespa/vespalib/data/slime/slime.h>
 #include <vespa/vespalib/gtest/gtest.h>
+#include <vespa/vespalib/util/compressionconfig.h>
+
+#include <zdict.h>
 
 #include <chrono>
 #include <thread>
@@ -29,6 +32,8 @@ using ProtoMonitorRequest = ProtoRpcAdapter::ProtoMonitorRequest;
 using ProtoMonitorReply = ProtoRpcAdapter::ProtoMonitorReply;
 using QueryStats = SearchProtocolMetrics::QueryStats;
 using DocsumStats = SearchProtocolMetrics::DocsumStats;
+using CompressionDictionary = ProtoRpcAdapter::CompressionDictionary;
+using vespalib::compression::CompressionConfig;
 
 struct MySearchServer : SearchServer {
     SearchReply::UP search(SearchRequest::Source src, SearchClient& client) override {
@@ -213,6 +218,78 @@ TEST_F(ProtoRpcAdapterTest, require_that_proto_rpc_ping_works) {
     EXPECT_EQ(metrics.docsum().latency.getCount(), 0);
 }
 
+ProtoSearchRequest make_search_request(int i) {
+    ProtoSearchRequest req;
+    req.set_offset(i);
+    req.set_hits(10 + i % 90);
+    req.set_rank_profile("profile_" + std::to_string(i % 7));
+    req.set_document_type("music");
+    req.set_query_tree_blob("title:track_" + std::to_string(i * 7919) + " AND artist:band_" + std::to_string(i % 113));
+    return req;
+}
+
+std::unique_ptr<CompressionDictionary> train_dictionary() {
+    std::string         samples;
+    std::vector<size_t> sample_sizes;
+    for (int i = 0; i < 2000; ++i) {
+        auto sample = make_search_request(i).SerializeAsString();
+        samples += sample;
+        sample_sizes.push_back(sample.size());
+    }
+    std::vector<char> data(4096);
+    size_t size = ZDICT_trainFromBuffer(data.data(), data.size(), samples.data(), sample_sizes.data(), sample_sizes.size());
+    assert(!ZDICT_isError(size));
+    return std::make_unique<CompressionDictionary>(ZDICT_getDictID(data.data(), size), data.data(), size, 3);
+}
+
+TEST_F(ProtoRpcAdapterTest, require_that_proto_rpc_search_works_with_compression_dictionary) {
+    adapter.set_online();
+    auto dictionary = train_dictionary();
+    auto target = connect();
+    for (bool dictionary_set : {false, true}) {
+        auto* rpc = new FRT_RPCRequest();
+        ProtoRpcAdapter::encode_search_request(make_search_request(4242), *dictionary, *rpc);
+        EXPECT_EQ((*rpc->GetParams())[0]._intval8, CompressionConfig::ZSTD);
+        target->InvokeSync(rpc, 60.0);
+        if (dictionary_set) {
+            ProtoSearchReply reply;
+            EXPECT_TRUE(ProtoRpcAdapter::decode_search_reply(*rpc, *dictionary, reply));
+            EXPECT_EQ(reply.total_hit_count(), 4242);
+        } else {
+            EXPECT_EQ(rpc->GetErrorCode(), ProtoRpcAdapter::UNKNOWN_COMPRESSION_DICTIONARY);
+            auto* set = new FRT_RPCRequest();
+            ProtoRpcAdapter::encode_compression_dictionary(*dictionary, *set);
+            target->InvokeSync(set, 60.0);
+            EXPECT_TRUE(set->CheckReturnTypes(""));
+            set->internal_subref();
+        }
+        rpc->internal_subref();
+    }
+
+    auto other_connection = connect();
+    auto* rpc = new FRT_RPCRequest();
+    ProtoRpcAdapter::encode_search_request(make_search_request(4242), *dictionary, *rpc);
+    other_connection->InvokeSync(rpc, 60.0);
+    EXPECT_EQ(rpc->GetErrorCode(), ProtoRpcAdapter::UNKNOWN_COMPRESSION_DICTIONARY)
+        << "dictionaries are set per connection";
+    rpc->internal_subref();
+    other_connection->internal_subref();
+    target->internal_subref();
+    EXPECT_EQ(adapter.metrics().query().latency.getCount(), 1);
+}
+
+TEST_F(ProtoRpcAdapterTest, require_that_invalid_compression_dictionary_is_rejected) {
+    auto  target = connect();
+    auto* rpc = new FRT_RPCRequest();
+    rpc->SetMethodName("vespa.searchprotocol.setCompressionDictionary");
+    rpc->GetParams()->AddInt32(42);
+    rpc->GetParams()->AddData("not a dictionary", 16);
+    target->InvokeSync(rpc, 60.0);
+    EXPECT_EQ(rpc->GetErrorCode(), FRTE_RPC_METHOD_FAILED);
+    rpc->internal_subref();
+    target->internal_subref();
+}
+
 //-----------------------------------------------------------------------------
 
 GTEST_MAIN_RUN_ALL_TESTS()
@@ -0,0 +1,151 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+
+#include "compression_dictionaries.h"
+
+#include <vespa/vespalib/data/databuffer.h>
+#include <vespa/vespalib/util/buffer.h>
+#include <vespa/vespalib/util/exceptions.h>
+
+#include <zstd.h>
+
+#include <cstring>
+#include <string>
+
+using vespalib::ConstBufferRef;
+using vespalib::DataBuffer;
+using vespalib::compression::CompressionConfig;
+
+namespace search::engine {
+
+namespace {
+
+struct CompressContext {
+    ZSTD_CCtx* ctx;
+    CompressContext() : ctx(ZSTD_createCCtx()) {}
+    ~CompressContext() { ZSTD_freeCCtx(ctx); }
+};
+
+struct DecompressContext {
+    ZSTD_DCtx* ctx;
+    DecompressContext() : ctx(ZSTD_createDCtx()) {}
+    ~DecompressContext() { ZSTD_freeDCtx(ctx); }
+};
+
+thread_local CompressContext   _tlCompressContext;
+thread_local DecompressContext _tlDecompressContext;
+
+} // namespace
+
+CompressionDictionaries::Dictionary::Dictionary(uint32_t id, const char* data, size_t len, int compression_level)
+    : _id(id),
+      _data(data, data + len),
+      _compress(nullptr),
+      _decompress(nullptr) {
+    if (id == 0 || ZSTD_getDictID_fromDict(_data.data(), _data.size()) != id) {
+        throw vespalib::IllegalArgumentException("not a zstd dictionary with id " + std::to_string(id));
+    }
+    _compress = ZSTD_createCDict(_data.data(), _data.size(), compression_level);
+    _decompress = ZSTD_createDDict(_data.data(), _data.size());
+    if (_compress == nullptr || _decompress == nullptr) {
+        ZSTD_freeCDict(_compress);
+        ZSTD_freeDDict(_decompress);
+        throw vespalib::IllegalArgumentException("invalid zstd dictionary with id " + std::to_string(id));
+    }
+}
+
+CompressionDictionaries::Dictionary::~Dictionary() {
+    ZSTD_freeCDict(_compress);
+    ZSTD_freeDDict(_decompress);
+}
+
+bool CompressionDictionaries::Dictionary::same_content(const char* data, size_t len) const noexcept {
+    return (len == _data.size()) && (memcmp(data, _data.data(), len) == 0);
+}
+
+CompressionConfig::Type CompressionDictionaries::Dictionary::compress(CompressionConfig config,
+                                                                      const ConstBufferRef& org,
+                                                                      DataBuffer& dest) const {
+    if (org.size() >= config.minSize) {
+        dest.ensureFree(ZSTD_compressBound(org.size()));
+        size_t size = ZSTD_compress_usingCDict(_tlCompressContext.ctx, dest.getFree(), dest.getFreeLen(),
+                                               org.c_str(), org.size(), _compress);
+        if (!ZSTD_isError(size) && size < ((org.size() * config.threshold) / 100)) {
+            dest.moveFreeToData(size);
+            return CompressionConfig::ZSTD;
+        }
+    }
+    DataBuffer uncompressed(const_cast<char*>(org.c_str()), org.size());
+    uncompressed.moveFreeToData(org.size());
+    dest.swap(uncompressed);
+    return CompressionConfig::NONE;
+}
+
+bool CompressionDictionaries::Dictionary::decompress(const ConstBufferRef& org, size_t uncompressed_len,
+                                                     DataBuffer& dest) const {
+    dest.ensureFree(uncompressed_len);
+    size_t size = ZSTD_decompress_usingDDict(_tlDecompressContext.ctx, dest.getFree(), uncompressed_len,
+                                             org.c_str(), org.size(), _decompress);
+    if (ZSTD_isError(size) || size != uncompressed_len) {
+        return false;
+    }
+    dest.moveFreeToData(size);
+    return true;
+}
+
+CompressionDictionaries::CompressionDictionaries(size_t max_size)
+    : _lock(),
+      _max_size(max_size),
+      _dictionaries(),
+      _added(),
+      _shared() {}
+
+CompressionDictionaries::~CompressionDictionaries() = default;
+
+uint32_t CompressionDictionaries::dictionary_id(const ConstBufferRef& frame) {
+    return ZSTD_getDictID_fromFrame(frame.c_str(), frame.size());
+}
+
+bool CompressionDictionaries::set(const void* connection, uint32_t id, const char* data, size_t len,
+                                  int compression_level) {
+    std::shared_ptr<const Dictionary> dictionary;
+    {
+        std::lock_guard guard(_lock);
+        auto shared = _shared.find(id);
+        if (shared != _shared.end()) {
+            dictionary = shared->second.lock();
+        }
+    }
+    if (!dictionary || !dictionary->same_content(data, len)) {
+        try {
+            dictionary = std::make_shared<const Dictionary>(id, data, len, compression_level);
+        } catch (const vespalib::IllegalArgumentException&) {
+            return false;
+        }
+    }
+    Key key(connection, id);
+    std::lock_guard guard(_lock);
+    _shared[id] = dictionary;
+    if (_dictionaries.insert_or_assign(key, dictionary).second) {
+        _added.push_back(key);
+    }
+    while (_added.size() > _max_size) {
+        _dictionaries.erase(_added.front());
+        _added.pop_front();
+    }
+    std::erase_if(_shared, [](const auto& entry) { return entry.second.expired(); });
+    return true;
+}
+
+std::shared_ptr<const CompressionDictionaries::Dictionary> CompressionDictionaries::get(const void* connection,
+                                                                                      uint32_t id) const {
+    std::lock_guard guard(_lock);
+    auto found = _dictionaries.find(Key(connection, id));
+    return (found != _dictionaries.end()) ? found->second : std::shared_ptr<const Dictionary>();
+}
+
+size_t CompressionDictionaries::size() const {
+    std::lock_guard guard(_lock);
+    return _dictionaries.size();
+}
+
+} // namespace search::engine
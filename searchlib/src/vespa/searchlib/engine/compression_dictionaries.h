@@ -0,0 +1,87 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+
+#pragma once
+
+#include <vespa/vespalib/util/compressionconfig.h>
+
+#include <cstdint>
+#include <deque>
+#include <map>
+#include <memory>
+#include <mutex>
+#include <vector>
+
+struct ZSTD_CDict_s;
+struct ZSTD_DDict_s;
+
+namespace vespalib {
+class ConstBufferRef;
+class DataBuffer;
+} // namespace vespalib
+
+namespace search::engine {
+
+/**
+ * The zstd compression dictionaries the dispatchers have set on their
+ * connections to this node. A dispatcher trains a dictionary from the
+ * payloads it exchanges with the content nodes, sends it once on each
+ * connection, and then compresses its requests with it. Replies to
+ * such requests are compressed with the same dictionary. Connections
+ * with the same dictionary share it, and the number of dictionaries
+ * kept is bounded, as connections are not tracked; a dispatcher
+ * sending a request compressed with a dictionary which is no longer
+ * kept is told so, and sends the dictionary again.
+ **/
+class CompressionDictionaries {
+public:
+    class Dictionary {
+    private:
+        uint32_t              _id;
+        std::vector<char>     _data;
+        struct ZSTD_CDict_s*  _compress;
+        struct ZSTD_DDict_s*  _decompress;
+
+    public:
+        Dictionary(uint32_t id, const char* data, size_t len, int compression_level);
+        Dictionary(const Dictionary&) = delete;
+        Dictionary& operator=(const Dictionary&) = delete;
+        ~Dictionary();
+        uint32_t id() const noexcept { return _id; }
+        const std::vector<char>& data() const noexcept { return _data; }
+        bool same_content(const char* data, size_t len) const noexcept;
+
+        // Compresses org into dest with this dictionary, as vespalib::compression::compress
+        // does without one: Returns NONE, with dest referring to org, if it is not worth it.
+        vespalib::compression::CompressionConfig::Type
+        compress(vespalib::compression::CompressionConfig config, const vespalib::ConstBufferRef& org,
+                 vespalib::DataBuffer& dest) const;
+        bool decompress(const vespalib::ConstBufferRef& org, size_t uncompressed_len,
+                        vespalib::DataBuffer& dest) const;
+    };
+
+private:
+    using Key = std::pair<const void*, uint32_t>;
+
+    mutable std::mutex                                     _lock;
+    size_t                                                 _max_size;
+    std::map<Key, std::shared_ptr<const Dictionary>>       _dictionaries;
+    std::deque<Key>                                        _added;
+    std::map<uint32_t, std::weak_ptr<const Dictionary>>    _shared;
+
+public:
+    explicit CompressionDictionaries(size_t max_size);
+    ~CompressionDictionaries();
+
+    // Returns the id of the dictionary the given zstd frame is compressed with, or 0 if none
+    static uint32_t dictionary_id(const vespalib::ConstBufferRef& frame);
+
+    // Sets a dictionary on a connection. Returns false if the data is not a zstd dictionary with the given id
+    bool set(const void* connection, uint32_t id, const char* data, size_t len, int compression_level);
+
+    // Returns the dictionary with the given id set on the given connection, or nullptr if none
+    std::shared_ptr<const Dictionary> get(const void* connection, uint32_t id) const;
+
+    size_t size() const;
+};
+
+} // namespace search::engine
@@ -149,6 +149,7 @@ void ProtoConverter::search_reply_to_proto(const SearchReply& reply, ProtoSearch
     proto.set_degraded_by_match_phase(reply.coverage.wasDegradedByMatchPhase());
     proto.set_degraded_by_ann_timeout(reply.coverage.was_degraded_by_ann_timeout());
     proto.set_degraded_by_soft_timeout(reply.coverage.wasDegradedByTimeout());
+    proto.set_active_queries(reply.active_queries);
     bool has_sort_data = !reply.sortIndex.empty();
     assert(!has_sort_data || (reply.sortIndex.size() == (reply.hits.size() + 1)));
     if (reply.request) {
@@ -284,6 +285,7 @@ void ProtoConverter::monitor_reply_to_proto(const MonitorReply& reply, ProtoMoni
     proto.set_target_active_docs(reply.targetActiveDocs);
     proto.set_distribution_key(reply.distribution_key);
     proto.set_is_blocking_writes(reply.is_blocking_writes);
+    proto.set_active_queries(reply.active_queries);
 }
 
 //-----------------------------------------------------------------------------
@@ -29,6 +29,7 @@ using ProtoMonitorRequest = ProtoConverter::ProtoMonitorRequest;
 using ProtoMonitorReply = ProtoConverter::ProtoMonitorReply;
 using QueryStats = SearchProtocolMetrics::QueryStats;
 using DocsumStats = SearchProtocolMetrics::DocsumStats;
+using CompressionDictionary = CompressionDictionaries::Dictionary;
 
 namespace {
 
@@ -39,18 +40,32 @@ CompressionConfig get_compression_config() {
                              streamer.getCompressionLimit());
 }
 
-template <typename MSG> void encode_message(const MSG& src, FRT_Values& dst) {
-    using vespalib::compression::compress;
+// the number of connection dictionaries kept; dispatchers send theirs again when it is dropped
+constexpr size_t max_compression_dictionaries = 4096;
+
+CompressionConfig::Type compress_message(const CompressionDictionary* dictionary, const ConstBufferRef& buf,
+                                         DataBuffer& compressed) {
+    if (dictionary != nullptr) {
+        return dictionary->compress(get_compression_config(), buf, compressed);
+    }
+    return vespalib::compression::compress(get_compression_config(), buf, compressed, true);
+}
+
+template <typename MSG>
+void encode_message(const MSG& src, FRT_Values& dst, const CompressionDictionary* dictionary = nullptr) {
     auto                    output = src.SerializeAsString();
     ConstBufferRef          buf(output.data(), output.size());
     DataBuffer              compressed(output.data(), output.size());
-    CompressionConfig::Type type = compress(get_compression_config(), buf, compressed, true);
+    CompressionConfig::Type type = compress_message(dictionary, buf, compressed);
     dst.AddInt8(type);
     dst.AddInt32(buf.size());
     dst.AddData(compressed.getData(), compressed.getDataLen());
 }
 
-void encode_search_reply(const ProtoSearchReply& src, FRT_Values& dst) {
+void encode_search_reply(const ProtoSearchReply& src, FRT_Values& dst, const CompressionDictionary* dictionary) {
+    if (dictionary != nullptr) { // small replies compress well with the dictionary of the request
+        return encode_message(src, dst, dictionary);
+    }
     using vespalib::compression::compress;
     auto output = src.SerializeAsString();
     if (src.grouping_blob().empty()) {
@@ -67,12 +82,19 @@ void encode_search_reply(const ProtoSearchReply& src, FRT_Values& dst) {
     }
 }
 
-template <typename MSG> bool decode_message(const FRT_Values& src, MSG& dst) {
+template <typename MSG>
+bool decode_message(const FRT_Values& src, MSG& dst, const CompressionDictionary* dictionary = nullptr) {
     using vespalib::compression::decompress;
     uint8_t        encoding = src[0]._intval8;
     uint32_t       uncompressed_size = src[1]._intval32;
     DataBuffer     uncompressed(src[2]._data._buf, src[2]._data._len);
     ConstBufferRef blob(src[2]._data._buf, src[2]._data._len);
+    if (dictionary != nullptr && CompressionConfig::toType(encoding) == CompressionConfig::ZSTD) {
+        if (!dictionary->decompress(blob, uncompressed_size, uncompressed)) {
+            return false;
+        }
+        return dst.ParseFromArray(uncompressed.getData(), uncompressed.getDataLen());
+    }
     decompress(CompressionConfig::toType(encoding), uncompressed_size, blob, uncompressed, true);
     assert(uncompressed_size == uncompressed.getDataLen());
     return dst.ParseFromArray(uncompressed.getData(), uncompressed.getDataLen());
@@ -81,15 +103,20 @@ template <typename MSG> bool decode_message(const FRT_Values& src, MSG& dst) {
 //-----------------------------------------------------------------------------
 
 struct SearchRequestDecoder : SearchRequest::Source::Decoder {
-    FRT_RPCRequest& rpc; // valid until Return is called
-    QueryStats&     stats;
-    RelativeTime    relative_time;
-    SearchRequestDecoder(FRT_RPCRequest& rpc_in, QueryStats& stats_in)
-        : rpc(rpc_in), stats(stats_in), relative_time(std::make_unique<SteadyClock>()) {}
+    FRT_RPCRequest&                              rpc; // valid until Return is called
+    QueryStats&                                  stats;
+    std::shared_ptr<const CompressionDictionary> dictionary;
+    RelativeTime                                 relative_time;
+    SearchRequestDecoder(FRT_RPCRequest& rpc_in, QueryStats& stats_in,
+                         std::shared_ptr<const CompressionDictionary> dictionary_in)
+        : rpc(rpc_in),
+          stats(stats_in),
+          dictionary(std::move(dictionary_in)),
+          relative_time(std::make_unique<SteadyClock>()) {}
     std::unique_ptr<SearchRequest> decode() override {
         ProtoSearchRequest msg;
         stats.request_size = (*rpc.GetParams())[2]._data._len;
-        if (!decode_message(*rpc.GetParams(), msg)) {
+        if (!decode_message(*rpc.GetParams(), msg, dictionary.get())) {
             LOG(warning, "got bad protobuf search request over rpc (unable to decode)");
             return std::unique_ptr<SearchRequest>(nullptr);
         }
@@ -99,21 +126,24 @@ struct SearchRequestDecoder : SearchRequest::Source::Decoder {
     }
 };
 
-std::unique_ptr<SearchRequest::Source::Decoder> search_request_decoder(FRT_RPCRequest& rpc, QueryStats& stats) {
-    return std::make_unique<SearchRequestDecoder>(rpc, stats);
+std::unique_ptr<SearchRequest::Source::Decoder>
+search_request_decoder(FRT_RPCRequest& rpc, QueryStats& stats, std::shared_ptr<const CompressionDictionary> dictionary) {
+    return std::make_unique<SearchRequestDecoder>(rpc, stats, std::move(dictionary));
 }
 
 // allocated in the stash of the request it is completing; no self-delete needed
 struct SearchCompletionHandler : SearchClient {
-    FRT_RPCRequest&        req;
-    SearchProtocolMetrics& metrics;
-    QueryStats             stats;
-    SearchCompletionHandler(FRT_RPCRequest& req_in, SearchProtocolMetrics& metrics_in)
-        : req(req_in), metrics(metrics_in), stats() {}
+    FRT_RPCRequest&                              req;
+    SearchProtocolMetrics&                       metrics;
+    std::shared_ptr<const CompressionDictionary> dictionary;
+    QueryStats                                   stats;
+    SearchCompletionHandler(FRT_RPCRequest& req_in, SearchProtocolMetrics& metrics_in,
+                            std::shared_ptr<const CompressionDictionary> dictionary_in)
+        : req(req_in), metrics(metrics_in), dictionary(std::move(dictionary_in)), stats() {}
     void searchDone(SearchReply::UP reply) override {
         ProtoSearchReply msg;
         ProtoConverter::search_reply_to_proto(*reply, msg);
-        encode_search_reply(msg, *req.GetReturn());
+        encode_search_reply(msg, *req.GetReturn(), dictionary.get());
         stats.reply_size = (*req.GetReturn())[2]._data._len;
         if (reply->request) {
             stats.latency = vespalib::to_s(reply->request->getTimeUsed());
@@ -126,15 +156,20 @@ struct SearchCompletionHandler : SearchClient {
 //-----------------------------------------------------------------------------
 
 struct DocsumRequestDecoder : DocsumRequest::Source::Decoder {
-    FRT_RPCRequest& rpc; // valid until Return is called
-    DocsumStats&    stats;
-    RelativeTime    relative_time;
-    DocsumRequestDecoder(FRT_RPCRequest& rpc_in, DocsumStats& stats_in)
-        : rpc(rpc_in), stats(stats_in), relative_time(std::make_unique<SteadyClock>()) {}
+    FRT_RPCRequest&                              rpc; // valid until Return is called
+    DocsumStats&                                 stats;
+    std::shared_ptr<const CompressionDictionary> dictionary;
+    RelativeTime                                 relative_time;
+    DocsumRequestDecoder(FRT_RPCRequest& rpc_in, DocsumStats& stats_in,
+                         std::shared_ptr<const CompressionDictionary> dictionary_in)
+        : rpc(rpc_in),
+          stats(stats_in),
+          dictionary(std::move(dictionary_in)),
+          relative_time(std::make_unique<SteadyClock>()) {}
     std::unique_ptr<DocsumRequest> decode() override {
         ProtoDocsumRequest msg;
         stats.request_size = (*rpc.GetParams())[2]._data._len;
-        if (!decode_message(*rpc.GetParams(), msg)) {
+        if (!decode_message(*rpc.GetParams(), msg, dictionary.get())) {
             LOG(warning, "got bad protobuf docsum request over rpc (unable to decode)");
             return std::unique_ptr<DocsumRequest>(nullptr);
         }
@@ -145,21 +180,24 @@ struct DocsumRequestDecoder : DocsumRequest::Source::Decoder {
     }
 };
 
-std::unique_ptr<DocsumRequest::Source::Decoder> docsum_request_decoder(FRT_RPCRequest& rpc, DocsumStats& stats) {
-    return std::make_unique<DocsumRequestDecoder>(rpc, stats);
+std::unique_ptr<DocsumRequest::Source::Decoder>
+docsum_request_decoder(FRT_RPCRequest& rpc, DocsumStats& stats, std::shared_ptr<const CompressionDictionary> dictionary) {
+    return std::make_unique<DocsumRequestDecoder>(rpc, stats, std::move(dictionary));
 }
 
 // allocated in the stash of the request it is completing; no self-delete needed
 struct GetDocsumsCompletionHandler : DocsumClient {
-    FRT_RPCRequest&        req;
-    SearchProtocolMetrics& metrics;
-    DocsumStats            stats;
-    GetDocsumsCompletionHandler(FRT_RPCRequest& req_in, SearchProtocolMetrics& metrics_in)
-        : req(req_in), metrics(metrics_in), stats() {}
+    FRT_RPCRequest&                              req;
+    SearchProtocolMetrics&                       metrics;
+    std::shared_ptr<const CompressionDictionary> dictionary;
+    DocsumStats                                  stats;
+    GetDocsumsCompletionHandler(FRT_RPCRequest& req_in, SearchProtocolMetrics& metrics_in,
+                                std::shared_ptr<const CompressionDictionary> dictionary_in)
+        : req(req_in), metrics(metrics_in), dictionary(std::move(dictionary_in)), stats() {}
     void getDocsumsDone(DocsumReply::UP reply) override {
         ProtoDocsumReply msg;
         ProtoConverter::docsum_reply_to_proto(*reply, msg);
-        encode_message(msg, *req.GetReturn());
+        encode_message(msg, *req.GetReturn(), dictionary.get());
         stats.reply_size = (*req.GetReturn())[2]._data._len;
         if (reply->hasRequest()) {
             stats.latency = vespalib::to_s(reply->request().getTimeUsed());
@@ -186,10 +224,10 @@ struct PingCompletionHandler : MonitorClient {
 //-----------------------------------------------------------------------------
 
 void describe_bix_param_return(FRT_ReflectionBuilder& rb) {
-    rb.ParamDesc("encoding", "0=raw, 6=lz4, 7=zstd");
+    rb.ParamDesc("encoding", "0=raw, 6=lz4, 7=zstd (possibly with the dictionary set on the connection)");
     rb.ParamDesc("uncompressed_size", "uncompressed size of serialized request");
     rb.ParamDesc("request", "possibly compressed serialized request");
-    rb.ReturnDesc("encoding", "0=raw, 6=lz4, 7=zstd");
+    rb.ReturnDesc("encoding", "0=raw, 6=lz4, 7=zstd (with the dictionary of the request, if any)");
     rb.ReturnDesc("uncompressed_size", "uncompressed size of serialized reply");
     rb.ReturnDesc("reply", "possibly compressed serialized reply");
 }
@@ -206,9 +244,17 @@ ProtoRpcAdapter::ProtoRpcAdapter(SearchServer& search_server, DocsumServer& docs
       _docsum_server(docsum_server),
       _monitor_server(monitor_server),
       _online(false),
-      _metrics() {
+      _metrics(),
+      _dictionaries(max_compression_dictionaries) {
     FRT_ReflectionBuilder rb(&orb);
     //-------------------------------------------------------------------------
+    rb.DefineMethod("vespa.searchprotocol.setCompressionDictionary", "ix", "",
+                    FRT_METHOD(ProtoRpcAdapter::rpc_setCompressionDictionary), this);
+    rb.MethodDesc("set a zstd dictionary which requests on this connection may be compressed with");
+    rb.RequestAccessFilter(make_search_api_capability_filter());
+    rb.ParamDesc("id", "the id of the dictionary, as written in the frames compressed with it");
+    rb.ParamDesc("dictionary", "the serialized zstd dictionary");
+    //-------------------------------------------------------------------------
     rb.DefineMethod("vespa.searchprotocol.search", "bix", "bix", FRT_METHOD(ProtoRpcAdapter::rpc_search), this);
     rb.MethodDesc("perform a search against this back-end");
     rb.RequestAccessFilter(make_search_api_capability_filter());
@@ -227,13 +273,41 @@ ProtoRpcAdapter::ProtoRpcAdapter(SearchServer& search_server, DocsumServer& docs
     //-------------------------------------------------------------------------
 }
 
+bool ProtoRpcAdapter::lookup_dictionary(FRT_RPCRequest& req,
+                                        std::shared_ptr<const CompressionDictionary>& dictionary) const {
+    const FRT_Values& params = *req.GetParams();
+    if (CompressionConfig::toType(params[0]._intval8) != CompressionConfig::ZSTD) {
+        return true;
+    }
+    uint32_t id = CompressionDictionaries::dictionary_id(ConstBufferRef(params[2]._data._buf, params[2]._data._len));
+    if (id == 0) {
+        return true;
+    }
+    dictionary = _dictionaries.get(req.GetConnection(), id);
+    return bool(dictionary);
+}
+
+void ProtoRpcAdapter::rpc_setCompressionDictionary(FRT_RPCRequest* req) {
+    const FRT_Values& params = *req->GetParams();
+    using search::fs4transport::FS4PersistentPacketStreamer;
+    int level = FS4PersistentPacketStreamer::Instance.getCompressionLevel();
+    if (!_dictionaries.set(req->GetConnection(), params[0]._intval32, params[1]._data._buf, params[1]._data._len,
+                           level)) {
+        req->SetError(FRTE_RPC_METHOD_FAILED, "not a zstd dictionary with the given id");
+    }
+}
+
 void ProtoRpcAdapter::rpc_search(FRT_RPCRequest* req) {
     if (!is_online()) {
         return req->SetError(FRTE_RPC_METHOD_FAILED, "Server not online");
     }
+    std::shared_ptr<const CompressionDictionary> dictionary;
+    if (!lookup_dictionary(*req, dictionary)) {
+        return req->SetError(UNKNOWN_COMPRESSION_DICTIONARY, "Unknown compression dictionary");
+    }
     req->Detach();
-    auto& client = req->getStash().create<SearchCompletionHandler>(*req, _metrics);
-    auto  reply = _search_server.search(search_request_decoder(*req, client.stats), client);
+    auto& client = req->getStash().create<SearchCompletionHandler>(*req, _metrics, dictionary);
+    auto  reply = _search_server.search(search_request_decoder(*req, client.stats, std::move(dictionary)), client);
     if (reply) {
         client.searchDone(std::move(reply));
     }
@@ -243,9 +317,13 @@ void ProtoRpcAdapter::rpc_getDocsums(FRT_RPCRequest* req) {
     if (!is_online()) {
         return req->SetError(FRTE_RPC_METHOD_FAILED, "Server not online");
     }
+    std::shared_ptr<const CompressionDictionary> dictionary;
+    if (!lookup_dictionary(*req, dictionary)) {
+        return req->SetError(UNKNOWN_COMPRESSION_DICTIONARY, "Unknown compression dictionary");
+    }
     req->Detach();
-    auto& client = req->getStash().create<GetDocsumsCompletionHandler>(*req, _metrics);
-    auto  reply = _docsum_server.getDocsums(docsum_request_decoder(*req, client.stats), client);
+    auto& client = req->getStash().create<GetDocsumsCompletionHandler>(*req, _metrics, dictionary);
+    auto  reply = _docsum_server.getDocsums(docsum_request_decoder(*req, client.stats, std::move(dictionary)), client);
     if (reply) {
         client.getDocsumsDone(std::move(reply));
     }
@@ -283,6 +361,23 @@ bool ProtoRpcAdapter::decode_search_reply(FRT_RPCRequest& src, ProtoSearchReply&
     return (src.CheckReturnTypes("bix") && decode_message(*src.GetReturn(), dst));
 }
 
+void ProtoRpcAdapter::encode_search_request(const ProtoSearchRequest& src, const CompressionDictionary& dictionary,
+                                            FRT_RPCRequest& dst) {
+    dst.SetMethodName("vespa.searchprotocol.search");
+    encode_message(src, *dst.GetParams(), &dictionary);
+}
+
+bool ProtoRpcAdapter::decode_search_reply(FRT_RPCRequest& src, const CompressionDictionary& dictionary,
+                                          ProtoSearchReply& dst) {
+    return (src.CheckReturnTypes("bix") && decode_message(*src.GetReturn(), dst, &dictionary));
+}
+
+void ProtoRpcAdapter::encode_compression_dictionary(const CompressionDictionary& dictionary, FRT_RPCRequest& dst) {
+    dst.SetMethodName("vespa.searchprotocol.setCompressionDictionary");
+    dst.GetParams()->AddInt32(dictionary.id());
+    dst.GetParams()->AddData(dictionary.data().data(), dictionary.data().size());
+}
+
 void ProtoRpcAdapter::encode_docsum_request(const ProtoDocsumRequest& src, FRT_RPCRequest& dst) {
     dst.SetMethodName("vespa.searchprotocol.getDocsums");
     encode_message(src, *dst.GetParams());
@@ -2,6 +2,7 @@
 
 #pragma once
 
+#include "compression_dictionaries.h"
 #include "proto_converter.h"
 #include "search_protocol_metrics.h"
 
@@ -30,13 +31,21 @@ public:
     using ProtoDocsumReply = ProtoConverter::ProtoDocsumReply;
     using ProtoMonitorRequest = ProtoConverter::ProtoMonitorRequest;
     using ProtoMonitorReply = ProtoConverter::ProtoMonitorReply;
+    using CompressionDictionary = CompressionDictionaries::Dictionary;
+
+    // error returned for requests compressed with a dictionary not set on their connection
+    static constexpr uint32_t UNKNOWN_COMPRESSION_DICTIONARY = 0x10000;
 
 private:
-    SearchServer&         _search_server;
-    DocsumServer&         _docsum_server;
-    MonitorServer&        _monitor_server;
-    std::atomic<bool>     _online;
-    SearchProtocolMetrics _metrics;
+    SearchServer&           _search_server;
+    DocsumServer&           _docsum_server;
+    MonitorServer&          _monitor_server;
+    std::atomic<bool>       _online;
+    SearchProtocolMetrics   _metrics;
+    CompressionDictionaries _dictionaries;
+
+    // returns false if the request is compressed with a dictionary not set on its connection
+    bool lookup_dictionary(FRT_RPCRequest& req, std::shared_ptr<const CompressionDictionary>& dictionary) const;
 
 public:
     ProtoRpcAdapter(SearchServer& search_server, DocsumServer& docsum_server, MonitorServer& monitor_server,
@@ -47,6 +56,7 @@ public:
     void set_online() { _online.store(true, std::memory_order_release); }
     bool is_online() const { return _online.load(std::memory_order_acquire); }
 
+    void rpc_setCompressionDictionary(FRT_RPCRequest* req);
     void rpc_search(FRT_RPCRequest* req);
     void rpc_getDocsums(FRT_RPCRequest* req);
     void rpc_ping(FRT_RPCRequest* req);
@@ -54,6 +64,11 @@ public:
     // convenience functions used for testing
     static void encode_search_request(const ProtoSearchRequest& src, FRT_RPCRequest& dst);
     static bool decode_search_reply(FRT_RPCRequest& src, ProtoSearchReply& dst);
+    static void encode_search_request(const ProtoSearchRequest& src, const CompressionDictionary& dictionary,
+                                      FRT_RPCRequest& dst);
+    static bool decode_search_reply(FRT_RPCRequest& src, const CompressionDictionary& dictionary,
+                                    ProtoSearchReply& dst);
+    static void encode_compression_dictionary(const CompressionDictionary& dictionary, FRT_RPCRequest& dst);
 
     static void encode_docsum_request(const ProtoDocsumRequest& src, FRT_RPCRequest& dst);
     static bool decode_docsum_reply(FRT_RPCRequest& src, ProtoDocsumReply& dst);
@@ -7,6 +7,7 @@ namespace search::engine {
 SearchReply::SearchReply()
     : _distributionKey(0),
       totalHitCount(0),
+      active_queries(0),
       sortIndex(),
       sortData(),
       groupResult(),
@@ -22,6 +23,7 @@ SearchReply::~SearchReply() = default;
 SearchReply::SearchReply(const SearchReply& rhs)
     : _distributionKey(rhs._distributionKey),
       totalHitCount(rhs.totalHitCount),
+      active_queries(rhs.active_queries),
       sortIndex(rhs.sortIndex),
       sortData(rhs.sortData),
       groupResult(rhs.groupResult),
@@ -81,6 +81,7 @@ private:
 
 public:
     uint64_t              totalHitCount;
+    uint32_t              active_queries;
     std::vector<uint32_t> sortIndex;
     std::vector<char>     sortData;
     vespalib::Array<char> groupResult;
@@ -160,6 +160,14 @@ public interface FeedClientBuilder {
      */
     FeedClientBuilder setInitialInflightFactor(int factor);
 
+    /**
+     * Turns on batching, where operations are sent as JSON lines in requests to /document/v1/batch,
+     * rather than one per request, which reduces per-request overhead when feeding small documents.
+     * A batch is sent when it holds at least {@code maxBatchBytes} bytes, or when its first
+     * operation has waited {@code maxBatchDelay}. Requires a Vespa version supporting batches.
+     */
+    FeedClientBuilder setBatching(int maxBatchBytes, Duration maxBatchDelay);
+
     /** Constructs instance of {@link FeedClient} from builder configuration */
     FeedClient build();
 
@@ -0,0 +1,19 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.feed.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HexValuesTest {
+
+    @Test
+    void testEncoding() {
+        assertEquals("3FF0000000000000C004000000000000", HexValues.ofDoubles(new double[] { 1.0, -2.5 }));
+        assertEquals("3F800000C0200000", HexValues.ofFloats(new float[] { 1.0f, -2.5f }));
+        assertEquals("3F80C020", HexValues.ofBFloat16s(new float[] { 1.0f, -2.5f }));
+        assertEquals("FF107F80", HexValues.ofInt8s(new byte[] { -1, 16, 127, -128 }));
+        assertEquals("", HexValues.ofFloats(new float[0]));
+    }
+
+}
@@ -66,6 +66,8 @@ class CliArguments {
     private static final String LOG_CONFIG_OPTION = "log-config";
     private static final String INITIAL_INFLIGHT_FACTOR_OPTION = "initial-inflight-factor";
     private static final String EXIT_ON_FEED_ERRORS_OPTION = "exit-on-feed-errors";
+    private static final String BATCH_BYTES_OPTION = "batch-bytes";
+    private static final String BATCH_DELAY_OPTION = "batch-delay";
 
     private final CommandLine arguments;
 
@@ -235,6 +237,12 @@ class CliArguments {
 
     boolean exitOnFeedErrorsEnabled() { return has(EXIT_ON_FEED_ERRORS_OPTION); }
 
+    OptionalInt batchBytes() throws CliArgumentsException { return intValue(BATCH_BYTES_OPTION); }
+
+    Duration batchDelay() throws CliArgumentsException {
+        return Duration.ofMillis((long) (doubleValue(BATCH_DELAY_OPTION).orElse(0.01) * 1000));
+    }
+
     private Optional<String> stringValue(String option) { return Optional.ofNullable(arguments.getOptionValue(option)); }
 
     private OptionalDouble doubleValue(String option) throws CliArgumentsException {
@@ -403,6 +411,18 @@ class CliArguments {
                 .addOption(Option.builder()
                         .longOpt(EXIT_ON_FEED_ERRORS_OPTION)
                         .desc("Exit with non-zero exit code if any feed operation fails")
+                        .build())
+                .addOption(Option.builder()
+                        .longOpt(BATCH_BYTES_OPTION)
+                        .desc("Send operations in batches of this many bytes to /document/v1/batch. Disabled by default")
+                        .hasArg()
+                        .type(Number.class)
+                        .build())
+                .addOption(Option.builder()
+                        .longOpt(BATCH_DELAY_OPTION)
+                        .desc("Maximum delay (in seconds) before sending a batch which is not full; default is 0.01")
+                        .hasArg()
+                        .type(Number.class)
                         .build());
     }
 
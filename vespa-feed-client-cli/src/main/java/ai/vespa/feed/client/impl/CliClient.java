@@ -179,6 +179,7 @@ public class CliClient {
                                                                                                         Duration.ofSeconds(doom))));
         cliArgs.proxy().ifPresent(builder::setProxy);
         cliArgs.initialInflightFactor().ifPresent(builder::setInitialInflightFactor);
+        if (cliArgs.batchBytes().isPresent()) builder.setBatching(cliArgs.batchBytes().getAsInt(), cliArgs.batchDelay());
         return builder.build();
     }
 
@@ -143,6 +143,7 @@ class CliClientTest {
         @Override public FeedClientBuilder setProxy(URI uri) { return this; }
         @Override public FeedClientBuilder setCompression(FeedClientBuilder.Compression compression) { return this; }
         @Override public FeedClientBuilder setInitialInflightFactor(int factor) { return this; }
+        @Override public FeedClientBuilder setBatching(int maxBatchBytes, Duration maxBatchDelay) { return this; }
     }
 
     static class StubFeedClient implements FeedClient {
@@ -0,0 +1,230 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.feed.client.impl;
+
+import ai.vespa.feed.client.HttpResponse;
+import ai.vespa.feed.client.OperationStats;
+import ai.vespa.feed.client.ResultParseException;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Collects requests for single document operations to {@link #PATH}, each with one JSON line as its body,
+ * into batches which are sent as single requests to a delegate {@link Cluster}. A batch is sent when it holds
+ * at least the configured number of bytes, or when its first operation has waited for the configured delay.
+ * The response to a batch has one JSON line per operation, in order, and each of these is used as the
+ * response to its operation. Only operations with the same query are batched together.
+ * Other requests are dispatched directly to the delegate.
+ */
+class BatchingCluster implements Cluster {
+
+    static final String PATH = "/document/v1/batch";
+
+    private static final Logger log = Logger.getLogger(BatchingCluster.class.getName());
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private final Object monitor = new Object();
+    private final Map<String, Batch> batches = new HashMap<>(); // Open batches, by query.
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "feed-client-batch-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Cluster delegate;
+    private final int maxBatchBytes;
+    private final Duration maxBatchDelay;
+    private final LongSupplier nanoClock;
+
+    BatchingCluster(Cluster delegate, int maxBatchBytes, Duration maxBatchDelay, LongSupplier nanoClock) {
+        this.delegate = requireNonNull(delegate);
+        this.maxBatchBytes = maxBatchBytes;
+        this.maxBatchDelay = requireNonNull(maxBatchDelay);
+        this.nanoClock = requireNonNull(nanoClock);
+    }
+
+    BatchingCluster(Cluster delegate, FeedClientBuilderImpl builder) {
+        this(delegate, builder.maxBatchBytes, builder.maxBatchDelay, builder.nanoClock);
+    }
+
+    @Override
+    public void dispatch(HttpRequest request, CompletableFuture<HttpResponse> vessel) {
+        if ( ! PATH.equals(request.path())) {
+            delegate.dispatch(request, vessel);
+            return;
+        }
+        Batch full = null;
+        synchronized (monitor) {
+            Batch batch = batches.get(request.query());
+            if (batch == null) {
+                Batch created = new Batch(request.query());
+                batches.put(request.query(), created);
+                try {
+                    created.timeout = timer.schedule(() -> flush(created), maxBatchDelay.toNanos(), TimeUnit.NANOSECONDS);
+                }
+                catch (RuntimeException e) { // Timer is shut down, so the cluster is closing; send the batch right away.
+                    log.log(Level.FINE, "Failed scheduling batch flush", e);
+                }
+                batch = created;
+            }
+            batch.add(request, vessel);
+            if (batch.bytes >= maxBatchBytes || batch.timeout == null) {
+                batches.remove(batch.query);
+                full = batch;
+            }
+        }
+        if (full != null) send(full);
+    }
+
+    private void flush(Batch batch) {
+        synchronized (monitor) {
+            if (batches.get(batch.query) != batch) return; // Already sent.
+            batches.remove(batch.query);
+        }
+        send(batch);
+    }
+
+    private void send(Batch batch) {
+        if (batch.timeout != null) batch.timeout.cancel(false);
+        ByteArrayOutputStream body = new ByteArrayOutputStream(batch.bytes);
+        Duration timeLeft = Duration.ZERO;
+        for (HttpRequest request : batch.requests) {
+            body.writeBytes(request.body());
+            body.write('\n');
+            if (request.timeLeft().compareTo(timeLeft) > 0) timeLeft = request.timeLeft();
+        }
+        HttpRequest request = new HttpRequest("POST", PATH, batch.query, batch.requests.get(0).headers(),
+                                              body.toByteArray(), timeLeft, nanoClock);
+
+        CompletableFuture<HttpResponse> vessel = new CompletableFuture<>();
+        vessel.whenComplete((response, thrown) -> {
+            try {
+                if (thrown != null) {
+                    for (CompletableFuture<HttpResponse> operation : batch.vessels)
+                        operation.completeExceptionally(thrown);
+                }
+                else if (response.code() != 200) { // The whole batch failed, so each operation gets the same response.
+                    for (CompletableFuture<HttpResponse> operation : batch.vessels)
+                        operation.complete(response);
+                }
+                else {
+                    List<HttpResponse> responses = parse(response.body());
+                    if (responses.size() != batch.vessels.size())
+                        throw new ResultParseException(null, "Expected " + batch.vessels.size() + " results in batch response, but got " +
+                                                             responses.size() + ": " + new String(response.body(), UTF_8));
+
+                    for (int i = 0; i < responses.size(); i++)
+                        batch.vessels.get(i).complete(responses.get(i));
+                }
+            }
+            catch (RuntimeException e) {
+                for (CompletableFuture<HttpResponse> operation : batch.vessels)
+                    operation.completeExceptionally(e);
+            }
+        });
+        delegate.dispatch(request, vessel);
+    }
+
+    /** Splits a batch response into one response per line, each with the status code given in that line. */
+    static List<HttpResponse> parse(byte[] body) {
+        List<HttpResponse> responses = new ArrayList<>();
+        for (int start = 0, end; start < body.length; start = end + 1) {
+            end = start;
+            while (end < body.length && body[end] != '\n') end++;
+            if (end == start) continue;
+
+            byte[] line = new byte[end - start];
+            System.arraycopy(body, start, line, 0, line.length);
+            responses.add(HttpResponse.of(status(line), line));
+        }
+        return responses;
+    }
+
+    private static int status(byte[] line) {
+        try (JsonParser parser = jsonFactory.createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                throw new ResultParseException(null, "Expected '" + JsonToken.START_OBJECT + "', but found '" + parser.currentToken() +
+                                                     "' in: " + new String(line, UTF_8));
+
+            String name;
+            while ((name = parser.nextFieldName()) != null) {
+                if ("status".equals(name)) {
+                    if (parser.nextToken() != JsonToken.VALUE_NUMBER_INT)
+                        throw new ResultParseException(null, "Expected 'status' to be an integer, but got '" + parser.currentToken() +
+                                                             "' in: " + new String(line, UTF_8));
+                    return parser.getIntValue();
+                }
+                if (parser.nextToken().isStructStart()) parser.skipChildren();
+            }
+            throw new ResultParseException(null, "No 'status' in: " + new String(line, UTF_8));
+        }
+        catch (IOException e) {
+            throw new ResultParseException(null, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        List<Batch> pending;
+        synchronized (monitor) {
+            timer.shutdownNow();
+            pending = new ArrayList<>(batches.values());
+            batches.clear();
+        }
+        for (Batch batch : pending) {
+            batch.timeout.cancel(false);
+            for (CompletableFuture<HttpResponse> vessel : batch.vessels)
+                vessel.completeExceptionally(new IllegalStateException("cluster closed before batch was sent"));
+        }
+        delegate.close();
+    }
+
+    @Override
+    public OperationStats stats() {
+        return delegate.stats();
+    }
+
+    @Override
+    public void resetStats() {
+        delegate.resetStats();
+    }
+
+    private static class Batch {
+
+        final String query;
+        final List<HttpRequest> requests = new ArrayList<>();
+        final List<CompletableFuture<HttpResponse>> vessels = new ArrayList<>();
+        ScheduledFuture<?> timeout;
+        int bytes = 0;
+
+        Batch(String query) {
+            this.query = query;
+        }
+
+        void add(HttpRequest request, CompletableFuture<HttpResponse> vessel) {
+            requests.add(request);
+            vessels.add(vessel);
+            bytes += request.body().length + 1;
+        }
+
+    }
+
+}
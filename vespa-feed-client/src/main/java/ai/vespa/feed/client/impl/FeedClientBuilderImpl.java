@@ -60,6 +60,8 @@ public class FeedClientBuilderImpl implements FeedClientBuilder {
     Duration connectionTtl = Duration.ZERO;
     LongSupplier nanoClock = System::nanoTime;
     int initialInflightFactor = 1;
+    int maxBatchBytes = 0;
+    Duration maxBatchDelay = Duration.ZERO;
 
     public FeedClientBuilderImpl() { }
 
@@ -273,6 +275,15 @@ public class FeedClientBuilderImpl implements FeedClientBuilder {
         return this;
     }
 
+    @Override
+    public FeedClientBuilderImpl setBatching(int maxBatchBytes, Duration maxBatchDelay) {
+        if (maxBatchBytes < 1) throw new IllegalArgumentException("Max batch bytes must be at least 1, but was " + maxBatchBytes);
+        if (maxBatchDelay.isNegative()) throw new IllegalArgumentException("Max batch delay cannot be negative, but was " + maxBatchDelay);
+        this.maxBatchBytes = maxBatchBytes;
+        this.maxBatchDelay = maxBatchDelay;
+        return this;
+    }
+
     /** Constructs instance of {@link ai.vespa.feed.client.FeedClient} from builder configuration */
     @Override
     public FeedClient build() {
@@ -15,6 +15,7 @@ import com.fasterxml.jackson.core.JsonFactoryBuilder;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
@@ -51,6 +52,7 @@ class HttpFeedClient implements FeedClient {
     private static final Logger log = Logger.getLogger(HttpFeedClient.class.getName());
 
     private static final Duration maxTimeout = Duration.ofMinutes(15);
+    private static final JsonStringEncoder jsonStringEncoder = JsonStringEncoder.getInstance();
     private static final JsonFactory jsonParserFactory = new JsonFactoryBuilder()
             .streamReadConstraints(StreamReadConstraints.builder().maxStringLength(Integer.MAX_VALUE).build())
             .build();
@@ -59,11 +61,14 @@ class HttpFeedClient implements FeedClient {
     private final RequestStrategy requestStrategy;
     private final AtomicBoolean closed = new AtomicBoolean();
     private final boolean speedTest;
+    private final boolean batching;
     private final LongSupplier nanoClock;
 
     HttpFeedClient(FeedClientBuilderImpl builder) throws IOException {
         this(builder,
-             builder.dryrun ? () -> new DryrunCluster() : () -> new JettyCluster(builder));
+             builder.dryrun ? () -> new DryrunCluster()
+                            : builder.maxBatchBytes > 0 ? () -> new BatchingCluster(new JettyCluster(builder), builder)
+                                                        : () -> new JettyCluster(builder));
     }
 
     HttpFeedClient(FeedClientBuilderImpl builder, ClusterFactory clusterFactory) throws IOException {
@@ -74,6 +79,7 @@ class HttpFeedClient implements FeedClient {
         this.requestHeaders = new HashMap<>(builder.requestHeaders);
         this.requestStrategy = requestStrategy;
         this.speedTest = builder.speedTest;
+        this.batching = builder.maxBatchBytes > 0 && ! builder.dryrun;
         this.nanoClock = builder.nanoClock;
         verifyConnection(builder, clusterFactory);
     }
@@ -121,13 +127,21 @@ class HttpFeedClient implements FeedClient {
         if (closed.get())
             throw new IllegalStateException("Client is closed");
 
-        HttpRequest request = new HttpRequest(method,
-                                              getPath(documentId),
-                                              getQuery(params, speedTest),
-                                              requestHeaders,
-                                              operationJson == null ? null : operationJson.getBytes(UTF_8), // TODO: make it bytes all the way?
-                                              params.timeout().orElse(maxTimeout),
-                                              nanoClock);
+        // Batched operations keep their HTTP method, for the retry strategy, but are sent as lines in a POST by the cluster.
+        HttpRequest request = batching ? new HttpRequest(method,
+                                                         BatchingCluster.PATH,
+                                                         getBatchQuery(params, speedTest),
+                                                         requestHeaders,
+                                                         getBatchLine(method, documentId, operationJson, params),
+                                                         params.timeout().orElse(maxTimeout),
+                                                         nanoClock)
+                                       : new HttpRequest(method,
+                                                         getPath(documentId),
+                                                         getQuery(params, speedTest),
+                                                         requestHeaders,
+                                                         operationJson == null ? null : operationJson.getBytes(UTF_8), // TODO: make it bytes all the way?
+                                                         params.timeout().orElse(maxTimeout),
+                                                         nanoClock);
 
         CompletableFuture<Result> promise = new CompletableFuture<>();
         requestStrategy.enqueue(documentId, request)
@@ -177,6 +191,7 @@ class HttpFeedClient implements FeedClient {
                 }
                 throw new FeedException("server responded non-OK to handshake: " + message);
             }
+            if (batching) verifyBatching(cluster, timeout);
         }
         catch (ExecutionException e) {
             Duration duration = Duration.between(start, Instant.now());
@@ -191,6 +206,26 @@ class HttpFeedClient implements FeedClient {
         }
     }
 
+    private void verifyBatching(Cluster cluster, Duration timeout) throws ExecutionException, InterruptedException, TimeoutException {
+        DocumentId documentId = DocumentId.of("feeder", "handshake", "dummy");
+        HttpRequest request = new HttpRequest("DELETE",
+                                              BatchingCluster.PATH,
+                                              getBatchQuery(empty(), true),
+                                              requestHeaders,
+                                              getBatchLine("DELETE", documentId, null, empty()),
+                                              timeout,
+                                              nanoClock);
+        CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+        cluster.dispatch(request, future);
+        HttpResponse response = future.get(timeout.plus(Duration.ofSeconds(5)).getSeconds(), TimeUnit.SECONDS);
+        // The dummy document type is typically unknown, so a 400 for the operation itself means batching is supported.
+        if (response.code() == 404)
+            throw new FeedException("server does not support batching; upgrade to a newer version, or turn off batching");
+        if (response.code() >= 500)
+            throw new FeedException("server responded non-OK to batch handshake: " +
+                                    (response.body() == null ? response.toString() : parseMessage(response.body())));
+    }
+
     private static String parseMessage(byte[] json) {
         try {
             return parse(null, json).message;
@@ -324,6 +359,52 @@ class HttpFeedClient implements FeedClient {
         }
     }
 
+    /** Returns the given operation as a JSON line in the feed format, with its document ID and parameters inlined. */
+    static byte[] getBatchLine(String method, DocumentId documentId, String operationJson, OperationParameters params) {
+        StringBuilder line = new StringBuilder("{\"");
+        switch (method) {
+            case "POST": line.append("put"); break;
+            case "PUT": line.append("update"); break;
+            case "DELETE": line.append("remove"); break;
+            default: throw new IllegalArgumentException("Unexpected HTTP method: " + method);
+        }
+        line.append("\":\"");
+        jsonStringEncoder.quoteAsString(documentId.toString(), line);
+        line.append('"');
+        params.testAndSetCondition().ifPresent(condition -> {
+            line.append(",\"condition\":\"");
+            jsonStringEncoder.quoteAsString(condition, line);
+            line.append('"');
+        });
+        if (params.createIfNonExistent() && operationJson != null) line.append(",\"create\":true");
+        if (operationJson == null) {
+            line.append('}');
+        }
+        else { // Splice the members of the operation JSON object into the line, replacing line breaks, which may only be whitespace.
+            int start = 0;
+            while (start < operationJson.length() && Character.isWhitespace(operationJson.charAt(start))) start++;
+            if (start == operationJson.length() || operationJson.charAt(start) != '{')
+                throw new IllegalArgumentException("Expected operation JSON to be an object, but got: " + operationJson);
+
+            int next = start + 1;
+            while (next < operationJson.length() && Character.isWhitespace(operationJson.charAt(next))) next++;
+            if (next < operationJson.length() && operationJson.charAt(next) != '}') line.append(',');
+            for (int i = start + 1; i < operationJson.length(); i++) {
+                char c = operationJson.charAt(i);
+                line.append(c == '\n' || c == '\r' ? ' ' : c);
+            }
+        }
+        return line.toString().getBytes(UTF_8);
+    }
+
+    static String getBatchQuery(OperationParameters params, boolean speedTest) {
+        StringJoiner query = new StringJoiner("&", "?", "").setEmptyValue("");
+        params.route().ifPresent(route -> query.add("route=" + encode(route)));
+        params.tracelevel().ifPresent(tracelevel -> query.add("tracelevel=" + tracelevel));
+        if (speedTest) query.add("dryRun=true");
+        return query.toString();
+    }
+
     static String getQuery(OperationParameters params, boolean speedTest) {
         StringJoiner query = new StringJoiner("&", "?", "").setEmptyValue("");
         if (params.createIfNonExistent()) query.add("create=true");
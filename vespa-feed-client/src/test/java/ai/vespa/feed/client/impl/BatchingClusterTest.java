@@ -0,0 +1,98 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.feed.client.impl;
+
+import ai.vespa.feed.client.DocumentId;
+import ai.vespa.feed.client.HttpResponse;
+import ai.vespa.feed.client.OperationParameters;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchingClusterTest {
+
+    @Test
+    void testBatchLines() {
+        DocumentId id = DocumentId.of("ns", "type", "a\"b");
+        assertEquals("{\"put\":\"id:ns:type::a\\\"b\",\"condition\":\"true\",\"create\":true, \"fields\": {   \"x\": 1 } }",
+                     new String(HttpFeedClient.getBatchLine("POST", id, "{ \"fields\": {\n  \"x\": 1 }\n}",
+                                                            OperationParameters.empty().testAndSetCondition("true").createIfNonExistent(true)),
+                                UTF_8));
+        assertEquals("{\"update\":\"id:ns:type::a\\\"b\" }",
+                     new String(HttpFeedClient.getBatchLine("PUT", id, " { }", OperationParameters.empty()), UTF_8));
+        assertEquals("{\"remove\":\"id:ns:type::a\\\"b\"}",
+                     new String(HttpFeedClient.getBatchLine("DELETE", id, null, OperationParameters.empty().createIfNonExistent(true)), UTF_8));
+        assertEquals("?route=default&dryRun=true",
+                     HttpFeedClient.getBatchQuery(OperationParameters.empty().route("default").testAndSetCondition("false"), true));
+    }
+
+    @Test
+    void testBatching() throws ExecutionException, InterruptedException, TimeoutException {
+        List<HttpRequest> sent = new CopyOnWriteArrayList<>();
+        List<CompletableFuture<HttpResponse>> vessels = new CopyOnWriteArrayList<>();
+        Cluster delegate = (request, vessel) -> { sent.add(request); vessels.add(vessel); };
+        BatchingCluster cluster = new BatchingCluster(delegate, 8, Duration.ofDays(1), System::nanoTime);
+
+        // Requests to other paths are sent directly.
+        HttpRequest single = request("/document/v1/ns/type/docid/a", "", "{}");
+        cluster.dispatch(single, new CompletableFuture<>());
+        assertEquals(List.of(single), sent);
+
+        // Requests with different queries are batched separately, and sent when full.
+        List<CompletableFuture<HttpResponse>> results = new ArrayList<>();
+        for (String line : List.of("{\"a\"}", "{\"b\"}", "{\"c\"}", "{\"d\"}")) {
+            CompletableFuture<HttpResponse> result = new CompletableFuture<>();
+            cluster.dispatch(request(BatchingCluster.PATH, line.equals("{\"b\"}") ? "?route=other" : "", line), result);
+            results.add(result);
+        }
+        assertEquals(2, sent.size());
+        assertEquals("POST", sent.get(1).method());
+        assertEquals("", sent.get(1).query());
+        assertEquals("{\"a\"}\n{\"c\"}\n", new String(sent.get(1).body(), UTF_8));
+
+        vessels.get(1).complete(HttpResponse.of(200, "{\"id\":\"a\",\"status\":412,\"message\":\"no\"}\n{\"status\":200}\n".getBytes(UTF_8)));
+        assertEquals(412, results.get(0).get().code());
+        assertEquals("{\"id\":\"a\",\"status\":412,\"message\":\"no\"}", new String(results.get(0).get().body(), UTF_8));
+        assertEquals(200, results.get(2).get().code());
+        assertFalse(results.get(1).isDone());
+        assertFalse(results.get(3).isDone());
+
+        // A batch which is not full is sent after the max delay.
+        cluster = new BatchingCluster(delegate, 1 << 20, Duration.ofMillis(10), System::nanoTime);
+        CompletableFuture<HttpResponse> delayed = new CompletableFuture<>();
+        cluster.dispatch(request(BatchingCluster.PATH, "", "{\"e\"}"), delayed);
+        while (sent.size() < 3) Thread.sleep(1);
+        assertEquals("{\"e\"}\n", new String(sent.get(2).body(), UTF_8));
+
+        // A failed batch gives the same response to each operation.
+        vessels.get(2).complete(HttpResponse.of(429, "{\"message\":\"overload\"}".getBytes(UTF_8)));
+        assertEquals(429, delayed.get(1, TimeUnit.MINUTES).code());
+
+        // A batch response with the wrong number of results fails all operations.
+        CompletableFuture<HttpResponse> mismatched = new CompletableFuture<>();
+        cluster.dispatch(request(BatchingCluster.PATH, "", "{\"f\"}"), mismatched);
+        while (sent.size() < 4) Thread.sleep(1);
+        vessels.get(3).complete(HttpResponse.of(200, new byte[0]));
+        assertTrue(assertThrows(ExecutionException.class, () -> mismatched.get(1, TimeUnit.MINUTES)).getCause().getMessage()
+                                                                                                  .startsWith("Expected 1 results in batch response, but got 0"));
+        cluster.close();
+    }
+
+    private static HttpRequest request(String path, String query, String body) {
+        return new HttpRequest("POST", path, query, Map.of(), body.getBytes(UTF_8), Duration.ofMinutes(1), System::nanoTime);
+    }
+
+}
@@ -0,0 +1,99 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.restapi.resource;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.yahoo.document.DocumentId;
+import com.yahoo.jdisc.Response;
+import com.yahoo.jdisc.handler.CompletionHandler;
+import com.yahoo.jdisc.handler.ContentChannel;
+import com.yahoo.jdisc.handler.ResponseHandler;
+import com.yahoo.messagebus.Trace;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.FINE;
+
+/**
+ * Collects the results of the operations in a batch of document operations, and responds with these as
+ * JSON lines, one per operation and in the order of the request, once the last operation completes.
+ *
+ * Each line contains the document ID of the operation, when known, its HTTP-like status code,
+ * and an optional message and trace.
+ */
+class BatchJsonLinesResponse {
+
+    private static final Logger log = Logger.getLogger(BatchJsonLinesResponse.class.getName());
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private static final CompletionHandler logException = new CompletionHandler() {
+        @Override public void completed() { }
+        @Override public void failed(Throwable t) {
+            log.log(FINE, "Exception writing or closing response data", t);
+        }
+    };
+
+    private final ResponseHandler handler;
+    private final byte[][] results;
+    private final AtomicInteger remaining;
+
+    BatchJsonLinesResponse(ResponseHandler handler, int size) {
+        this.handler = handler;
+        this.results = new byte[size][];
+        this.remaining = new AtomicInteger(size);
+    }
+
+    /** Sets the result of the operation with the given index, and responds if this was the last remaining one. */
+    void complete(int index, DocumentId id, int status, String message, Trace trace) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator json = jsonFactory.createGenerator(out)) {
+            json.writeStartObject();
+            if (id != null) {
+                json.writeFieldName(JsonNames.ID);
+                json.writeString(id.toString());
+            }
+            json.writeNumberField("status", status);
+            if (message != null) {
+                json.writeFieldName(JsonNames.MESSAGE);
+                json.writeString(message);
+            }
+            if (trace != null && ! trace.getRoot().isEmpty()) {
+                TraceJsonRenderer.writeTrace(json, trace.getRoot());
+            }
+            json.writeEndObject();
+        }
+        catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        out.write('\n');
+        if (results[index] != null) {
+            throw new IllegalStateException("Operation " + index + " in batch was completed twice — this is a bug");
+        }
+        results[index] = out.toByteArray();
+        if (remaining.decrementAndGet() == 0) {
+            respond();
+        }
+    }
+
+    /** Responds with all results; called automatically when the last operation completes, or explicitly for an empty batch. */
+    void respond() {
+        Response response = new Response(Response.Status.OK);
+        response.headers().add("Content-Type", List.of("application/jsonl; charset=UTF-8"));
+        ContentChannel channel = handler.handleResponse(response);
+        try {
+            for (byte[] result : results) {
+                channel.write(ByteBuffer.wrap(result), logException);
+            }
+        }
+        finally {
+            channel.close(logException);
+        }
+    }
+
+}
@@ -13,6 +13,7 @@ import com.yahoo.container.core.HandlerMetricContextUtil;
 import com.yahoo.container.core.documentapi.VespaDocumentAccess;
 import com.yahoo.document.Document;
 import com.yahoo.document.DocumentId;
+import com.yahoo.document.DocumentOperation;
 import com.yahoo.document.DocumentPut;
 import com.yahoo.document.DocumentRemove;
 import com.yahoo.document.DocumentTypeManager;
@@ -74,12 +75,16 @@ import com.yahoo.vespa.http.server.MetricNames;
 import com.yahoo.yolean.Exceptions;
 import com.yahoo.yolean.Exceptions.RunnableThrowingIOException;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
@@ -101,6 +106,7 @@ import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiConsumer;
 import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
@@ -133,6 +139,7 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
 
     private static final Duration defaultTimeout = Duration.ofSeconds(180); // Match document API default timeout.
     private static final Duration handlerTimeout = Duration.ofMillis(100); // Extra time to allow for handler, JDisc and jetty to complete.
+    private static final Duration continuationInterval = Duration.ofSeconds(1); // Max delay of progress written to streamed responses.
 
     private static final Logger log = Logger.getLogger(DocumentV1ApiHandler.class.getName());
     private static final Parser<Integer> integerParser = Integer::parseInt;
@@ -364,6 +371,9 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
                             POST, this::postDocuments,
                             DELETE, this::deleteDocuments));
 
+        handlers.put("/document/v1/batch",
+                     Map.of(POST, this::postBatch));
+
         handlers.put("/document/v1/{namespace}/{documentType}/docid/",
                      Map.of(GET, this::getDocuments,
                             POST, this::postDocuments,
@@ -572,6 +582,144 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         return ignoredContent;
     }
 
+    /**
+     * Accepts a batch of document operations, as JSON lines in the feed format, and responds with
+     * one JSON line per operation, with its document ID, status and message, once all have completed.
+     * The whole batch is throttled as a single request, while its operations are dispatched one by one.
+     */
+    private ContentChannel postBatch(HttpRequest request, DocumentPath path, ResponseHandler handler) {
+        disallow(request, CONDITION, CREATE);
+        boolean dryRun = getProperty(request, DRY_RUN, booleanParser).orElse(false);
+        return new ForwardingContentChannel((bytesRead, in) -> {
+            enqueueAndDispatch(request, handler, bytesRead, () -> {
+                List<byte[]> lines = readLines(in);
+                BatchJsonLinesResponse response = new BatchJsonLinesResponse(handler, lines.size());
+                if (lines.isEmpty()) {
+                    response.respond();
+                    return () -> true;
+                }
+                List<BooleanSupplier> dispatches = new ArrayList<>(lines.size());
+                for (int i = 0; i < lines.size(); i++) {
+                    dispatches.add(batchOperation(request, lines.get(i), i, response, dryRun));
+                }
+                return new BooleanSupplier() {
+                    int next = 0;
+                    @Override public boolean getAsBoolean() {
+                        for ( ; next < dispatches.size(); next++) {
+                            if ( ! dispatches.get(next).getAsBoolean()) {
+                                return false; // Retry from this operation later.
+                            }
+                        }
+                        return true;
+                    }
+                };
+            });
+        });
+    }
+
+    /** Parses the given line of a batch, and returns an operation which dispatches it, or completes it with an error. */
+    private BooleanSupplier batchOperation(HttpRequest request, byte[] line, int index, BatchJsonLinesResponse response, boolean dryRun) {
+        Instant start = clock.instant();
+        if (isDocumentOperationRequestTooLarge(line.length)) {
+            return () -> {
+                response.complete(index, null, Status.REQUEST_TOO_LONG,
+                                  Text.format("Document operation size %d bytes exceeds maximum size of %d bytes",
+                                              line.length, maxDocumentOperationRequestSizeBytes),
+                                  null);
+                return true;
+            };
+        }
+        ParsedDocumentOperation parsed;
+        try {
+            parsed = parser.parseOperation(new ByteArrayInputStream(line));
+        }
+        catch (IllegalArgumentException e) {
+            String message = Exceptions.toMessageString(e);
+            return () -> {
+                response.complete(index, null, Status.BAD_REQUEST, message, null);
+                return true;
+            };
+        }
+        DocumentOperation operation = parsed.operation();
+        DocumentId id = operation.getId();
+        if (dryRun) {
+            return () -> {
+                response.complete(index, id, Status.OK, null, null);
+                return true;
+            };
+        }
+        com.yahoo.documentapi.metrics.DocumentOperationType type;
+        Function<DocumentOperationParameters, Result> dispatch;
+        Consumer<com.yahoo.documentapi.Response> updateMetrics;
+        if (operation instanceof DocumentPut put) {
+            type = com.yahoo.documentapi.metrics.DocumentOperationType.PUT;
+            dispatch = params -> asyncSession.put(put, params);
+            updateMetrics = result -> updatePutMetrics(result.outcome(), latencyOf(request), put.getCreateIfNonExistent());
+        }
+        else if (operation instanceof DocumentUpdate update) {
+            type = com.yahoo.documentapi.metrics.DocumentOperationType.UPDATE;
+            dispatch = params -> asyncSession.update(update, params);
+            updateMetrics = result -> updateUpdateMetrics(result.outcome(), latencyOf(request), update.getCreateIfNonExistent());
+        }
+        else {
+            DocumentRemove remove = (DocumentRemove) operation;
+            type = com.yahoo.documentapi.metrics.DocumentOperationType.REMOVE;
+            dispatch = params -> asyncSession.remove(remove, params);
+            updateMetrics = result -> updateRemoveMetrics(result.outcome(), latencyOf(request));
+        }
+        DocumentOperationParameters parameters = parametersFromRequest(request, ROUTE).withResponseHandler(result -> {
+            outstanding.decrementAndGet();
+            updateMetrics.accept(result);
+            int status = result.isSuccess() ? Status.OK : statusOf(result);
+            metrics.report(type, start, operationStatusOf(status));
+            response.complete(index, id, status, result.isSuccess() ? null : result.getTextMessage(), result.getTrace());
+        });
+        return () -> {
+            try {
+                if (dispatchOperation(() -> dispatch.apply(parameters))) {
+                    return true;
+                }
+                if (maxThrottled == 0) { // No queue to retry from, so this operation is rejected by itself.
+                    response.complete(index, id, Status.TOO_MANY_REQUESTS, "Rejecting execution due to overload: " +
+                                                                           (long) asyncSession.getCurrentWindowSize() + " requests already enqueued", null);
+                    return true;
+                }
+                return false;
+            }
+            catch (DispatchException e) {
+                response.complete(index, id, Status.INTERNAL_SERVER_ERROR, Exceptions.toMessageString(e), null);
+                return true;
+            }
+        };
+    }
+
+    /** Returns the non-empty lines of the given input. */
+    private static List<byte[]> readLines(InputStream in) {
+        byte[] data;
+        try {
+            data = in.readAllBytes();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<byte[]> lines = new ArrayList<>();
+        for (int start = 0, end; start < data.length; start = end + 1) {
+            end = start;
+            while (end < data.length && data[end] != '\n') end++;
+            if ( ! isBlank(data, start, end)) {
+                lines.add(Arrays.copyOfRange(data, start, end));
+            }
+        }
+        return lines;
+    }
+
+    private static boolean isBlank(byte[] data, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if ( ! Character.isWhitespace(data[i])) return false;
+        }
+        return true;
+    }
+
     private DocumentOperationParameters parametersFromRequest(HttpRequest request, String... names) {
         DocumentOperationParameters parameters = getProperty(request, TRACELEVEL, integerParser).map(parameters()::withTraceLevel)
                                                                                                 .orElse(parameters());
@@ -934,6 +1082,15 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
             return parse(inputStream, docId, DocumentOperationType.UPDATE);
         }
 
+        ParsedDocumentOperation parseOperation(InputStream inputStream) {
+            try {
+                return new JsonReader(manager, inputStream, jsonFactory).readSingleOperation();
+            } catch (IllegalArgumentException e) {
+                incrementMetricParseError();
+                throw e;
+            }
+        }
+
         private ParsedDocumentOperation parse(InputStream inputStream, String docId, DocumentOperationType operation) {
             try {
                 return new JsonReader(manager, inputStream, jsonFactory).readSingleDocumentStreaming(operation, docId);
@@ -963,28 +1120,33 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
                 callback.onSuccess(docOrNull, jsonResponse, ignoredOperation);
             } else {
                 jsonResponse.writeMessage(response.getTextMessage(), StreamableJsonResponse.MessageSeverity.ERROR);
-                switch (response.outcome()) {
-                    case NOT_FOUND -> jsonResponse.commit(Response.Status.NOT_FOUND);
-                    case CONDITION_FAILED -> jsonResponse.commit(Response.Status.PRECONDITION_FAILED);
-                    case INSUFFICIENT_STORAGE -> jsonResponse.commit(Response.Status.INSUFFICIENT_STORAGE);
-                    case TIMEOUT -> jsonResponse.commit(Response.Status.GATEWAY_TIMEOUT);
-                    case REJECTED -> jsonResponse.commit(Response.Status.BAD_REQUEST);
-                    case OVERLOAD -> jsonResponse.commit(Response.Status.TOO_MANY_REQUESTS);
-                    case ERROR -> {
-                        log.log(FINE, () -> "Exception performing document operation: " + response.getTextMessage());
-                        jsonResponse.commit(Status.INTERNAL_SERVER_ERROR);
-                    }
-                    default -> {
-                        log.log(WARNING, "Unexpected document API operation outcome '" + response.outcome() + "' " + response.getTextMessage());
-                        jsonResponse.commit(Status.INTERNAL_SERVER_ERROR);
-                    }
-                }
+                jsonResponse.commit(statusOf(response));
             }
         } catch (Exception e) {
             log.log(FINE, "Failed writing response", e);
         }
     }
 
+    /** Returns the HTTP status code corresponding to the given, unsuccessful document API response. */
+    private static int statusOf(com.yahoo.documentapi.Response response) {
+        return switch (response.outcome()) {
+            case NOT_FOUND -> Response.Status.NOT_FOUND;
+            case CONDITION_FAILED -> Response.Status.PRECONDITION_FAILED;
+            case INSUFFICIENT_STORAGE -> Response.Status.INSUFFICIENT_STORAGE;
+            case TIMEOUT -> Response.Status.GATEWAY_TIMEOUT;
+            case REJECTED -> Response.Status.BAD_REQUEST;
+            case OVERLOAD -> Response.Status.TOO_MANY_REQUESTS;
+            case ERROR -> {
+                log.log(FINE, () -> "Exception performing document operation: " + response.getTextMessage());
+                yield Status.INTERNAL_SERVER_ERROR;
+            }
+            default -> {
+                log.log(WARNING, "Unexpected document API operation outcome '" + response.outcome() + "' " + response.getTextMessage());
+                yield Status.INTERNAL_SERVER_ERROR;
+            }
+        };
+    }
+
     private static void handleFeedOperation(DocumentPath path,
                                             boolean fullyApplied,
                                             ResponseHandler handler,
@@ -1333,6 +1495,18 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         return new ProgressToken(sourceToken.serialize());
     }
 
+    private ScheduledFuture<?> scheduleContinuations(StreamableJsonResponse response) {
+        long intervalMillis = continuationInterval.toMillis();
+        return visitDispatcher.scheduleWithFixedDelay(() -> loggingException(response::writePendingContinuation),
+                                                      intervalMillis, intervalMillis, MILLISECONDS);
+    }
+
+    private static void cancel(ScheduledFuture<?> future) {
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
     @SuppressWarnings("fallthrough")
     private void visit(HttpRequest request, VisitorParameters parameters, boolean streaming, boolean fullyApplied,
                        ResponseHandler handler, VisitCallback callback) {
@@ -1342,6 +1516,8 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
             AtomicReference<String> error = new AtomicReference<>(); // Set if error occurs during processing of visited documents.
             callback.onStart(response, fullyApplied);
             final AtomicLong locallyReceivedDocCount = new AtomicLong(0);
+            // Set when streaming, as continuation tokens are otherwise only written with documents, which may be far apart.
+            AtomicReference<ScheduledFuture<?>> continuations = new AtomicReference<>();
             VisitorControlHandler controller = new VisitorControlHandler() {
                 final ScheduledFuture<?> abort = streaming ? visitDispatcher.schedule(this::abort, visitTimeout(request), MILLISECONDS) : null;
                 final AtomicReference<VisitorSession> session = new AtomicReference<>();
@@ -1376,6 +1552,7 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
                 }
                 @Override public void onDone(CompletionCode code, String message) {
                     super.onDone(code, message);
+                    cancel(continuations.get());
                     loggingException(() -> {
                         try (response) {
                             callback.onEnd(response);
@@ -1472,6 +1649,10 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
             }
             parameters.setControlHandler(controller);
             visits.put(controller, access.createVisitorSession(parameters));
+            if (streaming) {
+                continuations.set(scheduleContinuations(response));
+                if (controller.isDone()) cancel(continuations.get()); // Done before the above was set
+            }
             phaser.arriveAndDeregister();
         } catch (ParseException e) {
             badRequest(request, new IllegalArgumentException(e), handler);
@@ -1537,16 +1718,7 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
 
         @Override
         public ContentChannel handleResponse(Response response) {
-            switch (response.getStatus()) {
-                case 200 -> report(DocumentOperationStatus.OK);
-                case 400 -> report(DocumentOperationStatus.REQUEST_ERROR);
-                case 404 -> report(DocumentOperationStatus.NOT_FOUND);
-                case 412 -> report(DocumentOperationStatus.CONDITION_FAILED);
-                case 413 -> report(DocumentOperationStatus.DOCUMENT_TOO_LARGE);
-                case 429 -> report(DocumentOperationStatus.TOO_MANY_REQUESTS);
-                case 500,503,504,507 -> report(DocumentOperationStatus.SERVER_ERROR);
-                default -> throw new IllegalStateException(Text.format("Unexpected status code '%s'", response.getStatus()));
-            }
+            report(operationStatusOf(response.getStatus()));
             metrics.reportHttpRequest(clientVersion());
             return delegate.handleResponse(response);
         }
@@ -1561,6 +1733,19 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
 
     }
 
+    private static DocumentOperationStatus operationStatusOf(int status) {
+        return switch (status) {
+            case 200 -> DocumentOperationStatus.OK;
+            case 400 -> DocumentOperationStatus.REQUEST_ERROR;
+            case 404 -> DocumentOperationStatus.NOT_FOUND;
+            case 412 -> DocumentOperationStatus.CONDITION_FAILED;
+            case 413 -> DocumentOperationStatus.DOCUMENT_TOO_LARGE;
+            case 429 -> DocumentOperationStatus.TOO_MANY_REQUESTS;
+            case 500,503,504,507 -> DocumentOperationStatus.SERVER_ERROR;
+            default -> throw new IllegalStateException(Text.format("Unexpected status code '%s'", status));
+        };
+    }
+
     static class StorageCluster {
 
         private final String name;
@@ -330,6 +330,11 @@ class JsonResponse implements StreamableJsonResponse {
         // continuation token may be emitted.
     }
 
+    @Override
+    public void writePendingContinuation() throws IOException {
+        // Not supported, see above
+    }
+
     @Override
     public synchronized void writeEpilogueContinuation(VisitorContinuation continuation) throws IOException {
         if (continuation.hasRemaining()) {
@@ -23,6 +23,9 @@ interface StreamableJsonResponse extends AutoCloseable {
     // time than during the synchronous invocation of this method. This is because the
     // underlying supplied resource may require locking for safe access.
     void reportUpdatedContinuation(Supplier<VisitorContinuation> continuationSupplier) throws IOException;
+    // Writes the last reported, but not yet written, continuation, if any. This is called
+    // periodically from a thread which holds no visitor session locks.
+    void writePendingContinuation() throws IOException;
     void writeEpilogueContinuation(VisitorContinuation continuation) throws IOException;
     /**
      * Write a Trace that encapsulates a logical span of the <em>entire</em> request
@@ -31,6 +31,10 @@ import java.util.function.Supplier;
  * the last one they have observed. Visiting can then restart from that point with
  * minimal loss of progress.</p>
  *
+ * <p>Pending continuation tokens are also written on their own by {@link #writePendingContinuation()},
+ * which the owner calls periodically, so progress is observable, and the connection is not idle, also
+ * while visiting buckets with no matching documents.</p>
+ *
  * @author vekterli
  */
 class StreamingJsonLinesResponse implements StreamableJsonResponse {
@@ -48,6 +52,11 @@ class StreamingJsonLinesResponse implements StreamableJsonResponse {
     private final JsonFormat.EncodeOptions tensorOptions;
     private final Object lock = new Object();
     private VisitorContinuation pendingContinuation = null;
+    // The following are guarded by lock, and ensure no pending continuation is written after the epilogue
+    private boolean ended = false;
+    private int pendingWritesInProgress = 0;
+    private VisitorContinuation deferredEpilogueContinuation = null;
+    private boolean deferredClose = false;
 
     public StreamingJsonLinesResponse(ResponseWriter responseWriter, JsonFormat.EncodeOptions tensorOptions) {
         this.responseWriter = responseWriter;
@@ -170,8 +179,65 @@ class StreamingJsonLinesResponse implements StreamableJsonResponse {
         json.writeEndObject();
     }
 
+    @Override
+    public void writePendingContinuation() throws IOException {
+        // Called from another thread than visitor callbacks. The token is written outside the lock for the
+        // reason explained in reportUpdatedContinuation, and any epilogue arriving meanwhile is written after it.
+        VisitorContinuation continuation;
+        synchronized (lock) {
+            if (ended || pendingContinuation == null) return;
+            continuation = pendingContinuation;
+            pendingContinuation = null;
+            pendingWritesInProgress++;
+        }
+        try {
+            writeJsonLine((json) -> appendContinuationToken(json, continuation));
+        }
+        catch (IOException | RuntimeException e) {
+            // The epilogue can not follow a failed write, but a deferred close must still be done
+            Deferred deferred = completePendingWrite();
+            if (deferred != null && deferred.close()) {
+                try {
+                    responseWriter.close();
+                }
+                catch (IOException | RuntimeException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw e;
+        }
+        Deferred deferred = completePendingWrite();
+        if (deferred == null) return;
+        if (deferred.epilogueContinuation() != null)
+            writeJsonLine((json) -> appendContinuationToken(json, deferred.epilogueContinuation()));
+        if (deferred.close())
+            responseWriter.close();
+    }
+
+    /** What was deferred while pending writes were in progress, to be done after the last of these. */
+    private record Deferred(VisitorContinuation epilogueContinuation, boolean close) { }
+
+    /** Ends a pending write, and returns what was deferred until it, if it was the last one, or null otherwise. */
+    private Deferred completePendingWrite() {
+        synchronized (lock) {
+            if (--pendingWritesInProgress > 0) return null;
+            Deferred deferred = new Deferred(deferredEpilogueContinuation, deferredClose);
+            deferredEpilogueContinuation = null;
+            deferredClose = false;
+            return deferred;
+        }
+    }
+
     @Override
     public void writeEpilogueContinuation(VisitorContinuation continuation) throws IOException {
+        synchronized (lock) {
+            ended = true;
+            pendingContinuation = null;
+            if (pendingWritesInProgress > 0) {
+                deferredEpilogueContinuation = continuation;
+                return;
+            }
+        }
         writeJsonLine((json) -> {
             appendContinuationToken(json, continuation);
         });
@@ -222,6 +288,13 @@ class StreamingJsonLinesResponse implements StreamableJsonResponse {
 
     @Override
     public void close() throws IOException {
+        synchronized (lock) {
+            ended = true;
+            if (pendingWritesInProgress > 0) {
+                deferredClose = true;
+                return;
+            }
+        }
         responseWriter.close();
     }
 }
@@ -77,6 +77,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
@@ -1456,6 +1457,69 @@ public class DocumentV1ApiTest {
         driver.close();
     }
 
+    @Test
+    public void testBatch() {
+        var driver = new RequestHandlerTestDriver(handler);
+        String batch = """
+                       { "put": "id:space:music::one", "create": true, "fields": { "artist": "Tom Waits" } }
+
+                       { "update": "id:space:music:n=1:two", "condition": "music.artist", "fields": { "artist": { "assign": "Asa-Chan" } } }
+                       { "fields": { "artist": "Nobody" } }
+                       { "remove": "id:space:music:g=a:three" }
+                       """;
+        List<Object> operations = new CopyOnWriteArrayList<>();
+        access.session.expect((operation, parameters) -> {
+            assertEquals(parameters().withRoute("route"), parameters);
+            operations.add(operation);
+            if (operation instanceof DocumentPut put) {
+                assertEquals(doc1.getId(), put.getId());
+                assertTrue(put.getCreateIfNonExistent());
+                parameters.responseHandler().get().handleResponse(new Response(0));
+            }
+            else if (operation instanceof DocumentUpdate update) {
+                assertEquals(doc2.getId(), update.getId());
+                assertEquals(new TestAndSetCondition("music.artist"), update.getCondition());
+                parameters.responseHandler().get().handleResponse(new Response(0, "no", Response.Outcome.CONDITION_FAILED));
+            }
+            else {
+                assertEquals(doc3.getId(), ((DocumentRemove) operation).getId());
+                parameters.responseHandler().get().handleResponse(new Response(0));
+            }
+            return new Result();
+        });
+        var response = driver.sendRequest("http://localhost/document/v1/batch?route=route", POST, batch);
+        assertSameJsonLines("""
+                            { "id": "id:space:music::one", "status": 200 }
+                            { "id": "id:space:music:n=1:two", "status": 412, "message": "no" }
+                            { "status": 400, "message": "Missing a document operation ('put', 'update' or 'remove')" }
+                            { "id": "id:space:music:g=a:three", "status": 200 }
+                            """, response.readAll());
+        assertEquals(200, response.getStatus());
+        assertEquals(3, operations.size());
+
+        // Per-operation parameters are not allowed in the query of a batch
+        response = driver.sendRequest("http://localhost/document/v1/batch?condition=false", POST, batch);
+        assertEquals(400, response.getStatus());
+
+        // An empty batch, or one with dryRun=true, gets an immediate response
+        access.session.expect((__, ___) -> {
+            fail("Should not cause an actual feed operation");
+            return null;
+        });
+        response = driver.sendRequest("http://localhost/document/v1/batch", POST, "");
+        assertEquals("", response.readAll());
+        assertEquals(200, response.getStatus());
+        response = driver.sendRequest("http://localhost/document/v1/batch?dryRun=true", POST, batch);
+        assertSameJsonLines("""
+                            { "id": "id:space:music::one", "status": 200 }
+                            { "id": "id:space:music:n=1:two", "status": 200 }
+                            { "status": 400, "message": "Missing a document operation ('put', 'update' or 'remove')" }
+                            { "id": "id:space:music:g=a:three", "status": 200 }
+                            """, response.readAll());
+        assertEquals(200, response.getStatus());
+        driver.close();
+    }
+
     @Test
     public void testThroughput() throws InterruptedException {
         int writers = 4;
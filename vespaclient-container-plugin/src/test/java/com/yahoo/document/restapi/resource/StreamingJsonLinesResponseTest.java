@@ -16,9 +16,11 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
@@ -216,6 +218,88 @@ public class StreamingJsonLinesResponseTest {
         verify(f.writer).write(expected, null);
     }
 
+    @Test
+    void pending_continuation_token_is_written_as_own_line_when_requested() throws IOException {
+        var f = new Fixture();
+        f.jsonlResponse.writePendingContinuation();
+        verify(f.writer, never()).write(anyString(), any());
+
+        f.jsonlResponse.reportUpdatedContinuation(() -> continuationOf("cooltoken2000"));
+        f.jsonlResponse.writePendingContinuation();
+        String expected = """
+                {"continuation":{"token":"cooltoken2000","percentFinished":50.0}}
+                """;
+        verify(f.writer).write(expected, null);
+        // The token is written only once
+        f.jsonlResponse.writePendingContinuation();
+        f.jsonlResponse.writeDocumentValue(f.doc1, null);
+        verify(f.writer).write(expected, null);
+        verify(f.writer).write("""
+                {"put":"id:ns:music::one","fields":{}}
+                """, null);
+    }
+
+    @Test
+    void pending_continuation_token_is_not_written_after_epilogue() throws IOException {
+        var f = new Fixture();
+        f.jsonlResponse.reportUpdatedContinuation(() -> continuationOf("cooltoken2000"));
+        f.jsonlResponse.writeEpilogueContinuation(continuationOf("swagtoken"));
+        f.jsonlResponse.writePendingContinuation();
+        verify(f.writer).write(anyString(), any());
+        verify(f.writer).write("""
+                {"continuation":{"token":"swagtoken","percentFinished":50.0}}
+                """, null);
+    }
+
+    @Test
+    void epilogue_and_close_during_pending_continuation_write_are_written_after_it() throws IOException {
+        var f = new Fixture();
+        String pending = """
+                {"continuation":{"token":"cooltoken2000","percentFinished":50.0}}
+                """;
+        String epilogue = """
+                {"continuation":{"percentFinished":100.0}}
+                """;
+        Mockito.doAnswer(invocation -> { // The visit completes while the pending token is being written
+            f.jsonlResponse.writeEpilogueContinuation(VisitorContinuation.FINISHED);
+            f.jsonlResponse.close();
+            verify(f.writer, never()).write(eq(epilogue), any());
+            verify(f.writer, never()).close();
+            return null;
+        }).when(f.writer).write(eq(pending), any());
+
+        f.jsonlResponse.reportUpdatedContinuation(() -> continuationOf("cooltoken2000"));
+        f.jsonlResponse.writePendingContinuation();
+        var inOrder = Mockito.inOrder(f.writer);
+        inOrder.verify(f.writer).write(pending, null);
+        inOrder.verify(f.writer).write(epilogue, null);
+        inOrder.verify(f.writer).close();
+    }
+
+    @Test
+    void failed_pending_continuation_write_is_not_hidden_by_concurrent_write() throws IOException {
+        var f = new Fixture();
+        String first = """
+                {"continuation":{"token":"cooltoken2000","percentFinished":50.0}}
+                """;
+        String second = """
+                {"continuation":{"token":"swagtoken","percentFinished":50.0}}
+                """;
+        Mockito.doThrow(new UncheckedIOException(new IOException("broken pipe"))).when(f.writer).write(eq(second), any());
+        Mockito.doAnswer(invocation -> { // Another pending token is written, and fails, while the first is being written
+            f.jsonlResponse.reportUpdatedContinuation(() -> continuationOf("swagtoken"));
+            assertThrows(UncheckedIOException.class, () -> f.jsonlResponse.writePendingContinuation());
+            return null;
+        }).when(f.writer).write(eq(first), any());
+
+        f.jsonlResponse.reportUpdatedContinuation(() -> continuationOf("cooltoken2000"));
+        f.jsonlResponse.writePendingContinuation();
+        verify(f.writer).write(second, null);
+        // No writes are left in progress, so closing is not deferred
+        f.jsonlResponse.close();
+        verify(f.writer).close();
+    }
+
     private static void verifyCompletionHandlerUntouched(CompletionHandler handler) {
         // We should not invoke the handler ourselves, only forward it
         verify(handler, never()).completed();
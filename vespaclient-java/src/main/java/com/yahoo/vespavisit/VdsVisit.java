@@ -24,13 +24,19 @@ import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
 /**
@@ -43,7 +49,7 @@ public class VdsVisit {
 
     private VdsVisitParameters params;
     private MessageBusParams mbparams = new MessageBusParams();
-    private VisitorSession session;
+    private final List<VisitorSession> sessions = new CopyOnWriteArrayList<>();
 
     private final VisitorSessionAccessorFactory sessionAccessorFactory;
     private VisitorSessionAccessor sessionAccessor;
@@ -370,7 +376,9 @@ public class VdsVisit {
                 .longOpt("slices")
                 .desc("Split the document corpus into this number of independent slices. " +
                       "This lets multiple, concurrent series of visitors advance the same logical " +
-                      "visit independently, by specifying a different --sliceid for each.")
+                      "visit independently, by specifying a different --sliceid for each. " +
+                      "If --sliceid is not specified, all slices are visited in parallel by this process, " +
+                      "writing the documents of each slice to a separate file, see --outputprefix.")
                 .hasArg(true)
                 .type(Number.class)
                 .build());
@@ -383,6 +391,16 @@ public class VdsVisit {
                 .type(Number.class)
                 .build());
 
+        options.addOption(Option.builder()
+                .longOpt("outputprefix")
+                .desc("When visiting all slices in parallel, write the documents of each slice to the file " +
+                      "with this prefix, followed by '.' and the slice id, instead of to stdout. " +
+                      "Any progress file is likewise suffixed by the slice id, and output is appended " +
+                      "to the files of slices which are resumed, so combine this with --jsonl " +
+                      "to be able to resume visiting.")
+                .hasArg(true)
+                .build());
+
         options.addOption(Option.builder()
                 .longOpt("nullrender")
                 .desc("Process documents, but do not render any output. Overrides all other output options. " +
@@ -411,6 +429,8 @@ public class VdsVisit {
         private boolean nullRender = false;
         private int slices = 1;
         private int sliceId = 0;
+        private boolean visitAllSlices = false;
+        private String outputPrefix = null;
 
         public VisitorParameters getVisitorParameters() {
             return visitorParameters;
@@ -542,6 +562,23 @@ public class VdsVisit {
             this.sliceId = sliceId;
         }
 
+        /** Returns whether all slices should be visited in parallel by this, rather than just {@link #sliceId()} */
+        public boolean visitAllSlices() {
+            return visitAllSlices;
+        }
+
+        public void setVisitAllSlices(boolean visitAllSlices) {
+            this.visitAllSlices = visitAllSlices;
+        }
+
+        public String getOutputPrefix() {
+            return outputPrefix;
+        }
+
+        public void setOutputPrefix(String outputPrefix) {
+            this.outputPrefix = outputPrefix;
+        }
+
     }
 
     private static int optionAsInt(CommandLine cmdLine, String optName) throws org.apache.commons.cli.ParseException {
@@ -681,12 +718,26 @@ public class VdsVisit {
             if (line.hasOption("nullrender")) {
                 allParams.setNullRender(true);
             }
-            if (line.hasOption("slices") != line.hasOption("sliceid")) {
+            if (line.hasOption("sliceid") && ! line.hasOption("slices")) {
                 throw new IllegalArgumentException("Both --slices and --sliceid must be specified when visiting with slicing");
             }
             if (line.hasOption("slices")) {
                 allParams.setSlices(optionAsInt(line, "slices"));
-                allParams.setSliceId(optionAsInt(line, "sliceid"));
+                if (line.hasOption("sliceid")) {
+                    allParams.setSliceId(optionAsInt(line, "sliceid"));
+                } else {
+                    allParams.setVisitAllSlices(true);
+                }
+            }
+            if (line.hasOption("outputprefix")) {
+                if ( ! allParams.visitAllSlices()) {
+                    throw new IllegalArgumentException("--outputprefix can only be used when visiting all slices, " +
+                                                       "by specifying --slices but not --sliceid");
+                }
+                allParams.setOutputPrefix(line.getOptionValue("outputprefix"));
+            }
+            if (allParams.visitAllSlices() && allParams.getOutputPrefix() == null && params.getRemoteDataHandler() == null) {
+                throw new IllegalArgumentException("--outputprefix must be specified when visiting all slices in parallel");
             }
 
             boolean jsonOutput = line.hasOption("jsonoutput");
@@ -703,7 +754,11 @@ public class VdsVisit {
                 allParams.setJsonOutput(!xmlOutput);
             }
 
-            if (allParams.slices() != 1 || allParams.sliceId() != 0) {
+            if (allParams.visitAllSlices()) {
+                if (allParams.slices() < 1) {
+                    throw new IllegalArgumentException("--slices must be greater than 0");
+                }
+            } else if (allParams.slices() != 1 || allParams.sliceId() != 0) {
                 if ((allParams.slices() < 1) || (allParams.sliceId() < 0) || (allParams.sliceId() >= allParams.slices())) {
                     throw new IllegalArgumentException("--slices must be greater than 0 and --sliceid must be in the " +
                                                        "range [0, the value provided for --slices)");
@@ -809,7 +864,9 @@ public class VdsVisit {
         if (params.skipBucketsOnFatalErrors()) {
             out.println("Skip visiting super buckets with fatal errors.");
         }
-        if (params.getSlices() > 1) {
+        if (vdsParams.visitAllSlices()) {
+            out.print(Text.format("Visiting all %d slices in parallel\n", vdsParams.slices()));
+        } else if (params.getSlices() > 1) {
             out.print(Text.format("Visiting slice %d out of %s slices\n", params.getSliceId(), params.getSlices()));
         }
     }
@@ -831,8 +888,106 @@ public class VdsVisit {
     }
 
     protected int doRun() {
+        if (params.visitAllSlices()) return doRunAllSlices();
+
         VisitorParameters visitorParameters = params.getVisitorParameters();
-        // If progress file already exists, create resume token from it
+        if ( ! readProgressFile(visitorParameters, "")) return 1;
+
+        initShutdownHook();
+        sessionAccessor = sessionAccessorFactory.createVisitorSessionAccessor();
+
+        VdsVisitHandler handler = new StdOutVisitorHandler(createHandlerParams(params.isVerbose()));
+        setHandlers(visitorParameters, handler);
+
+        VisitorSession session = startVisiting(visitorParameters);
+        if (session == null) return 1;
+        return awaitVisiting(visitorParameters, session);
+    }
+
+    /**
+     * Visits all slices in parallel, using one visitor session per slice, where each slice writes to its own
+     * output file and progress file. This spreads the visiting over all the content nodes as evenly as possible,
+     * rather than relying on the user to start a separate process per slice.
+     */
+    private int doRunAllSlices() {
+        List<VisitorParameters> sliceParameters = new ArrayList<>();
+        for (int sliceId = 0; sliceId < params.slices(); sliceId++) {
+            VisitorParameters visitorParameters = new VisitorParameters(params.getVisitorParameters());
+            visitorParameters.setThrottlePolicy(params.getVisitorParameters().getThrottlePolicy());
+            visitorParameters.slice(params.slices(), sliceId);
+            if (visitorParameters.getResumeFileName() != null && ! visitorParameters.getResumeFileName().isEmpty())
+                visitorParameters.setResumeFileName(visitorParameters.getResumeFileName() + "." + sliceId);
+            if ( ! readProgressFile(visitorParameters, "Slice " + sliceId + ": ")) return 1;
+            sliceParameters.add(visitorParameters);
+        }
+
+        initShutdownHook();
+        sessionAccessor = sessionAccessorFactory.createVisitorSessionAccessor();
+
+        List<PrintStream> outputs = new ArrayList<>();
+        List<VisitorSession> sliceSessions = new ArrayList<>();
+        boolean completed = false;
+        try {
+            for (int sliceId = 0; sliceId < params.slices(); sliceId++) {
+                VisitorParameters visitorParameters = sliceParameters.get(sliceId);
+                VdsVisitHandler handler;
+                if (params.getOutputPrefix() != null) { // Otherwise, documents are sent to a remote data handler
+                    PrintStream out = createSliceOutput(sliceId, visitorParameters.getResumeToken() != null);
+                    outputs.add(out);
+                    handler = new StdOutVisitorHandler(createHandlerParams(false), out);
+                } else {
+                    handler = new StdOutVisitorHandler(createHandlerParams(false));
+                }
+                setHandlers(visitorParameters, handler);
+                VisitorSession session = startVisiting(visitorParameters);
+                if (session == null) return 1;
+                sliceSessions.add(session);
+            }
+
+            int failedSlices = 0;
+            for (int sliceId = 0; sliceId < params.slices(); sliceId++) {
+                int result = awaitVisiting(sliceParameters.get(sliceId), sliceSessions.get(sliceId));
+                if (result != 0)
+                    failedSlices++;
+                if (params.isVerbose() || result != 0)
+                    System.err.println("Slice " + sliceId + " of " + params.slices() + " completed: " +
+                                       sliceParameters.get(sliceId).getControlHandler().getResult());
+            }
+            completed = true;
+            return failedSlices == 0 ? 0 : 1;
+        }
+        catch (IOException e) {
+            System.err.println("Could not open output file: " + e.getMessage());
+            return 1;
+        }
+        finally {
+            if ( ! completed) destroy(sliceSessions); // Before closing the outputs they write to
+            outputs.forEach(PrintStream::close);
+        }
+    }
+
+    /** Destroys the given sessions, which are still visiting */
+    private void destroy(List<VisitorSession> visitorSessions) {
+        for (VisitorSession session : visitorSessions) {
+            try {
+                session.destroy();
+            } catch (IllegalStateException ise) {
+                // Already destroyed
+            }
+            sessions.remove(session);
+        }
+    }
+
+    /** Returns a stream writing to the output file of the given slice, appending to it if the slice is resumed */
+    private PrintStream createSliceOutput(int sliceId, boolean resumed) throws IOException {
+        Path file = Path.of(params.getOutputPrefix() + "." + sliceId);
+        OutputStream out = resumed ? Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)
+                                   : Files.newOutputStream(file);
+        return new PrintStream(new BufferedOutputStream(out), false, StandardCharsets.UTF_8);
+    }
+
+    /** If the progress file of the given parameters already exists, creates a resume token from it */
+    private boolean readProgressFile(VisitorParameters visitorParameters, String messagePrefix) {
         if (visitorParameters.getResumeFileName() != null &&
             !"".equals(visitorParameters.getResumeFileName()))
         {
@@ -841,7 +996,7 @@ public class VdsVisit {
                 visitorParameters.setResumeToken(new ProgressToken(progressFileContents));
 
                 if (params.isVerbose()) {
-                    System.err.print(Text.format("Resuming visitor already %.1f %% finished.\n",
+                    System.err.print(Text.format("%sResuming visitor already %.1f %% finished.\n", messagePrefix,
                                                  visitorParameters.getResumeToken().percentFinished()));
                 }
             } catch (NoSuchFileException e) {
@@ -849,19 +1004,17 @@ public class VdsVisit {
             } catch (IOException e) {
                 System.err.println("Could not open progress file: " + visitorParameters.getResumeFileName());
                 e.printStackTrace(System.err);
-                return 1;
+                return false;
             }
         }
+        return true;
+    }
 
-        initShutdownHook();
-        sessionAccessor = sessionAccessorFactory.createVisitorSessionAccessor();
-
-        VdsVisitHandler handler;
-
+    private StdOutVisitorHandler.Params createHandlerParams(boolean showProgress) {
         var handlerParams = new StdOutVisitorHandler.Params();
         handlerParams.printIds             = params.isPrintIdsOnly();
         handlerParams.indentXml            = params.isVerbose();
-        handlerParams.showProgress         = params.isVerbose();
+        handlerParams.showProgress         = showProgress;
         handlerParams.showStatistics       = params.isVerbose();
         handlerParams.doStatistics         = params.getStatisticsParts() != null;
         handlerParams.abortOnClusterDown   = params.getAbortOnClusterDown();
@@ -870,8 +1023,10 @@ public class VdsVisit {
         handlerParams.tensorShortForm      = params.tensorShortForm();
         handlerParams.tensorDirectValues   = params.tensorDirectValues();
         handlerParams.nullRender           = params.nullRender();
-        handler = new StdOutVisitorHandler(handlerParams);
+        return handlerParams;
+    }
 
+    private void setHandlers(VisitorParameters visitorParameters, VdsVisitHandler handler) {
         if (visitorParameters.getResumeFileName() != null) {
             handler.setProgressFileName(visitorParameters.getResumeFileName());
         }
@@ -887,9 +1042,26 @@ public class VdsVisit {
                 visitorParameters.setLibraryParameter(s, "true");
             }
         }
+    }
 
+    /** Creates a visitor session for the given parameters, or returns null if this fails */
+    private VisitorSession startVisiting(VisitorParameters visitorParameters) {
+        try {
+            VisitorSession session = sessionAccessor.createVisitorSession(visitorParameters);
+            sessions.add(session);
+            return session;
+        } catch (ParseException e) {
+            onDocumentSelectionException(e);
+        } catch (IllegalArgumentException e) {
+            onIllegalArgumentException(e);
+        } catch (Exception e) {
+            onUnexpectedException(visitorParameters, e);
+        }
+        return null;
+    }
+
+    private int awaitVisiting(VisitorParameters visitorParameters, VisitorSession session) {
         try {
-            session = sessionAccessor.createVisitorSession(visitorParameters);
             while (true) {
                 try {
                     if (session.waitUntilDone(params.getFullTimeout())) break;
@@ -899,14 +1071,8 @@ public class VdsVisit {
             if (visitorParameters.getTraceLevel() > 0) {
                 System.out.println(session.getTrace().toString());
             }
-        } catch (ParseException e) {
-            onDocumentSelectionException(e);
-        } catch (IllegalArgumentException e) {
-            onIllegalArgumentException(e);
         } catch (Exception e) {
-            System.err.println("Document selection string was: " + visitorParameters.getDocumentSelection());
-            System.err.println("Caught unexpected exception: ");
-            e.printStackTrace(System.err);
+            onUnexpectedException(visitorParameters, e);
             return 1;
         }
         if (visitorParameters.getControlHandler().getResult().code
@@ -918,18 +1084,24 @@ public class VdsVisit {
         }
     }
 
+    private void onUnexpectedException(VisitorParameters visitorParameters, Exception e) {
+        System.err.println("Document selection string was: " + visitorParameters.getDocumentSelection());
+        System.err.println("Caught unexpected exception: ");
+        e.printStackTrace(System.err);
+    }
+
     private void initShutdownHook() {
         shutdownHookRegistrar.registerShutdownHook(new CleanUpThread());
     }
 
     class CleanUpThread extends Thread {
         public void run() {
-            try {
-                if (session != null) {
+            for (VisitorSession session : sessions) {
+                try {
                     session.destroy();
+                } catch (IllegalStateException ise) {
+                    //ignore this
                 }
-            } catch (IllegalStateException ise) {
-                //ignore this
             }
             try {
                 if (sessionAccessor != null) {
@@ -16,10 +16,13 @@ import com.yahoo.vespaclient.ClusterDef;
 import com.yahoo.vespaclient.ClusterList;
 import org.apache.commons.cli.Options;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -339,9 +342,37 @@ public class VdsVisitTestCase {
         assertEquals("CountVisitor", params.getVisitorLibrary());
     }
 
+    @Test
+    void testVisitingAllSlicesRequiresOutputPrefix() throws Exception {
+        VdsVisit.ArgumentParser parser = createMockArgumentParser();
+        try {
+            parser.parse(new String[]{ "--slices", "4" });
+            fail("no exception thrown");
+        } catch (IllegalArgumentException e) {
+            assertEquals("--outputprefix must be specified when visiting all slices in parallel", e.getMessage());
+        }
+        try {
+            parser.parse(new String[]{ "--slices", "4", "--sliceid", "1", "--outputprefix", "out" });
+            fail("no exception thrown");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("--outputprefix can only be used when visiting all slices"));
+        }
+
+        VdsVisit.VdsVisitParameters allParams = parser.parse(new String[]{ "--slices", "4", "--outputprefix", "out" });
+        assertTrue(allParams.visitAllSlices());
+        assertEquals(4, allParams.slices());
+        assertEquals("out", allParams.getOutputPrefix());
+        assertEquals(1, allParams.getVisitorParameters().getSlices());
+
+        allParams = parser.parse(new String[]{ "--slices", "4", "--datahandler", "foo" });
+        assertTrue(allParams.visitAllSlices());
+        assertNull(allParams.getOutputPrefix());
+    }
+
     // TODO: use DummyVisitorSession instead?
     private static class MockVisitorSession implements VisitorSession {
         private VisitorParameters params;
+        boolean destroyed = false;
 
         public MockVisitorSession(VisitorParameters params) {
             this.params = params;
@@ -390,14 +421,23 @@ public class VdsVisitTestCase {
 
         @Override
         public void destroy() {
+            destroyed = true;
         }
     }
 
     private static class MockVisitorSessionAccessor implements VdsVisit.VisitorSessionAccessor {
         boolean shutdown = false;
+        int failingSession = -1;
+        final List<VisitorParameters> sessionParameters = new ArrayList<>();
+        final List<MockVisitorSession> sessions = new ArrayList<>();
         @Override
         public VisitorSession createVisitorSession(VisitorParameters params) throws ParseException {
-            return new MockVisitorSession(params);
+            if (sessionParameters.size() == failingSession)
+                throw new IllegalStateException("Failed to create session " + failingSession);
+            sessionParameters.add(params);
+            MockVisitorSession session = new MockVisitorSession(params);
+            sessions.add(session);
+            return session;
         }
 
         @Override
@@ -413,10 +453,12 @@ public class VdsVisitTestCase {
     private static class MockVisitorSessionAccessorFactory implements VdsVisit.VisitorSessionAccessorFactory {
 
         private MockVisitorSessionAccessor lastCreatedAccessor = null;
+        private int failingSession = -1;
 
         @Override
         public VdsVisit.VisitorSessionAccessor createVisitorSessionAccessor() {
             lastCreatedAccessor = new MockVisitorSessionAccessor();
+            lastCreatedAccessor.failingSession = failingSession;
             return lastCreatedAccessor;
         }
 
@@ -490,4 +532,61 @@ public class VdsVisitTestCase {
         assertNotNull(accessorFactory.getLastCreatedAccessor());
         assertTrue(accessorFactory.getLastCreatedAccessor().isShutdown());
     }
+
+    @Test
+    void testVdsVisitRunLogicWithAllSlices(@TempDir Path tempDir) throws Exception {
+        MockVisitorSessionAccessorFactory accessorFactory = new MockVisitorSessionAccessorFactory();
+        MockShutdownHookRegistrar shutdownHookRegistrar = new MockShutdownHookRegistrar();
+        VdsVisit vdsVisit = new VdsVisit(accessorFactory, shutdownHookRegistrar);
+
+        VdsVisit.VdsVisitParameters params = new VdsVisit.VdsVisitParameters();
+        VisitorParameters visitorParameters = new VisitorParameters("");
+        params.setVisitorParameters(visitorParameters);
+        params.setSlices(3);
+        params.setVisitAllSlices(true);
+        params.setOutputPrefix(tempDir.resolve("out").toString());
+        Files.copy(Path.of("src/test/files/progress.txt"), tempDir.resolve("progress.txt.1"));
+        visitorParameters.setResumeFileName(tempDir.resolve("progress.txt").toString());
+        vdsVisit.setVdsVisitParameters(params);
+
+        int code = vdsVisit.doRun();
+        assertEquals(0, code);
+
+        List<VisitorParameters> sessionParameters = accessorFactory.getLastCreatedAccessor().sessionParameters;
+        assertEquals(3, sessionParameters.size());
+        for (int sliceId = 0; sliceId < 3; sliceId++) {
+            VisitorParameters sliceParameters = sessionParameters.get(sliceId);
+            assertEquals(3, sliceParameters.getSlices());
+            assertEquals(sliceId, sliceParameters.getSliceId());
+            assertEquals(tempDir.resolve("progress.txt." + sliceId).toString(), sliceParameters.getResumeFileName());
+            assertEquals(sliceId == 1, sliceParameters.getResumeToken() != null);
+            assertTrue(Files.exists(tempDir.resolve("out." + sliceId)));
+        }
+        assertEquals(3, sessionParameters.stream().map(VisitorParameters::getControlHandler).distinct().count());
+        assertNull(visitorParameters.getResumeToken());
+
+        assertNotNull(shutdownHookRegistrar.getCleanUpThread());
+        shutdownHookRegistrar.getCleanUpThread().run();
+        assertTrue(accessorFactory.getLastCreatedAccessor().isShutdown());
+    }
+
+    @Test
+    void testStartedSlicesAreDestroyedWhenALaterSliceFailsToStart(@TempDir Path tempDir) {
+        MockVisitorSessionAccessorFactory accessorFactory = new MockVisitorSessionAccessorFactory();
+        accessorFactory.failingSession = 2;
+        VdsVisit vdsVisit = new VdsVisit(accessorFactory, new MockShutdownHookRegistrar());
+
+        VdsVisit.VdsVisitParameters params = new VdsVisit.VdsVisitParameters();
+        params.setVisitorParameters(new VisitorParameters(""));
+        params.setSlices(3);
+        params.setVisitAllSlices(true);
+        params.setOutputPrefix(tempDir.resolve("out").toString());
+        vdsVisit.setVdsVisitParameters(params);
+
+        assertEquals(1, vdsVisit.doRun());
+        List<MockVisitorSession> sessions = accessorFactory.getLastCreatedAccessor().sessions;
+        assertEquals(2, sessions.size());
+        assertTrue(sessions.stream().allMatch(session -> session.destroyed));
+    }
+
 }
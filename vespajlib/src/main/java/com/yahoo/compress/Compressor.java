@@ -163,6 +163,39 @@ public class Compressor {
                 throw new IllegalArgumentException(compression + " is not supported");
         }
     }
+    /**
+     * Decompresses some data into the start of the given array
+     *
+     * @param compression the compression type used
+     * @param compressedData the compressed data. This array is only read by this method.
+     * @param compressedDataOffset the offset in the compressed data at which to start decompression
+     * @param compressedSize the size of the compressed data in bytes
+     * @param destination the array to write the uncompressed data to, which must have room for it
+     * @param uncompressedSize the uncompressed size in bytes of this data
+     * @throws IllegalArgumentException if the compression type is not supported
+     * @throws IllegalStateException if the data does not decompress to the given uncompressed size
+     */
+    public void decompress(CompressionType compression, byte[] compressedData, int compressedDataOffset, int compressedSize,
+                           byte[] destination, int uncompressedSize) {
+        int decompressedSize = switch (compression) {
+            case NONE, INCOMPRESSIBLE -> {
+                System.arraycopy(compressedData, compressedDataOffset, destination, 0, compressedSize);
+                yield compressedSize;
+            }
+            case LZ4 -> {
+                int readSize = factory.fastDecompressor().decompress(compressedData, compressedDataOffset,
+                                                                     destination, 0, uncompressedSize);
+                if (readSize != compressedSize)
+                    throw new IllegalStateException("Compressed size mismatch. Expected " + compressedSize + ". Got " + readSize);
+                yield uncompressedSize;
+            }
+            case ZSTD -> new ZstdCompressor().decompress(compressedData, compressedDataOffset, compressedSize,
+                                                         destination, 0, destination.length);
+            default -> throw new IllegalArgumentException(compression + " is not supported");
+        };
+        if (decompressedSize != uncompressedSize)
+            throw new IllegalStateException("Uncompressed size mismatch. Expected " + uncompressedSize + ". Got " + decompressedSize);
+    }
     /** Decompresses some data */
     public byte[] decompress(byte[] compressedData, CompressionType compressionType, int uncompressedSize) {
         return decompress(compressionType, compressedData, 0, uncompressedSize, Optional.empty());
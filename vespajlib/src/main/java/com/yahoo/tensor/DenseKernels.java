@@ -0,0 +1,257 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor;
+
+import com.yahoo.tensor.functions.ScalarFunctions;
+
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * Loops over the primitive cell values of dense tensors, used by tensor functions to evaluate
+ * common operations without boxing values or invoking a scalar function per cell.
+ * The loops are kept simple and branch free, and sums are accumulated in several independent lanes,
+ * so that the JIT compiler can unroll and vectorize them. As a consequence, sums computed here
+ * may differ from sequentially accumulated sums in the least significant bits.
+ *
+ * Operations over tensors which are not dense, or combinators which are not known to this,
+ * must be evaluated by other means: Use {@link #canJoin} and {@link #isDense} to check.
+ */
+public final class DenseKernels {
+
+    private enum Operator { add, subtract, multiply, max, min }
+
+    private DenseKernels() {}
+
+    /** Returns whether the given tensor is dense such that it can be passed to the methods of this */
+    public static boolean isDense(Tensor tensor) {
+        return tensor instanceof IndexedDoubleTensor || tensor instanceof IndexedFloatTensor;
+    }
+
+    /** Returns whether the given combinator is one which can be passed to {@link #join} */
+    public static boolean canJoin(DoubleBinaryOperator combinator) {
+        return operatorOf(combinator) != null;
+    }
+
+    /**
+     * Returns the sum of the products of the cells of a and b, starting at the given value indexes
+     * of each and continuing for the given number of cells.
+     */
+    public static double dotProduct(IndexedTensor a, int aOffset, IndexedTensor b, int bOffset, int length) {
+        if (a instanceof IndexedDoubleTensor da && b instanceof IndexedDoubleTensor db)
+            return dotProduct(da.values(), aOffset, db.values(), bOffset, length);
+        if (a instanceof IndexedFloatTensor fa && b instanceof IndexedFloatTensor fb)
+            return dotProduct(fa.values(), aOffset, fb.values(), bOffset, length);
+        if (a instanceof IndexedDoubleTensor da && b instanceof IndexedFloatTensor fb)
+            return dotProduct(da.values(), aOffset, fb.values(), bOffset, length);
+        if (a instanceof IndexedFloatTensor fa && b instanceof IndexedDoubleTensor db)
+            return dotProduct(db.values(), bOffset, fa.values(), aOffset, length);
+        throw new IllegalArgumentException("Tensors must be dense, got " + a.getClass() + " and " + b.getClass());
+    }
+
+    /** Returns the sum of the given number of cells of this, starting at the given value index */
+    public static double sum(IndexedTensor tensor, int offset, int length) {
+        double[] values = doubleValues(tensor);
+        if (values != null)
+            return sum(values, offset, length);
+        return sum(floatValues(tensor), offset, length);
+    }
+
+    /**
+     * Returns the largest of the given number of cells of this, starting at the given value index,
+     * ignoring NaN values, or negative infinity if there are no such values.
+     */
+    public static double max(IndexedTensor tensor, int offset, int length) {
+        double[] values = doubleValues(tensor);
+        if (values != null)
+            return max(values, offset, length);
+        return max(floatValues(tensor), offset, length);
+    }
+
+    /**
+     * Combines the given number of cells of a and b, starting at value index 0 in both, using the given combinator.
+     *
+     * @return the combined cell values, where cell i is the combination of cell i in a and b
+     * @throws IllegalArgumentException if the combinator is not one accepted by {@link #canJoin}
+     */
+    public static double[] join(IndexedTensor a, IndexedTensor b, int length, DoubleBinaryOperator combinator) {
+        Operator operator = operatorOf(combinator);
+        if (operator == null)
+            throw new IllegalArgumentException("Cannot join using " + combinator);
+        double[] result = new double[length];
+        join(asDoubles(a, length), 0, asDoubles(b, length), 0, result, 0, length, operator);
+        return result;
+    }
+
+    /**
+     * Combines all the cells of the given superspace tensor with the cells of the given subspace tensor,
+     * where the subspace values are repeated to cover the superspace. This is the case of joining two tensors
+     * where the dimensions of the subspace are the innermost dimensions of the superspace.
+     *
+     * @param reversedArgumentOrder whether the superspace value should be the left argument to the combinator
+     * @return the combined cell values, in the value order of the superspace tensor
+     * @throws IllegalArgumentException if the combinator is not one accepted by {@link #canJoin}
+     */
+    public static double[] joinRepeated(IndexedTensor subspace, IndexedTensor superspace, boolean reversedArgumentOrder,
+                                        DoubleBinaryOperator combinator) {
+        Operator operator = operatorOf(combinator);
+        if (operator == null)
+            throw new IllegalArgumentException("Cannot join using " + combinator);
+        int subspaceSize = subspace.sizeAsInt();
+        int superspaceSize = superspace.sizeAsInt();
+        double[] sub = asDoubles(subspace, subspaceSize);
+        double[] sup = asDoubles(superspace, superspaceSize);
+        double[] result = new double[superspaceSize];
+        for (int offset = 0; offset + subspaceSize <= superspaceSize; offset += subspaceSize) {
+            if (reversedArgumentOrder)
+                join(sup, offset, sub, 0, result, offset, subspaceSize, operator);
+            else
+                join(sub, 0, sup, offset, result, offset, subspaceSize, operator);
+        }
+        return result;
+    }
+
+    private static Operator operatorOf(DoubleBinaryOperator combinator) {
+        if (combinator instanceof ScalarFunctions.Add) return Operator.add;
+        if (combinator instanceof ScalarFunctions.Subtract) return Operator.subtract;
+        if (combinator instanceof ScalarFunctions.Multiply) return Operator.multiply;
+        if (combinator instanceof ScalarFunctions.Max) return Operator.max;
+        if (combinator instanceof ScalarFunctions.Min) return Operator.min;
+        return null;
+    }
+
+    private static void join(double[] a, int aOffset, double[] b, int bOffset, double[] result, int resultOffset,
+                             int length, Operator operator) {
+        switch (operator) {
+            case add -> {
+                for (int i = 0; i < length; i++)
+                    result[resultOffset + i] = a[aOffset + i] + b[bOffset + i];
+            }
+            case subtract -> {
+                for (int i = 0; i < length; i++)
+                    result[resultOffset + i] = a[aOffset + i] - b[bOffset + i];
+            }
+            case multiply -> {
+                for (int i = 0; i < length; i++)
+                    result[resultOffset + i] = a[aOffset + i] * b[bOffset + i];
+            }
+            case max -> {
+                for (int i = 0; i < length; i++)
+                    result[resultOffset + i] = Math.max(a[aOffset + i], b[bOffset + i]);
+            }
+            case min -> {
+                for (int i = 0; i < length; i++)
+                    result[resultOffset + i] = Math.min(a[aOffset + i], b[bOffset + i]);
+            }
+        }
+    }
+
+    private static double dotProduct(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++)
+            s0 += a[aOffset + i] * b[bOffset + i];
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    // Float products are exact in double precision, so accumulating them in doubles loses nothing
+    private static double dotProduct(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            s0 += (double)a[aOffset + i] * b[bOffset + i];
+            s1 += (double)a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += (double)a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += (double)a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++)
+            s0 += (double)a[aOffset + i] * b[bOffset + i];
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private static double dotProduct(double[] a, int aOffset, float[] b, int bOffset, int length) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++)
+            s0 += a[aOffset + i] * b[bOffset + i];
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private static double sum(double[] values, int offset, int length) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            s0 += values[offset + i];
+            s1 += values[offset + i + 1];
+            s2 += values[offset + i + 2];
+            s3 += values[offset + i + 3];
+        }
+        for (; i < length; i++)
+            s0 += values[offset + i];
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private static double sum(float[] values, int offset, int length) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            s0 += values[offset + i];
+            s1 += values[offset + i + 1];
+            s2 += values[offset + i + 2];
+            s3 += values[offset + i + 3];
+        }
+        for (; i < length; i++)
+            s0 += values[offset + i];
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private static double max(double[] values, int offset, int length) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < length; i++) {
+            double value = values[offset + i];
+            max = value > max ? value : max;
+        }
+        return max;
+    }
+
+    private static double max(float[] values, int offset, int length) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < length; i++) {
+            double value = values[offset + i];
+            max = value > max ? value : max;
+        }
+        return max;
+    }
+
+    private static double[] doubleValues(IndexedTensor tensor) {
+        return tensor instanceof IndexedDoubleTensor doubleTensor ? doubleTensor.values() : null;
+    }
+
+    private static float[] floatValues(IndexedTensor tensor) {
+        if (tensor instanceof IndexedFloatTensor floatTensor) return floatTensor.values();
+        throw new IllegalArgumentException("Tensor must be dense, got " + tensor.getClass());
+    }
+
+    /** Returns the first length values of the given tensor as doubles, without copying if they are doubles */
+    private static double[] asDoubles(IndexedTensor tensor, int length) {
+        double[] values = doubleValues(tensor);
+        if (values != null) return values;
+
+        float[] floats = floatValues(tensor);
+        double[] doubles = new double[length];
+        for (int i = 0; i < length; i++)
+            doubles[i] = floats[i];
+        return doubles;
+    }
+
+}
@@ -32,6 +32,9 @@ class IndexedDoubleTensor extends IndexedTensor {
     @Override
     public float getFloat(long valueIndex) { return (float)get(valueIndex); }
 
+    /** Returns the values of this, which must not be modified */
+    double[] values() { return values; }
+
     @Override
     public IndexedTensor withType(TensorType type) {
         throwOnIncompatibleType(type);
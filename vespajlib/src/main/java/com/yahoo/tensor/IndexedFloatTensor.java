@@ -30,6 +30,9 @@ class IndexedFloatTensor extends IndexedTensor {
     @Override
     public float getFloat(long valueIndex) { return values[(int)valueIndex]; }
 
+    /** Returns the values of this, which must not be modified */
+    float[] values() { return values; }
+
     @Override
     public IndexedTensor withType(TensorType type) {
         throwOnIncompatibleType(type);
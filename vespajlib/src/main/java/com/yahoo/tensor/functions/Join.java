@@ -2,6 +2,7 @@
 package com.yahoo.tensor.functions;
 
 import com.google.common.collect.Sets;
+import com.yahoo.tensor.DenseKernels;
 import com.yahoo.tensor.DimensionSizes;
 import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.PartialAddress;
@@ -118,6 +119,9 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
 
     private static Tensor indexedVectorJoin(IndexedTensor a, IndexedTensor b, TensorType type, DoubleBinaryOperator combinator) {
         int joinedRank = (int)Math.min(a.dimensionSizes().size(0), b.dimensionSizes().size(0));
+        if (canJoinDense(a, b, combinator))
+            return IndexedTensor.Builder.of(type, new DimensionSizes.Builder(1).set(0, joinedRank).build(),
+                                            DenseKernels.join(a, b, joinedRank, combinator)).build();
         Iterator<Double> aIterator = a.valueIterator();
         Iterator<Double> bIterator = b.valueIterator();
         IndexedTensor.Builder builder = IndexedTensor.Builder.of(type, new DimensionSizes.Builder(1).set(0, joinedRank).build());
@@ -128,6 +132,9 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
 
     /** When both tensors have the same dimensions, at most one cell matches a cell in the other tensor */
     private static Tensor singleSpaceJoin(Tensor a, Tensor b, TensorType joinedType, DoubleBinaryOperator combinator) {
+        if (canJoinDense(a, b, combinator) && ((IndexedTensor)a).dimensionSizes().equals(((IndexedTensor)b).dimensionSizes()))
+            return IndexedTensor.Builder.of(joinedType, ((IndexedTensor)a).dimensionSizes(),
+                                            DenseKernels.join((IndexedTensor)a, (IndexedTensor)b, a.sizeAsInt(), combinator)).build();
         Tensor.Builder builder = Tensor.Builder.of(joinedType);
         for (Iterator<Tensor.Cell> i = a.cellIterator(); i.hasNext(); ) {
             Map.Entry<TensorAddress, Double> aCell = i.next();
@@ -153,6 +160,9 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
             return Tensor.Builder.of(joinedType, new DimensionSizes.Builder(joinedType.dimensions().size()).build()).build();
 
         DimensionSizes joinedSizes = joinedSize(joinedType, subspace, superspace);
+        if (canJoinDense(subspace, superspace, combinator) && isInnermostSubspace(subspace, superspace, joinedSizes))
+            return IndexedTensor.Builder.of(joinedType, joinedSizes,
+                                            DenseKernels.joinRepeated(subspace, superspace, reversedArgumentOrder, combinator)).build();
 
         IndexedTensor.Builder builder = (IndexedTensor.Builder)Tensor.Builder.of(joinedType, joinedSizes);
 
@@ -170,6 +180,23 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
         return builder.build();
     }
 
+    private static boolean canJoinDense(Tensor a, Tensor b, DoubleBinaryOperator combinator) {
+        return DenseKernels.isDense(a) && DenseKernels.isDense(b) && DenseKernels.canJoin(combinator);
+    }
+
+    /** Returns whether the subspace cells are repeated as the innermost cells of the superspace, with no cells left out */
+    private static boolean isInnermostSubspace(IndexedTensor subspace, IndexedTensor superspace, DimensionSizes joinedSizes) {
+        if ( ! joinedSizes.equals(superspace.dimensionSizes())) return false;
+        int offset = superspace.type().rank() - subspace.type().rank();
+        for (int i = 0; i < subspace.type().rank(); i++) {
+            if ( ! subspace.type().dimensions().get(i).name().equals(superspace.type().dimensions().get(offset + i).name()))
+                return false;
+            if (subspace.dimensionSizes().size(i) != superspace.dimensionSizes().size(offset + i))
+                return false;
+        }
+        return true;
+    }
+
     private static void joinSubspaces(Iterator<Double> subspace, long subspaceSize,
                                       Iterator<Tensor.Cell> superspace, long superspaceSize,
                                       boolean reversedArgumentOrder, IndexedTensor.Builder builder,
@@ -1,6 +1,7 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.tensor.functions;
 
+import com.yahoo.tensor.DenseKernels;
 import com.yahoo.tensor.DimensionSizes;
 import com.yahoo.tensor.DirectIndexedAddress;
 import com.yahoo.tensor.IndexedTensor;
@@ -122,6 +123,9 @@ public class Reduce<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMET
         if (dimensions.isEmpty() || dimensions.size() == argument.type().dimensions().size()) {
             if (argument.isEmpty())
                 return Tensor.from(0.0);
+            else if (DenseKernels.isDense(argument) && hasDenseKernel(aggregator))
+                return Tensor.Builder.of(TensorType.empty)
+                             .cell(aggregateDense((IndexedTensor)argument, 0, argument.sizeAsInt(), aggregator)).build();
             else if (argument.type().dimensions().size() == 1 && argument instanceof IndexedTensor)
                 return reduceIndexedVector((IndexedTensor) argument, aggregator);
             else
@@ -177,6 +181,9 @@ public class Reduce<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMET
     }
 
     private static Tensor reduceIndexedTensor(IndexedTensor argument, TensorType reducedType, int[] indexesToKeep, int[] indexesToReduce, Aggregator aggregator) {
+        if (DenseKernels.isDense(argument) && hasDenseKernel(aggregator) && ! argument.isEmpty() &&
+            keepsOnlyOutermostDimensions(argument, reducedType, indexesToKeep))
+            return reduceInnermostDense(argument, reducedType, aggregator);
 
         var reducedBuilder = IndexedTensor.Builder.of(reducedType);
         DirectIndexedAddress reducedAddress = DirectIndexedAddress.of(DimensionSizes.of(reducedType));
@@ -184,6 +191,35 @@ public class Reduce<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMET
         return reducedBuilder.build();
     }
 
+    private static boolean hasDenseKernel(Aggregator aggregator) {
+        return aggregator == Aggregator.sum || aggregator == Aggregator.max;
+    }
+
+    private static double aggregateDense(IndexedTensor argument, int offset, int length, Aggregator aggregator) {
+        return aggregator == Aggregator.sum ? DenseKernels.sum(argument, offset, length)
+                                            : DenseKernels.max(argument, offset, length);
+    }
+
+    /** Returns whether the dimensions to keep are the outermost dimensions of the argument, with the sizes of the reduced type */
+    private static boolean keepsOnlyOutermostDimensions(IndexedTensor argument, TensorType reducedType, int[] indexesToKeep) {
+        for (int i = 0; i < indexesToKeep.length; i++) {
+            if (indexesToKeep[i] != i) return false;
+            if (argument.dimensionSizes().size(i) != reducedType.dimensions().get(i).size().get()) return false;
+        }
+        return true;
+    }
+
+    /** Reduces the innermost dimensions, which means each reduced cell aggregates a contiguous block of cells */
+    private static Tensor reduceInnermostDense(IndexedTensor argument, TensorType reducedType, Aggregator aggregator) {
+        DimensionSizes reducedSizes = DimensionSizes.of(reducedType);
+        int reducedSize = Convert.safe2Int(reducedSizes.totalSize());
+        int blockSize = argument.sizeAsInt() / reducedSize;
+        double[] values = new double[reducedSize];
+        for (int i = 0; i < reducedSize; i++)
+            values[i] = aggregateDense(argument, i * blockSize, blockSize, aggregator);
+        return IndexedTensor.Builder.of(reducedType, reducedSizes, values).build();
+    }
+
     private static Tensor reduceGeneral(Tensor argument, TensorType reducedType, int[] indexesToKeep, Aggregator aggregator) {
         // TODO cells.size() is most likely an overestimate, and might need a better heuristic
         // But the upside is larger than the downside.
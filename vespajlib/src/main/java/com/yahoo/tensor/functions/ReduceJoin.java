@@ -1,6 +1,7 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.tensor.functions;
 
+import com.yahoo.tensor.DenseKernels;
 import com.yahoo.tensor.DimensionSizes;
 import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.Tensor;
@@ -147,6 +148,11 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
         IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder)IndexedTensor.Builder.of(reducedType);
         long commonSize = Math.min(a.dimensionSizes().size(0), b.dimensionSizes().size(0));
 
+        if (isDenseDotProduct(a, b)) {
+            builder.cellByDirectIndex(0, DenseKernels.dotProduct(a, 0, b, 0, (int)commonSize));
+            return builder.build();
+        }
+
         Reduce.ValueAggregator agg = Reduce.ValueAggregator.ofType(aggregator);
         for (int ic = 0; ic < commonSize; ++ic) {
             double va = a.get(ic);
@@ -165,6 +171,13 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
         DimensionSizes sizesA = a.dimensionSizes();
         DimensionSizes sizesB = b.dimensionSizes();
 
+        if (isDenseDotProduct(a, b)) { // multiplication commutes, so swapping does not matter
+            int commonSize = (int)Math.min(sizesA.size(0), sizesB.size(1));
+            for (int ib = 0; ib < sizesB.size(0); ++ib)
+                builder.cellByDirectIndex(ib, DenseKernels.dotProduct(a, 0, b, (int)(ib * sizesB.size(1)), commonSize));
+            return builder.build();
+        }
+
         Reduce.ValueAggregator agg = Reduce.ValueAggregator.ofType(aggregator);
         for (int ib = 0; ib < sizesB.size(0); ++ib) {
             agg.reset();
@@ -191,6 +204,17 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
         long strideA = iaToReduced < ibToReduced ? sizesB.size(0) : 1;
         long strideB = ibToReduced < iaToReduced ? sizesA.size(0) : 1;
 
+        if (isDenseDotProduct(a, b)) {
+            int commonSize = (int)Math.min(sizesA.size(1), sizesB.size(1));
+            for (int ia = 0; ia < sizesA.size(0); ++ia) {
+                for (int ib = 0; ib < sizesB.size(0); ++ib) {
+                    double product = DenseKernels.dotProduct(a, (int)(ia * sizesA.size(1)), b, (int)(ib * sizesB.size(1)), commonSize);
+                    builder.cellByDirectIndex(ia * strideA + ib * strideB, product);
+                }
+            }
+            return builder.build();
+        }
+
         Reduce.ValueAggregator agg = Reduce.ValueAggregator.ofType(aggregator);
         for (int ia = 0; ia < sizesA.size(0); ++ia) {
             for (int ib = 0; ib < sizesB.size(0); ++ib) {
@@ -206,6 +230,12 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
         return builder.build();
     }
 
+    /** Returns whether this is a sum of products of dense tensors, which can be computed with primitive kernels */
+    private boolean isDenseDotProduct(IndexedTensor a, IndexedTensor b) {
+        return aggregator == Reduce.Aggregator.sum && combinator instanceof ScalarFunctions.Multiply &&
+               DenseKernels.isDense(a) && DenseKernels.isDense(b);
+    }
+
     private Tensor evaluateGeneral(IndexedTensor a, IndexedTensor b, TensorType reducedType) {
         IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder)IndexedTensor.Builder.of(reducedType);
         TensorType onlyInA = Reduce.outputType(a.type(), dimensions);
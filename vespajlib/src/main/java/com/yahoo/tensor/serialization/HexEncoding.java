@@ -3,6 +3,7 @@ package com.yahoo.tensor.serialization;
 
 import com.yahoo.tensor.TensorType;
 
+import java.util.Arrays;
 import java.util.Optional;
 
 /**
@@ -12,6 +13,16 @@ import java.util.Optional;
  */
 public class HexEncoding {
 
+    /** Nibble values of hex digit characters, or -1 for other characters below 128. */
+    private static final byte[] hexValues = new byte[128];
+    static {
+        Arrays.fill(hexValues, (byte) -1);
+        for (int d = 0; d < 16; d++) {
+            hexValues[Character.forDigit(d, 16)] = (byte) d;
+            hexValues[Character.toUpperCase(Character.forDigit(d, 16))] = (byte) d;
+        }
+    }
+
     /** Returns the reason this isn't a valid hex string, or empty if it is valid. */
     public static Optional<String> validateHex(String hex, TensorType targetType) {
         long expectedValueCount = denseValueCount(targetType);
@@ -106,12 +117,8 @@ public class HexEncoding {
     private static double[] decodeHexStringAsBytes(String input) {
         int l = input.length() / 2;
         double[] result = new double[l];
-        int idx = 0;
-        for (int i = 0; i < l; i++) {
-            byte v = decodeHex(input, idx++);
-            v <<= 4;
-            v += decodeHex(input, idx++);
-            result[i] = v;
+        for (int i = 0, idx = 0; i < l; i++, idx += 2) {
+            result[i] = (byte) decodeBits(input, idx, 2);
         }
         return result;
     }
@@ -119,14 +126,8 @@ public class HexEncoding {
     private static double[] decodeHexStringAsBFloat16s(String input) {
         int l = input.length() / 4;
         double[] result = new double[l];
-        int idx = 0;
-        for (int i = 0; i < l; i++) {
-            int v = decodeHex(input, idx++);
-            v <<= 4; v += decodeHex(input, idx++);
-            v <<= 4; v += decodeHex(input, idx++);
-            v <<= 4; v += decodeHex(input, idx++);
-            v <<= 16;
-            result[i] = Float.intBitsToFloat(v);
+        for (int i = 0, idx = 0; i < l; i++, idx += 4) {
+            result[i] = Float.intBitsToFloat((int) decodeBits(input, idx, 4) << 16);
         }
         return result;
     }
@@ -134,14 +135,8 @@ public class HexEncoding {
     private static double[] decodeHexStringAsFloats(String input) {
         int l = input.length() / 8;
         double[] result = new double[l];
-        int idx = 0;
-        for (int i = 0; i < l; i++) {
-            int v = 0;
-            for (int j = 0; j < 8; j++) {
-                v <<= 4;
-                v += decodeHex(input, idx++);
-            }
-            result[i] = Float.intBitsToFloat(v);
+        for (int i = 0, idx = 0; i < l; i++, idx += 8) {
+            result[i] = Float.intBitsToFloat((int) decodeBits(input, idx, 8));
         }
         return result;
     }
@@ -149,25 +144,24 @@ public class HexEncoding {
     private static double[] decodeHexStringAsDoubles(String input) {
         int l = input.length() / 16;
         double[] result = new double[l];
-        int idx = 0;
-        for (int i = 0; i < l; i++) {
-            long v = 0;
-            for (int j = 0; j < 16; j++) {
-                v <<= 4;
-                v += decodeHex(input, idx++);
-            }
-            result[i] = Double.longBitsToDouble(v);
+        for (int i = 0, idx = 0; i < l; i++, idx += 16) {
+            result[i] = Double.longBitsToDouble(decodeBits(input, idx, 16));
         }
         return result;
     }
 
-    private static byte decodeHex(String input, int index) {
-        int d = Character.digit(input.charAt(index), 16);
-        if (d < 0) {
-            throw new IllegalArgumentException("Invalid digit '" + input.charAt(index) +
-                                               "' at index " + index + " in input " + input);
+    /** Returns the bits given by the given number of hex digits, starting at the given index. */
+    private static long decodeBits(String input, int index, int digits) {
+        long bits = 0;
+        for (int end = index + digits; index < end; index++) {
+            char c = input.charAt(index);
+            int d = c < 128 ? hexValues[c] : -1;
+            if (d < 0) {
+                throw new IllegalArgumentException("Invalid digit '" + c + "' at index " + index + " in input " + input);
+            }
+            bits = (bits << 4) | d;
         }
-        return (byte)d;
+        return bits;
     }
 
 }
@@ -22,6 +22,7 @@ import java.util.Locale;
 import com.yahoo.tensor.TensorType;
 import java.util.Iterator;
 import java.util.function.Function;
+import java.util.function.IntToDoubleFunction;
 
 /**
  * Writes tensors on the JSON format used in Vespa tensor document fields:
@@ -156,60 +157,31 @@ public class JsonFormat {
 
 
     private static String asHexString(IndexedTensor tensor) {
-        return asHexString(tensor.sizeAsInt(),
-                           tensor.type().valueType(),
-                           i -> tensor.get(i),
-                           i -> tensor.getFloat(i));
-    }
-
-    private static String asHexString(int denseSize,
-                                      TensorType.Value cellType,
-                                      Function<Integer, Double> dblSrc,
-                                      Function<Integer, Float> fltSrc)
-    {
-        StringBuilder buf = new StringBuilder();
-        switch (cellType) {
-            case DOUBLE:
-                for (int i = 0; i < denseSize; i++) {
-                    double d = dblSrc.apply(i);
-                    long bits = Double.doubleToRawLongBits(d);
-                    for (int nibble = 16; nibble-- > 0; ) {
-                        int digit = (int) (bits >> (4 * nibble)) & 0xF;
-                        buf.append(hexDigits[digit]);
-                    }
-                }
-                break;
-            case FLOAT:
-                for (int i = 0; i < denseSize; i++) {
-                    float f = fltSrc.apply(i);
-                    int bits = Float.floatToRawIntBits(f);
-                    for (int nibble = 8; nibble-- > 0; ) {
-                        int digit = (bits >> (4 * nibble)) & 0xF;
-                        buf.append(hexDigits[digit]);
-                    }
-                }
-                break;
-            case BFLOAT16:
-                for (int i = 0; i < denseSize; i++) {
-                    float f = fltSrc.apply(i);
-                    int bits = Float.floatToRawIntBits(f);
-                    for (int nibble = 8; nibble-- > 4; ) {
-                        int digit = (bits >> (4 * nibble)) & 0xF;
-                        buf.append(hexDigits[digit]);
-                    }
-                }
-                break;
-            case INT8:
-                for (int i = 0; i < denseSize; i++) {
-                    byte bits = fltSrc.apply(i).byteValue();
-                    for (int nibble = 2; nibble-- > 0; ) {
-                        int digit = (bits >> (4 * nibble)) & 0xF;
-                        buf.append(hexDigits[digit]);
-                    }
-                }
-                break;
+        return asHexString(tensor.sizeAsInt(), tensor.type().valueType(), tensor::get);
+    }
+
+    private static String asHexString(int denseSize, TensorType.Value cellType, IntToDoubleFunction source) {
+        int digitsPerCell = switch (cellType) {
+            case DOUBLE -> 16;
+            case FLOAT -> 8;
+            case BFLOAT16 -> 4;
+            case INT8 -> 2;
+        };
+        char[] buf = new char[denseSize * digitsPerCell];
+        int pos = 0;
+        for (int i = 0; i < denseSize; i++) {
+            double value = source.applyAsDouble(i);
+            long bits = switch (cellType) {
+                case DOUBLE -> Double.doubleToRawLongBits(value);
+                case FLOAT -> Float.floatToRawIntBits((float) value);
+                case BFLOAT16 -> Float.floatToRawIntBits((float) value) >>> 16;
+                case INT8 -> (byte) (int) (float) value;
+            };
+            for (int nibble = digitsPerCell; nibble-- > 0; ) {
+                buf[pos++] = hexDigits[(int) (bits >> (4 * nibble)) & 0xF];
+            }
         }
-        return buf.toString();
+        return new String(buf);
     }
 
     private static void encodeDenseValues(IndexedTensor tensor, Cursor target) {
@@ -233,10 +205,7 @@ public class JsonFormat {
 
     private static void encodeLabeledSubspace(String label, MixedTensor.DenseSubspace subspace, TensorType denseSubType, Cursor cursor, boolean hexForDensePart) {
         if (hexForDensePart) {
-            cursor.setString(label, asHexString(subspace.cells.length,
-                                                denseSubType.valueType(),
-                                                i -> subspace.cells[i],
-                                                i -> (float)subspace.cells[i]));
+            cursor.setString(label, asHexString(subspace.cells.length, denseSubType.valueType(), i -> subspace.cells[i]));
         } else {
             IndexedTensor denseSubspace = IndexedTensor.Builder.of(denseSubType, subspace.cells).build();
             var target = cursor.setArray(label);
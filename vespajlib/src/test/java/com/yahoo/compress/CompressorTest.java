@@ -3,6 +3,7 @@ package com.yahoo.compress;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
@@ -24,4 +25,17 @@ class CompressorTest {
         assertArrayEquals(inputData, decompressedData);
     }
 
+    @Test
+    void decompresses_into_given_array() {
+        byte[] inputData = "The quick brown fox jumps over the lazy dog, again and again and again".repeat(10).getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        Compressor compressor = new Compressor(CompressionType.LZ4, 5, 0.95, 0);
+        for (CompressionType type : new CompressionType[] { CompressionType.NONE, CompressionType.LZ4, CompressionType.ZSTD }) {
+            Compressor.Compression compression = compressor.compress(type, inputData, Optional.empty());
+            assertEquals(type, compression.type());
+            byte[] destination = new byte[inputData.length + 10];
+            compressor.decompress(compression.type(), compression.data(), 0, compression.data().length, destination, inputData.length);
+            assertArrayEquals(inputData, Arrays.copyOf(destination, inputData.length));
+        }
+    }
+
 }
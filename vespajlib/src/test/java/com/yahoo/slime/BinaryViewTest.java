@@ -2,6 +2,7 @@
 package com.yahoo.slime;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.function.Consumer;
 
@@ -315,6 +316,18 @@ public class BinaryViewTest {
         }
     }
 
+    @Test public void testBinaryViewOfArrayRange() {
+        for (int i = 0; i < numShapes; ++i) {
+            var slime = makeSlime(i);
+            ctx = "case " + i + ": '" + slime.toString() + "'";
+            byte[] encoded = BinaryFormat.encode(slime);
+            byte[] data = new byte[encoded.length + 7];
+            Arrays.fill(data, (byte)-1);
+            System.arraycopy(encoded, 0, data, 4, encoded.length);
+            checkParity(slime.get(), BinaryView.inspect(data, 4, encoded.length));
+        }
+    }
+
     @Test public void testTrivialView() {
         byte[] data = {0, 0};
         var view = BinaryView.inspect(data);
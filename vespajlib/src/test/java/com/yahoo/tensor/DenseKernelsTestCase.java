@@ -0,0 +1,112 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor;
+
+import com.yahoo.tensor.functions.ScalarFunctions;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.function.DoubleBinaryOperator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that tensor functions evaluated by dense kernels produce the same results as the general implementations.
+ */
+public class DenseKernelsTestCase {
+
+    @Test
+    public void testDotProduct() {
+        IndexedTensor a = (IndexedTensor)Tensor.from("tensor(x[7])", "[1, 2, 3, 4, 5, 6, 7]");
+        IndexedTensor b = (IndexedTensor)Tensor.from("tensor<float>(x[7])", "[7, 6, 5, 4, 3, 2, 1]");
+        assertEquals(84, DenseKernels.dotProduct(a, 0, b, 0, 7), 0);
+        assertEquals(84, DenseKernels.dotProduct(b, 0, a, 0, 7), 0);
+        assertEquals(140, DenseKernels.dotProduct(a, 0, a, 0, 7), 0);
+        assertEquals(140, DenseKernels.dotProduct(b, 0, b, 0, 7), 0);
+        assertEquals(2 * 6 + 3 * 5 + 4 * 4, DenseKernels.dotProduct(a, 1, b, 1, 3), 0);
+        assertEquals(0, DenseKernels.dotProduct(a, 0, b, 0, 0), 0);
+    }
+
+    @Test
+    public void testSumAndMax() {
+        IndexedTensor a = (IndexedTensor)Tensor.from("tensor<float>(x[6])", "[1, -2, NaN, 4, 5, 3]");
+        assertEquals(4, DenseKernels.max(a, 0, 4), 0);
+        assertEquals(5, DenseKernels.max(a, 0, 6), 0);
+        assertEquals(Double.NEGATIVE_INFINITY, DenseKernels.max(a, 2, 1), 0);
+        assertEquals(12, DenseKernels.sum(a, 3, 3), 0);
+        assertEquals(-1, DenseKernels.sum(a, 0, 2), 0);
+    }
+
+    @Test
+    public void testJoinOnlyAcceptsKnownCombinators() {
+        assertTrue(DenseKernels.canJoin(ScalarFunctions.multiply()));
+        assertTrue(DenseKernels.canJoin(ScalarFunctions.max()));
+        assertFalse(DenseKernels.canJoin((a, b) -> a * b));
+        assertFalse(DenseKernels.canJoin(ScalarFunctions.divide()));
+        assertFalse(DenseKernels.isDense(Tensor.from("tensor(x{}):{a:1}")));
+        assertTrue(DenseKernels.isDense(Tensor.from("tensor<float>(x[1]):[1]")));
+    }
+
+    @Test
+    public void testDenseJoinsEqualGeneralJoins() {
+        String matrix = "tensor(x[2],y[3]):[[1, 2, 3], [4, 5, 6]]";
+        String floatMatrix = "tensor<float>(x[2],y[3]):[[6, -5, 4], [3, 2, 1]]";
+        String vector = "tensor(y[3]):[10, 20, 30]";
+        String floatVector = "tensor<float>(y[3]):[3, 1, 2]";
+        for (var combinator : new DoubleBinaryOperator[] { ScalarFunctions.add(), ScalarFunctions.subtract(),
+                                                            ScalarFunctions.multiply(), ScalarFunctions.max(),
+                                                            ScalarFunctions.min() }) {
+            assertJoin(matrix, floatMatrix, combinator);
+            assertJoin(floatMatrix, matrix, combinator);
+            assertJoin(matrix, vector, combinator);
+            assertJoin(vector, floatMatrix, combinator);
+            assertJoin(vector, floatVector, combinator);
+            assertJoin(floatVector, floatVector, combinator);
+            assertJoin("tensor(y[]):[1, 2, 3, 4]", "tensor(y[]):[5, 6, 7]", combinator);
+        }
+    }
+
+    @Test
+    public void testDenseReducesEqualExpectedResults() {
+        Tensor matrix = Tensor.from("tensor<float>(x[2],y[3]):[[1, 2, 3], [4, 5, 6]]");
+        assertEquals(Tensor.from("tensor<float>(x[2]):[6, 15]"), matrix.sum("y"));
+        assertEquals(Tensor.from("tensor<float>(x[2]):[3, 6]"), matrix.max("y"));
+        assertEquals(Tensor.from("tensor<float>(y[3]):[5, 7, 9]"), matrix.sum("x"));
+        assertEquals(Tensor.from(21.0), matrix.sum());
+        assertEquals(Tensor.from(6.0), matrix.max());
+
+        Tensor cube = Tensor.from("tensor(x[2],y[2],z[2]):[[[1, 2], [3, 4]], [[5, 6], [7, 8]]]");
+        assertEquals(Tensor.from("tensor(x[2]):[10, 26]"), cube.sum(List.of("y", "z")));
+        assertEquals(Tensor.from("tensor(x[2],y[2]):[[2, 4], [6, 8]]"), cube.max("z"));
+    }
+
+    @Test
+    public void testDenseMatmul() {
+        Tensor a = Tensor.from("tensor(i[2],j[3]):[[1, 2, 3], [4, 5, 6]]");
+        Tensor b = Tensor.from("tensor<float>(j[3],k[2]):[[1, 0], [0, 1], [1, 1]]");
+        Tensor v = Tensor.from("tensor<float>(j[3]):[1, 2, 3]");
+        assertEquals(Tensor.from("tensor(i[2],k[2]):[[4, 5], [10, 11]]"), a.matmul(b, "j"));
+        assertEquals(Tensor.from("tensor(i[2]):[14, 32]"), a.matmul(v, "j"));
+        assertEquals(14.0, v.matmul(v, "j").asDouble(), 0);
+    }
+
+    private static void assertJoin(String a, String b, DoubleBinaryOperator combinator) {
+        Tensor ta = Tensor.from(a), tb = Tensor.from(b);
+        Tensor dense = ta.join(tb, combinator);
+        Tensor general = ta.join(tb, (x, y) -> combinator.applyAsDouble(x, y));
+        assertEquals(general, dense);
+        assertEquals(general.type(), dense.type());
+        assertArrayEquals(toArray(general), toArray(dense), 0);
+    }
+
+    private static double[] toArray(Tensor tensor) {
+        double[] values = new double[tensor.sizeAsInt()];
+        int i = 0;
+        for (var iterator = tensor.valueIterator(); iterator.hasNext(); )
+            values[i++] = iterator.next();
+        return values;
+    }
+
+}